@@ -40,5 +40,9 @@ public enum Capability {
     SIGNED_ACCOUNT_AGE_WITNESS,         // Supports the signed account age witness feature
     MEDIATION,                          // Supports mediation feature
     REFUND_AGENT,                       // Supports refund agents
-    TRADE_STATISTICS_HASH_UPDATE        // We changed the hash method in 1.2.0 and that requires update to 1.2.2 for handling it correctly, otherwise the seed nodes have to process too much data.
+    TRADE_STATISTICS_HASH_UPDATE,       // We changed the hash method in 1.2.0 and that requires update to 1.2.2 for handling it correctly, otherwise the seed nodes have to process too much data.
+    GET_DATA_RESPONSE_PARTS,            // Supports receiving the GetDataResponse in several parts
+    EXCLUDED_KEYS_FILTER,               // Supports a bloom filter for the excluded keys of the append only data in GetDataRequests
+    INCREMENTAL_DAO_STATE_HASH,         // Node uses the incremental DAO state hash. Only set if enabled by the incrementalDaoStateHash option
+    GET_BLOCKS_RESPONSE_PARTS           // Supports receiving the GetBlocksResponse in several compressed parts
 }
@@ -74,6 +74,7 @@ public class Config {
     public static final String WALLET_DIR = "walletDir";
     public static final String USE_DEV_PRIVILEGE_KEYS = "useDevPrivilegeKeys";
     public static final String DUMP_STATISTICS = "dumpStatistics";
+    public static final String PERSIST_TRADABLES_SEPARATELY = "persistTradablesSeparately";
     public static final String IGNORE_DEV_MSG = "ignoreDevMsg";
     public static final String PROVIDERS = "providers";
     public static final String SEED_NODES = "seedNodes";
@@ -95,6 +96,13 @@ public class Config {
     public static final String MSG_THROTTLE_PER_10_SEC = "msgThrottlePer10Sec";
     public static final String SEND_MSG_THROTTLE_TRIGGER = "sendMsgThrottleTrigger";
     public static final String SEND_MSG_THROTTLE_SLEEP = "sendMsgThrottleSleep";
+    public static final String SEND_MSG_BURST_CAPACITY = "sendMsgBurstCapacity";
+    public static final String EXCLUDED_KEYS_FALSE_POSITIVE_RATE = "excludedKeysFalsePositiveRate";
+    public static final String MAILBOX_DECRYPTION_THREADS = "mailboxDecryptionThreads";
+    public static final String NIO_TRANSPORT = "nioTransport";
+    public static final String USE_VIRTUAL_THREADS = "useVirtualThreads";
+    public static final String NETWORK_METRICS_EXPORT = "networkMetricsExport";
+    public static final String STORAGE_LISTENER_BATCH_MILLIS = "storageListenerBatchMillis";
     public static final String IGNORE_LOCAL_BTC_NODE = "ignoreLocalBtcNode";
     public static final String BITCOIN_REGTEST_HOST = "bitcoinRegtestHost";
     public static final String BTC_NODES = "btcNodes";
@@ -108,12 +116,15 @@ public class Config {
     public static final String RPC_PORT = "rpcPort";
     public static final String RPC_BLOCK_NOTIFICATION_PORT = "rpcBlockNotificationPort";
     public static final String RPC_BLOCK_NOTIFICATION_HOST = "rpcBlockNotificationHost";
+    public static final String RPC_BLOCK_FETCH_PARALLELISM = "rpcBlockFetchParallelism";
+    public static final String RPC_BLOCK_READ_AHEAD = "rpcBlockReadAhead";
     public static final String DUMP_BLOCKCHAIN_DATA = "dumpBlockchainData";
     public static final String FULL_DAO_NODE = "fullDaoNode";
     public static final String GENESIS_TX_ID = "genesisTxId";
     public static final String GENESIS_BLOCK_HEIGHT = "genesisBlockHeight";
     public static final String GENESIS_TOTAL_SUPPLY = "genesisTotalSupply";
     public static final String DAO_ACTIVATED = "daoActivated";
+    public static final String INCREMENTAL_DAO_STATE_HASH = "incrementalDaoStateHash";
 
     // Default values for certain options
     public static final int UNSPECIFIED_PORT = -1;
@@ -157,6 +168,7 @@ public class Config {
     public final boolean useDevMode;
     public final boolean useDevPrivilegeKeys;
     public final boolean dumpStatistics;
+    public final boolean persistTradablesSeparately;
     public final boolean ignoreDevMsg;
     public final List<String> providers;
     public final List<String> seedNodes;
@@ -175,7 +187,15 @@ public class Config {
     public final int msgThrottlePerSec;
     public final int msgThrottlePer10Sec;
     public final int sendMsgThrottleTrigger;
+    @Deprecated
     public final int sendMsgThrottleSleep;
+    public final int sendMsgBurstCapacity;
+    public final double excludedKeysFalsePositiveRate;
+    public final int mailboxDecryptionThreads;
+    public final boolean nioTransport;
+    public final boolean useVirtualThreads;
+    public final String networkMetricsExport;
+    public final int storageListenerBatchMillis;
     public final String btcNodes;
     public final boolean useTorForBtc;
     public final boolean useTorForBtcOptionSetExplicitly;
@@ -189,12 +209,15 @@ public class Config {
     public final int rpcPort;
     public final int rpcBlockNotificationPort;
     public final String rpcBlockNotificationHost;
+    public final int rpcBlockFetchParallelism;
+    public final int rpcBlockReadAhead;
     public final boolean dumpBlockchainData;
     public final boolean fullDaoNode;
     public final boolean fullDaoNodeOptionSetExplicitly;
     public final String genesisTxId;
     public final int genesisBlockHeight;
     public final long genesisTotalSupply;
+    public final boolean incrementalDaoStateHash;
 
     // Properties derived from options but not exposed as options themselves
     public final File torDir;
@@ -361,6 +384,14 @@ public class Config {
                         .ofType(boolean.class)
                         .defaultsTo(false);
 
+        ArgumentAcceptingOptionSpec<Boolean> persistTradablesSeparatelyOpt =
+                parser.accepts(PERSIST_TRADABLES_SEPARATELY, "If set to true each pending, closed and failed trade " +
+                        "is persisted in its own file and only the file of a changed trade gets written. Existing " +
+                        "trade lists are migrated at startup.")
+                        .withRequiredArg()
+                        .ofType(boolean.class)
+                        .defaultsTo(false);
+
         ArgumentAcceptingOptionSpec<Boolean> ignoreDevMsgOpt =
                 parser.accepts(IGNORE_DEV_MSG, "If set to true all signed " +
                         "network_messages from bisq developers are ignored (Global " +
@@ -476,16 +507,73 @@ public class Config {
                         .defaultsTo(1000);
 
         ArgumentAcceptingOptionSpec<Integer> sendMsgThrottleTriggerOpt =
-                parser.accepts(SEND_MSG_THROTTLE_TRIGGER, "Time in ms when we trigger a sleep if 2 messages are sent")
+                parser.accepts(SEND_MSG_THROTTLE_TRIGGER, "Average time in ms between 2 messages sent to a peer. " +
+                        "Messages sent more frequently get bundled")
                         .withRequiredArg()
                         .ofType(int.class)
-                        .defaultsTo(20); // Time in ms when we trigger a sleep if 2 messages are sent
+                        .defaultsTo(20);
 
         ArgumentAcceptingOptionSpec<Integer> sendMsgThrottleSleepOpt =
-                parser.accepts(SEND_MSG_THROTTLE_SLEEP, "Pause in ms to sleep if we get too many messages to send")
+                parser.accepts(SEND_MSG_THROTTLE_SLEEP, "Deprecated and ignored. We don't sleep anymore if we " +
+                        "get too many messages to send, see " + SEND_MSG_BURST_CAPACITY)
+                        .withRequiredArg()
+                        .ofType(int.class)
+                        .defaultsTo(50);
+
+        ArgumentAcceptingOptionSpec<Integer> sendMsgBurstCapacityOpt =
+                parser.accepts(SEND_MSG_BURST_CAPACITY, "Number of messages we send to a peer in a burst before " +
+                        "we send on average one message per " + SEND_MSG_THROTTLE_TRIGGER + " ms")
                         .withRequiredArg()
                         .ofType(int.class)
-                        .defaultsTo(50); // Pause in ms to sleep if we get too many messages to send
+                        .defaultsTo(2);
+
+        ArgumentAcceptingOptionSpec<Double> excludedKeysFalsePositiveRateOpt =
+                parser.accepts(EXCLUDED_KEYS_FALSE_POSITIVE_RATE,
+                        "False positive rate of the filter for known data in data requests to peers. " +
+                                "A false positive means we miss that data from that request. " +
+                                "Must be greater than 0 and less than 1.")
+                        .withRequiredArg()
+                        .ofType(double.class)
+                        .defaultsTo(0.001);
+
+        ArgumentAcceptingOptionSpec<Integer> mailboxDecryptionThreadsOpt =
+                parser.accepts(MAILBOX_DECRYPTION_THREADS,
+                        "Number of threads used for trying to decrypt mailbox messages. " +
+                                "If set to 0 decryption is done on the user thread.")
+                        .withRequiredArg()
+                        .ofType(int.class)
+                        .defaultsTo(Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+
+        ArgumentAcceptingOptionSpec<Boolean> nioTransportOpt =
+                parser.accepts(NIO_TRANSPORT,
+                        "Use non-blocking sockets served by a few selector threads instead of a thread per " +
+                                "connection. Only supported together with --" + USE_LOCALHOST_FOR_P2P)
+                        .withRequiredArg()
+                        .ofType(boolean.class)
+                        .defaultsTo(false);
+
+        ArgumentAcceptingOptionSpec<Boolean> useVirtualThreadsOpt =
+                parser.accepts(USE_VIRTUAL_THREADS,
+                        "Use virtual threads for the socket IO of P2P network connections. " +
+                                "Requires Java 21 or newer, otherwise platform threads are used.")
+                        .withRequiredArg()
+                        .ofType(boolean.class)
+                        .defaultsTo(false);
+
+        ArgumentAcceptingOptionSpec<String> networkMetricsExportOpt =
+                parser.accepts(NETWORK_METRICS_EXPORT,
+                        "Write metrics per P2P network message type every minute to the data directory")
+                        .withRequiredArg()
+                        .describedAs("prometheus|json[,...]")
+                        .defaultsTo("");
+
+        ArgumentAcceptingOptionSpec<Integer> storageListenerBatchMillisOpt =
+                parser.accepts(STORAGE_LISTENER_BATCH_MILLIS,
+                        "Time window in ms in which added and removed P2P storage entries are collected and " +
+                                "delivered to the listeners in one batch. If set to 0 listeners are called immediately.")
+                        .withRequiredArg()
+                        .ofType(int.class)
+                        .defaultsTo(100);
 
         ArgumentAcceptingOptionSpec<String> btcNodesOpt =
                 parser.accepts(BTC_NODES, "Custom nodes used for BitcoinJ as comma separated IP addresses.")
@@ -558,6 +646,20 @@ public class Config {
                         .withRequiredArg()
                         .defaultsTo("");
 
+        ArgumentAcceptingOptionSpec<Integer> rpcBlockFetchParallelismOpt =
+                parser.accepts(RPC_BLOCK_FETCH_PARALLELISM,
+                        "Max. number of concurrent requests for blocks to Bitcoin Core when a full DAO node syncs")
+                        .withRequiredArg()
+                        .ofType(int.class)
+                        .defaultsTo(4);
+
+        ArgumentAcceptingOptionSpec<Integer> rpcBlockReadAheadOpt =
+                parser.accepts(RPC_BLOCK_READ_AHEAD,
+                        "Max. number of blocks a full DAO node requests from Bitcoin Core ahead of the block it parses")
+                        .withRequiredArg()
+                        .ofType(int.class)
+                        .defaultsTo(16);
+
         ArgumentAcceptingOptionSpec<Boolean> dumpBlockchainDataOpt =
                 parser.accepts(DUMP_BLOCKCHAIN_DATA, "If set to true the blockchain data " +
                         "from RPC requests to Bitcoin Core are stored as json file in the data dir.")
@@ -597,6 +699,15 @@ public class Config {
                         .ofType(boolean.class)
                         .defaultsTo(true);
 
+        ArgumentAcceptingOptionSpec<Boolean> incrementalDaoStateHashOpt =
+                parser.accepts(INCREMENTAL_DAO_STATE_HASH, "If set to true the DAO state hash is updated " +
+                        "incrementally at each change instead of hashing the serialized DAO state at each block. " +
+                        "The hashes are only compared with peers using the same mode. Changing the mode requires " +
+                        "to rebuild the DAO state from the genesis block.")
+                        .withRequiredArg()
+                        .ofType(boolean.class)
+                        .defaultsTo(false);
+
         try {
             CompositeOptionSet options = new CompositeOptionSet();
 
@@ -669,6 +780,7 @@ public class Config {
             this.useDevMode = options.valueOf(useDevModeOpt);
             this.useDevPrivilegeKeys = options.valueOf(useDevPrivilegeKeysOpt);
             this.dumpStatistics = options.valueOf(dumpStatisticsOpt);
+            this.persistTradablesSeparately = options.valueOf(persistTradablesSeparatelyOpt);
             this.ignoreDevMsg = options.valueOf(ignoreDevMsgOpt);
             this.providers = options.valuesOf(providersOpt);
             this.seedNodes = options.valuesOf(seedNodesOpt);
@@ -681,6 +793,13 @@ public class Config {
             this.msgThrottlePer10Sec = options.valueOf(msgThrottlePer10SecOpt);
             this.sendMsgThrottleTrigger = options.valueOf(sendMsgThrottleTriggerOpt);
             this.sendMsgThrottleSleep = options.valueOf(sendMsgThrottleSleepOpt);
+            this.sendMsgBurstCapacity = options.valueOf(sendMsgBurstCapacityOpt);
+            this.excludedKeysFalsePositiveRate = options.valueOf(excludedKeysFalsePositiveRateOpt);
+            this.mailboxDecryptionThreads = options.valueOf(mailboxDecryptionThreadsOpt);
+            this.nioTransport = options.valueOf(nioTransportOpt);
+            this.useVirtualThreads = options.valueOf(useVirtualThreadsOpt);
+            this.networkMetricsExport = options.valueOf(networkMetricsExportOpt);
+            this.storageListenerBatchMillis = options.valueOf(storageListenerBatchMillisOpt);
             this.btcNodes = options.valueOf(btcNodesOpt);
             this.useTorForBtc = options.valueOf(useTorForBtcOpt);
             this.useTorForBtcOptionSetExplicitly = options.has(useTorForBtcOpt);
@@ -694,6 +813,8 @@ public class Config {
             this.rpcPort = options.valueOf(rpcPortOpt);
             this.rpcBlockNotificationPort = options.valueOf(rpcBlockNotificationPortOpt);
             this.rpcBlockNotificationHost = options.valueOf(rpcBlockNotificationHostOpt);
+            this.rpcBlockFetchParallelism = options.valueOf(rpcBlockFetchParallelismOpt);
+            this.rpcBlockReadAhead = options.valueOf(rpcBlockReadAheadOpt);
             this.dumpBlockchainData = options.valueOf(dumpBlockchainDataOpt);
             this.fullDaoNode = options.valueOf(fullDaoNodeOpt);
             this.fullDaoNodeOptionSetExplicitly = options.has(fullDaoNodeOpt);
@@ -701,6 +822,7 @@ public class Config {
             this.genesisBlockHeight = options.valueOf(genesisBlockHeightOpt);
             this.genesisTotalSupply = options.valueOf(genesisTotalSupplyOpt);
             this.daoActivated = options.valueOf(daoActivatedOpt) || !baseCurrencyNetwork.isMainnet();
+            this.incrementalDaoStateHash = options.valueOf(incrementalDaoStateHashOpt);
         } catch (OptionException ex) {
             throw new ConfigException("problem parsing option '%s': %s",
                     ex.options().get(0),
@@ -709,6 +831,12 @@ public class Config {
                             ex.getMessage());
         }
 
+        // With 0 the filter would get too large to be allocated, with 1 or more it would contain all keys so we
+        // would not get any data
+        if (!(excludedKeysFalsePositiveRate > 0 && excludedKeysFalsePositiveRate < 1))
+            throw new ConfigException("The '%s' option must be greater than 0 and less than 1 but is %s",
+                    EXCLUDED_KEYS_FALSE_POSITIVE_RATE, excludedKeysFalsePositiveRate);
+
         // Create all appDataDir subdirectories and assign to their respective properties
         File btcNetworkDir = mkdir(appDataDir, baseCurrencyNetwork.name().toLowerCase());
         this.keyStorageDir = mkdir(btcNetworkDir, "keys");
@@ -0,0 +1,97 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+package bisq.common.crypto;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+
+import java.nio.ByteBuffer;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bounded cache for results of Sig.verify. Useful if the same signatures get verified repeatedly, like the
+ * SignedWitnesses which are visited each time we walk the signing tree of an account.
+ *
+ * The key is a SHA-256 digest over the public key, the data and the signature, so the cache does not hold on to the
+ * data. A CryptoException is not cached, it gets thrown again at the next call.
+ *
+ * Thread safe.
+ */
+@Slf4j
+public class SignatureVerificationCache {
+    private final Cache<ByteBuffer, Boolean> cache;
+
+    public SignatureVerificationCache(long maxSize) {
+        cache = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Same as Sig.verify but returns the cached result if the same signature was verified before.
+     */
+    public boolean verify(PublicKey publicKey, byte[] data, byte[] signature) throws CryptoException {
+        ByteBuffer key = getKey(publicKey, data, signature);
+        Boolean result = cache.getIfPresent(key);
+        if (result == null) {
+            result = Sig.verify(publicKey, data, signature);
+            cache.put(key, result);
+        }
+        return result;
+    }
+
+    public long getHitCount() {
+        return cache.stats().hitCount();
+    }
+
+    public long getMissCount() {
+        return cache.stats().missCount();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private static ByteBuffer getKey(PublicKey publicKey, byte[] data, byte[] signature) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            // We add the lengths to avoid ambiguities at the boundaries of the fields
+            update(digest, publicKey.getEncoded());
+            update(digest, data);
+            update(digest, signature);
+            return ByteBuffer.wrap(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            log.error("Could not create MessageDigest for hash. ", e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void update(MessageDigest digest, byte[] bytes) {
+        digest.update(ByteBuffer.allocate(4).putInt(bytes.length).array());
+        digest.update(bytes);
+    }
+}
@@ -17,10 +17,12 @@
 
 package bisq.common.storage;
 
-import bisq.common.UserThread;
 import bisq.common.proto.persistable.PersistableEnvelope;
 import bisq.common.proto.persistable.PersistenceProtoResolver;
-import bisq.common.util.Utilities;
+
+import com.google.protobuf.CodedOutputStream;
+
+import com.google.common.annotations.VisibleForTesting;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -29,65 +31,48 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.PrintWriter;
 
-import java.util.Random;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
+import javax.annotation.Nullable;
+
 @Slf4j
 public class FileManager<T extends PersistableEnvelope> {
     private final File dir;
     private final File storageFile;
-    private final ScheduledThreadPoolExecutor executor;
+    private final PersistenceScheduler persistenceScheduler;
     private final long delay;
-    private final Callable<Void> saveFileTask;
     private final AtomicReference<T> nextWrite;
     private final PersistenceProtoResolver persistenceProtoResolver;
     private Path usedTempFilePath;
+    // Size of the last write, -1 if we did not write yet
+    private volatile long lastNumBytes = -1;
 
     ///////////////////////////////////////////////////////////////////////////////////////////
     // Constructor
     ///////////////////////////////////////////////////////////////////////////////////////////
 
     public FileManager(File dir, File storageFile, long delay, PersistenceProtoResolver persistenceProtoResolver) {
+        this(dir, storageFile, delay, persistenceProtoResolver, PersistenceScheduler.getInstance());
+    }
+
+    @VisibleForTesting
+    FileManager(File dir,
+                File storageFile,
+                long delay,
+                PersistenceProtoResolver persistenceProtoResolver,
+                PersistenceScheduler persistenceScheduler) {
         this.dir = dir;
         this.storageFile = storageFile;
         this.persistenceProtoResolver = persistenceProtoResolver;
+        this.persistenceScheduler = persistenceScheduler;
         this.nextWrite = new AtomicReference<>(null);
 
-        executor = Utilities.getScheduledThreadPoolExecutor("FileManager", 1, 10, 5);
-
-        // File must only be accessed from the auto-save executor from now on, to avoid simultaneous access.
+        // File must only be accessed from the persistence scheduler from now on, to avoid simultaneous access.
         this.delay = delay;
-
-        saveFileTask = () -> {
-            try {
-                Thread.currentThread().setName("Save-file-task-" + new Random().nextInt(10000));
-
-                // Atomically take the next object to write and set the value to null so concurrent saveFileTask
-                // won't duplicate work.
-                T persistable = this.nextWrite.getAndSet(null);
-
-                // If null, a concurrent saveFileTask already grabbed the data. Don't duplicate work.
-                if (persistable == null)
-                    return null;
-
-                long now = System.currentTimeMillis();
-                saveToFile(persistable, dir, storageFile);
-                log.debug("Save {} completed in {} msec", storageFile, System.currentTimeMillis() - now);
-            } catch (Throwable e) {
-                log.error("Error during saveFileTask", e);
-            }
-            return null;
-        };
-        Runtime.getRuntime().addShutdownHook(new Thread(() ->
-                UserThread.execute(FileManager.this::shutDown), "FileManager.ShutDownHook")
-        );
     }
 
 
@@ -107,9 +92,14 @@ public class FileManager<T extends PersistableEnvelope> {
         // structure if there are multiple calls to saveLater within a given `delayInMillis`.
         this.nextWrite.set(persistable);
 
-        // Always schedule a write. It is possible that a previous saveLater was called with a larger `delayInMilli`
-        // and we want the lower delay to execute. The saveFileTask handles concurrent operations.
-        executor.schedule(saveFileTask, delayInMilli, TimeUnit.MILLISECONDS);
+        // The scheduler only schedules a new write if there is none pending or if the new delay is shorter.
+        persistenceScheduler.schedule(this, delayInMilli);
+    }
+
+    // Used by the PersistenceScheduler to write large files on their own thread
+    long getLastKnownSize() {
+        long numBytes = lastNumBytes;
+        return numBytes >= 0 ? numBytes : storageFile.length();
     }
 
     @SuppressWarnings("unchecked")
@@ -128,6 +118,10 @@ public class FileManager<T extends PersistableEnvelope> {
     }
 
     synchronized void removeFile(String fileName) {
+        // A pending write must not create the file again
+        if (storageFile.getName().equals(fileName))
+            nextWrite.set(null);
+
         File file = new File(dir, fileName);
         boolean result = file.delete();
         if (!result)
@@ -145,18 +139,6 @@ public class FileManager<T extends PersistableEnvelope> {
     }
 
 
-    /**
-     * Shut down auto-saving.
-     */
-    private void shutDown() {
-        executor.shutdown();
-        try {
-            executor.awaitTermination(5, TimeUnit.SECONDS);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
-    }
-
     public static void removeAndBackupFile(File dbDir, File storageFile, String fileName, String backupFolderName)
             throws IOException {
         File corruptedBackupDir = new File(Paths.get(dbDir.getAbsolutePath(), backupFolderName).toString());
@@ -180,17 +162,31 @@ public class FileManager<T extends PersistableEnvelope> {
     // Private
     ///////////////////////////////////////////////////////////////////////////////////////////
 
-    private synchronized void saveToFile(T persistable, File dir, File storageFile) {
+    /**
+     * Takes the next object to write, serializes it once and writes it to a temp file. The file gets synced and
+     * renamed to the storage file in PendingWrite.commit, so the PersistenceScheduler can sync several files together.
+     *
+     * @return null if there is nothing to write or if the write failed
+     */
+    @Nullable
+    synchronized PendingWrite writeToTempFile() {
+        // Atomically take the next object to write and set the value to null so a concurrent write won't duplicate
+        // work.
+        T persistable = nextWrite.getAndSet(null);
+        if (persistable == null)
+            return null;
+
         File tempFile = null;
         FileOutputStream fileOutputStream = null;
-        PrintWriter printWriter = null;
-
         try {
             log.debug("Write to disc: {}", storageFile.getName());
             protobuf.PersistableEnvelope protoPersistable;
+            int serializedSize;
             try {
                 protoPersistable = (protobuf.PersistableEnvelope) persistable.toProtoMessage();
-                if (protoPersistable.toByteArray().length == 0)
+                // The size is memoized, so writeDelimitedTo does not need to compute it again
+                serializedSize = protoPersistable.getSerializedSize();
+                if (serializedSize == 0)
                     log.error("protoPersistable is empty. persistable=" + persistable.getClass().getSimpleName());
             } catch (Throwable e) {
                 log.error("Error in saveToFile toProtoMessage: {}, {}", persistable.getClass().getSimpleName(), storageFile);
@@ -211,10 +207,23 @@ public class FileManager<T extends PersistableEnvelope> {
 
             log.debug("Writing protobuffer class:{} to file:{}", persistable.getClass(), storageFile.getName());
             protoPersistable.writeDelimitedTo(fileOutputStream);
+            fileOutputStream.flush();
 
+            int numBytes = CodedOutputStream.computeUInt32SizeNoTag(serializedSize) + serializedSize;
+            lastNumBytes = numBytes;
+            return new PendingWrite(this, tempFile, fileOutputStream, numBytes);
+        } catch (Throwable t) {
+            onWriteFailed(tempFile, fileOutputStream, t);
+            return null;
+        }
+    }
+
+    private synchronized boolean commit(PendingWrite pendingWrite) {
+        File tempFile = pendingWrite.tempFile;
+        FileOutputStream fileOutputStream = pendingWrite.fileOutputStream;
+        try {
             // Attempt to force the bits to hit the disk. In reality the OS or hard disk itself may still decide
             // to not write through to physical media for at least a few seconds, but this is the best we can do.
-            fileOutputStream.flush();
             fileOutputStream.getFD().sync();
 
             // Close resources before replacing file with temp file because otherwise it causes problems on windows
@@ -223,28 +232,61 @@ public class FileManager<T extends PersistableEnvelope> {
 
             FileUtil.renameFile(tempFile, storageFile);
             usedTempFilePath = tempFile.toPath();
+            return true;
         } catch (Throwable t) {
-            // If an error occurred, don't attempt to reuse this path again, in case temp file cleanup fails.
-            usedTempFilePath = null;
-            log.error("Error at saveToFile, storageFile=" + storageFile.toString(), t);
-        } finally {
-            if (tempFile != null && tempFile.exists()) {
-                log.warn("Temp file still exists after failed save. We will delete it now. storageFile=" + storageFile);
-                if (!tempFile.delete())
-                    log.error("Cannot delete temp file.");
-            }
+            onWriteFailed(tempFile, fileOutputStream, t);
+            return false;
+        }
+    }
 
-            try {
-                if (fileOutputStream != null)
-                    fileOutputStream.close();
-                //noinspection ConstantConditions,ConstantConditions
-                if (printWriter != null)
-                    printWriter.close();
-            } catch (IOException e) {
-                // We swallow that
-                e.printStackTrace();
-                log.error("Cannot close resources." + e.getMessage());
-            }
+    private void onWriteFailed(@Nullable File tempFile, @Nullable FileOutputStream fileOutputStream, Throwable t) {
+        // If an error occurred, don't attempt to reuse this path again, in case temp file cleanup fails.
+        usedTempFilePath = null;
+        log.error("Error at saveToFile, storageFile=" + storageFile.toString(), t);
+
+        try {
+            if (fileOutputStream != null)
+                fileOutputStream.close();
+        } catch (IOException e) {
+            // We swallow that
+            e.printStackTrace();
+            log.error("Cannot close resources." + e.getMessage());
+        }
+
+        if (tempFile != null && tempFile.exists()) {
+            log.warn("Temp file still exists after failed save. We will delete it now. storageFile=" + storageFile);
+            if (!tempFile.delete())
+                log.error("Cannot delete temp file.");
+        }
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Static class
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * A temp file which is written but not yet synced and renamed to the storage file.
+     */
+    static final class PendingWrite {
+        private final FileManager<?> fileManager;
+        private final File tempFile;
+        private final FileOutputStream fileOutputStream;
+        @Getter
+        private final int numBytes;
+
+        private PendingWrite(FileManager<?> fileManager,
+                             File tempFile,
+                             FileOutputStream fileOutputStream,
+                             int numBytes) {
+            this.fileManager = fileManager;
+            this.tempFile = tempFile;
+            this.fileOutputStream = fileOutputStream;
+            this.numBytes = numBytes;
+        }
+
+        boolean commit() {
+            return fileManager.commit(this);
         }
     }
 }
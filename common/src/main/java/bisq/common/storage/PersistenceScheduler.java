@@ -0,0 +1,284 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.common.storage;
+
+import bisq.common.util.Utilities;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.Nullable;
+
+/**
+ * Process wide scheduler for the delayed writes of all FileManager instances. Before each FileManager had its own
+ * thread pool, so an application with dozens of Storage instances carried dozens of mostly idle persistence threads.
+ *
+ * Writes of the same file are coalesced: if a write is already scheduled for a file, a new request only moves the
+ * deadline forward if it is earlier, and the write itself always picks up the latest object (see FileManager.saveLater).
+ *
+ * All writes which are due at the same time are executed as one batch. We first write all temp files and then sync and
+ * rename them. Each file still gets its own fsync, but the OS can flush the data of the files of a batch together.
+ *
+ * Files of at least LARGE_FILE_SIZE (e.g. the DaoStateStore or the append only stores) are written on their own thread.
+ * Serializing and writing them takes long and would otherwise delay the writes of the small files like the trades or
+ * the SequenceNumberMap, also at shutdown. The lane of a file is chosen by its size when the file is scheduled the
+ * first time and is never changed. Otherwise a file growing past LARGE_FILE_SIZE could be written on both lanes at the
+ * same time.
+ *
+ * At shutdown all pending writes are executed immediately instead of being dropped.
+ */
+@Slf4j
+public final class PersistenceScheduler {
+    private static final long SHUT_DOWN_TIMEOUT_SEC = 5;
+    private static final long LARGE_FILE_SIZE = 1024 * 1024;
+
+    @Nullable
+    private static PersistenceScheduler instance;
+
+    public static synchronized PersistenceScheduler getInstance() {
+        if (instance == null) {
+            instance = new PersistenceScheduler();
+            Runtime.getRuntime().addShutdownHook(new Thread(instance::shutDown, "PersistenceScheduler.ShutDownHook"));
+        }
+        return instance;
+    }
+
+    private final long largeFileSize;
+    // Only used for the deadlines, the writes are done by the lanes
+    private final ScheduledThreadPoolExecutor executor;
+    // Deadline in nano time of the scheduled write per file. Guarded by this.
+    private final Map<FileManager<?>, Long> deadlines = new HashMap<>();
+    private final Lane smallFilesLane = new Lane("PersistenceScheduler.smallFiles");
+    private final Lane largeFilesLane = new Lane("PersistenceScheduler.largeFiles");
+    // The lane each file is pinned to. Guarded by this.
+    private final Map<FileManager<?>, Lane> laneByFileManager = new WeakHashMap<>();
+
+    // Metrics. The latency of a write is the duration of the flush it was part of.
+    private final AtomicLong numWrites = new AtomicLong();
+    private final AtomicLong numCoalescedRequests = new AtomicLong();
+    private final AtomicLong numBytesWritten = new AtomicLong();
+    private final AtomicLong totalWriteNanos = new AtomicLong();
+    private final AtomicLong maxWriteNanos = new AtomicLong();
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Constructor
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    @VisibleForTesting
+    PersistenceScheduler() {
+        this(LARGE_FILE_SIZE);
+    }
+
+    @VisibleForTesting
+    PersistenceScheduler(long largeFileSize) {
+        this.largeFileSize = largeFileSize;
+        executor = Utilities.getScheduledThreadPoolExecutor("PersistenceScheduler", 1, 1, 60);
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Schedules a write of the file managed by fileManager in delayInMilli. If a write is already scheduled which is
+     * due earlier, the request is coalesced with that write.
+     */
+    void schedule(FileManager<?> fileManager, long delayInMilli) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayInMilli);
+        synchronized (this) {
+            Long scheduledDeadline = deadlines.get(fileManager);
+            if (scheduledDeadline != null && scheduledDeadline - deadline <= 0) {
+                numCoalescedRequests.incrementAndGet();
+                return;
+            }
+            if (getLane(fileManager).dueWrites.contains(fileManager)) {
+                // The flush has not taken the write yet, so it will write the latest object.
+                numCoalescedRequests.incrementAndGet();
+                return;
+            }
+
+            deadlines.put(fileManager, deadline);
+        }
+        executor.schedule(() -> onDeadline(fileManager, deadline), delayInMilli, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Executes all pending writes and waits until they are done. The small files are written in parallel to the
+     * large ones, so they are not dropped if writing a large file exceeds the timeout.
+     */
+    public void flushAll() {
+        if (executor.isShutdown())
+            return;
+
+        synchronized (this) {
+            deadlines.keySet().forEach(fileManager -> getLane(fileManager).dueWrites.add(fileManager));
+            deadlines.clear();
+        }
+        long timeout = System.nanoTime() + TimeUnit.SECONDS.toNanos(SHUT_DOWN_TIMEOUT_SEC);
+        Future<?> smallFilesFlush = smallFilesLane.executor.submit(() -> flush(smallFilesLane));
+        Future<?> largeFilesFlush = largeFilesLane.executor.submit(() -> flush(largeFilesLane));
+        try {
+            smallFilesFlush.get(timeout - System.nanoTime(), TimeUnit.NANOSECONDS);
+            largeFilesFlush.get(timeout - System.nanoTime(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable t) {
+            log.error("Flushing pending writes failed", t);
+        }
+    }
+
+    public void shutDown() {
+        flushAll();
+        executor.shutdown();
+        smallFilesLane.executor.shutdown();
+        largeFilesLane.executor.shutdown();
+        try {
+            executor.awaitTermination(SHUT_DOWN_TIMEOUT_SEC, TimeUnit.SECONDS);
+            smallFilesLane.executor.awaitTermination(SHUT_DOWN_TIMEOUT_SEC, TimeUnit.SECONDS);
+            largeFilesLane.executor.awaitTermination(SHUT_DOWN_TIMEOUT_SEC, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("PersistenceScheduler shut down. {}", getMetricsAsString());
+    }
+
+    public long getNumWrites() {
+        return numWrites.get();
+    }
+
+    public long getNumCoalescedRequests() {
+        return numCoalescedRequests.get();
+    }
+
+    public long getNumBytesWritten() {
+        return numBytesWritten.get();
+    }
+
+    public long getAverageWriteLatencyMillis() {
+        long writes = numWrites.get();
+        return writes == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalWriteNanos.get() / writes);
+    }
+
+    public long getMaxWriteLatencyMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxWriteNanos.get());
+    }
+
+    public String getMetricsAsString() {
+        return "numWrites=" + getNumWrites() +
+                ", numCoalescedRequests=" + getNumCoalescedRequests() +
+                ", numBytesWritten=" + getNumBytesWritten() +
+                ", averageWriteLatencyMillis=" + getAverageWriteLatencyMillis() +
+                ", maxWriteLatencyMillis=" + getMaxWriteLatencyMillis();
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private void onDeadline(FileManager<?> fileManager, long deadline) {
+        Lane lane;
+        synchronized (this) {
+            // If the deadline got replaced by an earlier one, or the write was already taken by flushAll, the other
+            // task is responsible for it.
+            Long scheduledDeadline = deadlines.get(fileManager);
+            if (scheduledDeadline == null || scheduledDeadline != deadline)
+                return;
+
+            deadlines.remove(fileManager);
+            lane = getLane(fileManager);
+            lane.dueWrites.add(fileManager);
+            if (lane.flushScheduled)
+                return;
+
+            lane.flushScheduled = true;
+        }
+        // Writes which get due while the lane is busy are part of the next flush.
+        lane.executor.execute(() -> flush(lane));
+    }
+
+    // Must be called while holding the lock of this
+    private Lane getLane(FileManager<?> fileManager) {
+        return laneByFileManager.computeIfAbsent(fileManager, e ->
+                fileManager.getLastKnownSize() >= largeFileSize ? largeFilesLane : smallFilesLane);
+    }
+
+    private void flush(Lane lane) {
+        List<FileManager<?>> fileManagers;
+        synchronized (this) {
+            fileManagers = new ArrayList<>(lane.dueWrites);
+            lane.dueWrites.clear();
+            lane.flushScheduled = false;
+        }
+        if (fileManagers.isEmpty())
+            return;
+
+        long ts = System.nanoTime();
+        List<FileManager.PendingWrite> pendingWrites = new ArrayList<>(fileManagers.size());
+        for (FileManager<?> fileManager : fileManagers) {
+            FileManager.PendingWrite pendingWrite = fileManager.writeToTempFile();
+            if (pendingWrite != null)
+                pendingWrites.add(pendingWrite);
+        }
+
+        long numBytes = 0;
+        for (FileManager.PendingWrite pendingWrite : pendingWrites) {
+            if (pendingWrite.commit())
+                numBytes += pendingWrite.getNumBytes();
+        }
+
+        long duration = System.nanoTime() - ts;
+        numWrites.addAndGet(pendingWrites.size());
+        numBytesWritten.addAndGet(numBytes);
+        totalWriteNanos.addAndGet(duration * pendingWrites.size());
+        maxWriteNanos.accumulateAndGet(duration, Math::max);
+        log.debug("Wrote {} files with {} bytes in {} msec", pendingWrites.size(), numBytes,
+                TimeUnit.NANOSECONDS.toMillis(duration));
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Lane
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    // A thread which writes the due files in batches. The fields are guarded by the PersistenceScheduler.
+    private static final class Lane {
+        private final ScheduledThreadPoolExecutor executor;
+        private final Set<FileManager<?>> dueWrites = new LinkedHashSet<>();
+        private boolean flushScheduled;
+
+        private Lane(String name) {
+            executor = Utilities.getScheduledThreadPoolExecutor(name, 1, 1, 60);
+        }
+    }
+}
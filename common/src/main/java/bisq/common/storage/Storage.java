@@ -136,6 +136,18 @@ public class Storage<T extends PersistableEnvelope> {
         fileManager.removeFile(fileName);
     }
 
+    public File getDir() {
+        return dir;
+    }
+
+    /**
+     * Creates a new Storage for the given directory which uses the same proto resolver and corrupted files handler.
+     * Used for data which is persisted in one file per item.
+     */
+    public <S extends PersistableEnvelope> Storage<S> createStorageForDir(File dir) {
+        return new Storage<>(dir, persistenceProtoResolver, corruptedDatabaseFilesHandler);
+    }
+
 
     ///////////////////////////////////////////////////////////////////////////////////////////
     // Private
@@ -0,0 +1,74 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.common.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+public class CompressionUtils {
+    private static final int BUFFER_SIZE = 8192;
+
+    public static byte[] compress(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream(data.length / 4 + 64);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!deflater.finished()) {
+                int numBytes = deflater.deflate(buffer);
+                outputStream.write(buffer, 0, numBytes);
+            }
+            return outputStream.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * @param maxSize   We stop and throw an IOException if the decompressed data would exceed that size, so a peer
+     *                  cannot make us allocate an arbitrary amount of memory with a small message.
+     */
+    public static byte[] decompress(byte[] compressedData, int maxSize) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressedData);
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream(Math.min(maxSize, compressedData.length * 4));
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!inflater.finished()) {
+                int numBytes = inflater.inflate(buffer);
+                if (numBytes == 0 && !inflater.finished() && (inflater.needsInput() || inflater.needsDictionary()))
+                    throw new IOException("Compressed data is truncated or requires a dictionary");
+
+                if (outputStream.size() + numBytes > maxSize)
+                    throw new IOException("Decompressed data exceeds max. size of " + maxSize + " bytes");
+
+                outputStream.write(buffer, 0, numBytes);
+            }
+            return outputStream.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IOException("Compressed data is invalid", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
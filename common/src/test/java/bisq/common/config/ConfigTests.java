@@ -120,6 +120,20 @@ public class ConfigTests {
         configWithOpts(opt(TORRC_FILE, "/does/not/exist"));
     }
 
+    @Test
+    public void whenExcludedKeysFalsePositiveRateIsZero_thenConfigExceptionIsThrown() {
+        exceptionRule.expect(ConfigException.class);
+        exceptionRule.expectMessage("The 'excludedKeysFalsePositiveRate' option must be greater than 0 and less than 1");
+        configWithOpts(opt(EXCLUDED_KEYS_FALSE_POSITIVE_RATE, "0"));
+    }
+
+    @Test
+    public void whenExcludedKeysFalsePositiveRateIsOne_thenConfigExceptionIsThrown() {
+        exceptionRule.expect(ConfigException.class);
+        exceptionRule.expectMessage("The 'excludedKeysFalsePositiveRate' option must be greater than 0 and less than 1");
+        configWithOpts(opt(EXCLUDED_KEYS_FALSE_POSITIVE_RATE, "1"));
+    }
+
     @Test
     public void whenConfigFileOptionIsSetToNonExistentFile_thenConfigExceptionIsThrown() {
         exceptionRule.expect(ConfigException.class);
@@ -0,0 +1,77 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+package bisq.common.crypto;
+
+import java.security.KeyPair;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SignatureVerificationCacheTest {
+    private KeyPair keyPair;
+    private SignatureVerificationCache cache;
+
+    @Before
+    public void setup() {
+        keyPair = Sig.generateKeyPair();
+        cache = new SignatureVerificationCache(10);
+    }
+
+    @Test
+    public void testVerify() throws CryptoException {
+        byte[] data = new byte[]{1, 2, 3};
+        byte[] signature = Sig.sign(keyPair.getPrivate(), data);
+
+        assertTrue(cache.verify(keyPair.getPublic(), data, signature));
+        assertEquals(0, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        assertTrue(cache.verify(keyPair.getPublic(), data, signature));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void testVerifyInvalidSignature() throws CryptoException {
+        byte[] data = new byte[]{1, 2, 3};
+        byte[] signature = Sig.sign(keyPair.getPrivate(), new byte[]{1, 2, 4});
+
+        assertFalse(cache.verify(keyPair.getPublic(), data, signature));
+        assertFalse(cache.verify(keyPair.getPublic(), data, signature));
+        assertEquals(1, cache.getHitCount());
+        assertTrue(cache.verify(keyPair.getPublic(), new byte[]{1, 2, 4}, signature));
+    }
+
+    @Test(expected = CryptoException.class)
+    public void testVerifyMalformedSignature() throws CryptoException {
+        cache.verify(keyPair.getPublic(), new byte[]{1, 2, 3}, new byte[]{1, 2, 3});
+    }
+
+    @Test
+    public void testMaxSize() throws CryptoException {
+        for (byte i = 0; i < 20; i++) {
+            byte[] data = new byte[]{i};
+            cache.verify(keyPair.getPublic(), data, Sig.sign(keyPair.getPrivate(), data));
+        }
+
+        assertTrue(cache.size() <= 10);
+    }
+}
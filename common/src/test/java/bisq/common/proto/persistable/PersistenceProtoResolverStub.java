@@ -0,0 +1,47 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.common.proto.persistable;
+
+import bisq.common.Payload;
+
+import java.util.function.Function;
+
+/**
+ * PersistenceProtoResolver for tests which only read back the PersistableEnvelopes they have written. The payloads
+ * are not needed there, so resolving them fails.
+ */
+public abstract class PersistenceProtoResolverStub implements PersistenceProtoResolver {
+    public static PersistenceProtoResolver of(Function<protobuf.PersistableEnvelope, PersistableEnvelope> fromProto) {
+        return new PersistenceProtoResolverStub() {
+            @Override
+            public PersistableEnvelope fromProto(protobuf.PersistableEnvelope proto) {
+                return fromProto.apply(proto);
+            }
+        };
+    }
+
+    @Override
+    public Payload fromProto(protobuf.PaymentAccountPayload proto) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public PersistableEnvelope fromProto(protobuf.PersistableNetworkPayload proto) {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.common.storage;
+
+import bisq.common.proto.persistable.PersistableEnvelope;
+import bisq.common.proto.persistable.PersistenceProtoResolver;
+import bisq.common.proto.persistable.PersistenceProtoResolverStub;
+
+import com.google.protobuf.Message;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.nio.file.Files;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PersistenceSchedulerTest {
+    private static final long LONG_DELAY = 60_000;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private PersistenceScheduler scheduler;
+    private File dir;
+
+    private static class NavigationPathStub implements PersistableEnvelope {
+        private final List<String> path;
+
+        NavigationPathStub(List<String> path) {
+            this.path = path;
+        }
+
+        @Override
+        public Message toProtoMessage() {
+            return protobuf.PersistableEnvelope.newBuilder()
+                    .setNavigationPath(protobuf.NavigationPath.newBuilder().addAllPath(path))
+                    .build();
+        }
+    }
+
+    // Blocks the write until the latch is released
+    private static class BlockingNavigationPathStub extends NavigationPathStub {
+        private final CountDownLatch startedLatch = new CountDownLatch(1);
+        private final CountDownLatch releaseLatch = new CountDownLatch(1);
+
+        BlockingNavigationPathStub(List<String> path) {
+            super(path);
+        }
+
+        @Override
+        public Message toProtoMessage() {
+            startedLatch.countDown();
+            try {
+                releaseLatch.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return super.toProtoMessage();
+        }
+    }
+
+    private static final PersistenceProtoResolver RESOLVER = PersistenceProtoResolverStub.of(proto ->
+            new NavigationPathStub(proto.getNavigationPath().getPathList()));
+
+    @Before
+    public void setup() throws IOException {
+        scheduler = new PersistenceScheduler();
+        dir = tempFolder.newFolder();
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutDown();
+    }
+
+    @Test
+    public void testWritesOfSameFileAreCoalesced() {
+        File file = new File(dir, "NavigationPath");
+        FileManager<NavigationPathStub> fileManager = new FileManager<>(dir, file, LONG_DELAY, RESOLVER, scheduler);
+
+        fileManager.saveLater(new NavigationPathStub(List.of("a")), LONG_DELAY);
+        fileManager.saveLater(new NavigationPathStub(List.of("b")), LONG_DELAY);
+        fileManager.saveLater(new NavigationPathStub(List.of("c")), LONG_DELAY);
+        scheduler.flushAll();
+
+        assertEquals(1, scheduler.getNumWrites());
+        assertEquals(2, scheduler.getNumCoalescedRequests());
+        assertEquals(List.of("c"), readPath(fileManager, file));
+        assertEquals(file.length(), scheduler.getNumBytesWritten());
+    }
+
+    @Test
+    public void testShorterDelayMovesDeadlineForward() throws InterruptedException {
+        File file = new File(dir, "NavigationPath");
+        FileManager<NavigationPathStub> fileManager = new FileManager<>(dir, file, LONG_DELAY, RESOLVER, scheduler);
+
+        fileManager.saveLater(new NavigationPathStub(List.of("a")), LONG_DELAY);
+        fileManager.saveLater(new NavigationPathStub(List.of("b")), 10);
+
+        for (int i = 0; i < 500 && scheduler.getNumWrites() == 0; i++)
+            Thread.sleep(10);
+
+        assertEquals(1, scheduler.getNumWrites());
+        assertEquals(List.of("b"), readPath(fileManager, file));
+    }
+
+    @Test
+    public void testFlushAllWritesAllFiles() {
+        File file1 = new File(dir, "NavigationPath1");
+        File file2 = new File(dir, "NavigationPath2");
+        FileManager<NavigationPathStub> fileManager1 = new FileManager<>(dir, file1, LONG_DELAY, RESOLVER, scheduler);
+        FileManager<NavigationPathStub> fileManager2 = new FileManager<>(dir, file2, LONG_DELAY, RESOLVER, scheduler);
+
+        fileManager1.saveLater(new NavigationPathStub(List.of("a")), LONG_DELAY);
+        fileManager2.saveLater(new NavigationPathStub(List.of("b")), LONG_DELAY);
+        scheduler.flushAll();
+
+        assertEquals(2, scheduler.getNumWrites());
+        assertEquals(List.of("a"), readPath(fileManager1, file1));
+        assertEquals(List.of("b"), readPath(fileManager2, file2));
+        // Only the storage files are left, the temp files got renamed
+        assertEquals(2, dir.listFiles().length);
+    }
+
+    @Test
+    public void testNewWriteAfterFlush() {
+        File file = new File(dir, "NavigationPath");
+        FileManager<NavigationPathStub> fileManager = new FileManager<>(dir, file, LONG_DELAY, RESOLVER, scheduler);
+
+        fileManager.saveLater(new NavigationPathStub(List.of("a")), LONG_DELAY);
+        scheduler.flushAll();
+        fileManager.saveLater(new NavigationPathStub(List.of("b")), LONG_DELAY);
+        scheduler.flushAll();
+
+        assertEquals(2, scheduler.getNumWrites());
+        assertEquals(0, scheduler.getNumCoalescedRequests());
+        assertEquals(List.of("b"), readPath(fileManager, file));
+    }
+
+    @Test
+    public void testLargeFileDoesNotDelaySmallFile() throws Exception {
+        PersistenceScheduler laneScheduler = new PersistenceScheduler(100);
+        try {
+            File largeFile = new File(dir, "LargeFile");
+            Files.write(largeFile.toPath(), new byte[200]);
+            File smallFile = new File(dir, "SmallFile");
+            FileManager<NavigationPathStub> largeFileManager = new FileManager<>(dir, largeFile, LONG_DELAY, RESOLVER,
+                    laneScheduler);
+            FileManager<NavigationPathStub> smallFileManager = new FileManager<>(dir, smallFile, LONG_DELAY, RESOLVER,
+                    laneScheduler);
+
+            BlockingNavigationPathStub blocking = new BlockingNavigationPathStub(List.of("large"));
+            largeFileManager.saveLater(blocking, 0);
+            assertTrue(blocking.startedLatch.await(5, TimeUnit.SECONDS));
+
+            // The large file is still being written, the small one gets written on the other lane
+            smallFileManager.saveLater(new NavigationPathStub(List.of("small")), 0);
+            for (int i = 0; i < 500 && laneScheduler.getNumWrites() == 0; i++)
+                Thread.sleep(10);
+
+            assertEquals(1, laneScheduler.getNumWrites());
+            assertEquals(List.of("small"), readPath(smallFileManager, smallFile));
+
+            blocking.releaseLatch.countDown();
+            laneScheduler.flushAll();
+            assertEquals(List.of("large"), readPath(largeFileManager, largeFile));
+        } finally {
+            laneScheduler.shutDown();
+        }
+    }
+
+    @Test
+    public void testFileGrowingPastLargeFileSizeIsNotWrittenOnBothLanes() throws Exception {
+        PersistenceScheduler laneScheduler = new PersistenceScheduler(100);
+        try {
+            File file = new File(dir, "GrowingFile");
+            FileManager<NavigationPathStub> fileManager = new FileManager<>(dir, file, LONG_DELAY, RESOLVER,
+                    laneScheduler);
+
+            // The file is small when the first write is scheduled
+            BlockingNavigationPathStub first = new BlockingNavigationPathStub(List.of("first"));
+            fileManager.saveLater(first, 0);
+            assertTrue(first.startedLatch.await(5, TimeUnit.SECONDS));
+
+            // The file grows past the large file size while the first write is pending
+            Files.write(file.toPath(), new byte[200]);
+            BlockingNavigationPathStub second = new BlockingNavigationPathStub(List.of("second"));
+            fileManager.saveLater(second, 0);
+            assertFalse("The second write must not start while the first one is pending",
+                    second.startedLatch.await(300, TimeUnit.MILLISECONDS));
+
+            first.releaseLatch.countDown();
+            assertTrue(second.startedLatch.await(5, TimeUnit.SECONDS));
+            second.releaseLatch.countDown();
+            laneScheduler.flushAll();
+            assertEquals(2, laneScheduler.getNumWrites());
+            assertEquals(List.of("second"), readPath(fileManager, file));
+        } finally {
+            laneScheduler.shutDown();
+        }
+    }
+
+    private static List<String> readPath(FileManager<NavigationPathStub> fileManager, File file) {
+        return fileManager.read(file).path;
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.common.util;
+
+import java.nio.charset.StandardCharsets;
+
+import java.io.IOException;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CompressionUtilsTest {
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1000; i++)
+            sb.append("txId").append(i % 10).append(":").append(i);
+        byte[] data = sb.toString().getBytes(StandardCharsets.UTF_8);
+
+        byte[] compressed = CompressionUtils.compress(data);
+        assertTrue(compressed.length < data.length);
+        assertArrayEquals(data, CompressionUtils.decompress(compressed, data.length));
+    }
+
+    @Test
+    public void testRoundTripIncompressibleAndEmpty() throws IOException {
+        byte[] data = new byte[100000];
+        new Random(1).nextBytes(data);
+        assertArrayEquals(data, CompressionUtils.decompress(CompressionUtils.compress(data), data.length));
+
+        assertArrayEquals(new byte[0], CompressionUtils.decompress(CompressionUtils.compress(new byte[0]), 0));
+    }
+
+    @Test(expected = IOException.class)
+    public void testDecompressExceedsMaxSize() throws IOException {
+        byte[] compressed = CompressionUtils.compress(new byte[100000]);
+        CompressionUtils.decompress(compressed, 99999);
+    }
+
+    @Test(expected = IOException.class)
+    public void testDecompressTruncated() throws IOException {
+        byte[] compressed = CompressionUtils.compress(new byte[100000]);
+        CompressionUtils.decompress(Arrays.copyOf(compressed, compressed.length / 2), 100000);
+    }
+
+    @Test(expected = IOException.class)
+    public void testDecompressInvalid() throws IOException {
+        CompressionUtils.decompress(new byte[]{1, 2, 3, 4, 5}, 100000);
+    }
+}
@@ -30,6 +30,7 @@ import bisq.common.UserThread;
 import bisq.common.crypto.CryptoException;
 import bisq.common.crypto.KeyRing;
 import bisq.common.crypto.Sig;
+import bisq.common.crypto.SignatureVerificationCache;
 import bisq.common.util.Utilities;
 
 import org.bitcoinj.core.Coin;
@@ -46,15 +47,18 @@ import java.security.SignatureException;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 
-import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Stack;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
@@ -62,6 +66,10 @@ public class SignedWitnessService {
     public static final long SIGNER_AGE_DAYS = 30;
     public static final long SIGNER_AGE = SIGNER_AGE_DAYS * ChronoUnit.DAYS.getDuration().toMillis();
     static final Coin MINIMUM_TRADE_AMOUNT_FOR_SIGNING = Coin.parseCoin("0.0025");
+    // The signer state of a witness only changes when new SignedWitnesses arrive (we clear the cache then), when a
+    // signer reaches the SIGNER_AGE or when the arbitrator list changes. A delay of a minute is acceptable for those.
+    @VisibleForTesting
+    static final long SIGNER_CACHE_TTL = TimeUnit.MINUTES.toMillis(1);
 
     private final KeyRing keyRing;
     private final P2PService p2PService;
@@ -70,6 +78,16 @@ public class SignedWitnessService {
 
     private final Map<P2PDataStorage.ByteArray, SignedWitness> signedWitnessMap = new HashMap<>();
 
+    // Indexes of signedWitnessMap to avoid iterating over all SignedWitnesses at each lookup
+    private final Map<P2PDataStorage.ByteArray, Set<SignedWitness>> signedWitnessSetByAccountAgeWitnessHash = new HashMap<>();
+    private final Map<P2PDataStorage.ByteArray, Set<SignedWitness>> signedWitnessSetByOwnerPubKey = new HashMap<>();
+
+    // The same SignedWitnesses are verified again at each walk through the signing tree
+    private final SignatureVerificationCache signatureVerificationCache = new SignatureVerificationCache(10_000);
+
+    // Key is the hash of the AccountAgeWitness
+    private final Map<P2PDataStorage.ByteArray, SignerCacheEntry> signerCache = new HashMap<>();
+
     ///////////////////////////////////////////////////////////////////////////////////////////
     // Constructor
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -238,7 +256,7 @@ public class SignedWitnessService {
     private boolean verifySignatureWithDSAKey(SignedWitness signedWitness) {
         try {
             PublicKey signaturePubKey = Sig.getPublicKeyFromBytes(signedWitness.getSignerPubKey());
-            Sig.verify(signaturePubKey, signedWitness.getAccountAgeWitnessHash(), signedWitness.getSignature());
+            signatureVerificationCache.verify(signaturePubKey, signedWitness.getAccountAgeWitnessHash(), signedWitness.getSignature());
             return true;
         } catch (CryptoException e) {
             log.warn("verifySignature signedWitness failed. signedWitness={}", signedWitness);
@@ -248,24 +266,21 @@ public class SignedWitnessService {
     }
 
     private Set<SignedWitness> getSignedWitnessSet(AccountAgeWitness accountAgeWitness) {
-        return signedWitnessMap.values().stream()
-                .filter(e -> Arrays.equals(e.getAccountAgeWitnessHash(), accountAgeWitness.getHash()))
-                .collect(Collectors.toSet());
+        return signedWitnessSetByAccountAgeWitnessHash.getOrDefault(
+                new P2PDataStorage.ByteArray(accountAgeWitness.getHash()), Collections.emptySet());
     }
 
     // SignedWitness objects signed by arbitrators
     public Set<SignedWitness> getArbitratorsSignedWitnessSet(AccountAgeWitness accountAgeWitness) {
-        return signedWitnessMap.values().stream()
+        return getSignedWitnessSet(accountAgeWitness).stream()
                 .filter(SignedWitness::isSignedByArbitrator)
-                .filter(e -> Arrays.equals(e.getAccountAgeWitnessHash(), accountAgeWitness.getHash()))
                 .collect(Collectors.toSet());
     }
 
     // SignedWitness objects signed by any other peer
     public Set<SignedWitness> getTrustedPeerSignedWitnessSet(AccountAgeWitness accountAgeWitness) {
-        return signedWitnessMap.values().stream()
+        return getSignedWitnessSet(accountAgeWitness).stream()
                 .filter(e -> !e.isSignedByArbitrator())
-                .filter(e -> Arrays.equals(e.getAccountAgeWitnessHash(), accountAgeWitness.getHash()))
                 .collect(Collectors.toSet());
     }
 
@@ -273,8 +288,8 @@ public class SignedWitnessService {
     // witnessOwnerPubKey
     private Set<SignedWitness> getSignedWitnessSetByOwnerPubKey(byte[] ownerPubKey,
                                                                 Stack<P2PDataStorage.ByteArray> excluded) {
-        return signedWitnessMap.values().stream()
-                .filter(e -> Arrays.equals(e.getWitnessOwnerPubKey(), ownerPubKey))
+        return signedWitnessSetByOwnerPubKey.getOrDefault(new P2PDataStorage.ByteArray(ownerPubKey), Collections.emptySet())
+                .stream()
                 .filter(e -> !excluded.contains(new P2PDataStorage.ByteArray(e.getSignerPubKey())))
                 .collect(Collectors.toSet());
     }
@@ -284,7 +299,16 @@ public class SignedWitnessService {
     }
 
     public boolean isSignerAccountAgeWitness(AccountAgeWitness accountAgeWitness) {
-        return isSignerAccountAgeWitness(accountAgeWitness, new Date().getTime());
+        long now = new Date().getTime();
+        P2PDataStorage.ByteArray key = new P2PDataStorage.ByteArray(accountAgeWitness.getHash());
+        SignerCacheEntry cacheEntry = signerCache.get(key);
+        if (cacheEntry != null && now - cacheEntry.getTime() < SIGNER_CACHE_TTL) {
+            return cacheEntry.isSigner();
+        }
+
+        boolean isSigner = isSignerAccountAgeWitness(accountAgeWitness, now);
+        signerCache.put(key, new SignerCacheEntry(isSigner, now));
+        return isSigner;
     }
 
     public boolean isSufficientTradeAmountForSigning(Coin tradeAmount) {
@@ -366,7 +390,18 @@ public class SignedWitnessService {
     @VisibleForTesting
     void addToMap(SignedWitness signedWitness) {
         // TODO: Perhaps filter out all but one signedwitness per accountagewitness
-        signedWitnessMap.putIfAbsent(signedWitness.getHashAsByteArray(), signedWitness);
+        if (signedWitnessMap.putIfAbsent(signedWitness.getHashAsByteArray(), signedWitness) == null) {
+            signedWitnessSetByAccountAgeWitnessHash.computeIfAbsent(
+                    new P2PDataStorage.ByteArray(signedWitness.getAccountAgeWitnessHash()), e -> new HashSet<>())
+                    .add(signedWitness);
+            signedWitnessSetByOwnerPubKey.computeIfAbsent(
+                    new P2PDataStorage.ByteArray(signedWitness.getWitnessOwnerPubKey()), e -> new HashSet<>())
+                    .add(signedWitness);
+
+            // A new SignedWitness can make other witnesses signers as well, so we cannot only remove the entry of
+            // the signed witness.
+            signerCache.clear();
+        }
     }
 
     private void publishSignedWitness(SignedWitness signedWitness) {
@@ -379,4 +414,15 @@ public class SignedWitnessService {
     private void doRepublishAllSignedWitnesses() {
         signedWitnessMap.forEach((e, signedWitness) -> p2PService.addPersistableNetworkPayload(signedWitness, true));
     }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Static class
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    @Value
+    private static class SignerCacheEntry {
+        private final boolean signer;
+        private final long time;
+    }
 }
@@ -37,6 +37,8 @@ import bisq.network.p2p.network.Connection;
 import bisq.network.p2p.seed.SeedNodeRepository;
 
 import bisq.common.UserThread;
+import bisq.common.app.Capabilities;
+import bisq.common.app.Capability;
 import bisq.common.config.Config;
 import bisq.common.crypto.Hash;
 import bisq.common.storage.FileManager;
@@ -52,6 +54,7 @@ import javafx.collections.ObservableList;
 
 import java.io.File;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
@@ -81,6 +84,10 @@ import static com.google.common.base.Preconditions.checkArgument;
  * state to the peers to not get ignored it in case they have not received the block yet.
  *
  * We do persist that chain of hashes with the snapshot.
+ *
+ * If the incrementalDaoStateHash option is set we use the incremental state hash of the DaoStateService instead of
+ * hashing the serialized state. The hashes of both modes differ, so we only compare hashes of the same mode and we
+ * do not verify the checkpoints, which are created with the serialized state.
  */
 @Slf4j
 public class DaoStateMonitoringService implements DaoSetupService, DaoStateListener,
@@ -120,6 +127,7 @@ public class DaoStateMonitoringService implements DaoSetupService, DaoStateListe
     private long accumulatedDuration;
 
     private final File storageDir;
+    private final boolean useIncrementalStateHash;
 
     ///////////////////////////////////////////////////////////////////////////////////////////
     // Constructor
@@ -131,15 +139,21 @@ public class DaoStateMonitoringService implements DaoSetupService, DaoStateListe
                                      GenesisTxInfo genesisTxInfo,
                                      SeedNodeRepository seedNodeRepository,
                                      @Named(Config.STORAGE_DIR) File storageDir,
-                                     @Named(Config.IGNORE_DEV_MSG) boolean ignoreDevMsg) {
+                                     @Named(Config.IGNORE_DEV_MSG) boolean ignoreDevMsg,
+                                     @Named(Config.INCREMENTAL_DAO_STATE_HASH) boolean useIncrementalStateHash) {
         this.daoStateService = daoStateService;
         this.daoStateNetworkService = daoStateNetworkService;
         this.genesisTxInfo = genesisTxInfo;
         this.storageDir = storageDir;
         this.ignoreDevMsg = ignoreDevMsg;
+        this.useIncrementalStateHash = useIncrementalStateHash;
         seedNodeAddresses = seedNodeRepository.getSeedNodeAddresses().stream()
                 .map(NodeAddress::getFullAddress)
                 .collect(Collectors.toSet());
+
+        if (useIncrementalStateHash) {
+            daoStateService.enableIncrementalStateHash();
+        }
     }
 
 
@@ -174,7 +188,7 @@ public class DaoStateMonitoringService implements DaoSetupService, DaoStateListe
         int fromHeight = daoStateService.getChainHeight() - 10;
         daoStateNetworkService.requestHashesFromAllConnectedSeedNodes(fromHeight);
 
-        if (!ignoreDevMsg) {
+        if (!ignoreDevMsg && !useIncrementalStateHash) {
             verifyCheckpoints();
         }
 
@@ -215,10 +229,15 @@ public class DaoStateMonitoringService implements DaoSetupService, DaoStateListe
     @Override
     public void onGetStateHashRequest(Connection connection, GetDaoStateHashesRequest getStateHashRequest) {
         int fromHeight = getStateHashRequest.getHeight();
-        List<DaoStateHash> daoStateHashes = daoStateBlockChain.stream()
-                .filter(e -> e.getHeight() >= fromHeight)
-                .map(DaoStateBlock::getMyStateHash)
-                .collect(Collectors.toList());
+        // A peer which does not use the incremental state hash would consider our hashes as conflicts
+        boolean isPeerUsingSameMode = !useIncrementalStateHash ||
+                connection.getCapabilities().containsAll(new Capabilities(Capability.INCREMENTAL_DAO_STATE_HASH));
+        List<DaoStateHash> daoStateHashes = isPeerUsingSameMode ?
+                daoStateBlockChain.stream()
+                        .filter(e -> e.getHeight() >= fromHeight)
+                        .map(DaoStateBlock::getMyStateHash)
+                        .collect(Collectors.toList()) :
+                new ArrayList<>();
         daoStateNetworkService.sendGetStateHashesResponse(connection, getStateHashRequest.getNonce(), daoStateHashes);
     }
 
@@ -303,13 +322,15 @@ public class DaoStateMonitoringService implements DaoSetupService, DaoStateListe
                     height, daoStateBlockChain.getLast().getHeight());
             prevHash = daoStateBlockChain.getLast().getHash();
         }
-        byte[] stateHash = daoStateService.getSerializedStateForHashChain();
+        byte[] stateHash = useIncrementalStateHash ?
+                daoStateService.getIncrementalStateForHashChain() :
+                daoStateService.getSerializedStateForHashChain();
         // We include the prev. hash in our new hash so we can be sure that if one hash is matching all the past would
         // match as well.
         byte[] combined = ArrayUtils.addAll(prevHash, stateHash);
         byte[] hash = Hash.getSha256Ripemd160hash(combined);
 
-        DaoStateHash myDaoStateHash = new DaoStateHash(height, hash, prevHash);
+        DaoStateHash myDaoStateHash = new DaoStateHash(height, hash, prevHash, useIncrementalStateHash);
         DaoStateBlock daoStateBlock = new DaoStateBlock(myDaoStateHash);
         daoStateBlockChain.add(daoStateBlock);
         daoStateHashChain.add(myDaoStateHash);
@@ -335,6 +356,11 @@ public class DaoStateMonitoringService implements DaoSetupService, DaoStateListe
 
     private boolean processPeersDaoStateHash(DaoStateHash daoStateHash, Optional<NodeAddress> peersNodeAddress,
                                              boolean notifyListeners) {
+        if (daoStateHash.isIncremental() != useIncrementalStateHash) {
+            log.debug("We ignore a daoStateHash of another hash mode. daoStateHash={}", daoStateHash);
+            return false;
+        }
+
         AtomicBoolean changed = new AtomicBoolean(false);
         AtomicBoolean inConflictWithNonSeedNode = new AtomicBoolean(this.isInConflictWithNonSeedNode);
         AtomicBoolean inConflictWithSeedNode = new AtomicBoolean(this.isInConflictWithSeedNode);
@@ -21,11 +21,22 @@ package bisq.core.dao.monitoring.model;
 import com.google.protobuf.ByteString;
 
 import lombok.EqualsAndHashCode;
+import lombok.Getter;
 
 @EqualsAndHashCode(callSuper = true)
+@Getter
 public final class DaoStateHash extends StateHash {
+    // True if the hash was created with the incremental state hash (see IncrementalDaoStateHash). Hashes of both modes
+    // must not be compared.
+    private final boolean isIncremental;
+
     public DaoStateHash(int height, byte[] hash, byte[] prevHash) {
+        this(height, hash, prevHash, false);
+    }
+
+    public DaoStateHash(int height, byte[] hash, byte[] prevHash, boolean isIncremental) {
         super(height, hash, prevHash);
+        this.isIncremental = isIncremental;
     }
 
 
@@ -38,12 +49,22 @@ public final class DaoStateHash extends StateHash {
         return protobuf.DaoStateHash.newBuilder()
                 .setHeight(height)
                 .setHash(ByteString.copyFrom(hash))
-                .setPrevHash(ByteString.copyFrom(prevHash)).build();
+                .setPrevHash(ByteString.copyFrom(prevHash))
+                .setIsIncremental(isIncremental).build();
     }
 
     public static DaoStateHash fromProto(protobuf.DaoStateHash proto) {
         return new DaoStateHash(proto.getHeight(),
                 proto.getHash().toByteArray(),
-                proto.getPrevHash().toByteArray());
+                proto.getPrevHash().toByteArray(),
+                proto.getIsIncremental());
+    }
+
+    @Override
+    public String toString() {
+        return "DaoStateHash{" +
+                "\n     isIncremental=" + isIncremental +
+                ",\n     " + super.toString() +
+                "\n}";
     }
 }
@@ -55,8 +55,11 @@ public final class NewDaoStateHashMessage extends NewStateHashMessage<DaoStateHa
         return new NewDaoStateHashMessage(DaoStateHash.fromProto(proto.getStateHash()), messageVersion);
     }
 
+    // Peers which do not use the incremental DAO state hash would consider an incremental hash as conflict
     @Override
     public Capabilities getRequiredCapabilities() {
-        return new Capabilities(Capability.DAO_STATE);
+        return stateHash.isIncremental() ?
+                new Capabilities(Capability.DAO_STATE, Capability.INCREMENTAL_DAO_STATE_HASH) :
+                new Capabilities(Capability.DAO_STATE);
     }
 }
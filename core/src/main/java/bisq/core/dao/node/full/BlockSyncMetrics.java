@@ -0,0 +1,82 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.dao.node.full;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Accumulated durations of the stages a block passes when a full node syncs from Bitcoin Core. RPC includes the JSON
+ * decoding as btcd-cli4j does both in one call. Wait is the time the parser had to wait for the next block, which is
+ * close to 0 if the fetch pipeline keeps up with parsing.
+ *
+ * RPC and conversion are recorded on the fetch threads, so all values are atomic.
+ */
+class BlockSyncMetrics {
+    private final AtomicLong numBlocks = new AtomicLong();
+    private final AtomicLong rpcNanos = new AtomicLong();
+    private final AtomicLong conversionNanos = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+    private final AtomicLong parseNanos = new AtomicLong();
+
+    void addRpcTime(long nanos) {
+        rpcNanos.addAndGet(nanos);
+    }
+
+    void addConversionTime(long nanos) {
+        conversionNanos.addAndGet(nanos);
+    }
+
+    void addWaitTime(long nanos) {
+        waitNanos.addAndGet(nanos);
+    }
+
+    void addParseTime(long nanos) {
+        parseNanos.addAndGet(nanos);
+        numBlocks.incrementAndGet();
+    }
+
+    long getNumBlocks() {
+        return numBlocks.get();
+    }
+
+    void reset() {
+        numBlocks.set(0);
+        rpcNanos.set(0);
+        conversionNanos.set(0);
+        waitNanos.set(0);
+        parseNanos.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return "BlockSyncMetrics{" +
+                "numBlocks=" + numBlocks.get() +
+                ", rpc=" + toStageString(rpcNanos) +
+                ", conversion=" + toStageString(conversionNanos) +
+                ", wait=" + toStageString(waitNanos) +
+                ", parse=" + toStageString(parseNanos) +
+                '}';
+    }
+
+    private String toStageString(AtomicLong nanos) {
+        long blocks = Math.max(1, numBlocks.get());
+        return TimeUnit.NANOSECONDS.toMillis(nanos.get()) + " ms (" +
+                TimeUnit.NANOSECONDS.toMicros(nanos.get() / blocks) + " us/block)";
+    }
+}
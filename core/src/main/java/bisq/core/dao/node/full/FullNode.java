@@ -31,17 +31,21 @@ import bisq.core.dao.state.model.blockchain.Block;
 import bisq.network.p2p.P2PService;
 
 import bisq.common.UserThread;
+import bisq.common.config.Config;
 import bisq.common.handlers.ResultHandler;
 
 import com.neemre.btcdcli4j.core.http.HttpLayerException;
 import com.neemre.btcdcli4j.daemon.NotificationHandlerException;
 
 import javax.inject.Inject;
+import javax.inject.Named;
 
 import java.util.function.Consumer;
 
 import lombok.extern.slf4j.Slf4j;
 
+import javax.annotation.Nullable;
+
 /**
  * Main class for a full node which have Bitcoin Core with rpc running and does the blockchain lookup itself.
  * It also provides the BSQ transactions to lite nodes on request and broadcasts new BSQ blocks.
@@ -54,9 +58,13 @@ public class FullNode extends BsqNode {
 
     private final RpcService rpcService;
     private final FullNodeNetworkService fullNodeNetworkService;
+    private final int rpcBlockReadAhead;
+    private final BlockSyncMetrics blockSyncMetrics = new BlockSyncMetrics();
     private boolean addBlockHandlerAdded;
     private int blocksToParseInBatch;
     private long parseInBatchStartTime;
+    @Nullable
+    private RawBlockPipeline rawBlockPipeline;
 
 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -71,9 +79,11 @@ public class FullNode extends BsqNode {
                     P2PService p2PService,
                     RpcService rpcService,
                     ExportJsonFilesService exportJsonFilesService,
-                    FullNodeNetworkService fullNodeNetworkService) {
+                    FullNodeNetworkService fullNodeNetworkService,
+                    @Named(Config.RPC_BLOCK_READ_AHEAD) int rpcBlockReadAhead) {
         super(blockParser, daoStateService, daoStateSnapshotService, p2PService, exportJsonFilesService);
         this.rpcService = rpcService;
+        this.rpcBlockReadAhead = rpcBlockReadAhead;
 
         this.fullNodeNetworkService = fullNodeNetworkService;
     }
@@ -96,6 +106,9 @@ public class FullNode extends BsqNode {
 
     public void shutDown() {
         super.shutDown();
+        if (rawBlockPipeline != null)
+            rawBlockPipeline.stop();
+        rpcService.shutDown();
         fullNodeNetworkService.shutDown();
     }
 
@@ -184,6 +197,7 @@ public class FullNode extends BsqNode {
                     } else {
                         log.info("parseBlocksIfNewBlockAvailable did not result in a new block, so we complete.");
                         log.info("parse {} blocks took {} seconds", blocksToParseInBatch, (System.currentTimeMillis() - parseInBatchStartTime) / 1000d);
+                        log.info("Block sync metrics: {}", blockSyncMetrics);
                         if (!parseBlockchainComplete) {
                             onParseBlockChainComplete();
                         }
@@ -202,6 +216,7 @@ public class FullNode extends BsqNode {
         if (startBlockHeight <= chainHeight) {
             blocksToParseInBatch = chainHeight - startBlockHeight;
             parseInBatchStartTime = System.currentTimeMillis();
+            blockSyncMetrics.reset();
             log.info("parse {} blocks with startBlockHeight={} and chainHeight={}", blocksToParseInBatch, startBlockHeight, chainHeight);
             chainTipHeight = chainHeight;
             parseBlocks(startBlockHeight,
@@ -228,32 +243,31 @@ public class FullNode extends BsqNode {
                              Consumer<Block> newBlockHandler,
                              ResultHandler resultHandler,
                              Consumer<Throwable> errorHandler) {
-        parseBlockRecursively(startBlockHeight, chainHeight, newBlockHandler, resultHandler, errorHandler);
-    }
-
-    private void parseBlockRecursively(int blockHeight,
-                                       int chainHeight,
-                                       Consumer<Block> newBlockHandler,
-                                       ResultHandler resultHandler,
-                                       Consumer<Throwable> errorHandler) {
-        rpcService.requestBtcBlock(blockHeight,
+        if (rawBlockPipeline != null)
+            rawBlockPipeline.stop();
+
+        // The blocks are requested ahead and concurrently but delivered in height order
+        rawBlockPipeline = new RawBlockPipeline(rpcService,
+                blockSyncMetrics,
+                startBlockHeight,
+                chainHeight,
+                rpcBlockReadAhead,
                 rawBlock -> {
                     try {
+                        long startTs = System.nanoTime();
                         doParseBlock(rawBlock).ifPresent(newBlockHandler);
-
-                        // Increment blockHeight and recursively call parseBlockAsync until we reach chainHeight
-                        if (blockHeight < chainHeight) {
-                            int newBlockHeight = blockHeight + 1;
-                            parseBlockRecursively(newBlockHeight, chainHeight, newBlockHandler, resultHandler, errorHandler);
-                        } else {
-                            // We are done
-                            resultHandler.handleResult();
-                        }
+                        blockSyncMetrics.addParseTime(System.nanoTime() - startTs);
+                        if (blockSyncMetrics.getNumBlocks() % 1000 == 0)
+                            log.info("Block sync metrics: {}", blockSyncMetrics);
+                        return true;
                     } catch (RequiredReorgFromSnapshotException ignore) {
-                        // If we get a reorg we don't continue to call parseBlockRecursively
+                        // If we get a reorg we don't continue to parse the blocks
+                        return false;
                     }
                 },
+                resultHandler,
                 errorHandler);
+        rawBlockPipeline.start();
     }
 
     private void handleError(Throwable throwable) {
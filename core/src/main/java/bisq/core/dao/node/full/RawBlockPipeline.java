@@ -0,0 +1,148 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.dao.node.full;
+
+import bisq.common.UserThread;
+import bisq.common.handlers.ResultHandler;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Requests the blocks from startBlockHeight to chainHeight from Bitcoin Core and delivers them strictly in height
+ * order on the user thread. Up to readAhead blocks are requested ahead of the block which gets parsed, so the RPC
+ * round trips overlap with parsing. The requests are executed concurrently on the block fetch threads of RpcService.
+ * As we never hold more than readAhead RawBlocks the memory stays bounded.
+ *
+ * Only accessed from the user thread.
+ */
+@Slf4j
+class RawBlockPipeline {
+    private final RpcService rpcService;
+    private final BlockSyncMetrics metrics;
+    private final int chainHeight;
+    private final int readAhead;
+    // Returns false if no more blocks should be delivered
+    private final Predicate<RawBlock> rawBlockHandler;
+    private final ResultHandler resultHandler;
+    private final Consumer<Throwable> errorHandler;
+
+    // Requests in height order. The head is the block which gets delivered next.
+    private final Deque<ListenableFuture<RawBlock>> pendingRequests = new ArrayDeque<>();
+    private int nextBlockHeightToRequest;
+    private boolean stopped;
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Constructor
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    RawBlockPipeline(RpcService rpcService,
+                     BlockSyncMetrics metrics,
+                     int startBlockHeight,
+                     int chainHeight,
+                     int readAhead,
+                     Predicate<RawBlock> rawBlockHandler,
+                     ResultHandler resultHandler,
+                     Consumer<Throwable> errorHandler) {
+        this.rpcService = rpcService;
+        this.metrics = metrics;
+        this.chainHeight = chainHeight;
+        this.readAhead = Math.max(1, readAhead);
+        this.rawBlockHandler = rawBlockHandler;
+        this.resultHandler = resultHandler;
+        this.errorHandler = errorHandler;
+        this.nextBlockHeightToRequest = startBlockHeight;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    void start() {
+        requestBlocks();
+        deliverNextBlock();
+    }
+
+    void stop() {
+        stopped = true;
+        pendingRequests.forEach(future -> future.cancel(false));
+        pendingRequests.clear();
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private void requestBlocks() {
+        while (pendingRequests.size() < readAhead && nextBlockHeightToRequest <= chainHeight) {
+            pendingRequests.add(rpcService.requestBtcBlock(nextBlockHeightToRequest, metrics));
+            nextBlockHeightToRequest++;
+        }
+    }
+
+    private void deliverNextBlock() {
+        ListenableFuture<RawBlock> future = pendingRequests.peek();
+        if (future == null) {
+            // We are done
+            resultHandler.handleResult();
+            return;
+        }
+
+        long waitStartTs = System.nanoTime();
+        Futures.addCallback(future, new FutureCallback<>() {
+            @Override
+            public void onSuccess(RawBlock rawBlock) {
+                if (stopped)
+                    return;
+
+                metrics.addWaitTime(System.nanoTime() - waitStartTs);
+                pendingRequests.poll();
+                // We request the next block before we parse so the fetching continues while we parse
+                requestBlocks();
+
+                if (rawBlockHandler.test(rawBlock))
+                    deliverNextBlock();
+                else
+                    stop();
+            }
+
+            @Override
+            public void onFailure(@NotNull Throwable throwable) {
+                if (stopped)
+                    return;
+
+                log.error("Error at requestBtcBlock: blockHeight={}", nextBlockHeightToRequest - pendingRequests.size());
+                stop();
+                errorHandler.accept(throwable);
+            }
+        }, UserThread::execute);
+    }
+}
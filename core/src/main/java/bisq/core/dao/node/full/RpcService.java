@@ -52,9 +52,14 @@ import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
@@ -79,9 +84,10 @@ public class RpcService {
     private BtcdClient client;
     private BtcdDaemon daemon;
 
-    // We could use multiple threads but then we need to support ordering of results in a queue
-    // Keep that for optimization after measuring performance differences
     private final ListeningExecutorService executor = Utilities.getSingleThreadExecutor("RpcService");
+    // Blocks are requested concurrently at the initial sync. The ordering is done in RawBlockPipeline.
+    private final ListeningExecutorService blockFetchExecutor;
+    private final int blockFetchParallelism;
 
 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -94,7 +100,8 @@ public class RpcService {
                       @Named(Config.RPC_HOST) String rpcHost,
                       @Named(Config.RPC_PORT) int rpcPort,
                       @Named(Config.RPC_BLOCK_NOTIFICATION_PORT) int rpcBlockPort,
-                      @Named(Config.RPC_BLOCK_NOTIFICATION_HOST) String rpcBlockHost) {
+                      @Named(Config.RPC_BLOCK_NOTIFICATION_HOST) String rpcBlockHost,
+                      @Named(Config.RPC_BLOCK_FETCH_PARALLELISM) int blockFetchParallelism) {
         this.rpcUser = preferences.getRpcUser();
         this.rpcPassword = preferences.getRpcPw();
 
@@ -113,6 +120,14 @@ public class RpcService {
         boolean isBlockHostSet = !rpcBlockHost.isEmpty();
         this.rpcBlockPort = isBlockPortSet ? rpcBlockPort : 5125;
         this.rpcBlockHost = isBlockHostSet ? rpcBlockHost : "127.0.0.1";
+
+        this.blockFetchParallelism = Math.max(1, blockFetchParallelism);
+        ThreadFactory threadFactory = new ThreadFactoryBuilder()
+                .setNameFormat("RpcService-block-fetch-%d")
+                .setDaemon(true)
+                .build();
+        blockFetchExecutor = MoreExecutors.listeningDecorator(
+                Executors.newFixedThreadPool(this.blockFetchParallelism, threadFactory));
     }
 
 
@@ -130,6 +145,9 @@ public class RpcService {
 
                 long startTs = System.currentTimeMillis();
                 PoolingHttpClientConnectionManager cm = new PoolingHttpClientConnectionManager();
+                // The default of 2 connections per route would limit the concurrent block requests
+                cm.setDefaultMaxPerRoute(blockFetchParallelism + 1);
+                cm.setMaxTotal(blockFetchParallelism + 1);
                 CloseableHttpClient httpProvider = HttpClients.custom().setConnectionManager(cm).build();
                 Properties nodeConfig = new Properties();
                 nodeConfig.setProperty("node.bitcoind.rpc.protocol", "http");
@@ -220,37 +238,34 @@ public class RpcService {
         });
     }
 
-    void requestBtcBlock(int blockHeight,
-                         Consumer<RawBlock> resultHandler,
-                         Consumer<Throwable> errorHandler) {
-        ListenableFuture<RawBlock> future = executor.submit(() -> {
-            long startTs = System.currentTimeMillis();
+    /**
+     * Requests the block at blockHeight on one of the block fetch threads. The future completes on that thread.
+     */
+    ListenableFuture<RawBlock> requestBtcBlock(int blockHeight, BlockSyncMetrics metrics) {
+        return blockFetchExecutor.submit(() -> {
+            long startTs = System.nanoTime();
             String blockHash = client.getBlockHash(blockHeight);
             com.neemre.btcdcli4j.core.domain.RawBlock rawBtcBlock = client.getBlock(blockHash, 2);
+            long rpcCompletedTs = System.nanoTime();
             List<RawTx> txList = rawBtcBlock.getTx().stream()
                     .map(e -> getTxFromRawTransaction(e, rawBtcBlock))
                     .collect(Collectors.toList());
-            log.info("requestBtcBlock from bitcoind at blockHeight {} with {} txs took {} ms",
-                    blockHeight, txList.size(), System.currentTimeMillis() - startTs);
-            return new RawBlock(rawBtcBlock.getHeight(),
+            RawBlock rawBlock = new RawBlock(rawBtcBlock.getHeight(),
                     rawBtcBlock.getTime() * 1000, // rawBtcBlock.getTime() is in sec but we want ms
                     rawBtcBlock.getHash(),
                     rawBtcBlock.getPreviousBlockHash(),
                     ImmutableList.copyOf(txList));
+            long completedTs = System.nanoTime();
+            metrics.addRpcTime(rpcCompletedTs - startTs);
+            metrics.addConversionTime(completedTs - rpcCompletedTs);
+            log.info("requestBtcBlock from bitcoind at blockHeight {} with {} txs took {} ms",
+                    blockHeight, txList.size(), TimeUnit.NANOSECONDS.toMillis(completedTs - startTs));
+            return rawBlock;
         });
+    }
 
-        Futures.addCallback(future, new FutureCallback<>() {
-            @Override
-            public void onSuccess(RawBlock block) {
-                UserThread.execute(() -> resultHandler.accept(block));
-            }
-
-            @Override
-            public void onFailure(@NotNull Throwable throwable) {
-                log.error("Error at requestBtcBlock: blockHeight={}", blockHeight);
-                UserThread.execute(() -> errorHandler.accept(throwable));
-            }
-        });
+    void shutDown() {
+        blockFetchExecutor.shutdownNow();
     }
 
 
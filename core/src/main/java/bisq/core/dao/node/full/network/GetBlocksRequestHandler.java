@@ -29,11 +29,13 @@ import bisq.network.p2p.network.NetworkNode;
 
 import bisq.common.Timer;
 import bisq.common.UserThread;
+import bisq.common.app.Capability;
 
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.SettableFuture;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
@@ -50,6 +52,10 @@ import org.jetbrains.annotations.NotNull;
 class GetBlocksRequestHandler {
     private static final long TIMEOUT = 120;
 
+    // Used if the peer supports Capability.GET_BLOCKS_RESPONSE_PARTS. Small enough that the lite node can start
+    // parsing early and a part does not take long over Tor.
+    private static final int MAX_BLOCKS_PER_PART = 500;
+
 
     ///////////////////////////////////////////////////////////////////////////////////////////
     // Listener
@@ -91,6 +97,14 @@ class GetBlocksRequestHandler {
     public void onGetBlocksRequest(GetBlocksRequest getBlocksRequest, final Connection connection) {
         // We limit number of blocks to 6000 which is about 1.5 month.
         List<Block> blocks = new LinkedList<>(daoStateService.getBlocksFromBlockHeight(getBlocksRequest.getFromBlockHeight(), 6000));
+        if (connection.getCapabilities().containsAll(Capability.GET_BLOCKS_RESPONSE_PARTS)) {
+            log.info("Received GetBlocksRequest from {} for blocks from height {}. We deliver {} blocks in parts of " +
+                            "max. {} blocks", connection.getPeersNodeAddressOptional(),
+                    getBlocksRequest.getFromBlockHeight(), blocks.size(), MAX_BLOCKS_PER_PART);
+            sendNextPart(new ArrayList<>(blocks), 0, getBlocksRequest.getNonce(), connection);
+            return;
+        }
+
         List<RawBlock> rawBlocks = blocks.stream().map(RawBlock::fromBlock).collect(Collectors.toList());
         GetBlocksResponse getBlocksResponse = new GetBlocksResponse(rawBlocks, getBlocksRequest.getNonce());
         log.info("Received GetBlocksRequest from {} for blocks from height {}",
@@ -142,6 +156,62 @@ class GetBlocksRequestHandler {
     // Private
     ///////////////////////////////////////////////////////////////////////////////////////////
 
+    // The next part is created only after the previous one was written to the socket, so parts don't pile up in the
+    // outbound queue of the connection. GetBlocksResponse is an ExtendedDataSizePermission message, so the parts are
+    // never bundled.
+    private void sendNextPart(List<Block> blocks, int partIndex, int requestNonce, Connection connection) {
+        // We convert the blocks of a part only when we send it, so only one part is held in memory as RawBlocks
+        int fromIndex = partIndex * MAX_BLOCKS_PER_PART;
+        int toIndex = Math.min(blocks.size(), fromIndex + MAX_BLOCKS_PER_PART);
+        List<RawBlock> rawBlocks = blocks.subList(fromIndex, toIndex).stream()
+                .map(RawBlock::fromBlock)
+                .collect(Collectors.toList());
+        boolean hasMoreParts = toIndex < blocks.size();
+        GetBlocksResponse getBlocksResponse = new GetBlocksResponse(rawBlocks, requestNonce, partIndex, hasMoreParts);
+
+        // Each part gets its own timeout
+        stopTimeoutTimer();
+        timeoutTimer = UserThread.runAfter(() -> {  // setup before sending to avoid race conditions
+                    String errorMessage = "A timeout occurred for part " + partIndex +
+                            " of getBlocksResponse.requestNonce:" + requestNonce +
+                            " on connection:" + connection;
+                    handleFault(errorMessage, CloseConnectionReason.SEND_MSG_TIMEOUT, connection);
+                },
+                TIMEOUT, TimeUnit.SECONDS);
+
+        SettableFuture<Connection> future = networkNode.sendMessage(connection, getBlocksResponse);
+        Futures.addCallback(future, new FutureCallback<>() {
+            @Override
+            public void onSuccess(Connection connection) {
+                if (!stopped) {
+                    if (hasMoreParts) {
+                        // The networkNode calls us on the UserThread
+                        sendNextPart(blocks, partIndex + 1, requestNonce, connection);
+                    } else {
+                        log.info("Send last part of GetBlocksResponse to {} succeeded. Number of blocks={}",
+                                connection.getPeersNodeAddressOptional(), blocks.size());
+                        cleanup();
+                        listener.onComplete();
+                    }
+                } else {
+                    log.trace("We have stopped already. We ignore that networkNode.sendMessage.onSuccess call.");
+                }
+            }
+
+            @Override
+            public void onFailure(@NotNull Throwable throwable) {
+                if (!stopped) {
+                    String errorMessage = "Sending part " + partIndex + " of getBlocksResponse to " + connection +
+                            " failed. That is expected if the peer is offline. " +
+                            "Exception: " + throwable.getMessage();
+                    handleFault(errorMessage, CloseConnectionReason.SEND_MSG_FAILURE, connection);
+                } else {
+                    log.trace("We have stopped already. We ignore that networkNode.sendMessage.onFailure call.");
+                }
+            }
+        });
+    }
+
     private void handleFault(String errorMessage, CloseConnectionReason closeConnectionReason, Connection connection) {
         if (!stopped) {
             log.debug(errorMessage + "\n\tcloseConnectionReason=" + closeConnectionReason);
@@ -154,6 +224,10 @@ class GetBlocksRequestHandler {
 
     private void cleanup() {
         stopped = true;
+        stopTimeoutTimer();
+    }
+
+    private void stopTimeoutTimer() {
         if (timeoutTimer != null) {
             timeoutTimer.stop();
             timeoutTimer = null;
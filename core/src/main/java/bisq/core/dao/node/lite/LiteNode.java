@@ -38,6 +38,7 @@ import bisq.common.UserThread;
 import com.google.inject.Inject;
 
 import java.util.ArrayList;
+import java.util.LinkedList;
 import java.util.List;
 
 import lombok.extern.slf4j.Slf4j;
@@ -56,6 +57,14 @@ public class LiteNode extends BsqNode {
     private final BsqWalletService bsqWalletService;
     private Timer checkForBlockReceivedTimer;
 
+    // Received blocks which are not parsed yet. If the full node delivers the blocks in parts we add the blocks of
+    // each part as it arrives, so we parse while the later parts are still in flight.
+    private final List<RawBlock> receivedBlocksToParse = new LinkedList<>();
+    private boolean parsingReceivedBlocks;
+    // Set when we have received the last part
+    @Nullable
+    private Runnable onReceivedBlocksParsedHandler;
+
 
     ///////////////////////////////////////////////////////////////////////////////////////////
     // Constructor
@@ -133,6 +142,7 @@ public class LiteNode extends BsqNode {
             @Override
             public void onRequestedBlocksReceived(GetBlocksResponse getBlocksResponse, Runnable onParsingComplete) {
                 LiteNode.this.onRequestedBlocksReceived(new ArrayList<>(getBlocksResponse.getBlocks()),
+                        !getBlocksResponse.isHasMoreParts(),
                         onParsingComplete);
             }
 
@@ -165,6 +175,10 @@ public class LiteNode extends BsqNode {
     protected void startReOrgFromLastSnapshot() {
         super.startReOrgFromLastSnapshot();
 
+        // Blocks of a previous response which are not parsed yet are obsolete
+        receivedBlocksToParse.clear();
+        onReceivedBlocksParsedHandler = null;
+
         int startBlockHeight = getStartBlockHeight();
         liteNodeNetworkService.reset();
         liteNodeNetworkService.requestBlocks(startBlockHeight);
@@ -175,8 +189,8 @@ public class LiteNode extends BsqNode {
     // Private
     ///////////////////////////////////////////////////////////////////////////////////////////
 
-    // We received the missing blocks
-    private void onRequestedBlocksReceived(List<RawBlock> blockList, Runnable onParsingComplete) {
+    // We received the missing blocks. If the full node delivers them in parts we get called for each part.
+    private void onRequestedBlocksReceived(List<RawBlock> blockList, boolean isLastPart, Runnable onParsingComplete) {
         if (!blockList.isEmpty()) {
             chainTipHeight = blockList.get(blockList.size() - 1).getHeight();
             log.info("We received blocks from height {} to {}", blockList.get(0).getHeight(), chainTipHeight);
@@ -190,42 +204,59 @@ public class LiteNode extends BsqNode {
         // release it will be a bit of a performance hit. It is a one time event as the snapshots gets created and be
         // used at next startup. New users will get the shipped snapshot. Users who have not used Bisq for longer might
         // experience longer durations for batch processing.
-        long ts = System.currentTimeMillis();
-
-        if (blockList.isEmpty()) {
+        if (isLastPart && blockList.isEmpty() && receivedBlocksToParse.isEmpty() && !parsingReceivedBlocks) {
             onParseBlockChainComplete();
             return;
         }
 
-        runDelayedBatchProcessing(new ArrayList<>(blockList),
-                () -> {
-                    log.debug("Parsing {} blocks took {} seconds.", blockList.size(), (System.currentTimeMillis() - ts) / 1000d);
-                    if (daoStateService.getChainHeight() < bsqWalletService.getBestChainHeight()) {
-                        liteNodeNetworkService.requestBlocks(getStartBlockHeight());
-                    } else {
-                        onParsingComplete.run();
-                        onParseBlockChainComplete();
-                    }
-                });
+        receivedBlocksToParse.addAll(blockList);
+        if (isLastPart) {
+            long ts = System.currentTimeMillis();
+            onReceivedBlocksParsedHandler = () -> {
+                log.debug("Parsing the remaining blocks took {} seconds.", (System.currentTimeMillis() - ts) / 1000d);
+                if (daoStateService.getChainHeight() < bsqWalletService.getBestChainHeight()) {
+                    liteNodeNetworkService.requestBlocks(getStartBlockHeight());
+                } else {
+                    onParsingComplete.run();
+                    onParseBlockChainComplete();
+                }
+            };
+        }
+
+        if (!parsingReceivedBlocks) {
+            parsingReceivedBlocks = true;
+            runDelayedBatchProcessing();
+        }
     }
 
-    private void runDelayedBatchProcessing(List<RawBlock> blocks, Runnable resultHandler) {
+    private void runDelayedBatchProcessing() {
         UserThread.execute(() -> {
-            if (blocks.isEmpty()) {
-                resultHandler.run();
+            if (receivedBlocksToParse.isEmpty()) {
+                // If the last part has not arrived yet we continue when it arrives
+                onBatchProcessingComplete();
                 return;
             }
 
-            RawBlock block = blocks.remove(0);
+            RawBlock block = receivedBlocksToParse.remove(0);
             try {
                 doParseBlock(block);
-                runDelayedBatchProcessing(blocks, resultHandler);
+                runDelayedBatchProcessing();
             } catch (RequiredReorgFromSnapshotException e) {
-                resultHandler.run();
+                receivedBlocksToParse.clear();
+                onBatchProcessingComplete();
             }
         });
     }
 
+    private void onBatchProcessingComplete() {
+        parsingReceivedBlocks = false;
+        if (onReceivedBlocksParsedHandler != null) {
+            Runnable handler = onReceivedBlocksParsedHandler;
+            onReceivedBlocksParsedHandler = null;
+            handler.run();
+        }
+    }
+
     // We received a new block
     private void onNewBlockReceived(RawBlock block) {
         int blockHeight = block.getHeight();
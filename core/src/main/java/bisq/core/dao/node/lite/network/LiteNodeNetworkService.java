@@ -76,6 +76,8 @@ public class LiteNodeNetworkService implements MessageListener, ConnectionListen
     public interface Listener {
         void onNoSeedNodeAvailable();
 
+        // If the full node delivers the blocks in parts we get called for each part. Only the last part has
+        // getBlocksResponse.isHasMoreParts() false.
         void onRequestedBlocksReceived(GetBlocksResponse getBlocksResponse, Runnable onParsingComplete);
 
         void onNewBlockReceived(NewBlockBroadcastMessage newBlockBroadcastMessage);
@@ -261,6 +263,11 @@ public class LiteNodeNetworkService implements MessageListener, ConnectionListen
                             peersNodeAddress,
                             startBlockHeight,
                             new RequestBlocksHandler.Listener() {
+                                @Override
+                                public void onPartReceived(GetBlocksResponse getBlocksResponse) {
+                                    onRequestedBlocksReceived(getBlocksResponse, startBlockHeight);
+                                }
+
                                 @Override
                                 public void onComplete(GetBlocksResponse getBlocksResponse) {
                                     log.debug("requestBlocksHandler of outbound connection complete. nodeAddress={}",
@@ -269,21 +276,7 @@ public class LiteNodeNetworkService implements MessageListener, ConnectionListen
 
                                     // need to remove before listeners are notified as they cause the update call
                                     requestBlocksHandlerMap.remove(key);
-                                    // we only notify if our request was latest
-                                    if (startBlockHeight >= lastReceivedBlockHeight) {
-                                        lastReceivedBlockHeight = startBlockHeight;
-
-                                        listeners.forEach(listener -> listener.onRequestedBlocksReceived(getBlocksResponse,
-                                                () -> {
-                                                    // After we received the blocks we allow to disconnect seed nodes.
-                                                    // We delay 20 seconds to allow multiple requests to finish.
-                                                    UserThread.runAfter(() -> peerManager.setAllowDisconnectSeedNodes(true), 20);
-                                                }));
-                                    } else {
-                                        log.warn("We got a response which is already obsolete because we receive a " +
-                                                "response from a request with a higher block height. " +
-                                                "This could theoretically happen, but is very unlikely.");
-                                    }
+                                    onRequestedBlocksReceived(getBlocksResponse, startBlockHeight);
                                 }
 
                                 @Override
@@ -326,6 +319,25 @@ public class LiteNodeNetworkService implements MessageListener, ConnectionListen
         }
     }
 
+    // Called for each part if the response is delivered in parts
+    private void onRequestedBlocksReceived(GetBlocksResponse getBlocksResponse, int startBlockHeight) {
+        // we only notify if our request was latest
+        if (startBlockHeight >= lastReceivedBlockHeight) {
+            lastReceivedBlockHeight = startBlockHeight;
+
+            listeners.forEach(listener -> listener.onRequestedBlocksReceived(getBlocksResponse,
+                    () -> {
+                        // After we received the blocks we allow to disconnect seed nodes.
+                        // We delay 20 seconds to allow multiple requests to finish.
+                        UserThread.runAfter(() -> peerManager.setAllowDisconnectSeedNodes(true), 20);
+                    }));
+        } else {
+            log.warn("We got a response which is already obsolete because we receive a " +
+                    "response from a request with a higher block height. " +
+                    "This could theoretically happen, but is very unlikely.");
+        }
+    }
+
 
     ///////////////////////////////////////////////////////////////////////////////////////////
     // Utils
@@ -58,6 +58,9 @@ public class RequestBlocksHandler implements MessageListener {
     ///////////////////////////////////////////////////////////////////////////////////////////
 
     public interface Listener {
+        // Called for each part of a GetBlocksResponse except the last one, which is delivered with onComplete
+        void onPartReceived(GetBlocksResponse getBlocksResponse);
+
         void onComplete(GetBlocksResponse getBlocksResponse);
 
         @SuppressWarnings("UnusedParameters")
@@ -78,6 +81,7 @@ public class RequestBlocksHandler implements MessageListener {
     private final Listener listener;
     private Timer timeoutTimer;
     private final int nonce = new Random().nextInt();
+    private int nextPartIndex;
     private boolean stopped;
 
 
@@ -175,6 +179,33 @@ public class RequestBlocksHandler implements MessageListener {
                         checkArgument(connection.getPeersNodeAddressOptional().isPresent(),
                                 "RequestDataHandler.onMessage: connection.getPeersNodeAddressOptional() must be present " +
                                         "at that moment");
+                        if (getBlocksResponse.getPartIndex() != nextPartIndex) {
+                            String errorMessage = "We received part " + getBlocksResponse.getPartIndex() +
+                                    " of GetBlocksResponse but expected part " + nextPartIndex +
+                                    " from nodeAddress:" + nodeAddress;
+                            handleFault(errorMessage, nodeAddress, CloseConnectionReason.RULE_VIOLATION);
+                            return;
+                        }
+
+                        if (getBlocksResponse.isHasMoreParts()) {
+                            // The listener can parse the blocks of that part while we wait for the next one
+                            nextPartIndex++;
+                            log.info("We received from peer {} part {} of a BlocksResponse with {} blocks. " +
+                                            "We wait for the next part.", nodeAddress.getFullAddress(),
+                                    getBlocksResponse.getPartIndex(), getBlocksResponse.getBlocks().size());
+                            timeoutTimer = UserThread.runAfter(() -> {
+                                        if (!stopped) {
+                                            String errorMessage = "A timeout occurred while waiting for part " +
+                                                    nextPartIndex + " of GetBlocksResponse from nodeAddress:" +
+                                                    nodeAddress;
+                                            handleFault(errorMessage, nodeAddress, CloseConnectionReason.SEND_MSG_TIMEOUT);
+                                        }
+                                    },
+                                    TIMEOUT);
+                            listener.onPartReceived(getBlocksResponse);
+                            return;
+                        }
+
                         cleanup();
                         log.info("We received from peer {} a BlocksResponse with {} blocks",
                                 nodeAddress.getFullAddress(), getBlocksResponse.getBlocks().size());
@@ -23,25 +23,55 @@ import bisq.network.p2p.DirectMessage;
 import bisq.network.p2p.ExtendedDataSizePermission;
 
 import bisq.common.app.Version;
+import bisq.common.proto.ProtobufferRuntimeException;
 import bisq.common.proto.network.NetworkEnvelope;
+import bisq.common.util.CompressionUtils;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+
+import java.io.IOException;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import lombok.AccessLevel;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
+import javax.annotation.Nullable;
+
 @EqualsAndHashCode(callSuper = true)
 @Getter
 @Slf4j
 public final class GetBlocksResponse extends NetworkEnvelope implements DirectMessage, ExtendedDataSizePermission {
+    // A part has max. a few MB uncompressed, so that is only a protection against malicious peers
+    private static final int MAX_UNCOMPRESSED_SIZE = 20 * 1024 * 1024;
+
     private final List<RawBlock> blocks;
     private final int requestNonce;
 
+    // If the peer supports Capability.GET_BLOCKS_RESPONSE_PARTS the blocks are sent in several parts in sequence and
+    // each part is compressed. Older nodes don't set those fields, so the default values represent a single response.
+    private final int partIndex;
+    private final boolean hasMoreParts;
+    private final boolean compressed;
+    // Compression is the most expensive part of the serialization, so we compress a part we send only once and not
+    // at each call of toProtoNetworkEnvelope. Not set for received parts.
+    @Nullable
+    @EqualsAndHashCode.Exclude
+    @Getter(AccessLevel.NONE)
+    private ByteString compressedRawBlocks;
+
     public GetBlocksResponse(List<RawBlock> blocks, int requestNonce) {
-        this(blocks, requestNonce, Version.getP2PMessageVersion());
+        this(blocks, requestNonce, 0, false, false, Version.getP2PMessageVersion());
+    }
+
+    public GetBlocksResponse(List<RawBlock> blocks, int requestNonce, int partIndex, boolean hasMoreParts) {
+        this(blocks, requestNonce, partIndex, hasMoreParts, true, Version.getP2PMessageVersion());
+        compressedRawBlocks = compressRawBlocks(blocks);
     }
 
 
@@ -49,43 +79,96 @@ public final class GetBlocksResponse extends NetworkEnvelope implements DirectMe
     // PROTO BUFFER
     ///////////////////////////////////////////////////////////////////////////////////////////
 
-    private GetBlocksResponse(List<RawBlock> blocks, int requestNonce, int messageVersion) {
+    private GetBlocksResponse(List<RawBlock> blocks,
+                              int requestNonce,
+                              int partIndex,
+                              boolean hasMoreParts,
+                              boolean compressed,
+                              int messageVersion) {
         super(messageVersion);
         this.blocks = blocks;
         this.requestNonce = requestNonce;
+        this.partIndex = partIndex;
+        this.hasMoreParts = hasMoreParts;
+        this.compressed = compressed;
     }
 
     @Override
     public protobuf.NetworkEnvelope toProtoNetworkEnvelope() {
+        protobuf.GetBlocksResponse.Builder builder = protobuf.GetBlocksResponse.newBuilder()
+                .setRequestNonce(requestNonce)
+                .setPartIndex(partIndex)
+                .setHasMoreParts(hasMoreParts);
+        if (compressed) {
+            if (compressedRawBlocks == null)
+                compressedRawBlocks = compressRawBlocks(blocks);
+            builder.setCompressedRawBlocks(compressedRawBlocks);
+        } else {
+            builder.addAllRawBlocks(blocks.stream()
+                    .map(RawBlock::toProtoMessage)
+                    .collect(Collectors.toList()));
+        }
+
         protobuf.NetworkEnvelope proto = getNetworkEnvelopeBuilder()
-                .setGetBlocksResponse(protobuf.GetBlocksResponse.newBuilder()
-                        .addAllRawBlocks(blocks.stream()
-                                .map(RawBlock::toProtoMessage)
-                                .collect(Collectors.toList()))
-                        .setRequestNonce(requestNonce))
+                .setGetBlocksResponse(builder)
                 .build();
-        log.info("Sending a GetBlocksResponse with {} kB", proto.getSerializedSize() / 1000d);
+        log.debug("Sending a GetBlocksResponse with {} blocks and {} kB (part {}, compressed={})",
+                blocks.size(), proto.getSerializedSize() / 1000d, partIndex, compressed);
         return proto;
     }
 
     public static NetworkEnvelope fromProto(protobuf.GetBlocksResponse proto, int messageVersion) {
-        List<RawBlock> list = proto.getRawBlocksList().stream()
+        boolean compressed = !proto.getCompressedRawBlocks().isEmpty();
+        List<protobuf.BaseBlock> rawBlocks = compressed ?
+                decompressRawBlocks(proto.getCompressedRawBlocks()) :
+                proto.getRawBlocksList();
+        List<RawBlock> list = rawBlocks.stream()
                 .map(RawBlock::fromProto)
                 .collect(Collectors.toList());
-        log.info("Received a GetBlocksResponse with {} blocks and {} kB size", list.size(), proto.getSerializedSize() / 1000d);
-        return new GetBlocksResponse(proto.getRawBlocksList().isEmpty() ?
+        log.info("Received a GetBlocksResponse with {} blocks and {} kB size (part {}, compressed={})",
+                list.size(), proto.getSerializedSize() / 1000d, proto.getPartIndex(), compressed);
+        return new GetBlocksResponse(rawBlocks.isEmpty() ?
                 new ArrayList<>() :
                 list,
                 proto.getRequestNonce(),
+                proto.getPartIndex(),
+                proto.getHasMoreParts(),
+                compressed,
                 messageVersion);
     }
 
+    private static ByteString compressRawBlocks(List<RawBlock> blocks) {
+        protobuf.RawBlockList rawBlockList = protobuf.RawBlockList.newBuilder()
+                .addAllRawBlocks(blocks.stream()
+                        .map(RawBlock::toProtoMessage)
+                        .collect(Collectors.toList()))
+                .build();
+        return ByteString.copyFrom(CompressionUtils.compress(rawBlockList.toByteArray()));
+    }
+
+    // Called from fromProto. The message is parsed on the thread which reads from the connection (with the
+    // NioTransport on a thread of its worker executor, not on the selector thread). We decompress there so that large
+    // parts don't block the UserThread and the selector thread.
+    private static List<protobuf.BaseBlock> decompressRawBlocks(ByteString compressedRawBlocks) {
+        try {
+            byte[] serialized = CompressionUtils.decompress(compressedRawBlocks.toByteArray(), MAX_UNCOMPRESSED_SIZE);
+            return protobuf.RawBlockList.parseFrom(serialized).getRawBlocksList();
+        } catch (InvalidProtocolBufferException e) {
+            throw new ProtobufferRuntimeException("Decompressed raw blocks of GetBlocksResponse are invalid", e);
+        } catch (IOException e) {
+            throw new ProtobufferRuntimeException("Decompressing raw blocks of GetBlocksResponse failed", e);
+        }
+    }
+
 
     @Override
     public String toString() {
         return "GetBlocksResponse{" +
                 "\n     blocks=" + blocks +
                 ",\n     requestNonce=" + requestNonce +
+                ",\n     partIndex=" + partIndex +
+                ",\n     hasMoreParts=" + hasMoreParts +
+                ",\n     compressed=" + compressed +
                 "\n} " + super.toString();
     }
 }
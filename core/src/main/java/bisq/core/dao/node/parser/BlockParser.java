@@ -18,6 +18,7 @@
 package bisq.core.dao.node.parser;
 
 import bisq.core.dao.node.full.RawBlock;
+import bisq.core.dao.node.full.RawTx;
 import bisq.core.dao.node.parser.exceptions.BlockHashNotConnectingException;
 import bisq.core.dao.node.parser.exceptions.BlockHeightNotConnectingException;
 import bisq.core.dao.state.DaoStateService;
@@ -30,6 +31,7 @@ import org.bitcoinj.core.Coin;
 import javax.inject.Inject;
 
 import java.util.LinkedList;
+import java.util.List;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -104,15 +106,19 @@ public class BlockParser {
         // Lately there is a patter with 24 iterations observed
         long startTs = System.currentTimeMillis();
 
-        rawBlock.getRawTxs().forEach(rawTx ->
+        List<RawTx> bsqTxCandidates = txParser.filterBsqTxCandidates(rawBlock.getRawTxs(),
+                genesisTxId,
+                genesisBlockHeight);
+        bsqTxCandidates.forEach(rawTx ->
                 txParser.findTx(rawTx,
                         genesisTxId,
                         genesisBlockHeight,
                         genesisTotalSupply)
                         .ifPresent(tx -> daoStateService.onNewTxForLastBlock(block, tx)));
 
-        log.info("Parsing {} transactions at block height {} took {} ms", rawBlock.getRawTxs().size(),
-                blockHeight, System.currentTimeMillis() - startTs);
+        log.info("Parsing {} transactions ({} BSQ tx candidates) at block height {} took {} ms",
+                rawBlock.getRawTxs().size(), bsqTxCandidates.size(), blockHeight,
+                System.currentTimeMillis() - startTs);
 
         daoStateService.onParseBlockComplete(block);
         return block;
@@ -36,8 +36,12 @@ import javax.inject.Inject;
 
 import com.google.common.annotations.VisibleForTesting;
 
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -46,6 +50,9 @@ import lombok.extern.slf4j.Slf4j;
  */
 @Slf4j
 public class TxParser {
+    // Below that number of txs in a block the overhead of a parallel stream is higher than the gain
+    private static final int MIN_NUM_TXS_FOR_PARALLEL_FILTER = 500;
+
     private final PeriodService periodService;
     private final DaoStateService daoStateService;
     private TxOutputParser txOutputParser;
@@ -74,12 +81,37 @@ public class TxParser {
             return findTx(rawTx);
     }
 
+    /**
+     * Returns the txs of a block which might be BSQ txs, in the order of the block. All other txs do not spend any
+     * unspent BSQ txOutput, so findTx would return Optional.empty() for them without any state change.
+     *
+     * A tx spending an output of another tx of the same block is always a candidate as that output might become a
+     * BSQ output when the block gets parsed. The filter does not change any state, so it must be called before the
+     * txs of the block are parsed and it can run in parallel for large blocks.
+     */
+    public List<RawTx> filterBsqTxCandidates(List<RawTx> rawTxs, String genesisTxId, int genesisBlockHeight) {
+        Set<String> txIdsOfBlock = rawTxs.stream().map(RawTx::getId).collect(Collectors.toCollection(HashSet::new));
+        Stream<RawTx> stream = rawTxs.size() >= MIN_NUM_TXS_FOR_PARALLEL_FILTER ?
+                rawTxs.parallelStream() :
+                rawTxs.stream();
+        return stream.filter(rawTx -> GenesisTxParser.isGenesis(rawTx, genesisTxId, genesisBlockHeight) ||
+                rawTx.getTxInputs().stream()
+                        .anyMatch(txInput -> txIdsOfBlock.contains(txInput.getConnectedTxOutputTxId()) ||
+                                mightSpendBsq(txInput)))
+                .collect(Collectors.toList());
+    }
+
     // Apply state changes to tx, inputs and outputs
     // return Tx if any input contained BSQ
     // Any tx with BSQ input is a BSQ tx.
     // There might be txs without any valid BSQ txOutput but we still keep track of it,
     // for instance to calculate the total burned BSQ.
     private Optional<Tx> findTx(RawTx rawTx) {
+        // Most txs do not spend any BSQ, we reject those before we create the TempTx and do the lookups at the
+        // txInputParser.
+        if (rawTx.getTxInputs().stream().noneMatch(this::mightSpendBsq))
+            return Optional.empty();
+
         int blockHeight = rawTx.getBlockHeight();
         TempTx tempTx = TempTx.fromRawTx(rawTx);
 
@@ -179,6 +211,12 @@ public class TxParser {
     // Private
     ///////////////////////////////////////////////////////////////////////////////////////////
 
+    // The txInputParser only considers inputs connected to an unspent txOutput, so if that returns false for all
+    // inputs the tx cannot be a BSQ tx.
+    private boolean mightSpendBsq(TxInput txInput) {
+        return daoStateService.mightBeUnspent(txInput.getConnectedTxOutputTxId(), txInput.getConnectedTxOutputIndex());
+    }
+
     /**
      * This method verifies after all outputs are parsed if the opReturn type and the optional txOutputs required for
      * certain use cases are valid.
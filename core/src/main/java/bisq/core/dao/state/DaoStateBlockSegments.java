@@ -0,0 +1,229 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.dao.state;
+
+import bisq.core.dao.state.model.blockchain.Block;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.Nullable;
+
+/**
+ * Persists the blocks of the DaoState in append only segment files. Each segment holds the blocks of a fixed range of
+ * BLOCKS_PER_SEGMENT heights as length delimited protobuf messages. At a new snapshot we only append the blocks which
+ * have been added since the last write, so the write volume does not grow with the size of the chain. The rest of the
+ * DaoState is persisted as checkpoint in the DaoStateStore file.
+ *
+ * If the blocks do not continue the persisted ones (reorg or reset) we rewrite all segments.
+ *
+ * All methods are called from the DaoStateStorageService executor, except read which is called at startup.
+ */
+@Slf4j
+class DaoStateBlockSegments {
+    static final String DIR_NAME = "DaoStateStore_blocks";
+    private static final String FILE_NAME_PREFIX = "blocks_";
+    static final int BLOCKS_PER_SEGMENT = 1000;
+
+    private final File dir;
+    // -1 if unknown, then we rewrite all segments at the next write
+    private int lastPersistedHeight = -1;
+    @Nullable
+    private String lastPersistedBlockHash;
+
+    DaoStateBlockSegments(File storageDir) {
+        this.dir = new File(storageDir, DIR_NAME);
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @param blocks    Contiguous list of blocks. Must not be changed while we write.
+     * @return True if the segments contain the given blocks.
+     */
+    synchronized boolean write(List<Block> blocks) {
+        try {
+            if (blocks.isEmpty()) {
+                deleteAllSegments();
+                lastPersistedHeight = -1;
+                lastPersistedBlockHash = null;
+                return true;
+            }
+
+            int fromHeight;
+            if (continuesPersistedBlocks(blocks)) {
+                fromHeight = lastPersistedHeight + 1;
+            } else {
+                log.info("Blocks do not continue the persisted blocks. We rewrite all segments.");
+                deleteAllSegments();
+                fromHeight = blocks.get(0).getHeight();
+            }
+
+            // Blocks are sorted by height so the iteration order of the TreeMap keeps the append order
+            Map<Integer, List<Block>> blocksBySegment = blocks.stream()
+                    .filter(block -> block.getHeight() >= fromHeight)
+                    .collect(Collectors.groupingBy(block -> block.getHeight() / BLOCKS_PER_SEGMENT,
+                            TreeMap::new,
+                            Collectors.toList()));
+            for (Map.Entry<Integer, List<Block>> entry : blocksBySegment.entrySet()) {
+                appendToSegment(entry.getKey(), entry.getValue());
+            }
+
+            Block lastBlock = blocks.get(blocks.size() - 1);
+            lastPersistedHeight = lastBlock.getHeight();
+            lastPersistedBlockHash = lastBlock.getHash();
+            return true;
+        } catch (IOException e) {
+            log.error("Writing block segments failed", e);
+            // We don't know what got written so we rewrite all at the next write
+            lastPersistedHeight = -1;
+            lastPersistedBlockHash = null;
+            return false;
+        }
+    }
+
+    /**
+     * @param chainHeight   Chain height of the checkpoint. We ignore blocks above that height as they might have been
+     *                      written before a newer checkpoint could be written.
+     * @return The blocks up to chainHeight or null if the segments are missing blocks.
+     */
+    @Nullable
+    synchronized LinkedList<Block> read(int chainHeight) {
+        LinkedList<Block> blocks = new LinkedList<>();
+        // Set if the segments contain more than we use. Then the next write must not append to it.
+        boolean hasUnusedData = false;
+        outer:
+        for (File file : getSegmentFiles()) {
+            try (InputStream inputStream = new BufferedInputStream(new FileInputStream(file))) {
+                protobuf.BaseBlock proto;
+                while ((proto = protobuf.BaseBlock.parseDelimitedFrom(inputStream)) != null) {
+                    Block block = Block.fromProto(proto);
+                    if (block.getHeight() > chainHeight) {
+                        hasUnusedData = true;
+                        break outer;
+                    }
+                    if (!blocks.isEmpty() && block.getHeight() != blocks.getLast().getHeight() + 1) {
+                        log.warn("Block segments are not contiguous. Expected height {} but got {}",
+                                blocks.getLast().getHeight() + 1, block.getHeight());
+                        lastPersistedHeight = -1;
+                        return null;
+                    }
+                    blocks.add(block);
+                }
+            } catch (Throwable t) {
+                // A failed write (e.g. at a crash) can leave an incomplete message at the end of a segment. If that
+                // is above the chainHeight of the checkpoint we don't need it anyway.
+                log.warn("Could not read block segment {}. {}", file.getName(), t.toString());
+                hasUnusedData = true;
+                break;
+            }
+        }
+
+        if (!blocks.isEmpty() && blocks.getLast().getHeight() != chainHeight) {
+            log.warn("Block segments end at height {} but checkpoint has chainHeight {}",
+                    blocks.getLast().getHeight(), chainHeight);
+            lastPersistedHeight = -1;
+            return null;
+        }
+
+        if (blocks.isEmpty() || hasUnusedData) {
+            lastPersistedHeight = -1;
+            lastPersistedBlockHash = null;
+        } else {
+            lastPersistedHeight = blocks.getLast().getHeight();
+            lastPersistedBlockHash = blocks.getLast().getHash();
+        }
+        return blocks;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private boolean continuesPersistedBlocks(List<Block> blocks) {
+        if (lastPersistedHeight < 0 || lastPersistedBlockHash == null)
+            return false;
+
+        // Blocks are contiguous so we can get the index from the height
+        int index = lastPersistedHeight - blocks.get(0).getHeight();
+        return index >= 0 &&
+                index < blocks.size() &&
+                blocks.get(index).getHash().equals(lastPersistedBlockHash);
+    }
+
+    private void appendToSegment(int segmentIndex, List<Block> blocks) throws IOException {
+        if (!dir.exists() && !dir.mkdirs())
+            throw new IOException("Could not create directory " + dir.getAbsolutePath());
+
+        File file = new File(dir, FILE_NAME_PREFIX + segmentIndex);
+        try (FileOutputStream fileOutputStream = new FileOutputStream(file, true)) {
+            OutputStream outputStream = new BufferedOutputStream(fileOutputStream);
+            for (Block block : blocks) {
+                block.toProtoMessage().writeDelimitedTo(outputStream);
+            }
+            outputStream.flush();
+            fileOutputStream.getFD().sync();
+        }
+    }
+
+    private void deleteAllSegments() throws IOException {
+        for (File file : getSegmentFiles()) {
+            if (!file.delete())
+                throw new IOException("Could not delete block segment " + file.getAbsolutePath());
+        }
+    }
+
+    private List<File> getSegmentFiles() {
+        File[] files = dir.listFiles((d, name) -> name.startsWith(FILE_NAME_PREFIX));
+        if (files == null)
+            return new LinkedList<>();
+
+        return Arrays.stream(files)
+                .filter(file -> getSegmentIndex(file) >= 0)
+                .sorted(Comparator.comparingInt(DaoStateBlockSegments::getSegmentIndex))
+                .collect(Collectors.toList());
+    }
+
+    private static int getSegmentIndex(File file) {
+        try {
+            return Integer.parseInt(file.getName().substring(FILE_NAME_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -38,15 +38,24 @@ import bisq.core.dao.state.model.governance.ParamChange;
 import bisq.core.util.ParsingUtils;
 import bisq.core.util.coin.BsqFormatter;
 
+import bisq.common.proto.persistable.PersistablePayload;
+
 import org.bitcoinj.core.Coin;
 
 import javax.inject.Inject;
 
+import com.google.common.base.Charsets;
+import com.google.common.primitives.Bytes;
+import com.google.common.primitives.Ints;
+
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeMap;
@@ -60,6 +69,7 @@ import lombok.extern.slf4j.Slf4j;
 import javax.annotation.Nullable;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * Provides access methods to DaoState data.
@@ -74,6 +84,17 @@ public class DaoStateService implements DaoSetupService {
     private boolean parseBlockChainComplete;
     private boolean allowDaoStateChange;
 
+    // Index of the keys of all txOutputs by their type. Must be kept in sync with the txCache of the daoState.
+    private final Map<TxOutputType, Set<TxOutputKey>> txOutputKeysByTxOutputType = new EnumMap<>(TxOutputType.class);
+    // Indices of the blocks of the daoState. Must be kept in sync with the blocks list.
+    private final Map<Integer, Block> blocksByHeight = new HashMap<>();
+    private final Map<String, Block> blocksByHash = new HashMap<>();
+    // Filter over the keys of the unspentTxOutputMap. Must be kept in sync with the unspentTxOutputMap.
+    private final TxOutputKeyFilter unspentTxOutputKeyFilter = new TxOutputKeyFilter();
+    // Only set if the incremental DAO state hash is enabled
+    @Nullable
+    private IncrementalDaoStateHash incrementalDaoStateHash;
+
 
     ///////////////////////////////////////////////////////////////////////////////////////////
     // Constructor
@@ -84,6 +105,10 @@ public class DaoStateService implements DaoSetupService {
         this.daoState = daoState;
         this.genesisTxInfo = genesisTxInfo;
         this.bsqFormatter = bsqFormatter;
+
+        rebuildTxOutputKeysByTxOutputType();
+        rebuildBlockIndices();
+        unspentTxOutputKeyFilter.rebuild(daoState.getUnspentTxOutputMap().keySet());
     }
 
 
@@ -116,15 +141,18 @@ public class DaoStateService implements DaoSetupService {
         daoState.setChainHeight(snapshot.getChainHeight());
 
         daoState.setTxCache(snapshot.getTxCache());
+        rebuildTxOutputKeysByTxOutputType();
 
         daoState.getBlocks().clear();
         daoState.getBlocks().addAll(snapshot.getBlocks());
+        rebuildBlockIndices();
 
         daoState.getCycles().clear();
         daoState.getCycles().addAll(snapshot.getCycles());
 
         daoState.getUnspentTxOutputMap().clear();
         daoState.getUnspentTxOutputMap().putAll(snapshot.getUnspentTxOutputMap());
+        unspentTxOutputKeyFilter.rebuild(daoState.getUnspentTxOutputMap().keySet());
 
         daoState.getSpentInfoMap().clear();
         daoState.getSpentInfoMap().putAll(snapshot.getSpentInfoMap());
@@ -143,20 +171,44 @@ public class DaoStateService implements DaoSetupService {
 
         daoState.getDecryptedBallotsWithMeritsList().clear();
         daoState.getDecryptedBallotsWithMeritsList().addAll(snapshot.getDecryptedBallotsWithMeritsList());
+
+        rebuildIncrementalStateHash();
     }
 
     public DaoState getClone() {
         return DaoState.getClone(daoState);
     }
 
-    DaoState getClone(DaoState snapshotCandidate) {
-        return DaoState.getClone(snapshotCandidate);
+    // Must only be called after parsing of a block is completed, see DaoState.getShallowCopy
+    DaoState getShallowCopy() {
+        return DaoState.getShallowCopy(daoState);
     }
 
     public byte[] getSerializedStateForHashChain() {
         return daoState.getSerializedStateForHashChain();
     }
 
+    // Starts to keep the incremental state hash up to date. Costs one full pass over the state.
+    public void enableIncrementalStateHash() {
+        if (incrementalDaoStateHash == null) {
+            incrementalDaoStateHash = new IncrementalDaoStateHash();
+            rebuildIncrementalStateHash();
+        }
+    }
+
+    public boolean isIncrementalStateHashEnabled() {
+        return incrementalDaoStateHash != null;
+    }
+
+    // Alternative to getSerializedStateForHashChain which does not depend on the size of the state. Like there we
+    // only add the last block, the earlier blocks are covered by the prev. hash in the hash chain.
+    public byte[] getIncrementalStateForHashChain() {
+        checkNotNull(incrementalDaoStateHash, "incrementalDaoStateHash must not be null");
+        return Bytes.concat(Ints.toByteArray(daoState.getChainHeight()),
+                getBlocks().getLast().toProtoMessage().toByteArray(),
+                incrementalDaoStateHash.getHash());
+    }
+
 
     ///////////////////////////////////////////////////////////////////////////////////////////
     // ChainHeight
@@ -178,6 +230,7 @@ public class DaoStateService implements DaoSetupService {
     public void addCycle(Cycle cycle) {
         assertDaoStateChange();
         getCycles().add(cycle);
+        addToIncrementalStateHash(IncrementalDaoStateHash.TAG_CYCLE, cycle);
     }
 
     @Nullable
@@ -222,6 +275,7 @@ public class DaoStateService implements DaoSetupService {
                     "That might happen in edge cases at reorgs. Received block={}", block);
         } else {
             daoState.getBlocks().add(block);
+            addToBlockIndices(block);
 
             if (parseBlockChainComplete)
                 log.info("New Block added at blockHeight {}", block.getHeight());
@@ -237,6 +291,7 @@ public class DaoStateService implements DaoSetupService {
                 // We need to ensure that the txs in all blocks are in sync with the txs in our txMap (cache).
                 block.addTx(tx);
                 daoState.addToTxCache(tx);
+                addToTxOutputKeysByTxOutputType(tx);
             } else {
                 // Not clear if this case can happen but at onNewBlockWithEmptyTxs we handle such a potential edge
                 // case as well, so we need to reflect that here as well.
@@ -295,7 +350,7 @@ public class DaoStateService implements DaoSetupService {
      * {@code false}.
      */
     public boolean isBlockHashKnown(String blockHash) {
-        return getBlocks().stream().anyMatch(block -> block.getHash().equals(blockHash));
+        return blocksByHash.containsKey(blockHash);
     }
 
     public Optional<Block> getLastBlock() {
@@ -310,9 +365,7 @@ public class DaoStateService implements DaoSetupService {
     }
 
     public Optional<Block> getBlockAtHeight(int height) {
-        return getBlocks().stream()
-                .filter(block -> block.getHeight() == height)
-                .findAny();
+        return Optional.ofNullable(blocksByHeight.get(height));
     }
 
     public boolean containsBlock(Block block) {
@@ -320,7 +373,7 @@ public class DaoStateService implements DaoSetupService {
     }
 
     public boolean containsBlockHash(String blockHash) {
-        return getBlocks().stream().anyMatch(block -> block.getHash().equals(blockHash));
+        return blocksByHash.containsKey(blockHash);
     }
 
     public long getBlockTime(int height) {
@@ -330,11 +383,30 @@ public class DaoStateService implements DaoSetupService {
     public List<Block> getBlocksFromBlockHeight(int fromBlockHeight, int numMaxBlocks) {
         // We limit requests to numMaxBlocks blocks, to avoid performance issues and too
         // large network data in case a node requests too far back in history.
-        return getBlocks().stream()
-                .filter(block -> block.getHeight() >= fromBlockHeight)
-                .sorted(Comparator.comparing(Block::getHeight))
-                .limit(numMaxBlocks)
-                .collect(Collectors.toList());
+        List<Block> blocks = new ArrayList<>();
+        if (getBlocks().isEmpty())
+            return blocks;
+
+        int fromHeight = Math.max(fromBlockHeight, getBlocks().getFirst().getHeight());
+        int lastHeight = getBlockHeightOfLastBlock();
+        for (int height = fromHeight; height <= lastHeight && blocks.size() < numMaxBlocks; height++) {
+            Block block = blocksByHeight.get(height);
+            if (block != null)
+                blocks.add(block);
+        }
+        return blocks;
+    }
+
+    private void addToBlockIndices(Block block) {
+        // We use putIfAbsent to match the findAny semantics of the former list based lookups
+        blocksByHeight.putIfAbsent(block.getHeight(), block);
+        blocksByHash.putIfAbsent(block.getHash(), block);
+    }
+
+    private void rebuildBlockIndices() {
+        blocksByHeight.clear();
+        blocksByHash.clear();
+        getBlocks().forEach(this::addToBlockIndices);
     }
 
 
@@ -459,18 +531,31 @@ public class DaoStateService implements DaoSetupService {
 
     public void addUnspentTxOutput(TxOutput txOutput) {
         assertDaoStateChange();
-        getUnspentTxOutputMap().put(txOutput.getKey(), txOutput);
+        TxOutput previous = getUnspentTxOutputMap().put(txOutput.getKey(), txOutput);
+        if (previous == null)
+            unspentTxOutputKeyFilter.add(txOutput.getKey());
+        removeFromIncrementalStateHash(IncrementalDaoStateHash.TAG_UNSPENT_TX_OUTPUT, previous);
+        addToIncrementalStateHash(IncrementalDaoStateHash.TAG_UNSPENT_TX_OUTPUT, txOutput);
     }
 
     public void removeUnspentTxOutput(TxOutput txOutput) {
         assertDaoStateChange();
-        getUnspentTxOutputMap().remove(txOutput.getKey());
+        TxOutput removed = getUnspentTxOutputMap().remove(txOutput.getKey());
+        if (removed != null)
+            unspentTxOutputKeyFilter.remove(txOutput.getKey());
+        removeFromIncrementalStateHash(IncrementalDaoStateHash.TAG_UNSPENT_TX_OUTPUT, removed);
     }
 
     public boolean isUnspent(TxOutputKey key) {
         return getUnspentTxOutputMap().containsKey(key);
     }
 
+    // Cheap check without lookup in the unspentTxOutputMap. Might return true for a spent or unknown txOutput but
+    // never returns false for an unspent one.
+    public boolean mightBeUnspent(String txId, int index) {
+        return unspentTxOutputKeyFilter.mightContain(txId, index);
+    }
+
     public Set<TxOutput> getUnspentTxOutputs() {
         return new HashSet<>(getUnspentTxOutputMap().values());
     }
@@ -529,11 +614,67 @@ public class DaoStateService implements DaoSetupService {
     ///////////////////////////////////////////////////////////////////////////////////////////
 
     private Set<TxOutput> getTxOutputsByTxOutputType(TxOutputType txOutputType) {
-        return getUnorderedTxOutputStream()
+        Set<TxOutputKey> txOutputKeys = txOutputKeysByTxOutputType.get(txOutputType);
+        if (txOutputKeys == null)
+            return new HashSet<>();
+
+        // We look up the txOutput in the txCache so that we return the same instances as the tx
+        return txOutputKeys.stream()
+                .map(key -> getTx(key.getTxId()).map(tx -> tx.getTxOutputs().get(key.getIndex())))
+                .filter(Optional::isPresent)
+                .map(Optional::get)
                 .filter(txOutput -> txOutput.getTxOutputType() == txOutputType)
                 .collect(Collectors.toSet());
     }
 
+    private void addToTxOutputKeysByTxOutputType(Tx tx) {
+        tx.getTxOutputs().forEach(txOutput -> txOutputKeysByTxOutputType
+                .computeIfAbsent(txOutput.getTxOutputType(), e -> new HashSet<>())
+                .add(txOutput.getKey()));
+    }
+
+    private void addToIncrementalStateHash(byte tag, PersistablePayload payload) {
+        if (incrementalDaoStateHash != null)
+            incrementalDaoStateHash.add(tag, payload.toProtoMessage().toByteArray());
+    }
+
+    private void removeFromIncrementalStateHash(byte tag, @Nullable PersistablePayload payload) {
+        if (incrementalDaoStateHash != null && payload != null)
+            incrementalDaoStateHash.remove(tag, payload.toProtoMessage().toByteArray());
+    }
+
+    // The txOutputKey is not part of the spentInfo, so we add it
+    private static byte[] getSpentInfoBytes(TxOutputKey txOutputKey, SpentInfo spentInfo) {
+        return Bytes.concat(txOutputKey.toString().getBytes(Charsets.UTF_8), spentInfo.toProtoMessage().toByteArray());
+    }
+
+    private void rebuildIncrementalStateHash() {
+        if (incrementalDaoStateHash == null)
+            return;
+
+        incrementalDaoStateHash.clear();
+        daoState.getUnspentTxOutputMap().values()
+                .forEach(e -> addToIncrementalStateHash(IncrementalDaoStateHash.TAG_UNSPENT_TX_OUTPUT, e));
+        daoState.getSpentInfoMap().forEach((key, spentInfo) ->
+                incrementalDaoStateHash.add(IncrementalDaoStateHash.TAG_SPENT_INFO, getSpentInfoBytes(key, spentInfo)));
+        daoState.getCycles().forEach(e -> addToIncrementalStateHash(IncrementalDaoStateHash.TAG_CYCLE, e));
+        daoState.getConfiscatedLockupTxList().forEach(e ->
+                incrementalDaoStateHash.add(IncrementalDaoStateHash.TAG_CONFISCATED_LOCKUP_TX, e.getBytes(Charsets.UTF_8)));
+        daoState.getIssuanceMap().values()
+                .forEach(e -> addToIncrementalStateHash(IncrementalDaoStateHash.TAG_ISSUANCE, e));
+        daoState.getParamChangeList()
+                .forEach(e -> addToIncrementalStateHash(IncrementalDaoStateHash.TAG_PARAM_CHANGE, e));
+        daoState.getEvaluatedProposalList()
+                .forEach(e -> addToIncrementalStateHash(IncrementalDaoStateHash.TAG_EVALUATED_PROPOSAL, e));
+        daoState.getDecryptedBallotsWithMeritsList()
+                .forEach(e -> addToIncrementalStateHash(IncrementalDaoStateHash.TAG_DECRYPTED_BALLOTS_WITH_MERITS, e));
+    }
+
+    private void rebuildTxOutputKeysByTxOutputType() {
+        txOutputKeysByTxOutputType.clear();
+        getUnorderedTxStream().forEach(this::addToTxOutputKeysByTxOutputType);
+    }
+
     public boolean isBsqTxOutputType(TxOutput txOutput) {
         final TxOutputType txOutputType = txOutput.getTxOutputType();
         switch (txOutputType) {
@@ -598,7 +739,9 @@ public class DaoStateService implements DaoSetupService {
 
     public void addIssuance(Issuance issuance) {
         assertDaoStateChange();
-        daoState.getIssuanceMap().put(issuance.getTxId(), issuance);
+        Issuance previous = daoState.getIssuanceMap().put(issuance.getTxId(), issuance);
+        removeFromIncrementalStateHash(IncrementalDaoStateHash.TAG_ISSUANCE, previous);
+        addToIncrementalStateHash(IncrementalDaoStateHash.TAG_ISSUANCE, issuance);
     }
 
     public Set<Issuance> getIssuanceSet(IssuanceType issuanceType) {
@@ -880,6 +1023,10 @@ public class DaoStateService implements DaoSetupService {
         assertDaoStateChange();
         log.warn("TxId {} added to confiscatedLockupTxIdList.", lockupTxId);
         daoState.getConfiscatedLockupTxList().add(lockupTxId);
+        if (incrementalDaoStateHash != null) {
+            incrementalDaoStateHash.add(IncrementalDaoStateHash.TAG_CONFISCATED_LOCKUP_TX,
+                    lockupTxId.getBytes(Charsets.UTF_8));
+        }
     }
 
     public boolean isConfiscatedOutput(TxOutputKey txOutputKey) {
@@ -912,6 +1059,7 @@ public class DaoStateService implements DaoSetupService {
                 .ifPresent(heightOfNewCycle -> {
                     ParamChange paramChange = new ParamChange(param.name(), paramValue, heightOfNewCycle);
                     paramChangeList.add(paramChange);
+                    addToIncrementalStateHash(IncrementalDaoStateHash.TAG_PARAM_CHANGE, paramChange);
                     // Addition with older height should not be possible but to ensure correct sorting lets run a sort.
                     paramChangeList.sort(Comparator.comparingInt(ParamChange::getActivationHeight));
                 });
@@ -965,7 +1113,15 @@ public class DaoStateService implements DaoSetupService {
 
     public void setSpentInfo(TxOutputKey txOutputKey, SpentInfo spentInfo) {
         assertDaoStateChange();
-        daoState.getSpentInfoMap().put(txOutputKey, spentInfo);
+        SpentInfo previous = daoState.getSpentInfoMap().put(txOutputKey, spentInfo);
+        if (incrementalDaoStateHash != null) {
+            if (previous != null) {
+                incrementalDaoStateHash.remove(IncrementalDaoStateHash.TAG_SPENT_INFO,
+                        getSpentInfoBytes(txOutputKey, previous));
+            }
+            incrementalDaoStateHash.add(IncrementalDaoStateHash.TAG_SPENT_INFO,
+                    getSpentInfoBytes(txOutputKey, spentInfo));
+        }
     }
 
     public Optional<SpentInfo> getSpentInfo(TxOutput txOutput) {
@@ -986,7 +1142,10 @@ public class DaoStateService implements DaoSetupService {
 
         evaluatedProposals.stream()
                 .filter(e -> !daoState.getEvaluatedProposalList().contains(e))
-                .forEach(daoState.getEvaluatedProposalList()::add);
+                .forEach(e -> {
+                    daoState.getEvaluatedProposalList().add(e);
+                    addToIncrementalStateHash(IncrementalDaoStateHash.TAG_EVALUATED_PROPOSAL, e);
+                });
 
         // We need deterministic order for the hash chain
         daoState.getEvaluatedProposalList().sort(Comparator.comparing(EvaluatedProposal::getProposalTxId));
@@ -1001,7 +1160,10 @@ public class DaoStateService implements DaoSetupService {
 
         decryptedBallotsWithMeritsSet.stream()
                 .filter(e -> !daoState.getDecryptedBallotsWithMeritsList().contains(e))
-                .forEach(daoState.getDecryptedBallotsWithMeritsList()::add);
+                .forEach(e -> {
+                    daoState.getDecryptedBallotsWithMeritsList().add(e);
+                    addToIncrementalStateHash(IncrementalDaoStateHash.TAG_DECRYPTED_BALLOTS_WITH_MERITS, e);
+                });
 
         // We need deterministic order for the hash chain
         daoState.getDecryptedBallotsWithMeritsList().sort(Comparator.comparing(DecryptedBallotsWithMerits::getBlindVoteTxId));
@@ -92,22 +92,21 @@ public class DaoStateSnapshotService {
             // At trigger event we store the latest snapshotCandidate to disc
             long ts = System.currentTimeMillis();
             if (daoStateSnapshotCandidate != null) {
-                // We clone because storage is in a threaded context and we set the snapshotCandidate to our current
-                // state in the next step
-                DaoState clonedDaoState = daoStateService.getClone(daoStateSnapshotCandidate);
-                LinkedList<DaoStateHash> clonedDaoStateHashChain = new LinkedList<>(daoStateHashChainSnapshotCandidate);
-                daoStateStorageService.persist(clonedDaoState, clonedDaoStateHashChain);
+                // Storage is in a threaded context but the snapshotCandidate is not changed by anyone as we replace
+                // it with a new copy in the next step, so we don't need to clone it.
+                daoStateStorageService.persist(daoStateSnapshotCandidate, daoStateHashChainSnapshotCandidate);
 
                 log.debug("Saved snapshotCandidate with height {} to Disc at height {} took {} ms",
                         daoStateSnapshotCandidate.getChainHeight(), chainHeight, System.currentTimeMillis() - ts);
             }
 
             ts = System.currentTimeMillis();
-            // Now we clone and keep it in memory for the next trigger event
-            daoStateSnapshotCandidate = daoStateService.getClone();
+            // Now we copy and keep it in memory for the next trigger event. We are called after parsing of the block
+            // is completed, so we can use a shallow copy which shares the immutable elements with the daoState.
+            daoStateSnapshotCandidate = daoStateService.getShallowCopy();
             daoStateHashChainSnapshotCandidate = new LinkedList<>(daoStateMonitoringService.getDaoStateHashChain());
 
-            log.debug("Cloned new snapshotCandidate at height {} took {} ms", chainHeight, System.currentTimeMillis() - ts);
+            log.debug("Copied new snapshotCandidate at height {} took {} ms", chainHeight, System.currentTimeMillis() - ts);
         }
     }
 
@@ -115,6 +114,15 @@ public class DaoStateSnapshotService {
         DaoState persistedBsqState = daoStateStorageService.getPersistedBsqState();
         LinkedList<DaoStateHash> persistedDaoStateHashChain = daoStateStorageService.getPersistedDaoStateHashChain();
         if (persistedBsqState != null) {
+            if (!persistedDaoStateHashChain.isEmpty() &&
+                    persistedDaoStateHashChain.getLast().isIncremental() != daoStateService.isIncrementalStateHashEnabled()) {
+                // We cannot continue a hash chain which was created with the other hash mode.
+                log.warn("The persisted daoStateHashChain was created with another hash mode. We will reset the " +
+                        "daoState and start over from the genesis transaction.");
+                applyEmptySnapshot();
+                return;
+            }
+
             LinkedList<Block> blocks = persistedBsqState.getBlocks();
             int chainHeightOfPersisted = persistedBsqState.getChainHeight();
             if (!blocks.isEmpty()) {
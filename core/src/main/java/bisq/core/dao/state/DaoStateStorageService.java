@@ -20,6 +20,7 @@ package bisq.core.dao.state;
 import bisq.core.dao.monitoring.DaoStateMonitoringService;
 import bisq.core.dao.monitoring.model.DaoStateHash;
 import bisq.core.dao.state.model.DaoState;
+import bisq.core.dao.state.model.blockchain.Block;
 
 import bisq.network.p2p.storage.persistence.ResourceDataStoreService;
 import bisq.network.p2p.storage.persistence.StoreService;
@@ -27,6 +28,7 @@ import bisq.network.p2p.storage.persistence.StoreService;
 import bisq.common.UserThread;
 import bisq.common.config.Config;
 import bisq.common.storage.Storage;
+import bisq.common.util.Utilities;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -34,12 +36,18 @@ import javax.inject.Named;
 import java.io.File;
 
 import java.util.LinkedList;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * Manages persistence of the daoState.
+ *
+ * The blocks are appended to DaoStateBlockSegments and the DaoStateStore file only holds a checkpoint of the rest of
+ * the daoState (UTXO map, cycles, params,...) and the hash chain. So we do not write and read the whole blockchain
+ * data at each snapshot. A DaoStateStore file containing the blocks (e.g. from the resource file) is still supported
+ * and gets converted at the first snapshot.
  */
 @Slf4j
 public class DaoStateStorageService extends StoreService<DaoStateStore> {
@@ -52,6 +60,9 @@ public class DaoStateStorageService extends StoreService<DaoStateStore> {
 
     private final DaoState daoState;
     private final DaoStateMonitoringService daoStateMonitoringService;
+    private final DaoStateBlockSegments blockSegments;
+    // We write the block segments before we queue up the checkpoint so the checkpoint never refers to missing blocks
+    private final ExecutorService executor = Utilities.getSingleThreadExecutor("DaoStateStorageService");
 
 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -67,6 +78,7 @@ public class DaoStateStorageService extends StoreService<DaoStateStore> {
         super(storageDir, daoSnapshotStorage);
         this.daoState = daoState;
         this.daoStateMonitoringService = daoStateMonitoringService;
+        blockSegments = new DaoStateBlockSegments(storageDir);
 
         resourceDataStoreService.addService(this);
     }
@@ -88,7 +100,16 @@ public class DaoStateStorageService extends StoreService<DaoStateStore> {
     private void persist(DaoState daoState, LinkedList<DaoStateHash> daoStateHashChain, long delayInMilli) {
         store.setDaoState(daoState);
         store.setDaoStateHashChain(daoStateHashChain);
-        storage.queueUpForSave(store, delayInMilli);
+
+        DaoStateStore checkpoint = new DaoStateStore(daoState, daoStateHashChain, true);
+        executor.execute(() -> {
+            if (blockSegments.write(daoState.getBlocks())) {
+                storage.queueUpForSave(checkpoint, delayInMilli);
+            } else {
+                log.error("Writing the blocks failed. We do not persist the checkpoint at height {}.",
+                        daoState.getChainHeight());
+            }
+        });
     }
 
     public DaoState getPersistedBsqState() {
@@ -109,6 +130,28 @@ public class DaoStateStorageService extends StoreService<DaoStateStore> {
     // Protected
     ///////////////////////////////////////////////////////////////////////////////////////////
 
+    @Override
+    protected void readStore() {
+        super.readStore();
+
+        if (store.isBlocksInSegments()) {
+            long ts = System.currentTimeMillis();
+            DaoState checkpoint = store.getDaoState();
+            LinkedList<Block> blocks = blockSegments.read(checkpoint.getChainHeight());
+            if (blocks != null) {
+                store.setDaoState(DaoState.getWithBlocks(checkpoint, blocks));
+                log.info("Reading {} blocks from block segments took {} ms", blocks.size(),
+                        System.currentTimeMillis() - ts);
+            } else {
+                // We start over from the genesis transaction
+                log.warn("Block segments do not match the persisted checkpoint at chainHeight {}. We ignore the " +
+                        "persisted daoState.", checkpoint.getChainHeight());
+                store.setDaoState(new DaoState());
+                store.setDaoStateHashChain(new LinkedList<>());
+            }
+        }
+    }
+
     @Override
     protected DaoStateStore createStore() {
         return new DaoStateStore(DaoState.getClone(daoState), new LinkedList<>(daoStateMonitoringService.getDaoStateHashChain()));
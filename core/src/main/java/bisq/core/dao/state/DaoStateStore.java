@@ -44,10 +44,18 @@ public class DaoStateStore implements PersistableEnvelope {
     @Getter
     @Setter
     private LinkedList<DaoStateHash> daoStateHashChain;
+    // If true the blocks are persisted in DaoStateBlockSegments and the daoState is persisted without blocks
+    @Getter
+    private final boolean blocksInSegments;
 
     DaoStateStore(DaoState daoState, LinkedList<DaoStateHash> daoStateHashChain) {
+        this(daoState, daoStateHashChain, false);
+    }
+
+    DaoStateStore(DaoState daoState, LinkedList<DaoStateHash> daoStateHashChain, boolean blocksInSegments) {
         this.daoState = daoState;
         this.daoStateHashChain = daoStateHashChain;
+        this.blocksInSegments = blocksInSegments;
     }
 
 
@@ -58,10 +66,13 @@ public class DaoStateStore implements PersistableEnvelope {
     public Message toProtoMessage() {
         checkNotNull(daoState, "daoState must not be null when toProtoMessage is invoked");
         protobuf.DaoStateStore.Builder builder = protobuf.DaoStateStore.newBuilder()
-                .setDaoState(daoState.getBsqStateBuilder())
+                .setDaoState(blocksInSegments ?
+                        daoState.getBsqStateBuilderExcludingBlocks() :
+                        daoState.getBsqStateBuilder())
                 .addAllDaoStateHash(daoStateHashChain.stream()
                         .map(DaoStateHash::toProtoMessage)
-                        .collect(Collectors.toList()));
+                        .collect(Collectors.toList()))
+                .setBlocksInSegments(blocksInSegments);
         return protobuf.PersistableEnvelope.newBuilder()
                 .setDaoStateStore(builder)
                 .build();
@@ -73,6 +84,6 @@ public class DaoStateStore implements PersistableEnvelope {
                 new LinkedList<>(proto.getDaoStateHashList().stream()
                         .map(DaoStateHash::fromProto)
                         .collect(Collectors.toList()));
-        return new DaoStateStore(DaoState.fromProto(proto.getDaoState()), daoStateHashList);
+        return new DaoStateStore(DaoState.fromProto(proto.getDaoState()), daoStateHashList, proto.getBlocksInSegments());
     }
 }
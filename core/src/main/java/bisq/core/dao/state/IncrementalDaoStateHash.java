@@ -0,0 +1,76 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+package bisq.core.dao.state;
+
+import bisq.common.crypto.Hash;
+
+import java.math.BigInteger;
+
+import java.util.Arrays;
+
+/**
+ * Order independent hash over a multiset of elements (the sum of the SHA-256 hashes of the elements modulo 2^256).
+ * Adding or removing an element costs one SHA-256 over that element, so the hash of the mutable part of the DaoState
+ * can be kept up to date at each change instead of serializing the whole state at each block.
+ *
+ * As the result does not depend on the order of the changes, two nodes with the same state always get the same hash.
+ * Each element is prefixed with a tag of its collection so that equal data in different collections do not cancel
+ * out.
+ */
+final class IncrementalDaoStateHash {
+    static final byte TAG_UNSPENT_TX_OUTPUT = 1;
+    static final byte TAG_SPENT_INFO = 2;
+    static final byte TAG_CYCLE = 3;
+    static final byte TAG_CONFISCATED_LOCKUP_TX = 4;
+    static final byte TAG_ISSUANCE = 5;
+    static final byte TAG_PARAM_CHANGE = 6;
+    static final byte TAG_EVALUATED_PROPOSAL = 7;
+    static final byte TAG_DECRYPTED_BALLOTS_WITH_MERITS = 8;
+
+    private static final int NUM_BYTES = 32;
+    private static final BigInteger MODULUS = BigInteger.ONE.shiftLeft(NUM_BYTES * 8);
+
+    private BigInteger sum = BigInteger.ZERO;
+
+    void add(byte tag, byte[] data) {
+        sum = sum.add(getElementHash(tag, data)).mod(MODULUS);
+    }
+
+    void remove(byte tag, byte[] data) {
+        sum = sum.subtract(getElementHash(tag, data)).mod(MODULUS);
+    }
+
+    void clear() {
+        sum = BigInteger.ZERO;
+    }
+
+    // Returns always 32 bytes
+    byte[] getHash() {
+        byte[] bytes = sum.toByteArray();
+        byte[] result = new byte[NUM_BYTES];
+        // BigInteger.toByteArray might have a leading sign byte or less than 32 bytes
+        int length = Math.min(bytes.length, NUM_BYTES);
+        System.arraycopy(bytes, bytes.length - length, result, NUM_BYTES - length, length);
+        return result;
+    }
+
+    private static BigInteger getElementHash(byte tag, byte[] data) {
+        byte[] taggedData = Arrays.copyOf(new byte[]{tag}, data.length + 1);
+        System.arraycopy(data, 0, taggedData, 1, data.length);
+        return new BigInteger(1, Hash.getSha256Hash(taggedData));
+    }
+}
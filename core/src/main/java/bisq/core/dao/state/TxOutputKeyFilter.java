@@ -0,0 +1,170 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.dao.state;
+
+import bisq.core.dao.state.model.blockchain.TxOutputKey;
+
+import java.util.Collection;
+import java.util.Random;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Compact membership filter over the keys of the unspent BSQ txOutputs. Used by the parser to reject the large
+ * majority of Bitcoin txs which do not spend any BSQ without lookups in the unspentTxOutputMap. That map is a
+ * TreeMap and TxOutputKey.compareTo creates 2 strings at each comparison, so each lookup was costly.
+ *
+ * We only store a 64 bit fingerprint of each key with a counter in an open addressing table (linear probing), which
+ * needs about 24 bytes per entry. Different keys with the same fingerprint share the entry and its counter, so a
+ * remove never affects another key. Because of that, mightContain never returns false for a contained key but might
+ * return true for a key which is not contained.
+ *
+ * Concurrent calls of mightContain are safe as long as there is no concurrent modification.
+ */
+@NotThreadSafe
+final class TxOutputKeyFilter {
+    private static final double MAX_LOAD_FACTOR = 0.5;
+    private static final int MIN_CAPACITY = 1024;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    // Marks an empty slot, no fingerprint has that value
+    private static final long EMPTY = 0;
+
+    // Random seed so nobody can create txs with keys colliding in our table
+    private final long seed = new Random().nextLong();
+    private long[] fingerprints = new long[MIN_CAPACITY];
+    private int[] counts = new int[MIN_CAPACITY];
+    private int mask = MIN_CAPACITY - 1;
+    // Number of used slots
+    private int size;
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    void add(TxOutputKey key) {
+        if (size + 1 > fingerprints.length * MAX_LOAD_FACTOR)
+            resize(fingerprints.length * 2);
+
+        long fingerprint = getFingerprint(key.getTxId(), key.getIndex());
+        int slot = findSlot(fingerprint);
+        if (fingerprints[slot] == EMPTY) {
+            fingerprints[slot] = fingerprint;
+            size++;
+        }
+        counts[slot]++;
+    }
+
+    void remove(TxOutputKey key) {
+        long fingerprint = getFingerprint(key.getTxId(), key.getIndex());
+        int slot = findSlot(fingerprint);
+        if (fingerprints[slot] == EMPTY)
+            return;
+
+        if (--counts[slot] == 0) {
+            removeSlot(slot);
+            size--;
+        }
+    }
+
+    boolean mightContain(String txId, int index) {
+        long fingerprint = getFingerprint(txId, index);
+        return fingerprints[findSlot(fingerprint)] != EMPTY;
+    }
+
+    void rebuild(Collection<TxOutputKey> keys) {
+        int capacity = MIN_CAPACITY;
+        while (keys.size() > capacity * MAX_LOAD_FACTOR)
+            capacity *= 2;
+
+        fingerprints = new long[capacity];
+        counts = new int[capacity];
+        mask = capacity - 1;
+        size = 0;
+        keys.forEach(this::add);
+    }
+
+    int size() {
+        return size;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    // Returns the slot of the fingerprint or the empty slot where it would be inserted
+    private int findSlot(long fingerprint) {
+        int slot = (int) fingerprint & mask;
+        while (fingerprints[slot] != EMPTY && fingerprints[slot] != fingerprint)
+            slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    // Backward shift deletion, so we don't need tombstones and the probe sequences stay short
+    private void removeSlot(int slot) {
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (fingerprints[next] != EMPTY) {
+            int home = (int) fingerprints[next] & mask;
+            // The entry can be moved into the hole if the hole lies between its home slot and its current slot
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                fingerprints[hole] = fingerprints[next];
+                counts[hole] = counts[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        fingerprints[hole] = EMPTY;
+        counts[hole] = 0;
+    }
+
+    private void resize(int capacity) {
+        long[] oldFingerprints = fingerprints;
+        int[] oldCounts = counts;
+        fingerprints = new long[capacity];
+        counts = new int[capacity];
+        mask = capacity - 1;
+        for (int i = 0; i < oldFingerprints.length; i++) {
+            if (oldFingerprints[i] != EMPTY) {
+                int slot = findSlot(oldFingerprints[i]);
+                fingerprints[slot] = oldFingerprints[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    // FNV-1a over the chars of the txId and the index with a final mix step (from MurmurHash3) as we use the low bits
+    // for the slot
+    private long getFingerprint(String txId, int index) {
+        long hash = seed;
+        for (int i = 0; i < txId.length(); i++) {
+            hash ^= txId.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        hash ^= index;
+        hash *= FNV_PRIME;
+
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash == EMPTY ? 1 : hash;
+    }
+}
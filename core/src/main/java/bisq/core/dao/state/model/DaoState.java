@@ -68,6 +68,43 @@ public class DaoState implements PersistablePayload {
         return DaoState.fromProto(daoState.getBsqStateBuilder().build());
     }
 
+    /**
+     * Copies the collections but shares the elements with the given daoState. That is much cheaper than getClone as we
+     * do not need a protobuf round trip of the whole state.
+     *
+     * All elements are immutable (see ImmutableDaoStateModel) except the txs list of the block which is currently
+     * parsed. So the copy must only be created after parsing of a block is completed.
+     */
+    public static DaoState getShallowCopy(DaoState daoState) {
+        return new DaoState(daoState.getChainHeight(),
+                new LinkedList<>(daoState.getBlocks()),
+                new LinkedList<>(daoState.getCycles()),
+                new TreeMap<>(daoState.getUnspentTxOutputMap()),
+                new TreeMap<>(daoState.getSpentInfoMap()),
+                new ArrayList<>(daoState.getConfiscatedLockupTxList()),
+                new TreeMap<>(daoState.getIssuanceMap()),
+                new ArrayList<>(daoState.getParamChangeList()),
+                new ArrayList<>(daoState.getEvaluatedProposalList()),
+                new ArrayList<>(daoState.getDecryptedBallotsWithMeritsList()));
+    }
+
+    /**
+     * Returns a DaoState with the given blocks and the other data of the given daoState. Used to rebuild the daoState
+     * from a persisted checkpoint which does not contain the blocks.
+     */
+    public static DaoState getWithBlocks(DaoState daoState, LinkedList<Block> blocks) {
+        return new DaoState(daoState.getChainHeight(),
+                blocks,
+                daoState.getCycles(),
+                daoState.getUnspentTxOutputMap(),
+                daoState.getSpentInfoMap(),
+                daoState.getConfiscatedLockupTxList(),
+                daoState.getIssuanceMap(),
+                daoState.getParamChangeList(),
+                daoState.getEvaluatedProposalList(),
+                daoState.getDecryptedBallotsWithMeritsList());
+    }
+
 
     ///////////////////////////////////////////////////////////////////////////////////////////
     // Fields
@@ -170,7 +207,7 @@ public class DaoState implements PersistablePayload {
                 .collect(Collectors.toList()));
     }
 
-    private protobuf.DaoState.Builder getBsqStateBuilderExcludingBlocks() {
+    public protobuf.DaoState.Builder getBsqStateBuilderExcludingBlocks() {
         protobuf.DaoState.Builder builder = protobuf.DaoState.newBuilder();
         builder.setChainHeight(chainHeight)
                 .addAllCycles(cycles.stream().map(Cycle::toProtoMessage).collect(Collectors.toList()))
@@ -39,12 +39,22 @@ public class CoreNetworkCapabilities {
                 Capability.MEDIATION,
                 Capability.SIGNED_ACCOUNT_AGE_WITNESS,
                 Capability.REFUND_AGENT,
-                Capability.TRADE_STATISTICS_HASH_UPDATE
+                Capability.TRADE_STATISTICS_HASH_UPDATE,
+                Capability.GET_DATA_RESPONSE_PARTS,
+                Capability.EXCLUDED_KEYS_FILTER,
+                Capability.GET_BLOCKS_RESPONSE_PARTS
         );
 
         if (config.daoActivated) {
             maybeApplyDaoFullMode(config);
         }
+
+        // The DAO state hashes of both modes are not compatible, so we only exchange them with peers using the same
+        // mode.
+        if (config.incrementalDaoStateHash) {
+            log.info("Set Capability.INCREMENTAL_DAO_STATE_HASH");
+            Capabilities.app.addAll(Capability.INCREMENTAL_DAO_STATE_HASH);
+        }
     }
 
     public static void maybeApplyDaoFullMode(Config config) {
@@ -92,6 +92,11 @@ public abstract class SupportManager {
 
     public abstract void persist();
 
+    // Persists the data of the given trade. By default all data get persisted.
+    protected void persist(String tradeId) {
+        persist();
+    }
+
 
     ///////////////////////////////////////////////////////////////////////////////////////////
     // Delegates p2pService
@@ -170,7 +175,7 @@ public abstract class SupportManager {
                         else
                             msg.setAckError(ackMessage.getErrorMessage());
                     });
-            persist();
+            persist(ackMessage.getSourceId());
 
             if (decryptedMessageWithPubKey != null)
                 p2PService.removeEntryFromMailbox(decryptedMessageWithPubKey);
@@ -200,7 +205,7 @@ public abstract class SupportManager {
                             log.info("{} arrived at peer {}. tradeId={}, uid={}",
                                     message.getClass().getSimpleName(), peersNodeAddress, message.getTradeId(), message.getUid());
                             message.setArrived(true);
-                            persist();
+                            persist(message.getTradeId());
                         }
 
                         @Override
@@ -208,7 +213,7 @@ public abstract class SupportManager {
                             log.info("{} stored in mailbox for peer {}. tradeId={}, uid={}",
                                     message.getClass().getSimpleName(), peersNodeAddress, message.getTradeId(), message.getUid());
                             message.setStoredInMailbox(true);
-                            persist();
+                            persist(message.getTradeId());
                         }
 
                         @Override
@@ -216,7 +221,7 @@ public abstract class SupportManager {
                             log.error("{} failed: Peer {}. tradeId={}, uid={}, errorMessage={}",
                                     message.getClass().getSimpleName(), peersNodeAddress, message.getTradeId(), message.getUid(), errorMessage);
                             message.setSendMessageError(errorMessage);
-                            persist();
+                            persist(message.getTradeId());
                         }
                     }
             );
@@ -78,6 +78,11 @@ public class TraderChatManager extends SupportManager {
         tradeManager.persistTrades();
     }
 
+    @Override
+    protected void persist(String tradeId) {
+        tradeManager.persistTrade(tradeId);
+    }
+
     @Override
     public NodeAddress getPeerNodeAddress(ChatMessage message) {
         return tradeManager.getTradeById(message.getTradeId()).map(trade -> {
@@ -24,6 +24,8 @@ import bisq.core.proto.CoreProtoResolver;
 import bisq.common.proto.ProtoUtil;
 import bisq.common.proto.ProtobufferRuntimeException;
 import bisq.common.proto.persistable.PersistableEnvelope;
+import bisq.common.storage.FileUtil;
+import bisq.common.storage.PersistenceScheduler;
 import bisq.common.storage.Storage;
 
 import com.google.protobuf.Message;
@@ -31,8 +33,15 @@ import com.google.protobuf.Message;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
+import java.io.File;
+import java.io.IOException;
+
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -40,11 +49,37 @@ import java.util.stream.Stream;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
+import javax.annotation.Nullable;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * List of tradables persisted with Storage.
+ *
+ * By default the whole list is written to one file at each change of any of its tradables. With persistSeparately
+ * each tradable is persisted in its own file named by its ID (a TradableList with one entry) in the directory
+ * tradables/[fileName], and only the file of the changed tradable gets written. A Trade gets the Storage for its own
+ * file when it is added to the list (see getStorage).
+ *
+ * Switching the mode migrates the data at startup. The old file or directory is not deleted but renamed with the
+ * suffix _migrated.
+ */
 @Slf4j
 public final class TradableList<T extends Tradable> implements PersistableEnvelope {
+    private static final long DELAY = 50;
+    private static final String TRADABLES_DIR_NAME = "tradables";
+    private static final String MIGRATED_SUFFIX = "_migrated";
+    // A backup of each file is made at every startup, so we keep only a few of them
+    private static final int NUM_MAX_BACKUP_FILES_PER_TRADABLE = 3;
+
     transient final private Storage<TradableList<T>> storage;
     @Getter
     private final ObservableList<T> list = FXCollections.observableArrayList();
+    // Only set if the tradables are persisted separately
+    @Nullable
+    transient private final File tradablesDir;
+    // The lists with the single tradable which get persisted if the tradables are persisted separately
+    transient private final Map<String, TradableList<T>> tradableListById = new HashMap<>();
 
 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -52,11 +87,33 @@ public final class TradableList<T extends Tradable> implements PersistableEnvelo
     ///////////////////////////////////////////////////////////////////////////////////////////
 
     public TradableList(Storage<TradableList<T>> storage, String fileName) {
+        this(storage, fileName, false);
+    }
+
+    public TradableList(Storage<TradableList<T>> storage, String fileName, boolean persistSeparately) {
         this.storage = storage;
+        File dir = new File(new File(storage.getDir(), TRADABLES_DIR_NAME), fileName);
 
-        TradableList<T> persisted = storage.initAndGetPersisted(this, fileName, 50);
-        if (persisted != null)
-            list.addAll(persisted.getList());
+        if (persistSeparately) {
+            tradablesDir = dir;
+            if (!tradablesDir.exists() && !tradablesDir.mkdirs())
+                log.warn("make dir failed");
+
+            tradableListById.putAll(readTradableLists(tradablesDir));
+            tradableListById.values().forEach(tradableList -> {
+                T tradable = tradableList.getList().get(0);
+                list.add(tradable);
+                setStorage(tradable, tradableList.storage);
+            });
+            migrateFromListFile(fileName);
+        } else {
+            tradablesDir = null;
+            TradableList<T> persisted = storage.initAndGetPersisted(this, fileName, DELAY);
+            if (persisted != null)
+                list.addAll(persisted.getList());
+
+            migrateFromTradablesDir(dir, fileName);
+        }
     }
 
 
@@ -66,6 +123,7 @@ public final class TradableList<T extends Tradable> implements PersistableEnvelo
 
     private TradableList(Storage<TradableList<T>> storage, List<T> list) {
         this.storage = storage;
+        this.tradablesDir = null;
         this.list.addAll(list);
     }
 
@@ -111,21 +169,59 @@ public final class TradableList<T extends Tradable> implements PersistableEnvelo
     ///////////////////////////////////////////////////////////////////////////////////////////
 
     public boolean add(T tradable) {
+        if (tradablesDir != null) {
+            if (list.contains(tradable))
+                return false;
+
+            addToTradableList(tradable);
+            return true;
+        }
+
         boolean changed = list.add(tradable);
-        if (changed)
+        if (changed) {
+            setStorage(tradable, storage);
             storage.queueUpForSave();
+        }
         return changed;
     }
 
     public boolean remove(T tradable) {
         boolean changed = list.remove(tradable);
-        if (changed)
-            storage.queueUpForSave();
+        if (changed) {
+            if (tradablesDir != null) {
+                TradableList<T> tradableList = tradableListById.remove(tradable.getId());
+                if (tradableList != null) {
+                    // If the tradable calls persist on its old storage later we write an empty list, which gets
+                    // removed at startup.
+                    tradableList.getList().clear();
+                    tradableList.storage.remove(tradable.getId());
+                }
+            } else {
+                storage.queueUpForSave();
+            }
+        }
         return changed;
     }
 
     public void persist() {
-        storage.queueUpForSave();
+        if (tradablesDir != null)
+            tradableListById.values().forEach(tradableList -> tradableList.storage.queueUpForSave());
+        else
+            storage.queueUpForSave();
+    }
+
+    /**
+     * Returns the Storage used for persisting the tradable with the given ID. That is the Storage of the whole list if
+     * the tradables are not persisted separately or if the tradable is not added yet. The Storage of the whole list
+     * does not write anything if the tradables are persisted separately, the tradable gets its own Storage when it is
+     * added.
+     */
+    public Storage<TradableList<T>> getStorage(String tradableId) {
+        if (tradablesDir == null)
+            return storage;
+
+        TradableList<T> tradableList = tradableListById.get(tradableId);
+        return tradableList != null ? tradableList.storage : storage;
     }
 
     public Stream<T> stream() {
@@ -143,4 +239,127 @@ public final class TradableList<T extends Tradable> implements PersistableEnvelo
     public boolean contains(T thing) {
         return list.contains(thing);
     }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private void addToTradableList(T tradable) {
+        list.add(tradable);
+        Storage<TradableList<T>> tradableStorage = createTradableStorage(checkNotNull(tradablesDir));
+        TradableList<T> tradableList = new TradableList<>(tradableStorage, Collections.singletonList(tradable));
+        // If there is an old file we don't use its content
+        tradableStorage.initAndGetPersisted(tradableList, tradable.getId(), DELAY);
+        tradableListById.put(tradable.getId(), tradableList);
+        tradableStorage.queueUpForSave();
+        setStorage(tradable, tradableStorage);
+    }
+
+    private static void setStorage(Tradable tradable, Storage<? extends TradableList> storage) {
+        if (tradable instanceof Trade)
+            ((Trade) tradable).setStorage(storage);
+    }
+
+    private Storage<TradableList<T>> createTradableStorage(File dir) {
+        Storage<TradableList<T>> tradableStorage = storage.createStorageForDir(dir);
+        tradableStorage.setNumMaxBackupFiles(NUM_MAX_BACKUP_FILES_PER_TRADABLE);
+        return tradableStorage;
+    }
+
+    // Returns the lists with a single tradable of the files in dir by the tradable ID
+    private Map<String, TradableList<T>> readTradableLists(File dir) {
+        Map<String, TradableList<T>> result = new HashMap<>();
+        File[] files = dir.listFiles(file -> file.isFile() && !file.getName().endsWith(".tmp"));
+        if (files == null)
+            return result;
+
+        for (File file : files) {
+            Storage<TradableList<T>> tradableStorage = createTradableStorage(dir);
+            TradableList<T> tradableList = new TradableList<>(tradableStorage, new ArrayList<>());
+            TradableList<T> persisted = tradableStorage.initAndGetPersisted(tradableList, file.getName(), DELAY);
+            if (persisted == null)
+                continue;
+
+            if (persisted.size() == 1 && persisted.getList().get(0).getId().equals(file.getName())) {
+                tradableList.getList().setAll(persisted.getList());
+                result.put(file.getName(), tradableList);
+            } else {
+                // An empty list is written if the tradable called persist after it got removed
+                log.info("Removing file {} with {} tradables", file, persisted.size());
+                tradableStorage.remove(file.getName());
+            }
+        }
+        return result;
+    }
+
+    // Moves the tradables of the old list file into their own files
+    private void migrateFromListFile(String fileName) {
+        File listFile = new File(storage.getDir(), fileName);
+        if (!listFile.exists())
+            return;
+
+        Storage<TradableList<T>> listStorage = storage.createStorageForDir(storage.getDir());
+        TradableList<T> persisted = listStorage.initAndGetPersistedWithFileName(fileName, DELAY);
+        if (persisted == null)
+            return;
+
+        Set<String> ids = list.stream().map(Tradable::getId).collect(Collectors.toSet());
+        persisted.getList().stream()
+                .filter(tradable -> !ids.contains(tradable.getId()))
+                .forEach(this::addToTradableList);
+        PersistenceScheduler.getInstance().flushAll();
+
+        boolean allWritten = persisted.getList().stream()
+                .allMatch(tradable -> new File(tradablesDir, tradable.getId()).exists());
+        if (allWritten) {
+            renameToMigrated(listFile);
+            log.info("Migrated {} tradables of {} to {}", persisted.size(), fileName, tradablesDir);
+        } else {
+            log.error("Not all tradables of {} could be written to {}. We keep the list file.", fileName,
+                    tradablesDir);
+        }
+    }
+
+    // Moves the tradables of the files in dir back into the list file
+    private void migrateFromTradablesDir(File dir, String fileName) {
+        if (!dir.isDirectory())
+            return;
+
+        Set<String> ids = list.stream().map(Tradable::getId).collect(Collectors.toSet());
+        List<T> tradables = readTradableLists(dir).values().stream()
+                .map(tradableList -> tradableList.getList().get(0))
+                .collect(Collectors.toList());
+        tradables.stream()
+                .filter(tradable -> !ids.contains(tradable.getId()))
+                .forEach(list::add);
+        storage.queueUpForSave();
+        PersistenceScheduler.getInstance().flushAll();
+
+        // We read the list file back as it might have existed already before
+        Storage<TradableList<T>> listStorage = storage.createStorageForDir(storage.getDir());
+        TradableList<T> persisted = listStorage.initAndGetPersistedWithFileName(fileName, DELAY);
+        Set<String> persistedIds = persisted != null ?
+                persisted.getList().stream().map(Tradable::getId).collect(Collectors.toSet()) :
+                Collections.emptySet();
+        boolean allWritten = tradables.stream().allMatch(tradable -> persistedIds.contains(tradable.getId()));
+        if (allWritten) {
+            renameToMigrated(dir);
+            log.info("Migrated {} tradables of {} to the list file", tradables.size(), dir);
+        } else {
+            log.error("Not all tradables of {} could be written to {}. We keep the directory.", dir, fileName);
+        }
+    }
+
+    private static void renameToMigrated(File file) {
+        try {
+            File migratedFile = new File(file.getParentFile(), file.getName() + MIGRATED_SUFFIX);
+            // A directory cannot be renamed over an existing one, so we remove the one of an earlier migration
+            if (migratedFile.isDirectory())
+                FileUtil.deleteDirectory(migratedFile);
+            FileUtil.renameFile(file, migratedFile);
+        } catch (IOException e) {
+            log.error("Could not rename {}", file, e);
+        }
+    }
 }
@@ -575,6 +575,11 @@ public abstract class Trade implements Tradable, Model {
         this.btcWalletService = btcWalletService;
     }
 
+    // Called when the trade gets added to a TradableList
+    void setStorage(Storage<? extends TradableList> storage) {
+        this.storage = storage;
+    }
+
     public void init(P2PService p2PService,
                      BtcWalletService btcWalletService,
                      BsqWalletService bsqWalletService,
@@ -57,6 +57,7 @@ import bisq.network.p2p.P2PService;
 import bisq.network.p2p.SendMailboxMessageListener;
 
 import bisq.common.ClockWatcher;
+import bisq.common.config.Config;
 import bisq.common.crypto.KeyRing;
 import bisq.common.handlers.ErrorMessageHandler;
 import bisq.common.handlers.FaultHandler;
@@ -72,6 +73,7 @@ import org.bitcoinj.core.Transaction;
 import org.bitcoinj.core.TransactionConfidence;
 
 import javax.inject.Inject;
+import javax.inject.Named;
 
 import com.google.common.util.concurrent.FutureCallback;
 
@@ -131,6 +133,7 @@ public class TradeManager implements PersistedDataHost {
     private final ClockWatcher clockWatcher;
 
     private final Storage<TradableList<Trade>> tradableListStorage;
+    private final boolean persistTradablesSeparately;
     private TradableList<Trade> tradableList;
     private final BooleanProperty pendingTradesInitialized = new SimpleBooleanProperty();
     private List<Trade> tradesForStatistics;
@@ -167,7 +170,8 @@ public class TradeManager implements PersistedDataHost {
                         RefundAgentManager refundAgentManager,
                         DaoFacade daoFacade,
                         ClockWatcher clockWatcher,
-                        Storage<TradableList<Trade>> storage) {
+                        Storage<TradableList<Trade>> storage,
+                        @Named(Config.PERSIST_TRADABLES_SEPARATELY) boolean persistTradablesSeparately) {
         this.user = user;
         this.keyRing = keyRing;
         this.btcWalletService = btcWalletService;
@@ -189,6 +193,7 @@ public class TradeManager implements PersistedDataHost {
         this.clockWatcher = clockWatcher;
 
         tradableListStorage = storage;
+        this.persistTradablesSeparately = persistTradablesSeparately;
 
         p2PService.addDecryptedDirectMessageListener((decryptedMessageWithPubKey, peerNodeAddress) -> {
             NetworkEnvelope networkEnvelope = decryptedMessageWithPubKey.getNetworkEnvelope();
@@ -226,9 +231,9 @@ public class TradeManager implements PersistedDataHost {
 
     @Override
     public void readPersisted() {
-        tradableList = new TradableList<>(tradableListStorage, "PendingTrades");
+        tradableList = new TradableList<>(tradableListStorage, "PendingTrades", persistTradablesSeparately);
         tradableList.forEach(trade -> {
-            trade.setTransientFields(tradableListStorage, btcWalletService);
+            trade.setTransientFields(tradableList.getStorage(trade.getId()), btcWalletService);
             Offer offer = trade.getOffer();
             if (offer != null)
                 offer.setPriceFeedService(priceFeedService);
@@ -360,7 +365,7 @@ public class TradeManager implements PersistedDataHost {
                         openOffer.getArbitratorNodeAddress(),
                         openOffer.getMediatorNodeAddress(),
                         openOffer.getRefundAgentNodeAddress(),
-                        tradableListStorage,
+                        tradableList.getStorage(offer.getId()),
                         btcWalletService);
             else
                 trade = new SellerAsMakerTrade(offer,
@@ -370,7 +375,7 @@ public class TradeManager implements PersistedDataHost {
                         openOffer.getArbitratorNodeAddress(),
                         openOffer.getMediatorNodeAddress(),
                         openOffer.getRefundAgentNodeAddress(),
-                        tradableListStorage,
+                        tradableList.getStorage(offer.getId()),
                         btcWalletService);
 
             initTrade(trade, trade.getProcessModel().isUseSavingsWallet(), trade.getProcessModel().getFundsNeededForTradeAsLong());
@@ -486,7 +491,7 @@ public class TradeManager implements PersistedDataHost {
                     model.getSelectedArbitrator(),
                     model.getSelectedMediator(),
                     model.getSelectedRefundAgent(),
-                    tradableListStorage,
+                    tradableList.getStorage(offer.getId()),
                     btcWalletService);
         else
             trade = new BuyerAsTakerTrade(offer,
@@ -499,7 +504,7 @@ public class TradeManager implements PersistedDataHost {
                     model.getSelectedArbitrator(),
                     model.getSelectedMediator(),
                     model.getSelectedRefundAgent(),
-                    tradableListStorage,
+                    tradableList.getStorage(offer.getId()),
                     btcWalletService);
 
         trade.setTakerPaymentAccountId(paymentAccountId);
@@ -778,4 +783,9 @@ public class TradeManager implements PersistedDataHost {
     public void persistTrades() {
         tradableList.persist();
     }
+
+    // Only writes the file of the given trade if the trades are persisted separately
+    public void persistTrade(String tradeId) {
+        tradableList.getStorage(tradeId).queueUpForSave();
+    }
 }
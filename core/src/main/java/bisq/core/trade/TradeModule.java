@@ -34,6 +34,7 @@ import bisq.common.config.Config;
 import com.google.inject.Singleton;
 
 import static bisq.common.config.Config.DUMP_STATISTICS;
+import static bisq.common.config.Config.PERSIST_TRADABLES_SEPARATELY;
 import static com.google.inject.name.Names.named;
 
 public class TradeModule extends AppModule {
@@ -56,5 +57,6 @@ public class TradeModule extends AppModule {
         bind(ReferralIdService.class).in(Singleton.class);
         bind(AssetTradeActivityCheck.class).in(Singleton.class);
         bindConstant().annotatedWith(named(DUMP_STATISTICS)).to(config.dumpStatistics);
+        bindConstant().annotatedWith(named(PERSIST_TRADABLES_SEPARATELY)).to(config.persistTradablesSeparately);
     }
 }
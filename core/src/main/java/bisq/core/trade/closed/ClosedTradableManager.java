@@ -24,12 +24,15 @@ import bisq.core.trade.Tradable;
 import bisq.core.trade.TradableList;
 import bisq.core.trade.Trade;
 
+import bisq.common.config.Config;
 import bisq.common.crypto.KeyRing;
 import bisq.common.proto.persistable.PersistedDataHost;
 import bisq.common.storage.Storage;
 
 import com.google.inject.Inject;
 
+import javax.inject.Named;
+
 import com.google.common.collect.ImmutableList;
 
 import javafx.collections.ObservableList;
@@ -45,16 +48,19 @@ public class ClosedTradableManager implements PersistedDataHost {
     private final KeyRing keyRing;
     private final PriceFeedService priceFeedService;
     private final BtcWalletService btcWalletService;
+    private final boolean persistTradablesSeparately;
 
     @Inject
     public ClosedTradableManager(KeyRing keyRing,
                                  PriceFeedService priceFeedService,
                                  BtcWalletService btcWalletService,
-                                 Storage<TradableList<Tradable>> storage) {
+                                 Storage<TradableList<Tradable>> storage,
+                                 @Named(Config.PERSIST_TRADABLES_SEPARATELY) boolean persistTradablesSeparately) {
         this.keyRing = keyRing;
         this.priceFeedService = priceFeedService;
         this.btcWalletService = btcWalletService;
         tradableListStorage = storage;
+        this.persistTradablesSeparately = persistTradablesSeparately;
         // The ClosedTrades object can become a few MB so we don't keep so many backups
         tradableListStorage.setNumMaxBackupFiles(3);
 
@@ -62,12 +68,12 @@ public class ClosedTradableManager implements PersistedDataHost {
 
     @Override
     public void readPersisted() {
-        closedTradables = new TradableList<>(tradableListStorage, "ClosedTrades");
+        closedTradables = new TradableList<>(tradableListStorage, "ClosedTrades", persistTradablesSeparately);
         closedTradables.forEach(tradable -> {
             tradable.getOffer().setPriceFeedService(priceFeedService);
             if (tradable instanceof Trade) {
                 Trade trade = (Trade) tradable;
-                trade.setTransientFields(tradableListStorage, btcWalletService);
+                trade.setTransientFields(closedTradables.getStorage(trade.getId()), btcWalletService);
             }
         });
     }
@@ -23,12 +23,15 @@ import bisq.core.provider.price.PriceFeedService;
 import bisq.core.trade.TradableList;
 import bisq.core.trade.Trade;
 
+import bisq.common.config.Config;
 import bisq.common.crypto.KeyRing;
 import bisq.common.proto.persistable.PersistedDataHost;
 import bisq.common.storage.Storage;
 
 import com.google.inject.Inject;
 
+import javax.inject.Named;
+
 import javafx.collections.ObservableList;
 
 import java.util.Optional;
@@ -44,28 +47,31 @@ public class FailedTradesManager implements PersistedDataHost {
     private final PriceFeedService priceFeedService;
     private final BtcWalletService btcWalletService;
     private final Storage<TradableList<Trade>> tradableListStorage;
+    private final boolean persistTradablesSeparately;
 
     @Inject
     public FailedTradesManager(KeyRing keyRing,
                                PriceFeedService priceFeedService,
                                BtcWalletService btcWalletService,
-                               Storage<TradableList<Trade>> storage) {
+                               Storage<TradableList<Trade>> storage,
+                               @Named(Config.PERSIST_TRADABLES_SEPARATELY) boolean persistTradablesSeparately) {
         this.keyRing = keyRing;
         this.priceFeedService = priceFeedService;
         this.btcWalletService = btcWalletService;
         tradableListStorage = storage;
+        this.persistTradablesSeparately = persistTradablesSeparately;
 
     }
 
     @Override
     public void readPersisted() {
-        this.failedTrades = new TradableList<>(tradableListStorage, "FailedTrades");
+        this.failedTrades = new TradableList<>(tradableListStorage, "FailedTrades", persistTradablesSeparately);
         failedTrades.forEach(trade -> {
             if (trade.getOffer() != null) {
                 trade.getOffer().setPriceFeedService(priceFeedService);
             }
 
-            trade.setTransientFields(tradableListStorage, btcWalletService);
+            trade.setTransientFields(failedTrades.getStorage(trade.getId()), btcWalletService);
         });
     }
 
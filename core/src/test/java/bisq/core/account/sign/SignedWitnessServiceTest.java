@@ -40,6 +40,7 @@ import java.security.KeyPair;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 
+import java.util.Collections;
 import java.util.Date;
 
 import org.junit.Before;
@@ -47,6 +48,7 @@ import org.junit.Test;
 
 import static bisq.core.account.sign.SignedWitness.VerificationMethod.ARBITRATOR;
 import static bisq.core.account.sign.SignedWitness.VerificationMethod.TRADE;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.*;
@@ -338,6 +340,38 @@ public class SignedWitnessServiceTest {
         return Instant.ofEpochMilli(new Date().getTime()).minus(days, ChronoUnit.DAYS).toEpochMilli();
     }
 
+    @Test
+    public void testIsSignerAccountAgeWitness_cacheClearedAtNewSignedWitness() {
+        SignedWitness sw1 = new SignedWitness(ARBITRATOR, account1DataHash, signature1, signer1PubKey, witnessOwner1PubKey, date1, tradeAmount1);
+        SignedWitness sw2 = new SignedWitness(TRADE, account2DataHash, signature2, signer2PubKey, witnessOwner2PubKey, date2, tradeAmount2);
+
+        signedWitnessService.addToMap(sw2);
+        assertFalse(signedWitnessService.isSignerAccountAgeWitness(aew2));
+
+        // sw1 makes the signer of sw2 a valid signer
+        signedWitnessService.addToMap(sw1);
+        assertTrue(signedWitnessService.isSignerAccountAgeWitness(aew2));
+    }
+
+    @Test
+    public void testSignedWitnessSetsByAccountAgeWitness() {
+        SignedWitness sw1 = new SignedWitness(ARBITRATOR, account1DataHash, signature1, signer1PubKey, witnessOwner1PubKey, date1, tradeAmount1);
+        SignedWitness sw2 = new SignedWitness(TRADE, account1DataHash, signature2, signer2PubKey, witnessOwner1PubKey, date2, tradeAmount2);
+        SignedWitness sw3 = new SignedWitness(TRADE, account3DataHash, signature3, signer3PubKey, witnessOwner3PubKey, date3, tradeAmount3);
+
+        signedWitnessService.addToMap(sw1);
+        signedWitnessService.addToMap(sw2);
+        signedWitnessService.addToMap(sw3);
+        // Duplicates are ignored
+        signedWitnessService.addToMap(new SignedWitness(TRADE, account3DataHash, signature3, signer3PubKey, witnessOwner3PubKey, date3, tradeAmount3));
+
+        assertEquals(Collections.singleton(sw1), signedWitnessService.getArbitratorsSignedWitnessSet(aew1));
+        assertEquals(Collections.singleton(sw2), signedWitnessService.getTrustedPeerSignedWitnessSet(aew1));
+        assertTrue(signedWitnessService.getArbitratorsSignedWitnessSet(aew2).isEmpty());
+        assertTrue(signedWitnessService.getTrustedPeerSignedWitnessSet(aew2).isEmpty());
+        assertEquals(Collections.singleton(sw3), signedWitnessService.getTrustedPeerSignedWitnessSet(aew3));
+    }
+
     @Test
     public void testSignAccountAgeWitness_withTooLowTradeAmount() throws CryptoException {
         long accountCreationTime = getTodayMinusNDays(SIGN_AGE_1 + 1);
@@ -0,0 +1,133 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.dao.node.full;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.SettableFuture;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class RawBlockPipelineTest {
+    private RpcService rpcService;
+    private final Map<Integer, SettableFuture<RawBlock>> requests = new HashMap<>();
+    private final List<Integer> deliveredHeights = new ArrayList<>();
+    private boolean completed;
+    private Throwable error;
+
+    @Before
+    public void setUp() {
+        rpcService = mock(RpcService.class);
+        when(rpcService.requestBtcBlock(anyInt(), any())).thenAnswer(invocation -> {
+            SettableFuture<RawBlock> future = SettableFuture.create();
+            requests.put(invocation.getArgument(0), future);
+            return future;
+        });
+    }
+
+    @Test
+    public void testBlocksAreDeliveredInHeightOrder() {
+        RawBlockPipeline pipeline = createPipeline(10, 13, 4, rawBlock -> true);
+        pipeline.start();
+        assertEquals(4, requests.size());
+
+        complete(12);
+        complete(11);
+        assertTrue(deliveredHeights.isEmpty());
+
+        complete(10);
+        assertEquals(List.of(10, 11, 12), deliveredHeights);
+        assertFalse(completed);
+
+        complete(13);
+        assertEquals(List.of(10, 11, 12, 13), deliveredHeights);
+        assertTrue(completed);
+    }
+
+    @Test
+    public void testReadAheadIsBounded() {
+        RawBlockPipeline pipeline = createPipeline(0, 100, 3, rawBlock -> true);
+        pipeline.start();
+        assertEquals(3, requests.size());
+
+        complete(0);
+        assertEquals(4, requests.size());
+        assertTrue(requests.containsKey(3));
+    }
+
+    @Test
+    public void testStopsIfHandlerReturnsFalse() {
+        RawBlockPipeline pipeline = createPipeline(0, 5, 3, rawBlock -> rawBlock.getHeight() < 1);
+        pipeline.start();
+
+        complete(0);
+        complete(1);
+        complete(2);
+
+        assertEquals(List.of(0, 1), deliveredHeights);
+        assertTrue(requests.get(3).isCancelled());
+        assertFalse(completed);
+    }
+
+    @Test
+    public void testFailureStopsPipeline() {
+        RawBlockPipeline pipeline = createPipeline(0, 5, 3, rawBlock -> true);
+        pipeline.start();
+
+        requests.get(0).setException(new RpcException("test", null));
+
+        assertTrue(error instanceof RpcException);
+        assertTrue(requests.get(1).isCancelled());
+        assertTrue(deliveredHeights.isEmpty());
+    }
+
+    private RawBlockPipeline createPipeline(int startBlockHeight,
+                                            int chainHeight,
+                                            int readAhead,
+                                            Predicate<RawBlock> filter) {
+        return new RawBlockPipeline(rpcService,
+                new BlockSyncMetrics(),
+                startBlockHeight,
+                chainHeight,
+                readAhead,
+                rawBlock -> {
+                    deliveredHeights.add(rawBlock.getHeight());
+                    return filter.test(rawBlock);
+                },
+                () -> completed = true,
+                throwable -> error = throwable);
+    }
+
+    private void complete(int height) {
+        requests.get(height).set(new RawBlock(height, 0, "hash" + height, "hash" + (height - 1), ImmutableList.of()));
+    }
+}
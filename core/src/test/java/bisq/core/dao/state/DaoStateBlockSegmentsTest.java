@@ -0,0 +1,124 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.dao.state;
+
+import bisq.core.dao.state.model.blockchain.Block;
+
+import java.nio.file.Files;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DaoStateBlockSegmentsTest {
+    private File storageDir;
+
+    @Before
+    public void setUp() throws IOException {
+        storageDir = Files.createTempDirectory("storage").toFile();
+    }
+
+    @Test
+    public void testWriteAndRead() {
+        DaoStateBlockSegments segments = new DaoStateBlockSegments(storageDir);
+        LinkedList<Block> blocks = getBlocks(100, 2500, "a");
+        Assert.assertTrue(segments.write(blocks));
+        Assert.assertEquals(3, getNumSegmentFiles());
+
+        List<Block> persisted = new DaoStateBlockSegments(storageDir).read(2599);
+        Assert.assertNotNull(persisted);
+        Assert.assertEquals(blocks, persisted);
+    }
+
+    @Test
+    public void testAppend() {
+        DaoStateBlockSegments segments = new DaoStateBlockSegments(storageDir);
+        LinkedList<Block> blocks = getBlocks(100, 500, "a");
+        segments.write(blocks);
+        File firstSegment = new File(new File(storageDir, DaoStateBlockSegments.DIR_NAME), "blocks_0");
+        long lengthOfFirstWrite = firstSegment.length();
+
+        blocks.addAll(getBlocks(600, 20, "a"));
+        segments.write(blocks);
+        Assert.assertTrue(firstSegment.length() > lengthOfFirstWrite);
+        Assert.assertTrue(firstSegment.length() < 2 * lengthOfFirstWrite);
+
+        Assert.assertEquals(blocks, new DaoStateBlockSegments(storageDir).read(619));
+    }
+
+    @Test
+    public void testReadIgnoresBlocksAboveChainHeight() {
+        new DaoStateBlockSegments(storageDir).write(getBlocks(100, 50, "a"));
+
+        LinkedList<Block> persisted = new DaoStateBlockSegments(storageDir).read(120);
+        Assert.assertNotNull(persisted);
+        Assert.assertEquals(21, persisted.size());
+        Assert.assertEquals(120, persisted.getLast().getHeight());
+    }
+
+    @Test
+    public void testReadWithMissingBlocks() {
+        new DaoStateBlockSegments(storageDir).write(getBlocks(100, 50, "a"));
+
+        Assert.assertNull(new DaoStateBlockSegments(storageDir).read(200));
+    }
+
+    @Test
+    public void testRewriteAtReorg() {
+        DaoStateBlockSegments segments = new DaoStateBlockSegments(storageDir);
+        segments.write(getBlocks(100, 1500, "a"));
+
+        // Snapshot from before the reorg followed by blocks with other hashes
+        LinkedList<Block> blocks = getBlocks(100, 1000, "a");
+        blocks.addAll(getBlocks(1100, 10, "b"));
+        segments.write(blocks);
+
+        Assert.assertEquals(blocks, new DaoStateBlockSegments(storageDir).read(1109));
+    }
+
+    @Test
+    public void testWriteEmptyDeletesSegments() {
+        DaoStateBlockSegments segments = new DaoStateBlockSegments(storageDir);
+        segments.write(getBlocks(100, 1500, "a"));
+        segments.write(new LinkedList<>());
+
+        Assert.assertEquals(0, getNumSegmentFiles());
+        LinkedList<Block> persisted = new DaoStateBlockSegments(storageDir).read(0);
+        Assert.assertNotNull(persisted);
+        Assert.assertTrue(persisted.isEmpty());
+    }
+
+    private int getNumSegmentFiles() {
+        File[] files = new File(storageDir, DaoStateBlockSegments.DIR_NAME).listFiles();
+        return files == null ? 0 : files.length;
+    }
+
+    private static LinkedList<Block> getBlocks(int fromHeight, int numBlocks, String hashPrefix) {
+        LinkedList<Block> blocks = new LinkedList<>();
+        for (int height = fromHeight; height < fromHeight + numBlocks; height++) {
+            blocks.add(new Block(height, 1534800000L + height, hashPrefix + height, hashPrefix + (height - 1)));
+        }
+        return blocks;
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+package bisq.core.dao.state;
+
+import bisq.core.dao.state.model.DaoState;
+import bisq.core.dao.state.model.blockchain.Block;
+import bisq.core.dao.state.model.blockchain.SpentInfo;
+import bisq.core.dao.state.model.blockchain.TxOutput;
+import bisq.core.dao.state.model.blockchain.TxOutputKey;
+import bisq.core.util.coin.BsqFormatter;
+
+import bisq.common.crypto.Hash;
+
+import org.bitcoinj.core.Coin;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Compares the per block cost of the serialized DAO state hash with the incremental DAO state hash. The state size
+ * is about the size of the mainnet DAO state (about 60 000 unspent and 100 000 spent BSQ outputs).
+ *
+ * Not run with the other tests, remove the Ignore annotation to run it.
+ */
+@Slf4j
+@Ignore
+public class DaoStateHashBenchmark {
+    private static final int GENESIS_HEIGHT = 100;
+    private static final int NUM_UNSPENT_TX_OUTPUTS = 60_000;
+    private static final int NUM_SPENT_TX_OUTPUTS = 100_000;
+    private static final int NUM_BLOCKS = 100;
+    // Changes per block, an average BSQ block has much less changes
+    private static final int NUM_CHANGES_PER_BLOCK = 10;
+
+    @Test
+    public void benchmark() {
+        DaoStateService daoStateService = new DaoStateService(new DaoState(),
+                new GenesisTxInfo("fakegenesistxid", GENESIS_HEIGHT, Coin.parseCoin("2.5").value),
+                new BsqFormatter());
+        daoStateService.onNewBlockHeight(GENESIS_HEIGHT);
+        daoStateService.onNewBlockWithEmptyTxs(new Block(GENESIS_HEIGHT, 1534800000, "blockhash", null));
+        for (int i = 0; i < NUM_UNSPENT_TX_OUTPUTS; i++) {
+            daoStateService.addUnspentTxOutput(IncrementalDaoStateHashTest.getTxOutput("unspent" + i, 0, 1000 + i));
+        }
+        for (int i = 0; i < NUM_SPENT_TX_OUTPUTS; i++) {
+            daoStateService.setSpentInfo(new TxOutputKey("spent" + i, 0), new SpentInfo(GENESIS_HEIGHT, "tx" + i, 0));
+        }
+
+        long ts = System.currentTimeMillis();
+        daoStateService.enableIncrementalStateHash();
+        log.info("Building the incremental state hash from the state took {} ms", System.currentTimeMillis() - ts);
+
+        long serializedDuration = 0;
+        long incrementalDuration = 0;
+        for (int block = 0; block < NUM_BLOCKS; block++) {
+            ts = System.currentTimeMillis();
+            for (int i = 0; i < NUM_CHANGES_PER_BLOCK; i++) {
+                TxOutput txOutput = IncrementalDaoStateHashTest.getTxOutput("new" + block, i, 1000);
+                daoStateService.addUnspentTxOutput(txOutput);
+            }
+            // That includes the costs of updating the incremental hash
+            incrementalDuration += System.currentTimeMillis() - ts;
+
+            ts = System.currentTimeMillis();
+            Hash.getSha256Ripemd160hash(daoStateService.getSerializedStateForHashChain());
+            serializedDuration += System.currentTimeMillis() - ts;
+
+            ts = System.currentTimeMillis();
+            Hash.getSha256Ripemd160hash(daoStateService.getIncrementalStateForHashChain());
+            incrementalDuration += System.currentTimeMillis() - ts;
+        }
+
+        log.info("Serialized state hash: {} ms per block", serializedDuration / NUM_BLOCKS);
+        log.info("Incremental state hash: {} ms per block (incl. {} changes)",
+                (double) incrementalDuration / NUM_BLOCKS, NUM_CHANGES_PER_BLOCK);
+    }
+}
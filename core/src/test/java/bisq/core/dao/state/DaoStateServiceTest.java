@@ -19,10 +19,17 @@ package bisq.core.dao.state;
 
 import bisq.core.dao.state.model.DaoState;
 import bisq.core.dao.state.model.blockchain.Block;
+import bisq.core.dao.state.model.blockchain.Tx;
+import bisq.core.dao.state.model.blockchain.TxOutput;
+import bisq.core.dao.state.model.blockchain.TxOutputType;
+import bisq.core.dao.state.model.blockchain.TxType;
 import bisq.core.util.coin.BsqFormatter;
 
 import org.bitcoinj.core.Coin;
 
+import java.util.List;
+import java.util.Set;
+
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -69,4 +76,125 @@ public class DaoStateServiceTest {
                 stateService.isBlockHashKnown("fakeblockhash4")
         );
     }
+
+    @Test
+    public void testBlockIndices() {
+        DaoStateService stateService = new DaoStateService(
+                new DaoState(),
+                new GenesisTxInfo("fakegenesistxid", 100, Coin.parseCoin("2.5").value),
+                new BsqFormatter());
+        for (int height = 100; height < 105; height++) {
+            stateService.onNewBlockHeight(height);
+            stateService.onNewBlockWithEmptyTxs(new Block(height, 1534800000 + height, "fakeblockhash" + height, null));
+        }
+
+        Assert.assertEquals(102, stateService.getBlockAtHeight(102).get().getHeight());
+        Assert.assertFalse(stateService.getBlockAtHeight(99).isPresent());
+        Assert.assertFalse(stateService.getBlockAtHeight(105).isPresent());
+        Assert.assertTrue(stateService.containsBlockHash("fakeblockhash104"));
+        Assert.assertFalse(stateService.containsBlockHash("fakeblockhash105"));
+
+        List<Block> blocks = stateService.getBlocksFromBlockHeight(0, 3);
+        Assert.assertEquals(3, blocks.size());
+        Assert.assertEquals(100, blocks.get(0).getHeight());
+        Assert.assertEquals(102, blocks.get(2).getHeight());
+
+        blocks = stateService.getBlocksFromBlockHeight(103, 10);
+        Assert.assertEquals(2, blocks.size());
+        Assert.assertEquals(103, blocks.get(0).getHeight());
+        Assert.assertEquals(104, blocks.get(1).getHeight());
+
+        Assert.assertTrue(stateService.getBlocksFromBlockHeight(105, 10).isEmpty());
+
+        // After applying a snapshot only the blocks of the snapshot are known
+        DaoState snapshot = stateService.getClone();
+        snapshot.getBlocks().removeLast();
+        stateService.applySnapshot(snapshot);
+
+        Assert.assertFalse(stateService.isBlockHashKnown("fakeblockhash104"));
+        Assert.assertFalse(stateService.getBlockAtHeight(104).isPresent());
+        Assert.assertTrue(stateService.isBlockHashKnown("fakeblockhash103"));
+        Assert.assertEquals(4, stateService.getBlocksFromBlockHeight(100, 10).size());
+    }
+
+    @Test
+    public void testShallowCopy() {
+        DaoStateService stateService = new DaoStateService(
+                new DaoState(),
+                new GenesisTxInfo("fakegenesistxid", 100, Coin.parseCoin("2.5").value),
+                new BsqFormatter());
+        stateService.onNewBlockHeight(100);
+        stateService.onNewBlockWithEmptyTxs(new Block(100, 1534800000, "fakeblockhash100", null));
+
+        DaoState copy = stateService.getShallowCopy();
+        Assert.assertEquals(stateService.getClone().toProtoMessage(), copy.toProtoMessage());
+
+        // Later changes must not be reflected in the copy
+        stateService.onNewBlockHeight(101);
+        stateService.onNewBlockWithEmptyTxs(new Block(101, 1534800001, "fakeblockhash101", null));
+        Assert.assertEquals(1, copy.getBlocks().size());
+        Assert.assertEquals(100, copy.getChainHeight());
+    }
+
+    @Test
+    public void testTxOutputTypeIndex() {
+        DaoStateService stateService = new DaoStateService(
+                new DaoState(),
+                new GenesisTxInfo("fakegenesistxid", 100, Coin.parseCoin("2.5").value),
+                new BsqFormatter());
+        Block block = new Block(100, 1534800000, "fakeblockhash100", null);
+        stateService.onNewBlockHeight(100);
+        stateService.onNewBlockWithEmptyTxs(block);
+        stateService.onNewTxForLastBlock(block, createTx("lockupTx", 100, TxType.LOCKUP,
+                TxOutputType.LOCKUP_OUTPUT, TxOutputType.BSQ_OUTPUT));
+
+        Set<TxOutput> lockupTxOutputs = stateService.getLockupTxOutputs();
+        Assert.assertEquals(1, lockupTxOutputs.size());
+        TxOutput lockupTxOutput = lockupTxOutputs.iterator().next();
+        Assert.assertEquals("lockupTx", lockupTxOutput.getTxId());
+        Assert.assertEquals(0, lockupTxOutput.getIndex());
+        // We get the instance of the tx in the txCache
+        Assert.assertSame(stateService.getTx("lockupTx").get().getTxOutputs().get(0), lockupTxOutput);
+        Assert.assertTrue(stateService.getUnlockTxOutputs().isEmpty());
+
+        DaoState snapshot = stateService.getClone();
+
+        block = new Block(101, 1534800001, "fakeblockhash101", null);
+        stateService.onNewBlockHeight(101);
+        stateService.onNewBlockWithEmptyTxs(block);
+        stateService.onNewTxForLastBlock(block, createTx("unlockTx", 101, TxType.UNLOCK,
+                TxOutputType.UNLOCK_OUTPUT));
+        Assert.assertEquals(1, stateService.getUnlockTxOutputs().size());
+        Assert.assertEquals(1, stateService.getLockupTxOutputs().size());
+
+        // After applying a snapshot the index is rebuilt from the txs of the snapshot
+        stateService.applySnapshot(snapshot);
+        Assert.assertTrue(stateService.getUnlockTxOutputs().isEmpty());
+        lockupTxOutputs = stateService.getLockupTxOutputs();
+        Assert.assertEquals(1, lockupTxOutputs.size());
+        Assert.assertSame(stateService.getTx("lockupTx").get().getTxOutputs().get(0),
+                lockupTxOutputs.iterator().next());
+    }
+
+    private static Tx createTx(String txId, int blockHeight, TxType txType, TxOutputType... txOutputTypes) {
+        protobuf.Tx.Builder txBuilder = protobuf.Tx.newBuilder()
+                .setTxType(txType.toProtoMessage());
+        for (int i = 0; i < txOutputTypes.length; i++) {
+            txBuilder.addTxOutputs(protobuf.BaseTxOutput.newBuilder()
+                    .setIndex(i)
+                    .setValue(1000)
+                    .setTxId(txId)
+                    .setBlockHeight(blockHeight)
+                    .setTxOutput(protobuf.TxOutput.newBuilder()
+                            .setTxOutputType(txOutputTypes[i].toProtoMessage())));
+        }
+        return Tx.fromProto(protobuf.BaseTx.newBuilder()
+                .setTxVersion("1")
+                .setId(txId)
+                .setBlockHeight(blockHeight)
+                .setBlockHash("fakeblockhash" + blockHeight)
+                .setTime(1534800000)
+                .setTx(txBuilder)
+                .build());
+    }
 }
@@ -0,0 +1,117 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+package bisq.core.dao.state;
+
+import bisq.core.dao.state.model.DaoState;
+import bisq.core.dao.state.model.blockchain.Block;
+import bisq.core.dao.state.model.blockchain.SpentInfo;
+import bisq.core.dao.state.model.blockchain.TxOutput;
+import bisq.core.util.coin.BsqFormatter;
+
+import org.bitcoinj.core.Coin;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class IncrementalDaoStateHashTest {
+    private static final int GENESIS_HEIGHT = 100;
+
+    @Test
+    public void testOrderIndependence() {
+        IncrementalDaoStateHash hash1 = new IncrementalDaoStateHash();
+        hash1.add(IncrementalDaoStateHash.TAG_CYCLE, new byte[]{1});
+        hash1.add(IncrementalDaoStateHash.TAG_CYCLE, new byte[]{2});
+
+        IncrementalDaoStateHash hash2 = new IncrementalDaoStateHash();
+        hash2.add(IncrementalDaoStateHash.TAG_CYCLE, new byte[]{2});
+        hash2.add(IncrementalDaoStateHash.TAG_CYCLE, new byte[]{1});
+
+        assertArrayEquals(hash1.getHash(), hash2.getHash());
+        assertEquals(32, hash1.getHash().length);
+    }
+
+    @Test
+    public void testRemove() {
+        IncrementalDaoStateHash hash = new IncrementalDaoStateHash();
+        byte[] emptyHash = hash.getHash();
+        hash.add(IncrementalDaoStateHash.TAG_CYCLE, new byte[]{1});
+        hash.add(IncrementalDaoStateHash.TAG_ISSUANCE, new byte[]{2});
+        hash.remove(IncrementalDaoStateHash.TAG_CYCLE, new byte[]{1});
+        hash.remove(IncrementalDaoStateHash.TAG_ISSUANCE, new byte[]{2});
+
+        assertArrayEquals(emptyHash, hash.getHash());
+    }
+
+    @Test
+    public void testTagIsPartOfHash() {
+        IncrementalDaoStateHash hash1 = new IncrementalDaoStateHash();
+        hash1.add(IncrementalDaoStateHash.TAG_CYCLE, new byte[]{1});
+
+        IncrementalDaoStateHash hash2 = new IncrementalDaoStateHash();
+        hash2.add(IncrementalDaoStateHash.TAG_ISSUANCE, new byte[]{1});
+
+        assertFalse(Arrays.equals(hash1.getHash(), hash2.getHash()));
+    }
+
+    @Test
+    public void testDaoStateServiceHashMatchesRebuiltHash() {
+        DaoStateService daoStateService = getDaoStateService();
+        daoStateService.onNewBlockHeight(GENESIS_HEIGHT);
+        daoStateService.onNewBlockWithEmptyTxs(new Block(GENESIS_HEIGHT, 1534800000, "blockhash", null));
+        TxOutput txOutput1 = getTxOutput("tx1", 0, 1000);
+        TxOutput txOutput2 = getTxOutput("tx1", 1, 2000);
+        daoStateService.addUnspentTxOutput(txOutput1);
+        daoStateService.addUnspentTxOutput(txOutput2);
+        daoStateService.removeUnspentTxOutput(txOutput1);
+        daoStateService.setSpentInfo(txOutput1.getKey(), new SpentInfo(GENESIS_HEIGHT, "tx2", 0));
+
+        // A new service with the same state built from a snapshot must have the same hash
+        DaoStateService daoStateServiceFromSnapshot = getDaoStateService();
+        daoStateServiceFromSnapshot.applySnapshot(daoStateService.getClone());
+
+        assertArrayEquals(daoStateService.getIncrementalStateForHashChain(),
+                daoStateServiceFromSnapshot.getIncrementalStateForHashChain());
+
+        daoStateService.addUnspentTxOutput(txOutput1);
+        assertFalse(Arrays.equals(daoStateService.getIncrementalStateForHashChain(),
+                daoStateServiceFromSnapshot.getIncrementalStateForHashChain()));
+    }
+
+    private static DaoStateService getDaoStateService() {
+        DaoStateService daoStateService = new DaoStateService(new DaoState(),
+                new GenesisTxInfo("fakegenesistxid", GENESIS_HEIGHT, Coin.parseCoin("2.5").value),
+                new BsqFormatter());
+        daoStateService.enableIncrementalStateHash();
+        return daoStateService;
+    }
+
+    static TxOutput getTxOutput(String txId, int index, long value) {
+        return TxOutput.fromProto(protobuf.BaseTxOutput.newBuilder()
+                .setTxId(txId)
+                .setIndex(index)
+                .setValue(value)
+                .setBlockHeight(GENESIS_HEIGHT)
+                .setTxOutput(protobuf.TxOutput.newBuilder()
+                        .setTxOutputType(protobuf.TxOutputType.BSQ_OUTPUT))
+                .build());
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.dao.state;
+
+import bisq.core.dao.state.model.blockchain.TxOutputKey;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TxOutputKeyFilterTest {
+    @Test
+    public void testAddAndRemove() {
+        TxOutputKeyFilter filter = new TxOutputKeyFilter();
+        TxOutputKey key = new TxOutputKey("txId1", 0);
+        Assert.assertFalse(filter.mightContain("txId1", 0));
+
+        filter.add(key);
+        Assert.assertTrue(filter.mightContain("txId1", 0));
+        Assert.assertFalse(filter.mightContain("txId1", 1));
+        Assert.assertEquals(1, filter.size());
+
+        filter.remove(key);
+        Assert.assertFalse(filter.mightContain("txId1", 0));
+        Assert.assertEquals(0, filter.size());
+
+        // Removing an unknown key has no effect
+        filter.remove(key);
+        Assert.assertEquals(0, filter.size());
+    }
+
+    @Test
+    public void testDuplicateAdd() {
+        TxOutputKeyFilter filter = new TxOutputKeyFilter();
+        TxOutputKey key = new TxOutputKey("txId1", 0);
+        filter.add(key);
+        filter.add(key);
+        Assert.assertEquals(1, filter.size());
+
+        filter.remove(key);
+        Assert.assertTrue(filter.mightContain("txId1", 0));
+        filter.remove(key);
+        Assert.assertFalse(filter.mightContain("txId1", 0));
+    }
+
+    @Test
+    public void testRebuildAndResize() {
+        List<TxOutputKey> keys = new ArrayList<>();
+        for (int i = 0; i < 5000; i++)
+            keys.add(new TxOutputKey("txId" + i, i % 3));
+
+        TxOutputKeyFilter filter = new TxOutputKeyFilter();
+        keys.subList(0, 10).forEach(filter::add);
+        filter.rebuild(keys.subList(10, keys.size()));
+        Assert.assertEquals(keys.size() - 10, filter.size());
+        keys.subList(10, keys.size()).forEach(key ->
+                Assert.assertTrue(filter.mightContain(key.getTxId(), key.getIndex())));
+
+        // Grows beyond the initial capacity
+        keys.subList(0, 10).forEach(filter::add);
+        keys.forEach(key -> Assert.assertTrue(filter.mightContain(key.getTxId(), key.getIndex())));
+    }
+
+    @Test
+    public void testRandomOperations() {
+        Random random = new Random(1);
+        TxOutputKeyFilter filter = new TxOutputKeyFilter();
+        // Count of each key like we would get with a multiset
+        Map<TxOutputKey, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 100000; i++) {
+            TxOutputKey key = new TxOutputKey("txId" + random.nextInt(3000), random.nextInt(4));
+            if (random.nextInt(3) == 0) {
+                filter.remove(key);
+                expected.computeIfPresent(key, (k, count) -> count > 1 ? count - 1 : null);
+            } else {
+                filter.add(key);
+                expected.merge(key, 1, Integer::sum);
+            }
+        }
+
+        // False positives are possible in theory but with 64 bit fingerprints we never expect one here
+        for (int i = 0; i < 3000; i++) {
+            for (int index = 0; index < 4; index++) {
+                TxOutputKey key = new TxOutputKey("txId" + i, index);
+                Assert.assertEquals(expected.containsKey(key), filter.mightContain(key.getTxId(), key.getIndex()));
+            }
+        }
+        Assert.assertEquals(expected.size(), filter.size());
+    }
+}
@@ -21,23 +21,55 @@ import bisq.core.offer.Offer;
 import bisq.core.offer.OfferPayload;
 import bisq.core.offer.OpenOffer;
 
+import bisq.network.p2p.NodeAddress;
+
+import bisq.common.crypto.Encryption;
+import bisq.common.crypto.PubKeyRing;
+import bisq.common.crypto.Sig;
+import bisq.common.proto.persistable.PersistableEnvelope;
+import bisq.common.proto.persistable.PersistenceProtoResolver;
+import bisq.common.proto.persistable.PersistenceProtoResolverStub;
 import bisq.common.storage.CorruptedDatabaseFilesHandler;
+import bisq.common.storage.PersistenceScheduler;
 import bisq.common.storage.Storage;
 
 import java.nio.file.Files;
+import java.nio.file.Paths;
 
 import java.io.File;
 import java.io.IOException;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
 import static org.mockito.Mockito.mock;
 import static protobuf.PersistableEnvelope.MessageCase.TRADABLE_LIST;
 
 public class TradableListTest {
+    private static final String FILE_NAME = "OpenOffers";
+
+    private final PubKeyRing pubKeyRing = new PubKeyRing(Sig.generateKeyPair().getPublic(),
+            Encryption.generateKeyPair().getPublic());
+    private File storageDir;
+    private File listFile;
+    private File tradablesDir;
+
+    @Before
+    public void setUp() throws IOException {
+        storageDir = Files.createTempDirectory("storage").toFile();
+        listFile = new File(storageDir, FILE_NAME);
+        tradablesDir = Paths.get(storageDir.getAbsolutePath(), "tradables", FILE_NAME).toFile();
+    }
 
     @Test
     public void protoTesting() throws IOException {
@@ -57,4 +89,145 @@ public class TradableListTest {
         assertEquals(message.getMessageCase(), TRADABLE_LIST);
         assertEquals(1, message.getTradableList().getTradableList().size());
     }
+
+    @Test
+    public void testMigrationFromListFileToSeparateFiles() {
+        TradableList<OpenOffer> tradableList = new TradableList<>(createStorage(), FILE_NAME);
+        tradableList.add(createOpenOffer("id1"));
+        tradableList.add(createOpenOffer("id2"));
+        PersistenceScheduler.getInstance().flushAll();
+        assertTrue(listFile.exists());
+
+        tradableList = new TradableList<>(createStorage(), FILE_NAME, true);
+        assertEquals(asSet("id1", "id2"), getIds(tradableList));
+        assertTrue(new File(tradablesDir, "id1").exists());
+        assertTrue(new File(tradablesDir, "id2").exists());
+        assertFalse(listFile.exists());
+        assertTrue(new File(storageDir, FILE_NAME + "_migrated").exists());
+
+        // The migrated list file is not read again
+        tradableList = new TradableList<>(createStorage(), FILE_NAME, true);
+        assertEquals(asSet("id1", "id2"), getIds(tradableList));
+    }
+
+    @Test
+    public void testMigrationFromSeparateFilesToListFile() {
+        TradableList<OpenOffer> tradableList = new TradableList<>(createStorage(), FILE_NAME, true);
+        tradableList.add(createOpenOffer("id1"));
+        tradableList.add(createOpenOffer("id2"));
+        PersistenceScheduler.getInstance().flushAll();
+        assertTrue(new File(tradablesDir, "id1").exists());
+        assertTrue(new File(tradablesDir, "id2").exists());
+
+        tradableList = new TradableList<>(createStorage(), FILE_NAME);
+        assertEquals(asSet("id1", "id2"), getIds(tradableList));
+        assertTrue(listFile.exists());
+        assertFalse(tradablesDir.exists());
+        assertTrue(new File(tradablesDir.getParentFile(), FILE_NAME + "_migrated").isDirectory());
+
+        // The list file got written at the migration, so a restart reads the tradables from it
+        tradableList = new TradableList<>(createStorage(), FILE_NAME);
+        assertEquals(asSet("id1", "id2"), getIds(tradableList));
+    }
+
+    @Test
+    public void testRemoveDeletesFileOfTradable() {
+        TradableList<OpenOffer> tradableList = new TradableList<>(createStorage(), FILE_NAME, true);
+        OpenOffer openOffer = createOpenOffer("id1");
+        tradableList.add(openOffer);
+        tradableList.add(createOpenOffer("id2"));
+        PersistenceScheduler.getInstance().flushAll();
+        Storage<TradableList<OpenOffer>> removedStorage = tradableList.getStorage("id1");
+
+        assertTrue(tradableList.remove(openOffer));
+        PersistenceScheduler.getInstance().flushAll();
+        assertFalse(new File(tradablesDir, "id1").exists());
+
+        // A persist on the old storage of the removed tradable writes an empty list which gets removed at startup
+        removedStorage.queueUpForSave();
+        PersistenceScheduler.getInstance().flushAll();
+        assertTrue(new File(tradablesDir, "id1").exists());
+
+        tradableList = new TradableList<>(createStorage(), FILE_NAME, true);
+        assertEquals(asSet("id2"), getIds(tradableList));
+        assertFalse(new File(tradablesDir, "id1").exists());
+    }
+
+    @Test
+    public void testRestartReadsTradablesFromSeparateFiles() {
+        TradableList<OpenOffer> tradableList = new TradableList<>(createStorage(), FILE_NAME, true);
+        tradableList.add(createOpenOffer("id1"));
+        tradableList.add(createOpenOffer("id2"));
+
+        // Getting the storage of a tradable which is not added must not create a file
+        tradableList.getStorage("id3").queueUpForSave();
+        PersistenceScheduler.getInstance().flushAll();
+        assertFalse(new File(tradablesDir, "id3").exists());
+
+        tradableList = new TradableList<>(createStorage(), FILE_NAME, true);
+        assertEquals(asSet("id1", "id2"), getIds(tradableList));
+        assertFalse(listFile.exists());
+    }
+
+    private Storage<TradableList<OpenOffer>> createStorage() {
+        CorruptedDatabaseFilesHandler corruptedDatabaseFilesHandler = mock(CorruptedDatabaseFilesHandler.class);
+        PersistenceProtoResolver persistenceProtoResolver = new PersistenceProtoResolverStub() {
+            @Override
+            public PersistableEnvelope fromProto(protobuf.PersistableEnvelope proto) {
+                return TradableList.fromProto(proto.getTradableList(), null,
+                        new Storage<>(storageDir, this, corruptedDatabaseFilesHandler), null);
+            }
+        };
+        return new Storage<>(storageDir, persistenceProtoResolver, corruptedDatabaseFilesHandler);
+    }
+
+    private OpenOffer createOpenOffer(String id) {
+        OfferPayload offerPayload = new OfferPayload(id,
+                0L,
+                new NodeAddress("localhost", 9999),
+                pubKeyRing,
+                OfferPayload.Direction.BUY,
+                100000L,
+                0.0,
+                false,
+                100000L,
+                100000L,
+                "BTC",
+                "USD",
+                new ArrayList<>(),
+                new ArrayList<>(),
+                "SEPA",
+                "",
+                "offerFeePaymentTxId",
+                null,
+                null,
+                null,
+                null,
+                "",
+                0L,
+                0L,
+                0L,
+                false,
+                0L,
+                0L,
+                0L,
+                0L,
+                false,
+                false,
+                0L,
+                0L,
+                false,
+                null,
+                null,
+                0);
+        return new OpenOffer(new Offer(offerPayload), null);
+    }
+
+    private static Set<String> getIds(TradableList<OpenOffer> tradableList) {
+        return tradableList.stream().map(OpenOffer::getId).collect(Collectors.toSet());
+    }
+
+    private static Set<String> asSet(String... ids) {
+        return new HashSet<>(Arrays.asList(ids));
+    }
 }
@@ -0,0 +1,206 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p;
+
+import bisq.network.crypto.EncryptionService;
+import bisq.network.p2p.storage.payload.ProtectedMailboxStorageEntry;
+
+import bisq.common.UserThread;
+import bisq.common.crypto.CryptoException;
+import bisq.common.proto.ProtobufferException;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.Nullable;
+
+/**
+ * Tries to decrypt mailbox entries on a pool with a fixed number of worker threads. Each try costs a RSA key unwrap,
+ * a DSA signature check and the AES/HMAC decryption, so processing all mailbox entries after a longer offline period
+ * on the UserThread would freeze the app. Only successfully decrypted messages are handed back to the UserThread.
+ *
+ * With 0 threads the decryption is done synchronously on the calling thread.
+ *
+ * Listeners which expect all mailbox messages to be delivered (e.g. at bootstrap) can use runWhenIdle to be called
+ * after the results of all pending entries have been handed to the UserThread.
+ */
+@Slf4j
+class MailboxEntryDecryptor {
+    interface ResultHandler {
+        void onDecrypted(ProtectedMailboxStorageEntry protectedMailboxStorageEntry,
+                         DecryptedMessageWithPubKey decryptedMessageWithPubKey);
+    }
+
+    private final EncryptionService encryptionService;
+    @Nullable
+    private final ThreadPoolExecutor executor;
+
+    private final AtomicLong numTried = new AtomicLong();
+    private final AtomicLong numDecrypted = new AtomicLong();
+    private final AtomicLong decryptTimeNanos = new AtomicLong();
+    private final AtomicInteger numPending = new AtomicInteger();
+    // Guarded by this, so that a handler cannot be added after the last pending entry was processed
+    private final List<Runnable> idleHandlers = new ArrayList<>();
+    // We log the metrics at info level only once, after the entries we got at bootstrap are processed
+    private final AtomicBoolean initialBatchLogged = new AtomicBoolean();
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Constructor
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    MailboxEntryDecryptor(EncryptionService encryptionService, int numThreads) {
+        this.encryptionService = encryptionService;
+
+        if (numThreads > 0) {
+            // The number of threads is bounded, the queue is not as the entries are held in memory anyway.
+            executor = new ThreadPoolExecutor(numThreads, numThreads, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(),
+                    new ThreadFactoryBuilder()
+                            .setNameFormat("MailboxEntryDecryptor-%d")
+                            .setDaemon(true)
+                            .build());
+            executor.allowCoreThreadTimeOut(true);
+        } else {
+            executor = null;
+        }
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    void decrypt(ProtectedMailboxStorageEntry protectedMailboxStorageEntry, ResultHandler resultHandler) {
+        if (executor == null) {
+            DecryptedMessageWithPubKey decryptedMessageWithPubKey = tryDecrypt(protectedMailboxStorageEntry);
+            if (decryptedMessageWithPubKey != null)
+                resultHandler.onDecrypted(protectedMailboxStorageEntry, decryptedMessageWithPubKey);
+            return;
+        }
+
+        numPending.incrementAndGet();
+        executor.execute(() -> {
+            try {
+                DecryptedMessageWithPubKey decryptedMessageWithPubKey = tryDecrypt(protectedMailboxStorageEntry);
+                if (decryptedMessageWithPubKey != null)
+                    UserThread.execute(() -> resultHandler.onDecrypted(protectedMailboxStorageEntry,
+                            decryptedMessageWithPubKey));
+            } finally {
+                onEntryProcessed();
+            }
+        });
+    }
+
+    // Calls the handler on the UserThread once all entries passed to decrypt before have been processed. The
+    // results of those entries are delivered before the handler is called. If no entry is pending the handler is
+    // called immediately.
+    void runWhenIdle(Runnable handler) {
+        synchronized (this) {
+            if (numPending.get() > 0) {
+                idleHandlers.add(handler);
+                return;
+            }
+        }
+        handler.run();
+    }
+
+    void shutDown() {
+        if (executor != null)
+            executor.shutdownNow();
+    }
+
+    long getNumTried() {
+        return numTried.get();
+    }
+
+    long getNumDecrypted() {
+        return numDecrypted.get();
+    }
+
+    double getAverageDecryptTimeInMs() {
+        long tried = numTried.get();
+        return tried == 0 ? 0 : decryptTimeNanos.get() / (double) tried / 1_000_000;
+    }
+
+    int getNumPending() {
+        return numPending.get();
+    }
+
+    String getMetricsAsString() {
+        return String.format("numTried=%d, numDecrypted=%d, averageDecryptTime=%.2f ms",
+                getNumTried(), getNumDecrypted(), getAverageDecryptTimeInMs());
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private void onEntryProcessed() {
+        List<Runnable> handlers;
+        synchronized (this) {
+            if (numPending.decrementAndGet() > 0)
+                return;
+
+            handlers = new ArrayList<>(idleHandlers);
+            idleHandlers.clear();
+        }
+        // Entries received later are processed one by one, so we would log after each of them
+        if (!handlers.isEmpty() && initialBatchLogged.compareAndSet(false, true))
+            log.info("All pending mailbox entries processed. {}", getMetricsAsString());
+        else
+            log.debug("All pending mailbox entries processed. {}", getMetricsAsString());
+        // The results are passed to the UserThread before we get here, so the handlers are called after them
+        if (!handlers.isEmpty())
+            UserThread.execute(() -> handlers.forEach(Runnable::run));
+    }
+
+    @Nullable
+    private DecryptedMessageWithPubKey tryDecrypt(ProtectedMailboxStorageEntry protectedMailboxStorageEntry) {
+        numTried.incrementAndGet();
+        long ts = System.nanoTime();
+        try {
+            DecryptedMessageWithPubKey decryptedMessageWithPubKey = encryptionService.decryptAndVerify(
+                    protectedMailboxStorageEntry.getMailboxStoragePayload().getPrefixedSealedAndSignedMessage().getSealedAndSigned());
+            numDecrypted.incrementAndGet();
+            return decryptedMessageWithPubKey;
+        } catch (CryptoException e) {
+            log.debug(e.toString());
+            log.debug("Decryption of prefixedSealedAndSignedMessage.sealedAndSigned failed. " +
+                    "That is expected if the message is not intended for us.");
+        } catch (ProtobufferException e) {
+            log.error("Protobuffer data could not be processed: {}", e.toString());
+        } catch (Throwable t) {
+            log.error("Decryption of mailbox entry failed", t);
+        } finally {
+            decryptTimeNanos.addAndGet(System.nanoTime() - ts);
+        }
+        return null;
+    }
+}
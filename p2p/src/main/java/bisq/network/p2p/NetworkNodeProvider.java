@@ -20,6 +20,7 @@ package bisq.network.p2p;
 import bisq.network.p2p.network.BridgeAddressProvider;
 import bisq.network.p2p.network.LocalhostNetworkNode;
 import bisq.network.p2p.network.NetworkNode;
+import bisq.network.p2p.network.NetworkThreads;
 import bisq.network.p2p.network.NewTor;
 import bisq.network.p2p.network.RunningTor;
 import bisq.network.p2p.network.TorNetworkNode;
@@ -52,9 +53,13 @@ public class NetworkNodeProvider implements Provider<NetworkNode> {
                                @Named(Config.TOR_CONTROL_PASSWORD) String password,
                                @Nullable @Named(Config.TOR_CONTROL_COOKIE_FILE) File cookieFile,
                                @Named(Config.TOR_STREAM_ISOLATION) boolean streamIsolation,
-                               @Named(Config.TOR_CONTROL_USE_SAFE_COOKIE_AUTH) boolean useSafeCookieAuthentication ) {
+                               @Named(Config.TOR_CONTROL_USE_SAFE_COOKIE_AUTH) boolean useSafeCookieAuthentication,
+                               @Named(Config.NIO_TRANSPORT) boolean useNioTransport,
+                               @Named(Config.USE_VIRTUAL_THREADS) boolean useVirtualThreads) {
+        // Needs to be set before the network node creates any connection
+        NetworkThreads.setUseVirtualThreads(useVirtualThreads);
         networkNode = useLocalhostForP2P ?
-                new LocalhostNetworkNode(port, networkProtoResolver) :
+                new LocalhostNetworkNode(port, networkProtoResolver, useNioTransport) :
                 new TorNetworkNode(port, networkProtoResolver, streamIsolation,
                         controlPort != Config.UNSPECIFIED_PORT ?
                                 new RunningTor(torDir, controlPort, password, cookieFile, useSafeCookieAuthentication) :
@@ -93,5 +93,11 @@ public class P2PModule extends AppModule {
         bindConstant().annotatedWith(named(TOR_CONTROL_USE_SAFE_COOKIE_AUTH)).to(config.useTorControlSafeCookieAuth);
         bindConstant().annotatedWith(named(TOR_STREAM_ISOLATION)).to(config.torStreamIsolation);
         bindConstant().annotatedWith(named("MAX_SEQUENCE_NUMBER_MAP_SIZE_BEFORE_PURGE")).to(1000);
+        bindConstant().annotatedWith(named(EXCLUDED_KEYS_FALSE_POSITIVE_RATE)).to(config.excludedKeysFalsePositiveRate);
+        bindConstant().annotatedWith(named(STORAGE_LISTENER_BATCH_MILLIS)).to(config.storageListenerBatchMillis);
+        bindConstant().annotatedWith(named(MAILBOX_DECRYPTION_THREADS)).to(config.mailboxDecryptionThreads);
+        bindConstant().annotatedWith(named(NIO_TRANSPORT)).to(config.nioTransport);
+        bindConstant().annotatedWith(named(USE_VIRTUAL_THREADS)).to(config.useVirtualThreads);
+        bindConstant().annotatedWith(named(NETWORK_METRICS_EXPORT)).to(config.networkMetricsExport);
     }
 }
@@ -24,6 +24,7 @@ import bisq.network.p2p.network.CloseConnectionReason;
 import bisq.network.p2p.network.Connection;
 import bisq.network.p2p.network.ConnectionListener;
 import bisq.network.p2p.network.MessageListener;
+import bisq.network.p2p.network.NetworkMetricsExportService;
 import bisq.network.p2p.network.NetworkNode;
 import bisq.network.p2p.network.SetupListener;
 import bisq.network.p2p.peers.BroadcastHandler;
@@ -47,6 +48,7 @@ import bisq.network.p2p.storage.payload.ProtectedStorageEntry;
 import bisq.network.p2p.storage.payload.ProtectedStoragePayload;
 
 import bisq.common.UserThread;
+import bisq.common.config.Config;
 import bisq.common.crypto.CryptoException;
 import bisq.common.crypto.KeyRing;
 import bisq.common.crypto.PubKeyRing;
@@ -56,6 +58,7 @@ import bisq.common.proto.persistable.PersistedDataHost;
 import bisq.common.util.Utilities;
 
 import com.google.inject.Inject;
+import com.google.inject.name.Named;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.util.concurrent.FutureCallback;
@@ -128,6 +131,8 @@ public class P2PService implements SetupListener, MessageListener, ConnectionLis
     private boolean isBootstrapped;
     private final KeepAliveManager keepAliveManager;
     private final Socks5ProxyProvider socks5ProxyProvider;
+    private final MailboxEntryDecryptor mailboxEntryDecryptor;
+    private final NetworkMetricsExportService networkMetricsExportService;
 
 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -146,7 +151,9 @@ public class P2PService implements SetupListener, MessageListener, ConnectionLis
                       SeedNodeRepository seedNodeRepository,
                       Socks5ProxyProvider socks5ProxyProvider,
                       EncryptionService encryptionService,
-                      KeyRing keyRing) {
+                      KeyRing keyRing,
+                      NetworkMetricsExportService networkMetricsExportService,
+                      @Named(Config.MAILBOX_DECRYPTION_THREADS) int mailboxDecryptionThreads) {
         this.networkNode = networkNode;
         this.peerManager = peerManager;
         this.p2PDataStorage = p2PDataStorage;
@@ -158,6 +165,8 @@ public class P2PService implements SetupListener, MessageListener, ConnectionLis
         this.socks5ProxyProvider = socks5ProxyProvider;
         this.encryptionService = encryptionService;
         this.keyRing = keyRing;
+        this.networkMetricsExportService = networkMetricsExportService;
+        mailboxEntryDecryptor = new MailboxEntryDecryptor(encryptionService, mailboxDecryptionThreads);
 
         this.networkNode.addConnectionListener(this);
         this.networkNode.addMessageListener(this);
@@ -190,6 +199,7 @@ public class P2PService implements SetupListener, MessageListener, ConnectionLis
             addP2PServiceListener(listener);
 
         networkNode.start(this);
+        networkMetricsExportService.start();
     }
 
     public void onAllServicesInitialized() {
@@ -228,6 +238,9 @@ public class P2PService implements SetupListener, MessageListener, ConnectionLis
             if (keepAliveManager != null)
                 keepAliveManager.shutDown();
 
+            mailboxEntryDecryptor.shutDown();
+            networkMetricsExportService.shutDown();
+
             if (networkReadySubscription != null)
                 networkReadySubscription.unsubscribe();
 
@@ -279,7 +292,9 @@ public class P2PService implements SetupListener, MessageListener, ConnectionLis
         if (!seedNodesAvailable) {
             isBootstrapped = true;
             maybeProcessAllMailboxEntries();
-            p2pServiceListeners.stream().forEach(P2PServiceListener::onNoSeedNodeAvailable);
+            // Listeners expect the mailbox messages to be delivered before they get called (e.g. TradeManager)
+            mailboxEntryDecryptor.runWhenIdle(() ->
+                    p2pServiceListeners.stream().forEach(P2PServiceListener::onNoSeedNodeAvailable));
         }
     }
 
@@ -341,7 +356,9 @@ public class P2PService implements SetupListener, MessageListener, ConnectionLis
         if (!isBootstrapped) {
             isBootstrapped = true;
             maybeProcessAllMailboxEntries();
-            p2pServiceListeners.stream().forEach(P2PServiceListener::onUpdatedDataReceived);
+            // Listeners expect the mailbox messages to be delivered before they get called (e.g. TradeManager)
+            mailboxEntryDecryptor.runWhenIdle(() ->
+                    p2pServiceListeners.stream().forEach(P2PServiceListener::onUpdatedDataReceived));
             p2PDataStorage.onBootstrapComplete();
         }
     }
@@ -515,35 +532,39 @@ public class P2PService implements SetupListener, MessageListener, ConnectionLis
             MailboxStoragePayload mailboxStoragePayload = protectedMailboxStorageEntry.getMailboxStoragePayload();
             PrefixedSealedAndSignedMessage prefixedSealedAndSignedMessage = mailboxStoragePayload.getPrefixedSealedAndSignedMessage();
             if (verifyAddressPrefixHash(prefixedSealedAndSignedMessage)) {
-                try {
-                    DecryptedMessageWithPubKey decryptedMessageWithPubKey = encryptionService.decryptAndVerify(
-                            prefixedSealedAndSignedMessage.getSealedAndSigned());
-                    if (decryptedMessageWithPubKey.getNetworkEnvelope() instanceof MailboxMessage) {
-                        MailboxMessage mailboxMessage = (MailboxMessage) decryptedMessageWithPubKey.getNetworkEnvelope();
-                        NodeAddress senderNodeAddress = mailboxMessage.getSenderNodeAddress();
-                        checkNotNull(senderNodeAddress, "senderAddress must not be null for mailbox network_messages");
-
-                        mailboxMap.put(mailboxMessage.getUid(), protectedMailboxStorageEntry);
-                        log.info("Received a {} mailbox message with messageUid {} and senderAddress {}", mailboxMessage.getClass().getSimpleName(), mailboxMessage.getUid(), senderNodeAddress);
-                        decryptedMailboxListeners.forEach(
-                                e -> e.onMailboxMessageAdded(decryptedMessageWithPubKey, senderNodeAddress));
-                    } else {
-                        log.warn("tryDecryptMailboxData: Expected MailboxMessage but got other type. " +
-                                "decryptedMsgWithPubKey.message={}", decryptedMessageWithPubKey.getNetworkEnvelope());
-                    }
-                } catch (CryptoException e) {
-                    log.debug(e.toString());
-                    log.debug("Decryption of prefixedSealedAndSignedMessage.sealedAndSigned failed. " +
-                            "That is expected if the message is not intended for us.");
-                } catch (ProtobufferException e) {
-                    log.error("Protobuffer data could not be processed: {}", e.toString());
-                }
+                // The decryption is done on worker threads, the result handler is called on the UserThread
+                mailboxEntryDecryptor.decrypt(protectedMailboxStorageEntry, this::onMailboxEntryDecrypted);
             } else {
                 log.trace("Wrong blurredAddressHash. The message is not intended for us.");
             }
         }
     }
 
+    private void onMailboxEntryDecrypted(ProtectedMailboxStorageEntry protectedMailboxStorageEntry,
+                                         DecryptedMessageWithPubKey decryptedMessageWithPubKey) {
+        // The entry might have been removed while it was decrypted on a worker thread
+        P2PDataStorage.ByteArray hashOfPayload = P2PDataStorage.get32ByteHashAsByteArray(
+                protectedMailboxStorageEntry.getProtectedStoragePayload());
+        if (!p2PDataStorage.getMap().containsKey(hashOfPayload)) {
+            log.info("Mailbox entry was removed while we decrypted it. We ignore the decrypted message.");
+            return;
+        }
+
+        if (decryptedMessageWithPubKey.getNetworkEnvelope() instanceof MailboxMessage) {
+            MailboxMessage mailboxMessage = (MailboxMessage) decryptedMessageWithPubKey.getNetworkEnvelope();
+            NodeAddress senderNodeAddress = mailboxMessage.getSenderNodeAddress();
+            checkNotNull(senderNodeAddress, "senderAddress must not be null for mailbox network_messages");
+
+            mailboxMap.put(mailboxMessage.getUid(), protectedMailboxStorageEntry);
+            log.info("Received a {} mailbox message with messageUid {} and senderAddress {}", mailboxMessage.getClass().getSimpleName(), mailboxMessage.getUid(), senderNodeAddress);
+            decryptedMailboxListeners.forEach(
+                    e -> e.onMailboxMessageAdded(decryptedMessageWithPubKey, senderNodeAddress));
+        } else {
+            log.warn("tryDecryptMailboxData: Expected MailboxMessage but got other type. " +
+                    "decryptedMsgWithPubKey.message={}", decryptedMessageWithPubKey.getNetworkEnvelope());
+        }
+    }
+
     public void sendEncryptedMailboxMessage(NodeAddress peersNodeAddress, PubKeyRing peersPubKeyRing,
                                             NetworkEnvelope message,
                                             SendMailboxMessageListener sendMailboxMessageListener) {
@@ -50,7 +50,11 @@ import bisq.common.util.Utilities;
 
 import javax.inject.Inject;
 
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
 import com.google.common.util.concurrent.Uninterruptibles;
 
 import javafx.beans.property.ObjectProperty;
@@ -76,16 +80,19 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import java.lang.ref.WeakReference;
 
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -122,6 +129,8 @@ public class Connection implements HasCapabilities, Runnable, MessageListener {
     private static final int MAX_PERMITTED_MESSAGE_SIZE = 10 * 1024 * 1024;             // 10 MB (425 offers resulted in about 660 kb, mailbox msg will add more to it) offer has usually 2 kb, mailbox 3kb.
     //TODO decrease limits again after testing
     private static final int SOCKET_TIMEOUT = (int) TimeUnit.SECONDS.toMillis(120);
+    // If the peer does not read our messages we drop new ones instead of growing the queue without limit
+    private static final int MAX_OUTBOUND_QUEUE_SIZE = 1000;
 
     public static int getPermittedMessageSize() {
         return PERMITTED_MESSAGE_SIZE;
@@ -133,17 +142,20 @@ public class Connection implements HasCapabilities, Runnable, MessageListener {
     ///////////////////////////////////////////////////////////////////////////////////////////
 
     private final Socket socket;
+    // Only set if the connection uses the NioTransport
+    @Nullable
+    private final NioChannel nioChannel;
     // private final MessageListener messageListener;
     private final ConnectionListener connectionListener;
     @Getter
     private final String uid;
-    private final ExecutorService singleThreadExecutor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "Connection.java executor-service"));
+    private final ExecutorService singleThreadExecutor = NetworkThreads.newSingleThreadExecutor("Connection.java executor-service");
     // holder of state shared between InputHandler and Connection
     @Getter
     private final Statistic statistic;
 
     // set in init
-    private SynchronizedProtoOutputStream protoOutputStream;
+    private ProtoOutputStream protoOutputStream;
 
     // mutable data, set from other threads but not changed internally.
     @Getter
@@ -156,9 +168,14 @@ public class Connection implements HasCapabilities, Runnable, MessageListener {
     private PeerType peerType = PeerType.PEER;
     @Getter
     private final ObjectProperty<NodeAddress> peersNodeAddressProperty = new SimpleObjectProperty<>();
-    private final List<Long> messageTimeStamps = new ArrayList<>();
+    // Inbound throttle limits
+    private final TokenBucket receivedPerSecond = new TokenBucket(config.msgThrottlePerSec, config.msgThrottlePerSec);
+    private final TokenBucket receivedPer10Sec = new TokenBucket(config.msgThrottlePer10Sec, config.msgThrottlePer10Sec / 10d);
+    // Outbound throttle. After a burst of sendMsgBurstCapacity writes on average one write per sendMsgThrottleTrigger
+    // ms, messages queued in the meantime are sent as a BundleOfEnvelopes if the peer supports it.
+    private final TokenBucket sendTokens = new TokenBucket(config.sendMsgBurstCapacity,
+            1000d / Math.max(1, config.sendMsgThrottleTrigger));
     private final CopyOnWriteArraySet<MessageListener> messageListeners = new CopyOnWriteArraySet<>();
-    private volatile long lastSendTimeStamp = 0;
     private final CopyOnWriteArraySet<WeakReference<SupportedCapabilitiesListener>> capabilitiesListeners = new CopyOnWriteArraySet<>();
 
     @Getter
@@ -178,6 +195,7 @@ public class Connection implements HasCapabilities, Runnable, MessageListener {
                @Nullable NodeAddress peersNodeAddress,
                NetworkProtoResolver networkProtoResolver) {
         this.socket = socket;
+        this.nioChannel = null;
         this.connectionListener = connectionListener;
         uid = UUID.randomUUID().toString();
         statistic = new Statistic();
@@ -188,6 +206,23 @@ public class Connection implements HasCapabilities, Runnable, MessageListener {
         init(peersNodeAddress);
     }
 
+    Connection(NioChannel nioChannel,
+               MessageListener messageListener,
+               ConnectionListener connectionListener,
+               @Nullable NodeAddress peersNodeAddress,
+               NetworkProtoResolver networkProtoResolver) {
+        this.socket = nioChannel.getSocket();
+        this.nioChannel = nioChannel;
+        this.connectionListener = connectionListener;
+        uid = UUID.randomUUID().toString();
+        statistic = new Statistic();
+
+        addMessageListener(messageListener);
+
+        this.networkProtoResolver = networkProtoResolver;
+        initNio(nioChannel, peersNodeAddress);
+    }
+
     private void init(@Nullable NodeAddress peersNodeAddress) {
         try {
             socket.setSoTimeout(SOCKET_TIMEOUT);
@@ -198,6 +233,7 @@ public class Connection implements HasCapabilities, Runnable, MessageListener {
             // It will not return until that header has been read.
             protoOutputStream = new SynchronizedProtoOutputStream(socket.getOutputStream(), statistic);
             protoInputStream = socket.getInputStream();
+            bundleSender = NetworkThreads.newSingleThreadScheduledExecutor("Connection.java bundle-sender");
             // We create a thread for handling inputStream data
             singleThreadExecutor.submit(this);
 
@@ -210,6 +246,41 @@ public class Connection implements HasCapabilities, Runnable, MessageListener {
         }
     }
 
+    // With the NioTransport we don't use any thread of our own. The data is received on the selector thread, the
+    // messages are processed on the worker executor and bundles are sent by the scheduler shared by all connections.
+    private void initNio(NioChannel nioChannel, @Nullable NodeAddress peersNodeAddress) {
+        try {
+            protoOutputStream = new NioProtoOutputStream(nioChannel, statistic);
+            bundleSender = nioChannel.getScheduler();
+            nioChannel.start(new NioChannel.Handler() {
+                @Override
+                public void onFrame(byte[] frame) {
+                    onNioFrame(frame);
+                }
+
+                @Override
+                public void onClosed(Throwable cause) {
+                    if (stopped)
+                        return;
+
+                    if (cause instanceof EOFException) {
+                        log.debug("Got EOF. That is expected if client got stopped without proper shutdown.");
+                        shutDown(CloseConnectionReason.NO_PROTO_BUFFER_ENV);
+                    } else {
+                        handleException(cause);
+                    }
+                }
+            }, MAX_PERMITTED_MESSAGE_SIZE + 1024);
+
+            if (peersNodeAddress != null)
+                setPeersNodeAddress(peersNodeAddress);
+
+            UserThread.execute(() -> connectionListener.onConnection(this));
+        } catch (Throwable e) {
+            handleException(e);
+        }
+    }
+
     ///////////////////////////////////////////////////////////////////////////////////////////
     // API
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -219,107 +290,197 @@ public class Connection implements HasCapabilities, Runnable, MessageListener {
         return capabilities;
     }
 
-    private final Object lock = new Object();
-    private final Queue<BundleOfEnvelopes> queueOfBundles = new ConcurrentLinkedQueue<>();
-    private final ScheduledExecutorService bundleSender = Executors.newSingleThreadScheduledExecutor();
-
-    // Called from various threads
-    public void sendMessage(NetworkEnvelope networkEnvelope) {
-        log.debug(">> Send networkEnvelope of type: " + networkEnvelope.getClass().getSimpleName());
+    private final Queue<QueuedEnvelope> outboundQueue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger outboundQueueSize = new AtomicInteger();
+    private final AtomicBoolean outboundQueueDrainScheduled = new AtomicBoolean();
+    // Set in init. Drains the outboundQueue. Shared by all connections in case of the NioTransport.
+    private ScheduledExecutorService bundleSender;
+    // Only used with the NioTransport. Frames received on the selector thread, processed on the worker executor.
+    private final Queue<byte[]> inboundFrames = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean inboundFramesDrainScheduled = new AtomicBoolean();
+
+    // Called from various threads. The returned future completes after the message was written to the socket and
+    // fails if the message could not be queued or written.
+    public ListenableFuture<Connection> sendMessage(NetworkEnvelope networkEnvelope) {
+        // If the envelope got serialized already we check and log the wrapped one
+        NetworkEnvelope message = SerializedNetworkEnvelope.unwrap(networkEnvelope);
+        log.debug(">> Send networkEnvelope of type: {}", message.getClass().getSimpleName());
 
         if (!stopped) {
-            if (noCapabilityRequiredOrCapabilityIsSupported(networkEnvelope)) {
+            if (noCapabilityRequiredOrCapabilityIsSupported(message)) {
                 try {
                     String peersNodeAddress = peersNodeAddressOptional.map(NodeAddress::toString).orElse("null");
 
-                    protobuf.NetworkEnvelope proto = networkEnvelope.toProtoNetworkEnvelope();
-                    log.trace("Sending message: {}", Utilities.toTruncatedString(proto.toString(), 10000));
+                    // We only create the proto for logging if the log level requires it
+                    if (log.isTraceEnabled())
+                        log.trace("Sending message: {}", Utilities.toTruncatedString(networkEnvelope.toProtoNetworkEnvelope().toString(), 10000));
 
-                    if (networkEnvelope instanceof Ping | networkEnvelope instanceof RefreshOfferMessage) {
+                    if (message instanceof Ping | message instanceof RefreshOfferMessage) {
                         // pings and offer refresh msg we don't want to log in production
-                        log.trace("\n\n>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>\n" +
-                                        "Sending direct message to peer" +
-                                        "Write object to outputStream to peer: {} (uid={})\ntruncated message={} / size={}" +
-                                        "\n>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>\n",
-                                peersNodeAddress, uid, proto.toString(), proto.getSerializedSize());
-                    } else if (networkEnvelope instanceof PrefixedSealedAndSignedMessage && peersNodeAddressOptional.isPresent()) {
+                        if (log.isTraceEnabled()) {
+                            protobuf.NetworkEnvelope proto = networkEnvelope.toProtoNetworkEnvelope();
+                            log.trace("\n\n>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>\n" +
+                                            "Sending direct message to peer" +
+                                            "Write object to outputStream to peer: {} (uid={})\ntruncated message={} / size={}" +
+                                            "\n>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>\n",
+                                    peersNodeAddress, uid, proto.toString(), proto.getSerializedSize());
+                        }
+                    } else if (message instanceof PrefixedSealedAndSignedMessage && peersNodeAddressOptional.isPresent()) {
                         setPeerType(Connection.PeerType.DIRECT_MSG_PEER);
 
-                        log.debug("\n\n>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>\n" +
-                                        "Sending direct message to peer" +
-                                        "Write object to outputStream to peer: {} (uid={})\ntruncated message={} / size={}" +
-                                        "\n>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>\n",
-                                peersNodeAddress, uid, Utilities.toTruncatedString(networkEnvelope), -1);
-                    } else if (networkEnvelope instanceof GetDataResponse && ((GetDataResponse) networkEnvelope).isGetUpdatedDataResponse()) {
+                        if (log.isDebugEnabled()) {
+                            log.debug("\n\n>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>\n" +
+                                            "Sending direct message to peer" +
+                                            "Write object to outputStream to peer: {} (uid={})\ntruncated message={} / size={}" +
+                                            "\n>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>\n",
+                                    peersNodeAddress, uid, Utilities.toTruncatedString(message), -1);
+                        }
+                    } else if (message instanceof GetDataResponse && ((GetDataResponse) message).isGetUpdatedDataResponse()) {
                         setPeerType(Connection.PeerType.PEER);
-                    } else {
+                    } else if (log.isDebugEnabled()) {
                         log.debug("\n\n>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>\n" +
                                         "Write object to outputStream to peer: {} (uid={})\ntruncated message={} / size={}" +
                                         "\n>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>\n",
-                                peersNodeAddress, uid, Utilities.toTruncatedString(networkEnvelope), proto.getSerializedSize());
+                                peersNodeAddress, uid, Utilities.toTruncatedString(message),
+                                networkEnvelope.toProtoNetworkEnvelope().getSerializedSize());
                     }
 
-                    // Throttle outbound network_messages
-                    long now = System.currentTimeMillis();
-                    long elapsed = now - lastSendTimeStamp;
-                    if (elapsed < config.sendMsgThrottleTrigger) {
-                        log.debug("We got 2 sendMessage requests in less than {} ms. We set the thread to sleep " +
-                                        "for {} ms to avoid flooding our peer. lastSendTimeStamp={}, now={}, elapsed={}, networkEnvelope={}",
-                                config.sendMsgThrottleTrigger, config.sendMsgThrottleSleep, lastSendTimeStamp, now, elapsed,
-                                networkEnvelope.getClass().getSimpleName());
-
-                        // check if BundleOfEnvelopes is supported
-                        if (getCapabilities().containsAll(new Capabilities(Capability.BUNDLE_OF_ENVELOPES))) {
-                            synchronized (lock) {
-                                // check if current envelope fits size
-                                // - no? create new envelope
-                                if (queueOfBundles.isEmpty() || queueOfBundles.element().toProtoNetworkEnvelope().getSerializedSize() + networkEnvelope.toProtoNetworkEnvelope().getSerializedSize() > MAX_PERMITTED_MESSAGE_SIZE * 0.9) {
-                                    // - no? create a bucket
-                                    queueOfBundles.add(new BundleOfEnvelopes());
-
-                                    // - and schedule it for sending
-                                    lastSendTimeStamp += config.sendMsgThrottleSleep;
-
-                                    bundleSender.schedule(() -> {
-                                        if (!stopped) {
-                                            synchronized (lock) {
-                                                BundleOfEnvelopes current = queueOfBundles.poll();
-                                                if (current != null) {
-                                                    if (current.getEnvelopes().size() == 1) {
-                                                        protoOutputStream.writeEnvelope(current.getEnvelopes().get(0));
-                                                    } else {
-                                                        protoOutputStream.writeEnvelope(current);
-                                                    }
-                                                }
-                                            }
-                                        }
-                                    }, lastSendTimeStamp - now, TimeUnit.MILLISECONDS);
-                                }
-
-                                // - yes? add to bucket
-                                queueOfBundles.element().add(networkEnvelope);
-                            }
-                            return;
-                        }
-
-                        Thread.sleep(config.sendMsgThrottleSleep);
-                    }
-
-                    lastSendTimeStamp = now;
-
-                    if (!stopped) {
-                        protoOutputStream.writeEnvelope(networkEnvelope);
+                    // We don't block the caller. The queue is drained on the bundleSender.
+                    if (outboundQueueSize.incrementAndGet() > MAX_OUTBOUND_QUEUE_SIZE) {
+                        outboundQueueSize.decrementAndGet();
+                        statistic.addDroppedMessage();
+                        log.warn("Outbound queue to peer {} is full. We drop the {}. numDroppedMessages={}",
+                                peersNodeAddress, message.getClass().getSimpleName(),
+                                statistic.getNumDroppedMessages());
+                        return Futures.immediateFailedFuture(new IOException("Outbound queue to peer " +
+                                peersNodeAddress + " is full. We dropped the " + message.getClass().getSimpleName()));
                     }
+                    QueuedEnvelope queuedEnvelope = new QueuedEnvelope(networkEnvelope);
+                    outboundQueue.add(queuedEnvelope);
+                    scheduleOutboundQueueDrain(0);
+                    return queuedEnvelope.future;
                 } catch (Throwable t) {
                     handleException(t);
+                    return Futures.immediateFailedFuture(t);
                 }
             }
         } else {
             log.debug("called sendMessage but was already stopped");
         }
+        return Futures.immediateFuture(this);
+    }
+
+    private void scheduleOutboundQueueDrain(long delayMs) {
+        if (outboundQueueDrainScheduled.compareAndSet(false, true)) {
+            try {
+                bundleSender.schedule(this::drainOutboundQueue, delayMs, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                outboundQueueDrainScheduled.set(false);
+                log.debug("We could not schedule sending as we got shut down already");
+            }
+        }
+    }
+
+    // Runs on the bundleSender, so there is never more than one drain at a time.
+    private void drainOutboundQueue() {
+        outboundQueueDrainScheduled.set(false);
+        List<SettableFuture<Connection>> futures = new ArrayList<>();
+        try {
+            while (!stopped && !outboundQueue.isEmpty()) {
+                if (!sendTokens.tryConsume()) {
+                    // Messages queued until we get a token again get bundled
+                    scheduleOutboundQueueDrain(sendTokens.getMillisUntilNextToken());
+                    return;
+                }
+                ListenableFuture<Void> writeFuture = protoOutputStream.writeEnvelope(pollOutboundEnvelope(futures));
+                completeWhenWritten(writeFuture, new ArrayList<>(futures));
+                futures.clear();
+            }
+        } catch (Throwable t) {
+            futures.forEach(future -> future.setException(t));
+            handleException(t);
+        }
+    }
+
+    // With the NioTransport the envelope is written after writeEnvelope returned
+    private void completeWhenWritten(ListenableFuture<Void> writeFuture, List<SettableFuture<Connection>> futures) {
+        Futures.addCallback(writeFuture, new FutureCallback<Void>() {
+            @Override
+            public void onSuccess(Void result) {
+                futures.forEach(future -> future.set(Connection.this));
+            }
+
+            @Override
+            public void onFailure(@NotNull Throwable throwable) {
+                futures.forEach(future -> future.setException(throwable));
+            }
+        });
+    }
+
+    // Returns the next queued envelope or a BundleOfEnvelopes with as many queued envelopes as fit into one message
+    // if the peer supports it. The futures of the returned envelopes are added to futures.
+    private NetworkEnvelope pollOutboundEnvelope(List<SettableFuture<Connection>> futures) {
+        QueuedEnvelope first = pollOutboundQueue();
+        futures.add(first.future);
+        // Large messages (e.g. the parts of a GetDataResponse) are not bundled. Their senders wait until a message
+        // is written before they create the next one, so a bundle of them would defeat that.
+        if (outboundQueue.isEmpty() ||
+                isExtendedDataSize(first.networkEnvelope) ||
+                !getCapabilities().containsAll(new Capabilities(Capability.BUNDLE_OF_ENVELOPES)))
+            return first.getEnvelopeToWrite();
+
+        // We serialize the envelopes once for the size check and the bundle
+        SerializedNetworkEnvelope serializedFirst = first.getSerialized();
+        BundleOfEnvelopes bundle = new BundleOfEnvelopes();
+        bundle.add(serializedFirst);
+        long size = serializedFirst.getSerializedSize();
+        QueuedEnvelope next;
+        // We are the only consumer, so the peeked envelope is the one we poll
+        while ((next = outboundQueue.peek()) != null && !isExtendedDataSize(next.networkEnvelope)) {
+            // If it does not fit, the serialized envelope is kept for the next bundle
+            SerializedNetworkEnvelope serializedNext = next.getSerialized();
+            if (size + serializedNext.getSerializedSize() > MAX_PERMITTED_MESSAGE_SIZE * 0.9)
+                break;
+
+            pollOutboundQueue();
+            futures.add(next.future);
+            bundle.add(serializedNext);
+            size += serializedNext.getSerializedSize();
+        }
+        return bundle.getEnvelopes().size() == 1 ? serializedFirst : bundle;
+    }
+
+    private QueuedEnvelope pollOutboundQueue() {
+        QueuedEnvelope queuedEnvelope = checkNotNull(outboundQueue.poll());
+        outboundQueueSize.decrementAndGet();
+        NetworkMetrics.get(queuedEnvelope.networkEnvelope, NetworkMetrics.Direction.SENT).getQueueDelay()
+                .record(System.nanoTime() - queuedEnvelope.queuedAtNanos);
+        return queuedEnvelope;
+    }
+
+    private static boolean isExtendedDataSize(NetworkEnvelope networkEnvelope) {
+        return SerializedNetworkEnvelope.unwrap(networkEnvelope) instanceof ExtendedDataSizePermission;
+    }
+
+    // Queued messages are not sent once we are stopped
+    private void failQueuedMessages() {
+        QueuedEnvelope queuedEnvelope;
+        while ((queuedEnvelope = outboundQueue.poll()) != null) {
+            outboundQueueSize.decrementAndGet();
+            queuedEnvelope.future.setException(new IOException("Connection was shut down before the " +
+                    SerializedNetworkEnvelope.unwrap(queuedEnvelope.networkEnvelope).getClass().getSimpleName() +
+                    " was sent"));
+        }
+    }
+
+    public int getOutboundQueueSize() {
+        return outboundQueueSize.get();
     }
 
     public boolean noCapabilityRequiredOrCapabilityIsSupported(Proto msg) {
+        if (msg instanceof SerializedNetworkEnvelope)
+            msg = ((SerializedNetworkEnvelope) msg).getNetworkEnvelope();
+
         boolean result;
         if (msg instanceof AddDataMessage) {
             final ProtectedStoragePayload protectedStoragePayload = (((AddDataMessage) msg).getProtectedStorageEntry()).getProtectedStoragePayload();
@@ -370,33 +531,15 @@ public class Connection implements HasCapabilities, Runnable, MessageListener {
     }
 
     private boolean violatesThrottleLimit() {
-        long now = System.currentTimeMillis();
-
-        messageTimeStamps.add(now);
-
-        // clean list
-        while (messageTimeStamps.size() > config.msgThrottlePer10Sec)
-            messageTimeStamps.remove(0);
-
-        return violatesThrottleLimit(now, 1, config.msgThrottlePerSec) ||
-                violatesThrottleLimit(now, 10, config.msgThrottlePer10Sec);
-    }
-
-    private boolean violatesThrottleLimit(long now, int seconds, int messageCountLimit) {
-        if (messageTimeStamps.size() >= messageCountLimit) {
-
-            // find the entry in the message timestamp history which determines whether we overshot the limit or not
-            long compareValue = messageTimeStamps.get(messageTimeStamps.size() - messageCountLimit);
-
-            // if duration < seconds sec we received too much network_messages
-            if (now - compareValue < TimeUnit.SECONDS.toMillis(seconds)) {
-                log.error("violatesThrottleLimit {}/{} second(s)", messageCountLimit, seconds);
-
-                return true;
-            }
-        }
-
-        return false;
+        // We take a token from both buckets
+        boolean violatesPerSecond = !receivedPerSecond.tryConsume();
+        boolean violatesPer10Sec = !receivedPer10Sec.tryConsume();
+        if (violatesPerSecond)
+            log.error("violatesThrottleLimit {}/{} second(s)", config.msgThrottlePerSec, 1);
+        else if (violatesPer10Sec)
+            log.error("violatesThrottleLimit {}/{} second(s)", config.msgThrottlePer10Sec, 10);
+
+        return violatesPerSecond || violatesPer10Sec;
     }
 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -410,10 +553,21 @@ public class Connection implements HasCapabilities, Runnable, MessageListener {
 
         if (networkEnvelope instanceof BundleOfEnvelopes)
             for (NetworkEnvelope current : ((BundleOfEnvelopes) networkEnvelope).getEnvelopes()) {
-                UserThread.execute(() -> messageListeners.forEach(e -> e.onMessage(current, connection)));
+                dispatchToMessageListeners(current, connection);
             }
         else
-            UserThread.execute(() -> messageListeners.forEach(e -> e.onMessage(networkEnvelope, connection)));
+            dispatchToMessageListeners(networkEnvelope, connection);
+    }
+
+    private void dispatchToMessageListeners(NetworkEnvelope networkEnvelope, Connection connection) {
+        MessageMetrics messageMetrics = NetworkMetrics.get(networkEnvelope, NetworkMetrics.Direction.RECEIVED);
+        long dispatchTs = System.nanoTime();
+        UserThread.execute(() -> {
+            long startTs = System.nanoTime();
+            messageMetrics.getQueueDelay().record(startTs - dispatchTs);
+            messageListeners.forEach(e -> e.onMessage(networkEnvelope, connection));
+            messageMetrics.getProcessingTime().record(System.nanoTime() - startTs);
+        });
     }
 
 
@@ -479,7 +633,10 @@ public class Connection implements HasCapabilities, Runnable, MessageListener {
                     try {
                         String reason = closeConnectionReason == CloseConnectionReason.RULE_VIOLATION ?
                                 getRuleViolation().name() : closeConnectionReason.name();
-                        sendMessage(new CloseConnectionMessage(reason));
+                        // We bypass the outbound queue as queued messages are not sent anymore once we are
+                        // stopped
+                        if (protoOutputStream != null)
+                            protoOutputStream.writeEnvelope(new CloseConnectionMessage(reason));
 
                         stopped = true;
 
@@ -515,18 +672,25 @@ public class Connection implements HasCapabilities, Runnable, MessageListener {
             log.error("Exception at shutdown. " + e.getMessage());
             e.printStackTrace();
         } finally {
-            protoOutputStream.onConnectionShutdown();
+            if (protoOutputStream != null)
+                protoOutputStream.onConnectionShutdown();
 
-            try {
-                protoInputStream.close();
-            } catch (IOException e) {
-                log.error(e.getMessage());
-                e.printStackTrace();
+            if (protoInputStream != null) {
+                try {
+                    protoInputStream.close();
+                } catch (IOException e) {
+                    log.error(e.getMessage());
+                    e.printStackTrace();
+                }
             }
 
             //noinspection UnstableApiUsage
             MoreExecutors.shutdownAndAwaitTermination(singleThreadExecutor, 500, TimeUnit.MILLISECONDS);
-            MoreExecutors.shutdownAndAwaitTermination(bundleSender, 500, TimeUnit.MILLISECONDS);
+            // The bundleSender of the NioTransport is shared and must not be shut down
+            if (nioChannel == null && bundleSender != null)
+                MoreExecutors.shutdownAndAwaitTermination(bundleSender, 500, TimeUnit.MILLISECONDS);
+
+            failQueuedMessages();
 
             log.debug("Connection shutdown complete " + this.toString());
             // Use UserThread.execute as its not clear if that is called from a non-UserThread
@@ -667,7 +831,6 @@ public class Connection implements HasCapabilities, Runnable, MessageListener {
     private InputStream protoInputStream;
     private final NetworkProtoResolver networkProtoResolver;
 
-    private long lastReadTimeStamp;
     private boolean threadNameSet;
 
     @Override
@@ -687,16 +850,6 @@ public class Connection implements HasCapabilities, Runnable, MessageListener {
                         return;
                     }
 
-                    // Throttle inbound network_messages
-                    long now = System.currentTimeMillis();
-                    long elapsed = now - lastReadTimeStamp;
-                    if (elapsed < 10) {
-                        log.debug("We got 2 network_messages received in less than 10 ms. We set the thread to sleep " +
-                                        "for 20 ms to avoid getting flooded by our peer. lastReadTimeStamp={}, now={}, elapsed={}",
-                                lastReadTimeStamp, now, elapsed);
-                        Thread.sleep(20);
-                    }
-
                     // Reading the protobuffer message from the inputStream
                     protobuf.NetworkEnvelope proto = protobuf.NetworkEnvelope.parseDelimitedFrom(protoInputStream);
 
@@ -709,162 +862,8 @@ public class Connection implements HasCapabilities, Runnable, MessageListener {
                         return;
                     }
 
-                    NetworkEnvelope networkEnvelope = networkProtoResolver.fromProto(proto);
-                    lastReadTimeStamp = now;
-                    log.debug("<< Received networkEnvelope of type: {}", networkEnvelope.getClass().getSimpleName());
-                    int size = proto.getSerializedSize();
-                    // We comment out that part as only debug and trace log level is used. For debugging purposes
-                    // we leave the code though.
-                        /*if (networkEnvelope instanceof Pong || networkEnvelope instanceof RefreshOfferMessage) {
-                            // We only log Pong and RefreshOfferMsg when in dev environment (trace)
-                            log.trace("\n\n<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<\n" +
-                                            "New data arrived at inputHandler of connection {}.\n" +
-                                            "Received object (truncated)={} / size={}"
-                                            + "\n<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<\n",
-                                    connection,
-                                    Utilities.toTruncatedString(proto.toString()),
-                                    size);
-                        } else {
-                            // We want to log all incoming network_messages (except Pong and RefreshOfferMsg)
-                            // so we log before the data type checks
-                            //log.info("size={}; object={}", size, Utilities.toTruncatedString(rawInputObject.toString(), 100));
-                            log.debug("\n\n<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<\n" +
-                                            "New data arrived at inputHandler of connection {}.\n" +
-                                            "Received object (truncated)={} / size={}"
-                                            + "\n<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<\n",
-                                    connection,
-                                    Utilities.toTruncatedString(proto.toString()),
-                                    size);
-                        }*/
-
-                    // We want to track the size of each object even if it is invalid data
-                    statistic.addReceivedBytes(size);
-
-                    // We want to track the network_messages also before the checks, so do it early...
-                    statistic.addReceivedMessage(networkEnvelope);
-
-                    // First we check the size
-                    boolean exceeds;
-                    if (networkEnvelope instanceof ExtendedDataSizePermission) {
-                        exceeds = size > MAX_PERMITTED_MESSAGE_SIZE;
-                    } else {
-                        exceeds = size > PERMITTED_MESSAGE_SIZE;
-                    }
-
-                    if (networkEnvelope instanceof AddPersistableNetworkPayloadMessage &&
-                            !((AddPersistableNetworkPayloadMessage) networkEnvelope).getPersistableNetworkPayload().verifyHashSize()) {
-                        log.warn("PersistableNetworkPayload.verifyHashSize failed. hashSize={}; object={}",
-                                ((AddPersistableNetworkPayloadMessage) networkEnvelope).getPersistableNetworkPayload().getHash().length,
-                                Utilities.toTruncatedString(proto));
-                        if (reportInvalidRequest(RuleViolation.MAX_MSG_SIZE_EXCEEDED))
-                            return;
-                    }
-
-                    if (exceeds) {
-                        log.warn("size > MAX_MSG_SIZE. size={}; object={}", size, Utilities.toTruncatedString(proto));
-
-                        if (reportInvalidRequest(RuleViolation.MAX_MSG_SIZE_EXCEEDED))
-                            return;
-                    }
-
-                    if (violatesThrottleLimit() && reportInvalidRequest(RuleViolation.THROTTLE_LIMIT_EXCEEDED))
-                        return;
-
-                    // Check P2P network ID
-                    if (proto.getMessageVersion() != Version.getP2PMessageVersion()
-                            && reportInvalidRequest(RuleViolation.WRONG_NETWORK_ID)) {
-                        log.warn("RuleViolation.WRONG_NETWORK_ID. version of message={}, app version={}, " +
-                                        "proto.toTruncatedString={}", proto.getMessageVersion(),
-                                Version.getP2PMessageVersion(),
-                                Utilities.toTruncatedString(proto.toString()));
-                        return;
-                    }
-
-                    if (networkEnvelope instanceof SupportedCapabilitiesMessage) {
-                        Capabilities supportedCapabilities = ((SupportedCapabilitiesMessage) networkEnvelope).getSupportedCapabilities();
-                        if (supportedCapabilities != null) {
-                            if (!capabilities.equals(supportedCapabilities)) {
-                                capabilities.set(supportedCapabilities);
-
-                                // Capabilities can be empty. We only check for mandatory if we get some capabilities.
-                                if (!capabilities.isEmpty() && !Capabilities.hasMandatoryCapability(capabilities)) {
-                                    String senderNodeAddress = networkEnvelope instanceof SendersNodeAddressMessage ?
-                                            ((SendersNodeAddressMessage) networkEnvelope).getSenderNodeAddress().getFullAddress() :
-                                            "[unknown address]";
-                                    log.info("We close a connection to old node {}. " +
-                                                    "Capabilities of old node: {}, networkEnvelope class name={}",
-                                            senderNodeAddress, capabilities.prettyPrint(), networkEnvelope.getClass().getSimpleName());
-                                    shutDown(CloseConnectionReason.MANDATORY_CAPABILITIES_NOT_SUPPORTED);
-                                    return;
-                                }
-
-                                capabilitiesListeners.forEach(weakListener -> {
-                                    SupportedCapabilitiesListener supportedCapabilitiesListener = weakListener.get();
-                                    if (supportedCapabilitiesListener != null) {
-                                        UserThread.execute(() -> supportedCapabilitiesListener.onChanged(supportedCapabilities));
-                                    }
-                                });
-                            }
-                        }
-                    }
-
-                    if (networkEnvelope instanceof CloseConnectionMessage) {
-                        // If we get a CloseConnectionMessage we shut down
-                        if (log.isDebugEnabled()) {
-                            log.debug("CloseConnectionMessage received. Reason={}\n\t" +
-                                    "connection={}", proto.getCloseConnectionMessage().getReason(), this);
-                        }
-                        if (CloseConnectionReason.PEER_BANNED.name().equals(proto.getCloseConnectionMessage().getReason())) {
-                            log.warn("We got shut down because we are banned by the other peer. (InputHandler.run CloseConnectionMessage)");
-                            shutDown(CloseConnectionReason.PEER_BANNED);
-                        } else {
-                            shutDown(CloseConnectionReason.CLOSE_REQUESTED_BY_PEER);
-                        }
+                    if (!onProtoReceived(proto))
                         return;
-                    } else if (!stopped) {
-                        // We don't want to get the activity ts updated by ping/pong msg
-                        if (!(networkEnvelope instanceof KeepAliveMessage))
-                            statistic.updateLastActivityTimestamp();
-
-                        if (networkEnvelope instanceof GetDataRequest)
-                            setPeerType(PeerType.INITIAL_DATA_REQUEST);
-
-                        // First a seed node gets a message from a peer (PreliminaryDataRequest using
-                        // AnonymousMessage interface) which does not have its hidden service
-                        // published, so it does not know its address. As the IncomingConnection does not have the
-                        // peersNodeAddress set that connection cannot be used for outgoing network_messages until we
-                        // get the address set.
-                        // At the data update message (DataRequest using SendersNodeAddressMessage interface)
-                        // after the HS is published we get the peer's address set.
-
-                        // There are only those network_messages used for new connections to a peer:
-                        // 1. PreliminaryDataRequest
-                        // 2. DataRequest (implements SendersNodeAddressMessage)
-                        // 3. GetPeersRequest (implements SendersNodeAddressMessage)
-                        // 4. DirectMessage (implements SendersNodeAddressMessage)
-                        if (networkEnvelope instanceof SendersNodeAddressMessage) {
-                            NodeAddress senderNodeAddress = ((SendersNodeAddressMessage) networkEnvelope).getSenderNodeAddress();
-                            if (senderNodeAddress != null) {
-                                Optional<NodeAddress> peersNodeAddressOptional = getPeersNodeAddressOptional();
-                                if (peersNodeAddressOptional.isPresent()) {
-                                    // If we have already the peers address we check again if it matches our stored one
-                                    checkArgument(peersNodeAddressOptional.get().equals(senderNodeAddress),
-                                            "senderNodeAddress not matching connections peer address.\n\t" +
-                                                    "message=" + networkEnvelope);
-                                } else {
-                                    // We must not shut down a banned peer at that moment as it would trigger a connection termination
-                                    // and we could not send the CloseConnectionMessage.
-                                    // We check for a banned peer inside setPeersNodeAddress() and shut down if banned.
-                                    setPeersNodeAddress(senderNodeAddress);
-                                }
-                            }
-                        }
-
-                        if (networkEnvelope instanceof PrefixedSealedAndSignedMessage)
-                            setPeerType(Connection.PeerType.DIRECT_MSG_PEER);
-
-                        onMessage(networkEnvelope, this);
-                    }
                 } catch (InvalidClassException e) {
                     log.error(e.getMessage());
                     e.printStackTrace();
@@ -881,4 +880,258 @@ public class Connection implements HasCapabilities, Runnable, MessageListener {
             handleException(t);
         }
     }
+
+    // Returns false if we stop processing messages because the connection gets shut down
+    private boolean onProtoReceived(protobuf.NetworkEnvelope proto) throws ProtobufferException {
+        NetworkEnvelope networkEnvelope = networkProtoResolver.fromProto(proto);
+        log.debug("<< Received networkEnvelope of type: {}", networkEnvelope.getClass().getSimpleName());
+        int size = proto.getSerializedSize();
+        // We comment out that part as only debug and trace log level is used. For debugging purposes
+        // we leave the code though.
+            /*if (networkEnvelope instanceof Pong || networkEnvelope instanceof RefreshOfferMessage) {
+                // We only log Pong and RefreshOfferMsg when in dev environment (trace)
+                log.trace("\n\n<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<\n" +
+                                "New data arrived at inputHandler of connection {}.\n" +
+                                "Received object (truncated)={} / size={}"
+                                + "\n<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<\n",
+                        connection,
+                        Utilities.toTruncatedString(proto.toString()),
+                        size);
+            } else {
+                // We want to log all incoming network_messages (except Pong and RefreshOfferMsg)
+                // so we log before the data type checks
+                //log.info("size={}; object={}", size, Utilities.toTruncatedString(rawInputObject.toString(), 100));
+                log.debug("\n\n<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<\n" +
+                                "New data arrived at inputHandler of connection {}.\n" +
+                                "Received object (truncated)={} / size={}"
+                                + "\n<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<\n",
+                        connection,
+                        Utilities.toTruncatedString(proto.toString()),
+                        size);
+            }*/
+
+        // We want to track the size of each object even if it is invalid data
+        statistic.addReceivedBytes(size);
+
+        // We want to track the network_messages also before the checks, so do it early...
+        statistic.addReceivedMessage(networkEnvelope);
+        addReceivedMessageToMetrics(networkEnvelope, proto);
+
+        // First we check the size
+        boolean exceeds;
+        if (networkEnvelope instanceof ExtendedDataSizePermission) {
+            exceeds = size > MAX_PERMITTED_MESSAGE_SIZE;
+        } else {
+            exceeds = size > PERMITTED_MESSAGE_SIZE;
+        }
+
+        if (networkEnvelope instanceof AddPersistableNetworkPayloadMessage &&
+                !((AddPersistableNetworkPayloadMessage) networkEnvelope).getPersistableNetworkPayload().verifyHashSize()) {
+            log.warn("PersistableNetworkPayload.verifyHashSize failed. hashSize={}; object={}",
+                    ((AddPersistableNetworkPayloadMessage) networkEnvelope).getPersistableNetworkPayload().getHash().length,
+                    Utilities.toTruncatedString(proto));
+            if (reportInvalidRequest(RuleViolation.MAX_MSG_SIZE_EXCEEDED))
+                return false;
+        }
+
+        if (exceeds) {
+            log.warn("size > MAX_MSG_SIZE. size={}; object={}", size, Utilities.toTruncatedString(proto));
+
+            if (reportInvalidRequest(RuleViolation.MAX_MSG_SIZE_EXCEEDED))
+                return false;
+        }
+
+        if (violatesThrottleLimit() && reportInvalidRequest(RuleViolation.THROTTLE_LIMIT_EXCEEDED))
+            return false;
+
+        // Check P2P network ID
+        if (proto.getMessageVersion() != Version.getP2PMessageVersion()
+                && reportInvalidRequest(RuleViolation.WRONG_NETWORK_ID)) {
+            log.warn("RuleViolation.WRONG_NETWORK_ID. version of message={}, app version={}, " +
+                            "proto.toTruncatedString={}", proto.getMessageVersion(),
+                    Version.getP2PMessageVersion(),
+                    Utilities.toTruncatedString(proto.toString()));
+            return false;
+        }
+
+        if (networkEnvelope instanceof SupportedCapabilitiesMessage) {
+            Capabilities supportedCapabilities = ((SupportedCapabilitiesMessage) networkEnvelope).getSupportedCapabilities();
+            if (supportedCapabilities != null) {
+                if (!capabilities.equals(supportedCapabilities)) {
+                    capabilities.set(supportedCapabilities);
+
+                    // Capabilities can be empty. We only check for mandatory if we get some capabilities.
+                    if (!capabilities.isEmpty() && !Capabilities.hasMandatoryCapability(capabilities)) {
+                        String senderNodeAddress = networkEnvelope instanceof SendersNodeAddressMessage ?
+                                ((SendersNodeAddressMessage) networkEnvelope).getSenderNodeAddress().getFullAddress() :
+                                "[unknown address]";
+                        log.info("We close a connection to old node {}. " +
+                                        "Capabilities of old node: {}, networkEnvelope class name={}",
+                                senderNodeAddress, capabilities.prettyPrint(), networkEnvelope.getClass().getSimpleName());
+                        shutDown(CloseConnectionReason.MANDATORY_CAPABILITIES_NOT_SUPPORTED);
+                        return false;
+                    }
+
+                    capabilitiesListeners.forEach(weakListener -> {
+                        SupportedCapabilitiesListener supportedCapabilitiesListener = weakListener.get();
+                        if (supportedCapabilitiesListener != null) {
+                            UserThread.execute(() -> supportedCapabilitiesListener.onChanged(supportedCapabilities));
+                        }
+                    });
+                }
+            }
+        }
+
+        if (networkEnvelope instanceof CloseConnectionMessage) {
+            // If we get a CloseConnectionMessage we shut down
+            if (log.isDebugEnabled()) {
+                log.debug("CloseConnectionMessage received. Reason={}\n\t" +
+                        "connection={}", proto.getCloseConnectionMessage().getReason(), this);
+            }
+            if (CloseConnectionReason.PEER_BANNED.name().equals(proto.getCloseConnectionMessage().getReason())) {
+                log.warn("We got shut down because we are banned by the other peer. (InputHandler.run CloseConnectionMessage)");
+                shutDown(CloseConnectionReason.PEER_BANNED);
+            } else {
+                shutDown(CloseConnectionReason.CLOSE_REQUESTED_BY_PEER);
+            }
+            return false;
+        } else if (!stopped) {
+            // We don't want to get the activity ts updated by ping/pong msg
+            if (!(networkEnvelope instanceof KeepAliveMessage))
+                statistic.updateLastActivityTimestamp();
+
+            if (networkEnvelope instanceof GetDataRequest)
+                setPeerType(PeerType.INITIAL_DATA_REQUEST);
+
+            // First a seed node gets a message from a peer (PreliminaryDataRequest using
+            // AnonymousMessage interface) which does not have its hidden service
+            // published, so it does not know its address. As the IncomingConnection does not have the
+            // peersNodeAddress set that connection cannot be used for outgoing network_messages until we
+            // get the address set.
+            // At the data update message (DataRequest using SendersNodeAddressMessage interface)
+            // after the HS is published we get the peer's address set.
+
+            // There are only those network_messages used for new connections to a peer:
+            // 1. PreliminaryDataRequest
+            // 2. DataRequest (implements SendersNodeAddressMessage)
+            // 3. GetPeersRequest (implements SendersNodeAddressMessage)
+            // 4. DirectMessage (implements SendersNodeAddressMessage)
+            if (networkEnvelope instanceof SendersNodeAddressMessage) {
+                NodeAddress senderNodeAddress = ((SendersNodeAddressMessage) networkEnvelope).getSenderNodeAddress();
+                if (senderNodeAddress != null) {
+                    Optional<NodeAddress> peersNodeAddressOptional = getPeersNodeAddressOptional();
+                    if (peersNodeAddressOptional.isPresent()) {
+                        // If we have already the peers address we check again if it matches our stored one
+                        checkArgument(peersNodeAddressOptional.get().equals(senderNodeAddress),
+                                "senderNodeAddress not matching connections peer address.\n\t" +
+                                        "message=" + networkEnvelope);
+                    } else {
+                        // We must not shut down a banned peer at that moment as it would trigger a connection termination
+                        // and we could not send the CloseConnectionMessage.
+                        // We check for a banned peer inside setPeersNodeAddress() and shut down if banned.
+                        setPeersNodeAddress(senderNodeAddress);
+                    }
+                }
+            }
+
+            if (networkEnvelope instanceof PrefixedSealedAndSignedMessage)
+                setPeerType(Connection.PeerType.DIRECT_MSG_PEER);
+
+            onMessage(networkEnvelope, this);
+        }
+        return true;
+    }
+
+    private static void addReceivedMessageToMetrics(NetworkEnvelope networkEnvelope, protobuf.NetworkEnvelope proto) {
+        MessageMetrics messageMetrics = NetworkMetrics.get(networkEnvelope, NetworkMetrics.Direction.RECEIVED);
+        if (networkEnvelope instanceof BundleOfEnvelopes) {
+            // The bytes are added to the bundled types. Envelopes which could not be resolved are not in the bundle,
+            // we only know their size if none is missing.
+            messageMetrics.addMessage(0);
+            List<NetworkEnvelope> envelopes = ((BundleOfEnvelopes) networkEnvelope).getEnvelopes();
+            List<protobuf.NetworkEnvelope> protos = proto.getBundleOfEnvelopes().getEnvelopesList();
+            for (int i = 0; i < envelopes.size(); i++) {
+                int size = envelopes.size() == protos.size() ? protos.get(i).getSerializedSize() : 0;
+                NetworkMetrics.get(envelopes.get(i), NetworkMetrics.Direction.RECEIVED).addMessage(size);
+            }
+        } else {
+            messageMetrics.addMessage(proto.getSerializedSize());
+        }
+    }
+
+    // Called on the selector thread of the NioTransport. We only queue the frame, parsing and dispatching is done on
+    // the worker executor so that large messages do not stall the other connections of the selector thread.
+    private void onNioFrame(byte[] frame) {
+        if (stopped)
+            return;
+
+        inboundFrames.add(frame);
+        if (inboundFramesDrainScheduled.compareAndSet(false, true)) {
+            try {
+                checkNotNull(nioChannel).getWorkerExecutor().execute(this::processInboundFrames);
+            } catch (RejectedExecutionException e) {
+                log.debug("We could not process the received frame as we got shut down already");
+            }
+        }
+    }
+
+    // Runs on the worker executor. Only one task per connection is scheduled at a time, so the frames of a connection
+    // are processed in the order they were received.
+    private void processInboundFrames() {
+        do {
+            byte[] frame;
+            while (!stopped && (frame = inboundFrames.poll()) != null) {
+                onInboundFrame(frame);
+            }
+            inboundFramesDrainScheduled.set(false);
+            // A frame might have been added after our last poll but before we reset the flag
+        } while (!stopped && !inboundFrames.isEmpty() && inboundFramesDrainScheduled.compareAndSet(false, true));
+    }
+
+    // Same processing as in run(). The throttle limit rule applies but we don't sleep for throttling inbound
+    // messages.
+    private void onInboundFrame(byte[] frame) {
+        try {
+            protobuf.NetworkEnvelope proto = protobuf.NetworkEnvelope.parseFrom(frame);
+            onProtoReceived(proto);
+        } catch (ProtobufferException | NoClassDefFoundError e) {
+            log.error(e.getMessage());
+            e.printStackTrace();
+            reportInvalidRequest(RuleViolation.INVALID_DATA_TYPE);
+        } catch (Throwable t) {
+            handleException(t);
+        }
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Static class
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private static final class QueuedEnvelope {
+        private final NetworkEnvelope networkEnvelope;
+        private final long queuedAtNanos = System.nanoTime();
+        // Completed by the bundleSender after the envelope was written
+        private final SettableFuture<Connection> future = SettableFuture.create();
+        // Set at the first size check. Only accessed by the bundleSender.
+        @Nullable
+        private SerializedNetworkEnvelope serialized;
+
+        private QueuedEnvelope(NetworkEnvelope networkEnvelope) {
+            this.networkEnvelope = networkEnvelope;
+        }
+
+        private SerializedNetworkEnvelope getSerialized() {
+            if (serialized == null) {
+                serialized = networkEnvelope instanceof SerializedNetworkEnvelope ?
+                        (SerializedNetworkEnvelope) networkEnvelope :
+                        new SerializedNetworkEnvelope(networkEnvelope);
+            }
+            return serialized;
+        }
+
+        private NetworkEnvelope getEnvelopeToWrite() {
+            return serialized != null ? serialized : networkEnvelope;
+        }
+    }
 }
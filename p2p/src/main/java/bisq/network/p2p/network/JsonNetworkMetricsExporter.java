@@ -0,0 +1,61 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.network;
+
+import bisq.common.util.Utilities;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+public class JsonNetworkMetricsExporter implements NetworkMetricsExporter {
+    @Override
+    public String getFileName() {
+        return "network_metrics.json";
+    }
+
+    @Override
+    public String export(List<MessageMetrics> messageMetrics) {
+        List<Map<String, Object>> list = new ArrayList<>();
+        messageMetrics.forEach(metrics -> {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("type", metrics.getMessageType());
+            map.put("direction", metrics.getDirection().name());
+            map.put("count", metrics.getCount());
+            map.put("bytes", metrics.getBytes());
+            map.put("processingTime", toMap(metrics.getProcessingTime()));
+            map.put("queueDelay", toMap(metrics.getQueueDelay()));
+            list.add(map);
+        });
+        return Utilities.objectToJson(list);
+    }
+
+    private static Map<String, Object> toMap(LatencyHistogram histogram) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("count", histogram.getCount());
+        map.put("sumMs", histogram.getSumNanos() / (double) TimeUnit.MILLISECONDS.toNanos(1));
+        Map<String, Long> buckets = new LinkedHashMap<>();
+        for (int i = 0; i < LatencyHistogram.getNumBuckets(); i++) {
+            buckets.put(String.valueOf(LatencyHistogram.getBucketBoundInSeconds(i) * 1000), histogram.getBucketCount(i));
+        }
+        map.put("bucketsMs", buckets);
+        return map;
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.network;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock free histogram with fixed buckets for durations. The bucket bounds are the same for all histograms so they
+ * can be exported as Prometheus histograms.
+ */
+public final class LatencyHistogram {
+    // Upper bounds of the buckets in microseconds. Values above the last bound are only counted in the total.
+    private static final long[] BUCKET_BOUNDS_MICROS = {100, 500, 1_000, 5_000, 10_000, 50_000, 100_000, 500_000,
+            1_000_000, 5_000_000};
+
+    private final AtomicLongArray bucketCounts = new AtomicLongArray(BUCKET_BOUNDS_MICROS.length);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumNanos = new LongAdder();
+
+    public static int getNumBuckets() {
+        return BUCKET_BOUNDS_MICROS.length;
+    }
+
+    public static double getBucketBoundInSeconds(int index) {
+        return BUCKET_BOUNDS_MICROS[index] / 1_000_000d;
+    }
+
+    void record(long nanos) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(Math.max(0, nanos));
+        for (int i = 0; i < BUCKET_BOUNDS_MICROS.length; i++) {
+            if (micros <= BUCKET_BOUNDS_MICROS[i]) {
+                bucketCounts.incrementAndGet(i);
+                break;
+            }
+        }
+        count.increment();
+        sumNanos.add(Math.max(0, nanos));
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getSumNanos() {
+        return sumNanos.sum();
+    }
+
+    // Not cumulative, the count of values in the bucket only
+    public long getBucketCount(int index) {
+        return bucketCounts.get(index);
+    }
+
+    public long getCumulativeBucketCount(int index) {
+        long result = 0;
+        for (int i = 0; i <= index; i++) {
+            result += bucketCounts.get(i);
+        }
+        return result;
+    }
+}
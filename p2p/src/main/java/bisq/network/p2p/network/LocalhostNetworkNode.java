@@ -22,9 +22,13 @@ import bisq.network.p2p.NodeAddress;
 import bisq.common.UserThread;
 import bisq.common.proto.network.NetworkProtoResolver;
 
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
 import java.io.IOException;
 
 import java.util.concurrent.TimeUnit;
@@ -40,6 +44,9 @@ public class LocalhostNetworkNode extends NetworkNode {
 
     private static int simulateTorDelayTorNode = 500;
     private static int simulateTorDelayHiddenService = 500;
+    private static final long NIO_IDLE_TIMEOUT_MS = TimeUnit.SECONDS.toMillis(120);
+
+    private final boolean useNioTransport;
 
     public static void setSimulateTorDelayTorNode(int simulateTorDelayTorNode) {
         LocalhostNetworkNode.simulateTorDelayTorNode = simulateTorDelayTorNode;
@@ -55,7 +62,12 @@ public class LocalhostNetworkNode extends NetworkNode {
     ///////////////////////////////////////////////////////////////////////////////////////////
 
     public LocalhostNetworkNode(int port, NetworkProtoResolver networkProtoResolver) {
+        this(port, networkProtoResolver, false);
+    }
+
+    public LocalhostNetworkNode(int port, NetworkProtoResolver networkProtoResolver, boolean useNioTransport) {
         super(port, networkProtoResolver);
+        this.useNioTransport = useNioTransport;
     }
 
     @Override
@@ -65,6 +77,15 @@ public class LocalhostNetworkNode extends NetworkNode {
 
         createExecutorService();
 
+        if (useNioTransport && nioTransport == null) {
+            try {
+                int numSelectorThreads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+                nioTransport = new NioTransport("NetworkNode-" + servicePort, numSelectorThreads, NIO_IDLE_TIMEOUT_MS);
+            } catch (IOException e) {
+                log.error("Could not create NIO transport, we use blocking sockets instead. " + e.getMessage());
+            }
+        }
+
         // simulate tor connection delay
         UserThread.runAfter(() -> {
             nodeAddressProperty.set(new NodeAddress("localhost", servicePort));
@@ -74,7 +95,10 @@ public class LocalhostNetworkNode extends NetworkNode {
             // simulate tor HS publishing delay
             UserThread.runAfter(() -> {
                 try {
-                    startServer(new ServerSocket(servicePort));
+                    if (nioTransport != null)
+                        startNioServer(ServerSocketChannel.open().bind(new InetSocketAddress(servicePort)));
+                    else
+                        startServer(new ServerSocket(servicePort));
                 } catch (IOException e) {
                     e.printStackTrace();
                     log.error("Exception at startServer: " + e.getMessage());
@@ -89,4 +113,10 @@ public class LocalhostNetworkNode extends NetworkNode {
     protected Socket createSocket(NodeAddress peerNodeAddress) throws IOException {
         return new Socket(peerNodeAddress.getHostName(), peerNodeAddress.getPort());
     }
+
+    // Called from NetworkNode thread
+    @Override
+    protected SocketChannel createSocketChannel(NodeAddress peerNodeAddress) throws IOException {
+        return SocketChannel.open(new InetSocketAddress(peerNodeAddress.getHostName(), peerNodeAddress.getPort()));
+    }
 }
@@ -0,0 +1,58 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.network;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import lombok.Getter;
+
+/**
+ * Metrics of one message type in one direction. All values only increase.
+ */
+public final class MessageMetrics {
+    @Getter
+    private final String messageType;
+    @Getter
+    private final NetworkMetrics.Direction direction;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    // Sent: time for writing the message to the socket. Received: time of the message listeners at the user thread.
+    @Getter
+    private final LatencyHistogram processingTime = new LatencyHistogram();
+    // Sent: time in the outbound queue of the connection. Received: time until the user thread handled it.
+    @Getter
+    private final LatencyHistogram queueDelay = new LatencyHistogram();
+
+    MessageMetrics(String messageType, NetworkMetrics.Direction direction) {
+        this.messageType = messageType;
+        this.direction = direction;
+    }
+
+    void addMessage(int size) {
+        count.increment();
+        bytes.add(size);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getBytes() {
+        return bytes.sum();
+    }
+}
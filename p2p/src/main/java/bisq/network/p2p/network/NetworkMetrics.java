@@ -0,0 +1,75 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.network;
+
+import bisq.common.proto.network.NetworkEnvelope;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of the metrics per message type and direction of all connections. Unlike Statistic it does not use JavaFX
+ * properties, so it can be updated from the network threads without going through the user thread.
+ *
+ * If a BundleOfEnvelopes is sent or received the count and bytes are added to the types of the bundled envelopes,
+ * the bundle itself only gets its count and the time for writing it.
+ */
+public final class NetworkMetrics {
+    public enum Direction {
+        SENT,
+        RECEIVED
+    }
+
+    private static final Map<String, MessageMetrics> SENT = new ConcurrentHashMap<>();
+    private static final Map<String, MessageMetrics> RECEIVED = new ConcurrentHashMap<>();
+
+    private NetworkMetrics() {
+    }
+
+    public static MessageMetrics get(NetworkEnvelope networkEnvelope, Direction direction) {
+        return get(SerializedNetworkEnvelope.unwrap(networkEnvelope).getClass().getSimpleName(), direction);
+    }
+
+    public static MessageMetrics get(String messageType, Direction direction) {
+        Map<String, MessageMetrics> map = direction == Direction.SENT ? SENT : RECEIVED;
+        // get first as computeIfAbsent locks the bin even if the key is present
+        MessageMetrics messageMetrics = map.get(messageType);
+        if (messageMetrics == null)
+            messageMetrics = map.computeIfAbsent(messageType, type -> new MessageMetrics(type, direction));
+        return messageMetrics;
+    }
+
+    // Sorted by direction and message type
+    public static List<MessageMetrics> getAll() {
+        List<MessageMetrics> result = new ArrayList<>(SENT.values());
+        result.addAll(RECEIVED.values());
+        result.sort(Comparator.comparing(MessageMetrics::getDirection).thenComparing(MessageMetrics::getMessageType));
+        return result;
+    }
+
+    @VisibleForTesting
+    static void clear() {
+        SENT.clear();
+        RECEIVED.clear();
+    }
+}
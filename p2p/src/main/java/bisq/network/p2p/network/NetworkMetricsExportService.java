@@ -0,0 +1,116 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.network;
+
+import bisq.common.config.Config;
+import bisq.common.storage.FileUtil;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import java.io.File;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.Nullable;
+
+/**
+ * Writes the NetworkMetrics periodically with each added exporter to a file in the storage directory. The exporters
+ * for the formats set with the networkMetricsExport option are added at construction, others can be added with
+ * addExporter.
+ */
+@Slf4j
+public class NetworkMetricsExportService {
+    private static final long EXPORT_INTERVAL_SEC = 60;
+
+    private final File storageDir;
+    private final List<NetworkMetricsExporter> exporters = new CopyOnWriteArrayList<>();
+    @Nullable
+    private ScheduledExecutorService executor;
+
+    @Inject
+    public NetworkMetricsExportService(@Named(Config.STORAGE_DIR) File storageDir,
+                                       @Named(Config.NETWORK_METRICS_EXPORT) String formats) {
+        this.storageDir = storageDir;
+        for (String format : formats.split(",")) {
+            switch (format.trim()) {
+                case "":
+                    break;
+                case "prometheus":
+                    exporters.add(new PrometheusNetworkMetricsExporter());
+                    break;
+                case "json":
+                    exporters.add(new JsonNetworkMetricsExporter());
+                    break;
+                default:
+                    log.warn("Unknown network metrics export format {}", format);
+            }
+        }
+    }
+
+    public void addExporter(NetworkMetricsExporter exporter) {
+        exporters.add(exporter);
+    }
+
+    public void start() {
+        if (exporters.isEmpty() || executor != null)
+            return;
+
+        executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("NetworkMetricsExport")
+                .setDaemon(true)
+                .build());
+        executor.scheduleWithFixedDelay(this::export, EXPORT_INTERVAL_SEC, EXPORT_INTERVAL_SEC, TimeUnit.SECONDS);
+    }
+
+    public void shutDown() {
+        if (executor != null) {
+            MoreExecutors.shutdownAndAwaitTermination(executor, 1, TimeUnit.SECONDS);
+            executor = null;
+            // We write the final state at shutdown
+            export();
+        }
+    }
+
+    private void export() {
+        List<MessageMetrics> messageMetrics = NetworkMetrics.getAll();
+        for (NetworkMetricsExporter exporter : exporters) {
+            try {
+                // We write to a temp file and rename it so readers never see a partly written file
+                File file = new File(storageDir, exporter.getFileName());
+                File tempFile = new File(storageDir, exporter.getFileName() + ".tmp");
+                Files.write(tempFile.toPath(), exporter.export(messageMetrics).getBytes(StandardCharsets.UTF_8));
+                FileUtil.renameFile(tempFile, file);
+            } catch (Throwable t) {
+                log.error("Exporting network metrics with {} failed", exporter.getClass().getSimpleName(), t);
+            }
+        }
+    }
+}
@@ -30,6 +30,7 @@ import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.SettableFuture;
 
 import javafx.beans.property.ObjectProperty;
@@ -40,6 +41,9 @@ import java.net.ConnectException;
 import java.net.ServerSocket;
 import java.net.Socket;
 
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
 import java.io.IOException;
 
 import java.util.HashSet;
@@ -72,6 +76,11 @@ public abstract class NetworkNode implements MessageListener {
     final CopyOnWriteArraySet<SetupListener> setupListeners = new CopyOnWriteArraySet<>();
     ListeningExecutorService executorService;
     private Server server;
+    // If set we use the non-blocking transport instead of a thread per connection
+    @Nullable
+    NioTransport nioTransport;
+    @Nullable
+    private ServerSocketChannel serverSocketChannel;
 
     private volatile boolean shutDownInProgress;
     // accessed from different threads
@@ -114,7 +123,8 @@ public abstract class NetworkNode implements MessageListener {
                     "We will create a new outbound connection.", peersNodeAddress);
 
             final SettableFuture<Connection> resultFuture = SettableFuture.create();
-            ListenableFuture<Connection> future = executorService.submit(() -> {
+            // The task returns the future of the write of the message
+            ListenableFuture<ListenableFuture<Connection>> connectFuture = executorService.submit(() -> {
                 Thread.currentThread().setName("NetworkNode:SendMessage-to-" + peersNodeAddress.getFullAddress());
 
                 if (peersNodeAddress.equals(getNodeAddress())) {
@@ -128,7 +138,14 @@ public abstract class NetworkNode implements MessageListener {
                     if (log.isDebugEnabled()) {
                         log.debug("Start create socket to peersNodeAddress {}", peersNodeAddress.getFullAddress());
                     }
-                    Socket socket = createSocket(peersNodeAddress);
+                    SocketChannel socketChannel = null;
+                    Socket socket;
+                    if (nioTransport != null) {
+                        socketChannel = createSocketChannel(peersNodeAddress);
+                        socket = socketChannel.socket();
+                    } else {
+                        socket = createSocket(peersNodeAddress);
+                    }
                     long duration = System.currentTimeMillis() - startTs;
                     if (log.isDebugEnabled()) {
                         log.debug("Socket creation to peersNodeAddress {} took {} ms", peersNodeAddress.getFullAddress(),
@@ -158,8 +175,7 @@ public abstract class NetworkNode implements MessageListener {
                         } catch (Throwable throwable) {
                             log.error("Error at closing socket " + throwable);
                         }
-                        existingConnection.sendMessage(networkEnvelope);
-                        return existingConnection;
+                        return existingConnection.sendMessage(networkEnvelope);
                     } else {
                         final ConnectionListener connectionListener = new ConnectionListener() {
                             @Override
@@ -187,11 +203,19 @@ public abstract class NetworkNode implements MessageListener {
                                 connectionListeners.stream().forEach(e -> e.onError(throwable));
                             }
                         };
-                        outboundConnection = new OutboundConnection(socket,
-                                NetworkNode.this,
-                                connectionListener,
-                                peersNodeAddress,
-                                networkProtoResolver);
+                        if (socketChannel != null) {
+                            outboundConnection = new OutboundConnection(checkNotNull(nioTransport).createChannel(socketChannel),
+                                    NetworkNode.this,
+                                    connectionListener,
+                                    peersNodeAddress,
+                                    networkProtoResolver);
+                        } else {
+                            outboundConnection = new OutboundConnection(socket,
+                                    NetworkNode.this,
+                                    connectionListener,
+                                    peersNodeAddress,
+                                    networkProtoResolver);
+                        }
 
                         if (log.isDebugEnabled()) {
                             log.debug("\n\n%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%\n" +
@@ -203,8 +227,7 @@ public abstract class NetworkNode implements MessageListener {
                                     + "\n%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%\n");
                         }
                         // can take a while when using tor
-                        outboundConnection.sendMessage(networkEnvelope);
-                        return outboundConnection;
+                        return outboundConnection.sendMessage(networkEnvelope);
                     }
                 } catch (Throwable throwable) {
                     if (!(throwable instanceof ConnectException ||
@@ -215,6 +238,8 @@ public abstract class NetworkNode implements MessageListener {
                     throw throwable;
                 }
             });
+            ListenableFuture<Connection> future = Futures.transformAsync(connectFuture, sendFuture -> sendFuture,
+                    MoreExecutors.directExecutor());
 
             Futures.addCallback(future, new FutureCallback<>() {
                 public void onSuccess(Connection connection) {
@@ -273,14 +298,16 @@ public abstract class NetworkNode implements MessageListener {
     }
 
 
+    // The returned future completes after the message was written, not when it was queued at the connection
     public SettableFuture<Connection> sendMessage(Connection connection, NetworkEnvelope networkEnvelope) {
-        // connection.sendMessage might take a bit (compression, write to stream), so we use a thread to not block
-        ListenableFuture<Connection> future = executorService.submit(() -> {
+        // connection.sendMessage might take a bit (serialization for logging), so we use a thread to not block
+        ListenableFuture<ListenableFuture<Connection>> queueFuture = executorService.submit(() -> {
             String id = connection.getPeersNodeAddressOptional().isPresent() ? connection.getPeersNodeAddressOptional().get().getFullAddress() : connection.getUid();
             Thread.currentThread().setName("NetworkNode:SendMessage-to-" + id);
-            connection.sendMessage(networkEnvelope);
-            return connection;
+            return connection.sendMessage(networkEnvelope);
         });
+        ListenableFuture<Connection> future = Futures.transformAsync(queueFuture, sendFuture -> sendFuture,
+                MoreExecutors.directExecutor());
         final SettableFuture<Connection> resultFuture = SettableFuture.create();
         Futures.addCallback(future, new FutureCallback<Connection>() {
             public void onSuccess(Connection connection) {
@@ -329,8 +356,22 @@ public abstract class NetworkNode implements MessageListener {
                 server.shutDown();
                 server = null;
             }
+            if (serverSocketChannel != null) {
+                try {
+                    serverSocketChannel.close();
+                } catch (IOException e) {
+                    log.debug("Exception at closing serverSocketChannel. " + e.getMessage());
+                }
+                serverSocketChannel = null;
+            }
 
             getAllConnections().stream().forEach(c -> c.shutDown(CloseConnectionReason.APP_SHUT_DOWN));
+
+            if (nioTransport != null) {
+                // We give the connections a moment to send the CloseConnectionMessage
+                NioTransport transport = nioTransport;
+                UserThread.runAfter(transport::shutDown, 500, TimeUnit.MILLISECONDS);
+            }
             log.debug("NetworkNode shutdown complete");
         }
         if (shutDownCompleteHandler != null) shutDownCompleteHandler.run();
@@ -396,11 +437,44 @@ public abstract class NetworkNode implements MessageListener {
 
     void createExecutorService() {
         if (executorService == null)
-            executorService = Utilities.getListeningExecutorService("NetworkNode-" + servicePort, 15, 30, 60);
+            executorService = NetworkThreads.newListeningExecutorService("NetworkNode-" + servicePort, 15, 30, 60);
     }
 
     void startServer(ServerSocket serverSocket) {
-        final ConnectionListener connectionListener = new ConnectionListener() {
+        server = new Server(serverSocket,
+                NetworkNode.this,
+                getInboundConnectionListener(),
+                networkProtoResolver);
+        executorService.submit(server);
+    }
+
+    void startNioServer(ServerSocketChannel serverSocketChannel) throws IOException {
+        NioTransport transport = checkNotNull(nioTransport, "nioTransport must not be null");
+        this.serverSocketChannel = serverSocketChannel;
+        ConnectionListener connectionListener = getInboundConnectionListener();
+        transport.listen(serverSocketChannel, socketChannel -> {
+            try {
+                if (shutDownInProgress) {
+                    socketChannel.close();
+                    return;
+                }
+                InboundConnection connection = new InboundConnection(transport.createChannel(socketChannel),
+                        NetworkNode.this,
+                        connectionListener,
+                        networkProtoResolver);
+                log.debug("Accepted new inbound connection. connection.uid={}", connection.getUid());
+            } catch (IOException e) {
+                log.warn("Could not create inbound connection. " + e.getMessage());
+                try {
+                    socketChannel.close();
+                } catch (IOException ignore) {
+                }
+            }
+        });
+    }
+
+    private ConnectionListener getInboundConnectionListener() {
+        return new ConnectionListener() {
             @Override
             public void onConnection(Connection connection) {
                 if (!connection.isStopped()) {
@@ -425,11 +499,6 @@ public abstract class NetworkNode implements MessageListener {
                 connectionListeners.stream().forEach(e -> e.onError(throwable));
             }
         };
-        server = new Server(serverSocket,
-                NetworkNode.this,
-                connectionListener,
-                networkProtoResolver);
-        executorService.submit(server);
     }
 
     private Optional<OutboundConnection> lookupOutBoundConnection(NodeAddress peersNodeAddress) {
@@ -464,6 +533,11 @@ public abstract class NetworkNode implements MessageListener {
 
     protected abstract Socket createSocket(NodeAddress peersNodeAddress) throws IOException;
 
+    // Only used if nioTransport is set
+    protected SocketChannel createSocketChannel(NodeAddress peersNodeAddress) throws IOException {
+        throw new UnsupportedOperationException("NIO transport is not supported by " + getClass().getSimpleName());
+    }
+
     @Nullable
     public NodeAddress getNodeAddress() {
         return nodeAddressProperty.get();
@@ -0,0 +1,122 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.network;
+
+import bisq.common.util.Utilities;
+
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.Nullable;
+
+/**
+ * Creates the threads used for the blocking socket IO of connections (InputHandler, output stream writer, bundle
+ * sender), the Server accept loop and the NetworkNode send tasks.
+ *
+ * If virtual threads are enabled and supported by the Java runtime (Java 21+) those threads are virtual threads,
+ * otherwise they are platform threads as before. A blocked socket read or a Thread.sleep for throttling then does
+ * not hold a platform thread. We use reflection as we still compile for older Java versions.
+ */
+@Slf4j
+public final class NetworkThreads {
+    private static volatile boolean useVirtualThreads;
+
+    public static void setUseVirtualThreads(boolean useVirtualThreads) {
+        if (useVirtualThreads && !isVirtualThreadSupported())
+            log.warn("Virtual threads are not supported by Java {}. We use platform threads.",
+                    System.getProperty("java.version"));
+        NetworkThreads.useVirtualThreads = useVirtualThreads;
+    }
+
+    public static boolean isUsingVirtualThreads() {
+        return useVirtualThreads && isVirtualThreadSupported();
+    }
+
+    public static boolean isVirtualThreadSupported() {
+        return VirtualThreadFactoryHolder.SUPPORTED;
+    }
+
+    private NetworkThreads() {
+    }
+
+    static ThreadFactory getThreadFactory(String name) {
+        if (isUsingVirtualThreads()) {
+            ThreadFactory virtualThreadFactory = VirtualThreadFactoryHolder.newThreadFactory(name);
+            if (virtualThreadFactory != null)
+                return virtualThreadFactory;
+        }
+        return new ThreadFactoryBuilder()
+                .setNameFormat(name + "-%d")
+                .build();
+    }
+
+    static ExecutorService newSingleThreadExecutor(String name) {
+        return Executors.newSingleThreadExecutor(getThreadFactory(name));
+    }
+
+    static ScheduledExecutorService newSingleThreadScheduledExecutor(String name) {
+        return Executors.newSingleThreadScheduledExecutor(getThreadFactory(name));
+    }
+
+    /**
+     * With virtual threads each task gets its own thread as we don't need to limit the number of threads. Otherwise
+     * we use the bounded thread pool as before.
+     */
+    static ListeningExecutorService newListeningExecutorService(String name,
+                                                               int corePoolSize,
+                                                               int maximumPoolSize,
+                                                               long keepAliveTimeInSec) {
+        if (isUsingVirtualThreads())
+            return MoreExecutors.listeningDecorator(Executors.newCachedThreadPool(getThreadFactory(name)));
+        else
+            return Utilities.getListeningExecutorService(name, corePoolSize, maximumPoolSize,
+                    keepAliveTimeInSec);
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Static class
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    // Looked up once at first use. On Java 19 and 20 virtual threads are a preview feature and creating them fails
+    // if preview features are not enabled, so we check by creating a factory.
+    private static final class VirtualThreadFactoryHolder {
+        private static final boolean SUPPORTED = newThreadFactory("probe") != null;
+
+        @Nullable
+        private static ThreadFactory newThreadFactory(String name) {
+            try {
+                Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+                Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+                builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, name + "-", 0L);
+                return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            } catch (Throwable t) {
+                log.debug("Could not create virtual thread factory. {}", t.toString());
+                return null;
+            }
+        }
+    }
+}
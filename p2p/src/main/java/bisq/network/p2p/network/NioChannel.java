@@ -0,0 +1,318 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.network;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+
+import java.io.EOFException;
+import java.io.IOException;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A non-blocking socket channel served by a NioTransport.SelectorLoop. Received data is split into frames (varint
+ * length prefix followed by the data) and passed to the handler on the selector thread. Frames to write are queued
+ * and written by the selector thread once the socket accepts data.
+ */
+@Slf4j
+class NioChannel {
+    interface Handler {
+        // Called on the selector thread, so it must not block or do expensive work
+        void onFrame(byte[] frame);
+
+        // Called on the selector thread if the channel got closed by the peer or by an error. Not called if we close
+        // the channel.
+        void onClosed(Throwable cause);
+    }
+
+    // If the peer does not read our data we don't want to buffer it without limit
+    private static final long MAX_PENDING_WRITE_BYTES = 32 * 1024 * 1024;
+    private static final int READ_BUFFER_SIZE = 16 * 1024;
+    // Max. size of the varint length prefix
+    private static final int MAX_PREFIX_SIZE = 5;
+
+    private final SocketChannel socketChannel;
+    private final NioTransport.SelectorLoop selectorLoop;
+    @Getter
+    private final ScheduledExecutorService scheduler;
+    // Shared by all channels of the NioTransport. The handler uses it to process the frames off the selector thread.
+    @Getter
+    private final ExecutorService workerExecutor;
+    private final long idleTimeoutMs;
+
+    private final Queue<PendingFrame> writeQueue = new ConcurrentLinkedQueue<>();
+    private final AtomicLong numPendingWriteBytes = new AtomicLong();
+    private final AtomicBoolean writeScheduled = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    // Only accessed from the selector thread
+    private SelectionKey selectionKey;
+    private Handler handler;
+    private int maxFrameSize;
+    private ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+    private long lastReadTimeStamp;
+
+    NioChannel(SocketChannel socketChannel,
+               NioTransport.SelectorLoop selectorLoop,
+               ScheduledExecutorService scheduler,
+               ExecutorService workerExecutor,
+               long idleTimeoutMs) {
+        this.socketChannel = socketChannel;
+        this.selectorLoop = selectorLoop;
+        this.scheduler = scheduler;
+        this.workerExecutor = workerExecutor;
+        this.idleTimeoutMs = idleTimeoutMs;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    // Blocking socket adapter. Must only be used for socket info and for closing.
+    Socket getSocket() {
+        return socketChannel.socket();
+    }
+
+    void start(Handler handler, int maxFrameSize) {
+        selectorLoop.execute(() -> {
+            if (closed.get())
+                return;
+
+            try {
+                this.handler = handler;
+                this.maxFrameSize = maxFrameSize;
+                lastReadTimeStamp = System.currentTimeMillis();
+                selectionKey = socketChannel.register(selectorLoop.getSelector(), SelectionKey.OP_READ, this);
+                // Data might have been queued before we got registered
+                if (!writeQueue.isEmpty())
+                    flushWrites();
+            } catch (IOException e) {
+                closeWithException(e);
+            }
+        });
+    }
+
+    // Called from any thread. The frame is written by the selector thread. The returned future completes on the
+    // selector thread once the whole frame is written to the socket and fails if the channel gets closed before.
+    ListenableFuture<Void> write(byte[] frame) throws IOException {
+        if (closed.get())
+            throw new IOException("Channel is closed");
+
+        if (numPendingWriteBytes.addAndGet(frame.length) > MAX_PENDING_WRITE_BYTES) {
+            numPendingWriteBytes.addAndGet(-frame.length);
+            throw new IOException("Too many pending bytes to write. The peer does not read our data.");
+        }
+
+        PendingFrame pendingFrame = new PendingFrame(frame);
+        writeQueue.add(pendingFrame);
+        if (writeScheduled.compareAndSet(false, true))
+            selectorLoop.execute(this::flushWrites);
+        // The channel might have been closed after the check above, so the frame would never be written
+        if (closed.get() && writeQueue.remove(pendingFrame))
+            pendingFrame.future.setException(new IOException("Channel is closed"));
+        return pendingFrame.future;
+    }
+
+    // Called from any thread
+    void close() {
+        if (closed.compareAndSet(false, true)) {
+            if (selectorLoop.isStopped())
+                closeChannel();
+            else
+                selectorLoop.execute(this::closeChannel);
+        }
+    }
+
+    boolean isClosed() {
+        return closed.get();
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Called from the selector thread
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    void onReadable() {
+        try {
+            int numRead = socketChannel.read(readBuffer);
+            if (numRead == -1) {
+                closeWithException(new EOFException("Connection closed by peer"));
+                return;
+            }
+            lastReadTimeStamp = System.currentTimeMillis();
+
+            readBuffer.flip();
+            int requiredCapacity = 0;
+            while (readBuffer.hasRemaining()) {
+                int start = readBuffer.position();
+                int frameSize = readFrameSize(readBuffer);
+                if (frameSize < 0) {
+                    // Prefix not complete
+                    readBuffer.position(start);
+                    break;
+                }
+                if (frameSize > maxFrameSize)
+                    throw new IOException("Frame size " + frameSize + " exceeds limit of " + maxFrameSize);
+
+                if (readBuffer.remaining() < frameSize) {
+                    requiredCapacity = readBuffer.position() - start + frameSize;
+                    readBuffer.position(start);
+                    break;
+                }
+
+                byte[] frame = new byte[frameSize];
+                readBuffer.get(frame);
+                handler.onFrame(frame);
+                if (closed.get())
+                    return;
+            }
+            readBuffer.compact();
+
+            if (requiredCapacity > readBuffer.capacity()) {
+                // We need a larger buffer for a large message
+                ByteBuffer newBuffer = ByteBuffer.allocate(requiredCapacity);
+                readBuffer.flip();
+                newBuffer.put(readBuffer);
+                readBuffer = newBuffer;
+            } else if (readBuffer.position() == 0 && readBuffer.capacity() > READ_BUFFER_SIZE) {
+                // We don't keep the large buffer after the large message is processed
+                readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+            }
+        } catch (Throwable t) {
+            closeWithException(t);
+        }
+    }
+
+    void onWritable() {
+        flushWrites();
+    }
+
+    void checkIdleTimeout(long now) {
+        if (handler != null && now - lastReadTimeStamp > idleTimeoutMs)
+            closeWithException(new SocketTimeoutException("No data received for " + idleTimeoutMs + " ms"));
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private void flushWrites() {
+        if (closed.get() || selectionKey == null || !selectionKey.isValid())
+            return;
+
+        try {
+            do {
+                PendingFrame pendingFrame;
+                while ((pendingFrame = writeQueue.peek()) != null) {
+                    ByteBuffer buffer = pendingFrame.buffer;
+                    socketChannel.write(buffer);
+                    if (buffer.hasRemaining()) {
+                        // Socket buffer is full, we continue when the socket gets writable again
+                        selectionKey.interestOps(selectionKey.interestOps() | SelectionKey.OP_WRITE);
+                        return;
+                    }
+                    // The frame is at the head, we don't use poll as a closing write might have removed it already
+                    writeQueue.remove(pendingFrame);
+                    numPendingWriteBytes.addAndGet(-buffer.capacity());
+                    pendingFrame.future.set(null);
+                }
+                selectionKey.interestOps(selectionKey.interestOps() & ~SelectionKey.OP_WRITE);
+                writeScheduled.set(false);
+                // A frame might have been added after we found the queue empty but before we reset the flag
+            } while (!writeQueue.isEmpty() && writeScheduled.compareAndSet(false, true));
+        } catch (Throwable t) {
+            closeWithException(t);
+        }
+    }
+
+    private void closeWithException(Throwable cause) {
+        if (closed.compareAndSet(false, true)) {
+            closeChannel();
+            if (handler != null)
+                handler.onClosed(cause);
+        }
+    }
+
+    private void closeChannel() {
+        if (selectionKey != null)
+            selectionKey.cancel();
+        try {
+            socketChannel.close();
+        } catch (IOException e) {
+            log.debug("Exception at closing socketChannel {}", e.toString());
+        }
+        failPendingFrames();
+        numPendingWriteBytes.set(0);
+    }
+
+    private void failPendingFrames() {
+        PendingFrame pendingFrame;
+        while ((pendingFrame = writeQueue.poll()) != null)
+            pendingFrame.future.setException(new IOException("Channel got closed before the frame was written"));
+    }
+
+    // Returns -1 if the prefix is not complete
+    private static int readFrameSize(ByteBuffer buffer) throws IOException {
+        int result = 0;
+        for (int i = 0; i < MAX_PREFIX_SIZE; i++) {
+            if (!buffer.hasRemaining())
+                return -1;
+
+            byte b = buffer.get();
+            result |= (b & 0x7f) << (7 * i);
+            if ((b & 0x80) == 0) {
+                if (result < 0)
+                    throw new IOException("Invalid frame size " + result);
+                return result;
+            }
+        }
+        throw new IOException("Malformed frame size prefix");
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Static class
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private static final class PendingFrame {
+        private final ByteBuffer buffer;
+        private final SettableFuture<Void> future = SettableFuture.create();
+
+        private PendingFrame(byte[] frame) {
+            this.buffer = ByteBuffer.wrap(frame);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.network;
+
+import bisq.common.proto.network.NetworkEnvelope;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * ProtoOutputStream for a NioChannel. The serialized envelope is collected in a buffer and handed over to the
+ * NioChannel at flush, so writing does not block and does not need a thread per connection like the
+ * SynchronizedProtoOutputStream. The returned future completes when the NioChannel has written the envelope.
+ */
+@ThreadSafe
+class NioProtoOutputStream extends ProtoOutputStream {
+    private final FrameOutputStream frameOutputStream;
+
+    NioProtoOutputStream(NioChannel nioChannel, Statistic statistic) {
+        this(new FrameOutputStream(nioChannel), statistic);
+    }
+
+    private NioProtoOutputStream(FrameOutputStream frameOutputStream, Statistic statistic) {
+        super(frameOutputStream, statistic);
+        this.frameOutputStream = frameOutputStream;
+    }
+
+    @Override
+    synchronized ListenableFuture<Void> writeEnvelope(NetworkEnvelope envelope) {
+        super.writeEnvelope(envelope);
+        return frameOutputStream.takeWriteFuture();
+    }
+
+    private static final class FrameOutputStream extends ByteArrayOutputStream {
+        private final NioChannel nioChannel;
+        // The future of the last frame handed to the NioChannel
+        @Nullable
+        private ListenableFuture<Void> writeFuture;
+
+        private FrameOutputStream(NioChannel nioChannel) {
+            this.nioChannel = nioChannel;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (size() > 0) {
+                byte[] frame = toByteArray();
+                reset();
+                writeFuture = nioChannel.write(frame);
+            }
+        }
+
+        private ListenableFuture<Void> takeWriteFuture() {
+            ListenableFuture<Void> result = writeFuture != null ? writeFuture : Futures.immediateFuture(null);
+            writeFuture = null;
+            return result;
+        }
+
+        @Override
+        public void close() {
+            nioChannel.close();
+        }
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.network;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+import java.io.IOException;
+
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Non-blocking transport where all sockets of a NetworkNode are multiplexed by a small pool of selector threads
+ * instead of using an InputHandler thread per connection. The framing is the same as with the blocking streams
+ * (varint length prefix followed by the NetworkEnvelope, see writeDelimitedTo/parseDelimitedFrom) so both modes can
+ * talk to each other.
+ *
+ * The selector threads only read and split the data into frames. Parsing, checking and dispatching the messages is
+ * done on a pool of worker threads, so a large message does not stall the other connections of a selector thread.
+ */
+@Slf4j
+class NioTransport {
+    private static final long SELECT_TIMEOUT_MS = 1000;
+
+    private final SelectorLoop[] selectorLoops;
+    private final AtomicInteger nextSelectorLoop = new AtomicInteger();
+    // Used for the delayed sending of bundles of all connections instead of a scheduler per connection
+    @Getter
+    private final ScheduledExecutorService scheduler;
+    // Used for processing the received frames. The frames of one connection are processed one after the other.
+    private final ThreadPoolExecutor workerExecutor;
+    private final long idleTimeoutMs;
+    private volatile boolean stopped;
+
+    NioTransport(String name, int numSelectorThreads, long idleTimeoutMs) throws IOException {
+        this.idleTimeoutMs = idleTimeoutMs;
+        selectorLoops = new SelectorLoop[numSelectorThreads];
+        for (int i = 0; i < numSelectorThreads; i++) {
+            selectorLoops[i] = new SelectorLoop(Selector.open());
+            Thread thread = new Thread(selectorLoops[i], name + "-selector-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setNameFormat(name + "-scheduler")
+                .setDaemon(true)
+                .build());
+        int numWorkerThreads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        workerExecutor = new ThreadPoolExecutor(numWorkerThreads, numWorkerThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                new ThreadFactoryBuilder()
+                        .setNameFormat(name + "-worker-%d")
+                        .setDaemon(true)
+                        .build());
+        workerExecutor.allowCoreThreadTimeOut(true);
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Accepts connections at the given serverSocketChannel. The acceptHandler is called on a selector thread.
+     */
+    void listen(ServerSocketChannel serverSocketChannel, Consumer<SocketChannel> acceptHandler) throws IOException {
+        serverSocketChannel.configureBlocking(false);
+        SelectorLoop selectorLoop = selectorLoops[0];
+        selectorLoop.execute(() -> {
+            try {
+                serverSocketChannel.register(selectorLoop.selector, SelectionKey.OP_ACCEPT, acceptHandler);
+            } catch (IOException e) {
+                log.error("Could not register serverSocketChannel", e);
+            }
+        });
+    }
+
+    /**
+     * @param socketChannel A connected socketChannel
+     * @return The NioChannel which needs to be started with NioChannel.start to receive data.
+     */
+    NioChannel createChannel(SocketChannel socketChannel) throws IOException {
+        if (stopped)
+            throw new IOException("NioTransport is already shut down");
+
+        socketChannel.configureBlocking(false);
+        socketChannel.socket().setTcpNoDelay(true);
+        int index = Math.floorMod(nextSelectorLoop.getAndIncrement(), selectorLoops.length);
+        return new NioChannel(socketChannel, selectorLoops[index], scheduler, workerExecutor, idleTimeoutMs);
+    }
+
+    int getNumChannels() {
+        int result = 0;
+        for (SelectorLoop selectorLoop : selectorLoops) {
+            result += selectorLoop.selector.keys().size();
+        }
+        return result;
+    }
+
+    void shutDown() {
+        if (!stopped) {
+            stopped = true;
+            for (SelectorLoop selectorLoop : selectorLoops) {
+                selectorLoop.shutDown();
+            }
+            scheduler.shutdownNow();
+            workerExecutor.shutdownNow();
+        }
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // SelectorLoop
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Owns a selector. All operations on the registered channels are done on the thread of the loop, other threads
+     * pass tasks with execute.
+     */
+    static final class SelectorLoop implements Runnable {
+        private final Selector selector;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private volatile boolean stopped;
+        private long lastTimeoutCheck;
+
+        private SelectorLoop(Selector selector) {
+            this.selector = selector;
+        }
+
+        void execute(Runnable task) {
+            tasks.add(task);
+            selector.wakeup();
+        }
+
+        Selector getSelector() {
+            return selector;
+        }
+
+        boolean isStopped() {
+            return stopped;
+        }
+
+        @Override
+        public void run() {
+            while (!stopped) {
+                try {
+                    selector.select(SELECT_TIMEOUT_MS);
+                    runTasks();
+
+                    Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+                    while (iterator.hasNext()) {
+                        SelectionKey key = iterator.next();
+                        iterator.remove();
+                        handleKey(key);
+                    }
+
+                    long now = System.currentTimeMillis();
+                    if (now - lastTimeoutCheck >= SELECT_TIMEOUT_MS) {
+                        lastTimeoutCheck = now;
+                        for (SelectionKey key : selector.keys()) {
+                            if (key.attachment() instanceof NioChannel)
+                                ((NioChannel) key.attachment()).checkIdleTimeout(now);
+                        }
+                    }
+                } catch (Throwable t) {
+                    log.error("Error at selector loop", t);
+                }
+            }
+
+            // We got stopped
+            runTasks();
+            for (SelectionKey key : selector.keys()) {
+                try {
+                    key.channel().close();
+                } catch (IOException ignore) {
+                }
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+                log.debug("Exception at closing selector {}", e.toString());
+            }
+        }
+
+        private void shutDown() {
+            stopped = true;
+            selector.wakeup();
+        }
+
+        private void runTasks() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                try {
+                    task.run();
+                } catch (Throwable t) {
+                    log.error("Error at executing task at selector loop", t);
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void handleKey(SelectionKey key) {
+            if (!key.isValid())
+                return;
+
+            Object attachment = key.attachment();
+            if (key.isAcceptable()) {
+                try {
+                    SocketChannel socketChannel = ((ServerSocketChannel) key.channel()).accept();
+                    if (socketChannel != null)
+                        ((Consumer<SocketChannel>) attachment).accept(socketChannel);
+                } catch (Throwable t) {
+                    log.warn("Exception at accepting connection {}", t.toString());
+                }
+            } else if (attachment instanceof NioChannel) {
+                NioChannel nioChannel = (NioChannel) attachment;
+                if (key.isReadable())
+                    nioChannel.onReadable();
+                if (key.isValid() && key.isWritable())
+                    nioChannel.onWritable();
+            }
+        }
+    }
+}
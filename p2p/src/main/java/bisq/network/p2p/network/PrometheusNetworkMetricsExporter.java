@@ -0,0 +1,85 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.network;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prometheus text format, e.g. for the textfile collector of the node exporter.
+ */
+public class PrometheusNetworkMetricsExporter implements NetworkMetricsExporter {
+    private static final String PREFIX = "bisq_p2p_";
+
+    @Override
+    public String getFileName() {
+        return "network_metrics.prom";
+    }
+
+    @Override
+    public String export(List<MessageMetrics> messageMetrics) {
+        StringBuilder sb = new StringBuilder();
+        appendHeader(sb, "messages_total", "counter", "Number of messages");
+        messageMetrics.forEach(metrics -> appendValue(sb, "messages_total", metrics, "", metrics.getCount()));
+
+        appendHeader(sb, "message_bytes_total", "counter", "Serialized size of the messages in bytes");
+        messageMetrics.forEach(metrics -> appendValue(sb, "message_bytes_total", metrics, "", metrics.getBytes()));
+
+        appendHeader(sb, "message_processing_seconds", "histogram",
+                "Time for writing sent messages and for handling received messages at the user thread");
+        messageMetrics.forEach(metrics -> appendHistogram(sb, "message_processing_seconds", metrics,
+                metrics.getProcessingTime()));
+
+        appendHeader(sb, "message_queue_delay_seconds", "histogram",
+                "Time sent messages waited in the outbound queue and received messages waited for the user thread");
+        messageMetrics.forEach(metrics -> appendHistogram(sb, "message_queue_delay_seconds", metrics,
+                metrics.getQueueDelay()));
+        return sb.toString();
+    }
+
+    private static void appendHeader(StringBuilder sb, String name, String type, String help) {
+        sb.append("# HELP ").append(PREFIX).append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(PREFIX).append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void appendHistogram(StringBuilder sb, String name, MessageMetrics metrics, LatencyHistogram histogram) {
+        for (int i = 0; i < LatencyHistogram.getNumBuckets(); i++) {
+            String le = ",le=\"" + formatDouble(LatencyHistogram.getBucketBoundInSeconds(i)) + "\"";
+            appendValue(sb, name + "_bucket", metrics, le, histogram.getCumulativeBucketCount(i));
+        }
+        appendValue(sb, name + "_bucket", metrics, ",le=\"+Inf\"", histogram.getCount());
+        sb.append(PREFIX).append(name).append("_sum").append(getLabels(metrics, ""))
+                .append(' ').append(formatDouble(histogram.getSumNanos() / (double) TimeUnit.SECONDS.toNanos(1)))
+                .append('\n');
+        appendValue(sb, name + "_count", metrics, "", histogram.getCount());
+    }
+
+    private static void appendValue(StringBuilder sb, String name, MessageMetrics metrics, String extraLabels, long value) {
+        sb.append(PREFIX).append(name).append(getLabels(metrics, extraLabels)).append(' ').append(value).append('\n');
+    }
+
+    private static String getLabels(MessageMetrics metrics, String extraLabels) {
+        return "{type=\"" + metrics.getMessageType() + "\",direction=\"" +
+                metrics.getDirection().name().toLowerCase(Locale.ROOT) + "\"" + extraLabels + "}";
+    }
+
+    private static String formatDouble(double value) {
+        return String.format(Locale.ROOT, "%.6f", value);
+    }
+}
@@ -17,10 +17,14 @@
 
 package bisq.network.p2p.network;
 
+import bisq.network.p2p.BundleOfEnvelopes;
 import bisq.network.p2p.peers.keepalive.messages.KeepAliveMessage;
 
 import bisq.common.proto.network.NetworkEnvelope;
 
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+
 import java.io.IOException;
 import java.io.OutputStream;
 
@@ -41,9 +45,12 @@ class ProtoOutputStream {
         this.statistic = statistic;
     }
 
-    void writeEnvelope(NetworkEnvelope envelope) {
+    // The returned future completes once the envelope is written to the socket. The blocking stream has written it
+    // already when we return.
+    ListenableFuture<Void> writeEnvelope(NetworkEnvelope envelope) {
         try {
             writeEnvelopeOrThrow(envelope);
+            return Futures.immediateFuture(null);
         } catch (IOException e) {
             log.error("Failed to write envelope", e);
             throw new BisqRuntimeException("Failed to write envelope", e);
@@ -59,15 +66,44 @@ class ProtoOutputStream {
     }
 
     private void writeEnvelopeOrThrow(NetworkEnvelope envelope) throws IOException {
-        protobuf.NetworkEnvelope proto = envelope.toProtoNetworkEnvelope();
-        proto.writeDelimitedTo(delegate);
+        long startTs = System.nanoTime();
+        int size;
+        if (envelope instanceof SerializedNetworkEnvelope) {
+            SerializedNetworkEnvelope serializedNetworkEnvelope = (SerializedNetworkEnvelope) envelope;
+            serializedNetworkEnvelope.writeDelimitedTo(delegate);
+            size = serializedNetworkEnvelope.getSerializedSize();
+            envelope = serializedNetworkEnvelope.getNetworkEnvelope();
+        } else {
+            protobuf.NetworkEnvelope proto = envelope.toProtoNetworkEnvelope();
+            proto.writeDelimitedTo(delegate);
+            size = proto.getSerializedSize();
+        }
         delegate.flush();
 
-        statistic.addSentBytes(proto.getSerializedSize());
+        statistic.addSentBytes(size);
         statistic.addSentMessage(envelope);
+        addSentMessageToMetrics(envelope, size, System.nanoTime() - startTs);
 
         if (!(envelope instanceof KeepAliveMessage)) {
             statistic.updateLastActivityTimestamp();
         }
     }
+
+    private static void addSentMessageToMetrics(NetworkEnvelope envelope, int size, long writeNanos) {
+        MessageMetrics messageMetrics = NetworkMetrics.get(envelope, NetworkMetrics.Direction.SENT);
+        messageMetrics.getProcessingTime().record(writeNanos);
+        if (envelope instanceof BundleOfEnvelopes) {
+            // The bytes are added to the bundled types. Envelopes get serialized when they are bundled so we do not
+            // serialize again here; not yet serialized ones are counted without bytes.
+            messageMetrics.addMessage(0);
+            for (NetworkEnvelope bundled : ((BundleOfEnvelopes) envelope).getEnvelopes()) {
+                int bundledSize = bundled instanceof SerializedNetworkEnvelope ?
+                        ((SerializedNetworkEnvelope) bundled).getSerializedSize() :
+                        0;
+                NetworkMetrics.get(bundled, NetworkMetrics.Direction.SENT).addMessage(bundledSize);
+            }
+        } else {
+            messageMetrics.addMessage(size);
+        }
+    }
 }
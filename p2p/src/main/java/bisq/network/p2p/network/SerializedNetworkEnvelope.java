@@ -0,0 +1,90 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.network;
+
+import bisq.common.proto.network.NetworkEnvelope;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * Wraps a NetworkEnvelope which is sent to many peers (e.g. at a broadcast) so it is serialized only once. The proto
+ * is created at construction, the encoded bytes at the first write, and both are reused for all connections and the
+ * bundle size accounting. On the wire there is no difference to sending the wrapped envelope.
+ *
+ * The wrapped envelope must not be changed after the wrapper got created.
+ */
+@EqualsAndHashCode(callSuper = true)
+public final class SerializedNetworkEnvelope extends NetworkEnvelope {
+    @Getter
+    private final NetworkEnvelope networkEnvelope;
+    @EqualsAndHashCode.Exclude
+    private final protobuf.NetworkEnvelope proto;
+    // Varint length prefix followed by the proto as written by writeDelimitedTo. Set at first use.
+    @EqualsAndHashCode.Exclude
+    private volatile byte[] delimitedBytes;
+
+    public static NetworkEnvelope unwrap(NetworkEnvelope networkEnvelope) {
+        return networkEnvelope instanceof SerializedNetworkEnvelope ?
+                ((SerializedNetworkEnvelope) networkEnvelope).getNetworkEnvelope() :
+                networkEnvelope;
+    }
+
+    public SerializedNetworkEnvelope(NetworkEnvelope networkEnvelope) {
+        this(unwrap(networkEnvelope), networkEnvelope.toProtoNetworkEnvelope());
+    }
+
+    private SerializedNetworkEnvelope(NetworkEnvelope networkEnvelope, protobuf.NetworkEnvelope proto) {
+        super(proto.getMessageVersion());
+        this.networkEnvelope = networkEnvelope;
+        this.proto = proto;
+    }
+
+    @Override
+    public protobuf.NetworkEnvelope toProtoNetworkEnvelope() {
+        return proto;
+    }
+
+    public int getSerializedSize() {
+        // Memoized by protobuf
+        return proto.getSerializedSize();
+    }
+
+    void writeDelimitedTo(OutputStream outputStream) throws IOException {
+        byte[] bytes = delimitedBytes;
+        if (bytes == null) {
+            // Might be done twice in case of concurrent writes, the result is the same
+            ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream(getSerializedSize() + 5);
+            proto.writeDelimitedTo(byteArrayOutputStream);
+            bytes = byteArrayOutputStream.toByteArray();
+            delimitedBytes = bytes;
+        }
+        outputStream.write(bytes);
+    }
+
+    @Override
+    public String toString() {
+        return "SerializedNetworkEnvelope{" +
+                "\n     networkEnvelope=" + networkEnvelope +
+                "\n} " + super.toString();
+    }
+}
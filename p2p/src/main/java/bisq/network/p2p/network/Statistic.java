@@ -28,6 +28,7 @@ import javafx.beans.property.SimpleLongProperty;
 import java.util.Date;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class Statistic {
 
@@ -66,6 +67,8 @@ public class Statistic {
     private final Map<String, Integer> receivedMessages = new ConcurrentHashMap<>();
     private final Map<String, Integer> sentMessages = new ConcurrentHashMap<>();
     private final IntegerProperty roundTripTime = new SimpleIntegerProperty(0);
+    // Messages we dropped because the outbound queue was full. Updated from the sending threads.
+    private final AtomicLong numDroppedMessages = new AtomicLong();
 
 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -117,6 +120,10 @@ public class Statistic {
         sentMessages.put(messageClassName, counter);
     }
 
+    public void addDroppedMessage() {
+        numDroppedMessages.incrementAndGet();
+    }
+
     public void setRoundTripTime(int roundTripTime) {
         this.roundTripTime.set(roundTripTime);
     }
@@ -157,6 +164,10 @@ public class Statistic {
         return roundTripTime;
     }
 
+    public long getNumDroppedMessages() {
+        return numDroppedMessages.get();
+    }
+
     @Override
     public String toString() {
         return "Statistic{" +
@@ -164,6 +175,7 @@ public class Statistic {
                 ", lastActivityTimestamp=" + lastActivityTimestamp +
                 ", sentBytes=" + sentBytes +
                 ", receivedBytes=" + receivedBytes +
+                ", numDroppedMessages=" + numDroppedMessages +
                 '}';
     }
 
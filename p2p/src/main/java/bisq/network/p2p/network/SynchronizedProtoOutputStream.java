@@ -19,11 +19,12 @@ package bisq.network.p2p.network;
 
 import bisq.common.proto.network.NetworkEnvelope;
 
+import com.google.common.util.concurrent.ListenableFuture;
+
 import java.io.OutputStream;
 
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
 import org.slf4j.Logger;
@@ -39,14 +40,14 @@ class SynchronizedProtoOutputStream extends ProtoOutputStream {
 
     SynchronizedProtoOutputStream(OutputStream delegate, Statistic statistic) {
         super(delegate, statistic);
-        this.executorService = Executors.newSingleThreadExecutor();
+        this.executorService = NetworkThreads.newSingleThreadExecutor("SynchronizedProtoOutputStream");
     }
 
     @Override
-    void writeEnvelope(NetworkEnvelope envelope) {
-        Future<?> future = executorService.submit(() -> super.writeEnvelope(envelope));
+    ListenableFuture<Void> writeEnvelope(NetworkEnvelope envelope) {
+        Future<ListenableFuture<Void>> future = executorService.submit(() -> super.writeEnvelope(envelope));
         try {
-            future.get();
+            return future.get();
         } catch (InterruptedException e) {
             Thread currentThread = Thread.currentThread();
             currentThread.interrupt();
@@ -0,0 +1,77 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.network;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Simple token bucket. Tokens are added continuously at refillPerSecond up to capacity and each permitted operation
+ * takes one token. The capacity defines the burst we accept, the refill rate the sustained rate.
+ */
+@ThreadSafe
+final class TokenBucket {
+    private final double capacity;
+    private final double refillPerNano;
+    private double tokens;
+    private long lastRefillNanos;
+
+    TokenBucket(int capacity, double refillPerSecond) {
+        this(capacity, refillPerSecond, System.nanoTime());
+    }
+
+    TokenBucket(int capacity, double refillPerSecond, long nowNanos) {
+        this.capacity = Math.max(1, capacity);
+        this.refillPerNano = refillPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.tokens = this.capacity;
+        this.lastRefillNanos = nowNanos;
+    }
+
+    boolean tryConsume() {
+        return tryConsume(System.nanoTime());
+    }
+
+    synchronized boolean tryConsume(long nowNanos) {
+        refill(nowNanos);
+        if (tokens >= 1) {
+            tokens -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    long getMillisUntilNextToken() {
+        return getMillisUntilNextToken(System.nanoTime());
+    }
+
+    synchronized long getMillisUntilNextToken(long nowNanos) {
+        refill(nowNanos);
+        if (tokens >= 1)
+            return 0;
+        return (long) Math.ceil((1 - tokens) / refillPerNano / TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    private void refill(long nowNanos) {
+        long elapsed = nowNanos - lastRefillNanos;
+        if (elapsed > 0) {
+            tokens = Math.min(capacity, tokens + elapsed * refillPerNano);
+            lastRefillNanos = nowNanos;
+        }
+    }
+}
@@ -20,6 +20,7 @@ package bisq.network.p2p.peers;
 import bisq.network.p2p.NodeAddress;
 import bisq.network.p2p.network.Connection;
 import bisq.network.p2p.network.NetworkNode;
+import bisq.network.p2p.network.SerializedNetworkEnvelope;
 import bisq.network.p2p.storage.messages.BroadcastMessage;
 
 import bisq.common.Timer;
@@ -147,6 +148,8 @@ public class BroadcastHandler implements PeerManager.Listener {
             }, timeoutDelay);
 
             log.debug("Broadcast message to {} peers out of {} total connected peers.", numPeers, connectedPeersSet.size());
+            // We serialize the message once instead of for each peer
+            SerializedNetworkEnvelope serializedMessage = new SerializedNetworkEnvelope(message);
             for (int i = 0; i < numPeers; i++) {
                 if (stopped)
                     break;  // do not continue sending after a timeout or a cancellation
@@ -154,7 +157,7 @@ public class BroadcastHandler implements PeerManager.Listener {
                 final long minDelay = (i + 1) * delay;
                 final long maxDelay = (i + 2) * delay;
                 final Connection connection = connectedPeersList.get(i);
-                UserThread.runAfterRandomDelay(() -> sendToPeer(connection, message), minDelay, maxDelay, TimeUnit.MILLISECONDS);
+                UserThread.runAfterRandomDelay(() -> sendToPeer(connection, serializedMessage), minDelay, maxDelay, TimeUnit.MILLISECONDS);
             }
         } else {
             onFault("Message not broadcasted because we have no available peers yet.\n\t" +
@@ -162,14 +165,12 @@ public class BroadcastHandler implements PeerManager.Listener {
         }
     }
 
-    private void sendToPeer(Connection connection, BroadcastMessage message) {
-        String errorMessage = "Message not broadcasted because we have stopped the handler already.\n\t" +
-                "message = " + Utilities.toTruncatedString(message);
+    private void sendToPeer(Connection connection, SerializedNetworkEnvelope serializedMessage) {
         if (!stopped) {
             if (!connection.isStopped()) {
                 if (connection.noCapabilityRequiredOrCapabilityIsSupported(message)) {
                     NodeAddress nodeAddress = connection.getPeersNodeAddressOptional().get();
-                    SettableFuture<Connection> future = networkNode.sendMessage(connection, message);
+                    SettableFuture<Connection> future = networkNode.sendMessage(connection, serializedMessage);
                     Futures.addCallback(future, new FutureCallback<Connection>() {
                         @Override
                         public void onSuccess(Connection connection) {
@@ -190,7 +191,7 @@ public class BroadcastHandler implements PeerManager.Listener {
                                 }
                             } else {
                                 // TODO investigate why that is called very often at seed nodes
-                                onFault("stopped at onSuccess: " + errorMessage, false);
+                                onFault("stopped at onSuccess: " + getStoppedErrorMessage(), false);
                             }
                         }
 
@@ -201,9 +202,9 @@ public class BroadcastHandler implements PeerManager.Listener {
                                 log.info("Broadcast to " + nodeAddress + " failed.\n\t" +
                                         "ErrorMessage=" + throwable.getMessage());
                                 if (numOfCompletedBroadcasts + numOfFailedBroadcasts == numPeers)
-                                    onFault("stopped at onFailure: " + errorMessage);
+                                    onFault("stopped at onFailure: " + getStoppedErrorMessage());
                             } else {
-                                onFault("stopped at onFailure: " + errorMessage);
+                                onFault("stopped at onFailure: " + getStoppedErrorMessage());
                             }
                         }
                     });
@@ -212,7 +213,7 @@ public class BroadcastHandler implements PeerManager.Listener {
                 onFault("Connection stopped already", false);
             }
         } else {
-            onFault("stopped at sendToPeer: " + errorMessage, false);
+            onFault("stopped at sendToPeer: " + getStoppedErrorMessage(), false);
         }
     }
 
@@ -239,6 +240,12 @@ public class BroadcastHandler implements PeerManager.Listener {
     // Private
     ///////////////////////////////////////////////////////////////////////////////////////////
 
+    // Only created if needed as the message can be large
+    private String getStoppedErrorMessage() {
+        return "Message not broadcasted because we have stopped the handler already.\n\t" +
+                "message = " + Utilities.toTruncatedString(message);
+    }
+
     private void cleanup() {
         stopped = true;
         peerManager.removeListener(this);
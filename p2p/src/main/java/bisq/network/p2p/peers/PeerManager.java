@@ -599,6 +599,25 @@ public class PeerManager implements ConnectionListener, PersistedDataHost {
         return connection.hasPeersNodeAddress() && seedNodeAddresses.contains(connection.getPeersNodeAddressOptional().get());
     }
 
+    // Returns the capabilities of the peer if we know them from a connection or from our persisted or reported peers.
+    public Optional<Capabilities> findPeersCapabilities(NodeAddress nodeAddress) {
+        Optional<Capabilities> fromConnection = networkNode.getConfirmedConnections().stream()
+                .filter(connection -> connection.getPeersNodeAddressOptional().map(nodeAddress::equals).orElse(false))
+                .map(Connection::getCapabilities)
+                .filter(capabilities -> !capabilities.isEmpty())
+                .findAny();
+        if (fromConnection.isPresent())
+            return fromConnection;
+
+        Set<Peer> allPeers = new HashSet<>(getPersistedPeers());
+        allPeers.addAll(getReportedPeers());
+        return allPeers.stream()
+                .filter(peer -> peer.getNodeAddress().equals(nodeAddress))
+                .map(Peer::getCapabilities)
+                .filter(capabilities -> !capabilities.isEmpty())
+                .findAny();
+    }
+
     public boolean isSelf(Peer reportedPeer) {
         return isSelf(reportedPeer.getNodeAddress());
     }
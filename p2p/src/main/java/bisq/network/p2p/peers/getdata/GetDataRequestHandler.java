@@ -22,10 +22,12 @@ import bisq.network.p2p.network.Connection;
 import bisq.network.p2p.network.NetworkNode;
 import bisq.network.p2p.peers.getdata.messages.GetDataRequest;
 import bisq.network.p2p.peers.getdata.messages.GetDataResponse;
+import bisq.network.p2p.storage.GetDataResponseCursor;
 import bisq.network.p2p.storage.P2PDataStorage;
 
 import bisq.common.Timer;
 import bisq.common.UserThread;
+import bisq.common.app.Capability;
 
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
@@ -44,6 +46,10 @@ public class GetDataRequestHandler {
 
     private static final int MAX_ENTRIES = 10000;
 
+    // Used if the peer supports Capability.GET_DATA_RESPONSE_PARTS. We do not limit the total number of entries in
+    // that case as we only hold one part in memory at a time.
+    private static final int MAX_ENTRIES_PER_PART = 2000;
+
     ///////////////////////////////////////////////////////////////////////////////////////////
     // Listener
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -87,6 +93,16 @@ public class GetDataRequestHandler {
                 .map(e -> "node address " + e.getFullAddress())
                 .orElseGet(() -> "connection UID " + connection.getUid());
 
+        if (connection.getCapabilities().containsAll(Capability.GET_DATA_RESPONSE_PARTS)) {
+            GetDataResponseCursor cursor = dataStorage.buildGetDataResponseCursor(getDataRequest,
+                    connection.getCapabilities());
+            log.info("The getDataResponse to peer with {} contains {} entries and gets delivered in parts of max. {} entries",
+                    connectionInfo, cursor.getNumEntries(), MAX_ENTRIES_PER_PART);
+            sendNextPart(cursor, connection);
+            log.info("handle GetDataRequest took {} ms", System.currentTimeMillis() - ts);
+            return;
+        }
+
         AtomicBoolean outPersistableNetworkPayloadOutputTruncated = new AtomicBoolean(false);
         AtomicBoolean outProtectedStoragePayloadOutputTruncated = new AtomicBoolean(false);
         GetDataResponse getDataResponse = dataStorage.buildGetDataResponse(
@@ -160,6 +176,59 @@ public class GetDataRequestHandler {
     // Private
     ///////////////////////////////////////////////////////////////////////////////////////////
 
+    private void sendNextPart(GetDataResponseCursor cursor, Connection connection) {
+        GetDataResponse getDataResponse = dataStorage.buildNextGetDataResponsePart(cursor, MAX_ENTRIES_PER_PART);
+        log.debug("Sending part {} of getDataResponse with {} ProtectedStorageEntries and {} PersistableNetworkPayloads",
+                getDataResponse.getPartIndex(),
+                getDataResponse.getDataSet().size(),
+                getDataResponse.getPersistableNetworkPayloadSet().size());
+
+        // Each part gets its own timeout
+        stopTimeoutTimer();
+        timeoutTimer = UserThread.runAfter(() -> {  // setup before sending to avoid race conditions
+                    String errorMessage = "A timeout occurred for part " + getDataResponse.getPartIndex() +
+                            " of getDataResponse on connection:" + connection;
+                    handleFault(errorMessage, CloseConnectionReason.SEND_MSG_TIMEOUT, connection);
+                },
+                TIMEOUT, TimeUnit.SECONDS);
+
+        SettableFuture<Connection> future = networkNode.sendMessage(connection, getDataResponse);
+        Futures.addCallback(future, new FutureCallback<>() {
+            @Override
+            public void onSuccess(Connection connection) {
+                if (!stopped) {
+                    if (getDataResponse.isHasMoreParts()) {
+                        // We build the next part only after the previous one was sent so only one part is held in
+                        // memory. The callback is not called on the UserThread, so we map to it.
+                        UserThread.execute(() -> {
+                            if (!stopped)
+                                sendNextPart(cursor, connection);
+                        });
+                    } else {
+                        log.trace("Send last part of DataResponse to {} succeeded.",
+                                connection.getPeersNodeAddressOptional());
+                        cleanup();
+                        listener.onComplete();
+                    }
+                } else {
+                    log.trace("We have stopped already. We ignore that networkNode.sendMessage.onSuccess call.");
+                }
+            }
+
+            @Override
+            public void onFailure(@NotNull Throwable throwable) {
+                if (!stopped) {
+                    String errorMessage = "Sending part " + getDataResponse.getPartIndex() + " of getDataResponse to " +
+                            connection + " failed. That is expected if the peer is offline. " +
+                            "Exception: " + throwable.getMessage();
+                    handleFault(errorMessage, CloseConnectionReason.SEND_MSG_FAILURE, connection);
+                } else {
+                    log.trace("We have stopped already. We ignore that networkNode.sendMessage.onFailure call.");
+                }
+            }
+        });
+    }
+
     private void handleFault(String errorMessage, CloseConnectionReason closeConnectionReason, Connection connection) {
         if (!stopped) {
             log.info(errorMessage + "\n\tcloseConnectionReason=" + closeConnectionReason);
@@ -172,6 +241,10 @@ public class GetDataRequestHandler {
 
     private void cleanup() {
         stopped = true;
+        stopTimeoutTimer();
+    }
+
+    private void stopTimeoutTimer() {
         if (timeoutTimer != null) {
             timeoutTimer.stop();
             timeoutTimer = null;
@@ -32,6 +32,7 @@ import bisq.network.p2p.storage.payload.ProtectedStoragePayload;
 
 import bisq.common.Timer;
 import bisq.common.UserThread;
+import bisq.common.app.Capability;
 import bisq.common.proto.network.NetworkEnvelope;
 import bisq.common.proto.network.NetworkPayload;
 
@@ -118,10 +119,15 @@ class RequestDataHandler implements MessageListener {
         if (!stopped) {
             GetDataRequest getDataRequest;
 
+            // We only know the capabilities if we have been connected to that peer before
+            boolean useExcludedKeysFilter = peerManager.findPeersCapabilities(nodeAddress)
+                    .map(capabilities -> capabilities.containsAll(Capability.EXCLUDED_KEYS_FILTER))
+                    .orElse(false);
             if (isPreliminaryDataRequest)
-                getDataRequest = dataStorage.buildPreliminaryGetDataRequest(nonce);
+                getDataRequest = dataStorage.buildPreliminaryGetDataRequest(nonce, useExcludedKeysFilter);
             else
-                getDataRequest = dataStorage.buildGetUpdatedDataRequest(networkNode.getNodeAddress(), nonce);
+                getDataRequest = dataStorage.buildGetUpdatedDataRequest(networkNode.getNodeAddress(), nonce,
+                        useExcludedKeysFilter);
 
             if (timeoutTimer == null) {
                 timeoutTimer = UserThread.runAfter(() -> {  // setup before sending to avoid race conditions
@@ -199,9 +205,24 @@ class RequestDataHandler implements MessageListener {
                         dataStorage.processGetDataResponse(getDataResponse,
                                 connection.getPeersNodeAddressOptional().get());
 
-                        cleanup();
-                        listener.onComplete();
-                        // firstRequest = false;
+                        if (getDataResponse.isHasMoreParts()) {
+                            // We apply each part as it arrives and wait for the next one
+                            log.info("Applied part {} of GetDataResponse. We wait for the next part.",
+                                    getDataResponse.getPartIndex());
+                            timeoutTimer = UserThread.runAfter(() -> {
+                                        if (!stopped) {
+                                            String errorMessage = "A timeout occurred while waiting for part " +
+                                                    (getDataResponse.getPartIndex() + 1) +
+                                                    " of GetDataResponse from nodeAddress:" + peersNodeAddress;
+                                            handleFault(errorMessage, peersNodeAddress, CloseConnectionReason.SEND_MSG_TIMEOUT);
+                                        }
+                                    },
+                                    TIMEOUT);
+                        } else {
+                            cleanup();
+                            listener.onComplete();
+                            // firstRequest = false;
+                        }
                     } else {
                         log.warn("Nonce not matching. That can happen rarely if we get a response after a canceled " +
                                         "handshake (timeout causes connection close but peer might have sent a msg before " +
@@ -18,6 +18,7 @@
 package bisq.network.p2p.peers.getdata.messages;
 
 import bisq.network.p2p.ExtendedDataSizePermission;
+import bisq.network.p2p.storage.HashBloomFilter;
 
 import bisq.common.proto.network.NetworkEnvelope;
 
@@ -27,6 +28,8 @@ import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.ToString;
 
+import javax.annotation.Nullable;
+
 @EqualsAndHashCode(callSuper = true)
 @Getter
 @ToString
@@ -34,12 +37,18 @@ public abstract class GetDataRequest extends NetworkEnvelope implements Extended
     protected final int nonce;
     // Keys for ProtectedStorageEntry items to be excluded from the request because the peer has them already
     protected final Set<byte[]> excludedKeys;
+    // If the peer supports Capability.EXCLUDED_KEYS_FILTER the keys of the append only data are not added to
+    // excludedKeys but to that filter.
+    @Nullable
+    protected final HashBloomFilter excludedKeysFilter;
 
     public GetDataRequest(int messageVersion,
                           int nonce,
-                          Set<byte[]> excludedKeys) {
+                          Set<byte[]> excludedKeys,
+                          @Nullable HashBloomFilter excludedKeysFilter) {
         super(messageVersion);
         this.nonce = nonce;
         this.excludedKeys = excludedKeys;
+        this.excludedKeysFilter = excludedKeysFilter;
     }
 }
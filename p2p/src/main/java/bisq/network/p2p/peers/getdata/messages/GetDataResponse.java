@@ -53,6 +53,11 @@ public final class GetDataResponse extends NetworkEnvelope implements SupportedC
     private final boolean isGetUpdatedDataResponse;
     private final Capabilities supportedCapabilities;
 
+    // If the peer supports Capability.GET_DATA_RESPONSE_PARTS the response might be split into several parts which
+    // are sent in sequence. Older nodes don't set those fields, so the default values represent a single response.
+    private final int partIndex;
+    private final boolean hasMoreParts;
+
     public GetDataResponse(@NotNull Set<ProtectedStorageEntry> dataSet,
                            @NotNull Set<PersistableNetworkPayload> persistableNetworkPayloadSet,
                            int requestNonce,
@@ -61,6 +66,22 @@ public final class GetDataResponse extends NetworkEnvelope implements SupportedC
                 persistableNetworkPayloadSet,
                 requestNonce,
                 isGetUpdatedDataResponse,
+                0,
+                false);
+    }
+
+    public GetDataResponse(@NotNull Set<ProtectedStorageEntry> dataSet,
+                           @NotNull Set<PersistableNetworkPayload> persistableNetworkPayloadSet,
+                           int requestNonce,
+                           boolean isGetUpdatedDataResponse,
+                           int partIndex,
+                           boolean hasMoreParts) {
+        this(dataSet,
+                persistableNetworkPayloadSet,
+                requestNonce,
+                isGetUpdatedDataResponse,
+                partIndex,
+                hasMoreParts,
                 Capabilities.app,
                 Version.getP2PMessageVersion());
     }
@@ -73,6 +94,8 @@ public final class GetDataResponse extends NetworkEnvelope implements SupportedC
                             @NotNull Set<PersistableNetworkPayload> persistableNetworkPayloadSet,
                             int requestNonce,
                             boolean isGetUpdatedDataResponse,
+                            int partIndex,
+                            boolean hasMoreParts,
                             @NotNull Capabilities supportedCapabilities,
                             int messageVersion) {
         super(messageVersion);
@@ -81,6 +104,8 @@ public final class GetDataResponse extends NetworkEnvelope implements SupportedC
         this.persistableNetworkPayloadSet = persistableNetworkPayloadSet;
         this.requestNonce = requestNonce;
         this.isGetUpdatedDataResponse = isGetUpdatedDataResponse;
+        this.partIndex = partIndex;
+        this.hasMoreParts = hasMoreParts;
         this.supportedCapabilities = supportedCapabilities;
     }
 
@@ -102,6 +127,8 @@ public final class GetDataResponse extends NetworkEnvelope implements SupportedC
                         .collect(Collectors.toList()))
                 .setRequestNonce(requestNonce)
                 .setIsGetUpdatedDataResponse(isGetUpdatedDataResponse)
+                .setPartIndex(partIndex)
+                .setHasMoreParts(hasMoreParts)
                 .addAllSupportedCapabilities(Capabilities.toIntList(supportedCapabilities));
 
         protobuf.NetworkEnvelope proto = getNetworkEnvelopeBuilder()
@@ -129,6 +156,8 @@ public final class GetDataResponse extends NetworkEnvelope implements SupportedC
                 persistableNetworkPayloadSet,
                 proto.getRequestNonce(),
                 proto.getIsGetUpdatedDataResponse(),
+                proto.getPartIndex(),
+                proto.getHasMoreParts(),
                 Capabilities.fromIntList(proto.getSupportedCapabilitiesList()),
                 messageVersion);
     }
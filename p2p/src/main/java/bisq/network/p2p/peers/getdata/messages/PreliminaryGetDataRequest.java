@@ -19,6 +19,7 @@ package bisq.network.p2p.peers.getdata.messages;
 
 import bisq.network.p2p.AnonymousMessage;
 import bisq.network.p2p.SupportedCapabilitiesMessage;
+import bisq.network.p2p.storage.HashBloomFilter;
 
 import bisq.common.app.Capabilities;
 import bisq.common.app.Version;
@@ -26,6 +27,7 @@ import bisq.common.proto.ProtoUtil;
 
 import com.google.protobuf.ByteString;
 
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -35,6 +37,8 @@ import lombok.extern.slf4j.Slf4j;
 
 import org.jetbrains.annotations.NotNull;
 
+import javax.annotation.Nullable;
+
 import protobuf.NetworkEnvelope;
 
 @Slf4j
@@ -45,7 +49,13 @@ public final class PreliminaryGetDataRequest extends GetDataRequest implements A
 
     public PreliminaryGetDataRequest(int nonce,
                                      @NotNull Set<byte[]> excludedKeys) {
-        this(nonce, excludedKeys, Capabilities.app, Version.getP2PMessageVersion());
+        this(nonce, excludedKeys, null);
+    }
+
+    public PreliminaryGetDataRequest(int nonce,
+                                     @NotNull Set<byte[]> excludedKeys,
+                                     @Nullable HashBloomFilter excludedKeysFilter) {
+        this(nonce, excludedKeys, excludedKeysFilter, Capabilities.app, Version.getP2PMessageVersion());
     }
 
 
@@ -55,9 +65,10 @@ public final class PreliminaryGetDataRequest extends GetDataRequest implements A
 
     private PreliminaryGetDataRequest(int nonce,
                                       @NotNull Set<byte[]> excludedKeys,
+                                      @Nullable HashBloomFilter excludedKeysFilter,
                                       @NotNull Capabilities supportedCapabilities,
                                       int messageVersion) {
-        super(messageVersion, nonce, excludedKeys);
+        super(messageVersion, nonce, excludedKeys, excludedKeysFilter);
 
         this.supportedCapabilities = supportedCapabilities;
     }
@@ -70,6 +81,7 @@ public final class PreliminaryGetDataRequest extends GetDataRequest implements A
                 .addAllExcludedKeys(excludedKeys.stream()
                         .map(ByteString::copyFrom)
                         .collect(Collectors.toList()));
+        Optional.ofNullable(excludedKeysFilter).ifPresent(e -> builder.setExcludedKeysFilter(e.toProtoMessage()));
 
         NetworkEnvelope proto = getNetworkEnvelopeBuilder()
                 .setPreliminaryGetDataRequest(builder)
@@ -82,6 +94,7 @@ public final class PreliminaryGetDataRequest extends GetDataRequest implements A
         log.info("Received a PreliminaryGetDataRequest with {} kB", proto.getSerializedSize() / 1000d);
         return new PreliminaryGetDataRequest(proto.getNonce(),
                 ProtoUtil.byteSetFromProtoByteStringList(proto.getExcludedKeysList()),
+                proto.hasExcludedKeysFilter() ? HashBloomFilter.fromProto(proto.getExcludedKeysFilter()) : null,
                 Capabilities.fromIntList(proto.getSupportedCapabilitiesList()),
                 messageVersion);
     }
@@ -0,0 +1,239 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.storage;
+
+import java.nio.ByteBuffer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Compact set for hashes as used as keys in the P2P data stores. A HashSet<ByteArray> needs about 100 bytes per
+ * 20 byte hash for the ByteArray, the byte[] and the HashMap.Node. Here the keys are stored back to back in one
+ * buffer per key size with open addressing (linear probing), so we need about 1.35 times the key size per entry.
+ *
+ * Keys of different sizes are supported (we have 20 byte hashes for the append only data and 32 byte hashes for the
+ * ProtectedStorageEntries), each size gets its own table. The buffers can be allocated off-heap.
+ *
+ * The keys are copied, so later changes to the added arrays have no effect. There is no remove as we only use it
+ * for sets which are built once and then queried.
+ */
+@NotThreadSafe
+public final class ByteArrayHashSet {
+    private static final double MAX_LOAD_FACTOR = 0.75;
+    private static final int MIN_CAPACITY = 16;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final boolean useDirectMemory;
+    // Random seed so a peer cannot craft keys which all collide
+    private final long seed = new Random().nextLong();
+    private final List<Table> tables = new ArrayList<>(2);
+
+    public static ByteArrayHashSet of(@Nullable Collection<byte[]> keys) {
+        return of(keys, false);
+    }
+
+    public static ByteArrayHashSet of(@Nullable Collection<byte[]> keys, boolean useDirectMemory) {
+        ByteArrayHashSet result = new ByteArrayHashSet(useDirectMemory);
+        if (keys == null)
+            return result;
+
+        // Pre-size the tables so we never need to rehash
+        Map<Integer, Integer> numKeysBySize = new HashMap<>();
+        keys.forEach(key -> numKeysBySize.merge(key.length, 1, Integer::sum));
+        numKeysBySize.forEach((keySize, numKeys) -> result.tables.add(result.newTable(keySize, numKeys)));
+
+        keys.forEach(result::add);
+        return result;
+    }
+
+    public ByteArrayHashSet() {
+        this(false);
+    }
+
+    public ByteArrayHashSet(boolean useDirectMemory) {
+        this.useDirectMemory = useDirectMemory;
+    }
+
+    // Returns true if the key was not contained yet
+    public boolean add(byte[] key) {
+        Table table = getTable(key.length);
+        if (table == null) {
+            table = newTable(key.length, MIN_CAPACITY);
+            tables.add(table);
+        }
+        return table.add(key, hash(key));
+    }
+
+    public boolean contains(byte[] key) {
+        Table table = getTable(key.length);
+        return table != null && table.contains(key, hash(key));
+    }
+
+    public boolean contains(P2PDataStorage.ByteArray key) {
+        return contains(key.bytes);
+    }
+
+    public int size() {
+        int result = 0;
+        for (Table table : tables) {
+            result += table.size;
+        }
+        return result;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    // Size of the buffers and the occupancy bitmaps in bytes
+    public long getMemoryFootprint() {
+        long result = 0;
+        for (Table table : tables) {
+            result += (long) table.capacity * table.keySize + table.occupied.length * 8L;
+        }
+        return result;
+    }
+
+    @Nullable
+    private Table getTable(int keySize) {
+        for (Table table : tables) {
+            if (table.keySize == keySize)
+                return table;
+        }
+        return null;
+    }
+
+    private Table newTable(int keySize, int expectedSize) {
+        int capacity = (int) Math.min(Integer.MAX_VALUE / Math.max(1, keySize),
+                Math.max(MIN_CAPACITY, (long) Math.ceil(expectedSize / MAX_LOAD_FACTOR)));
+        return new Table(keySize, capacity, useDirectMemory);
+    }
+
+    // FNV-1a over the whole key. The keys are usually hashes already but we must not rely on that for keys we
+    // receive from peers.
+    private int hash(byte[] key) {
+        long result = seed;
+        for (byte b : key) {
+            result ^= (b & 0xff);
+            result *= FNV_PRIME;
+        }
+        return (int) (result ^ (result >>> 32));
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Table
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private final class Table {
+        private final int keySize;
+        private int capacity;
+        private ByteBuffer keys;
+        private long[] occupied;
+        private int size;
+
+        private Table(int keySize, int capacity, boolean useDirectMemory) {
+            this.keySize = keySize;
+            this.capacity = capacity;
+            long numBytes = (long) capacity * keySize;
+            this.keys = useDirectMemory ? ByteBuffer.allocateDirect((int) numBytes) : ByteBuffer.allocate((int) numBytes);
+            this.occupied = new long[(capacity + 63) >>> 6];
+        }
+
+        private boolean add(byte[] key, int hash) {
+            if (size + 1 > capacity * MAX_LOAD_FACTOR)
+                resize();
+
+            int index = findIndex(key, hash);
+            if (isOccupied(index))
+                return false;
+
+            putAt(index, key);
+            size++;
+            return true;
+        }
+
+        private boolean contains(byte[] key, int hash) {
+            return isOccupied(findIndex(key, hash));
+        }
+
+        // Returns the index of the key or of the free slot where it would be added
+        private int findIndex(byte[] key, int hash) {
+            // Maps the hash to [0, capacity) without a modulo
+            int index = (int) (((hash & 0xffffffffL) * capacity) >>> 32);
+            while (isOccupied(index) && !keyEquals(index, key)) {
+                index++;
+                if (index == capacity)
+                    index = 0;
+            }
+            return index;
+        }
+
+        private boolean keyEquals(int index, byte[] key) {
+            int offset = index * keySize;
+            for (int i = 0; i < keySize; i++) {
+                if (keys.get(offset + i) != key[i])
+                    return false;
+            }
+            return true;
+        }
+
+        private boolean isOccupied(int index) {
+            return (occupied[index >>> 6] & (1L << index)) != 0;
+        }
+
+        private void putAt(int index, byte[] key) {
+            int offset = index * keySize;
+            for (int i = 0; i < keySize; i++) {
+                keys.put(offset + i, key[i]);
+            }
+            occupied[index >>> 6] |= 1L << index;
+        }
+
+        private void resize() {
+            ByteBuffer oldKeys = keys;
+            long[] oldOccupied = occupied;
+            int oldCapacity = capacity;
+            int newCapacity = (int) Math.min(Integer.MAX_VALUE / keySize, oldCapacity * 2L);
+            if (newCapacity == oldCapacity)
+                throw new IllegalStateException("ByteArrayHashSet cannot grow beyond " + size + " entries");
+
+            Table resized = new Table(keySize, newCapacity, oldKeys.isDirect());
+            byte[] key = new byte[keySize];
+            for (int index = 0; index < oldCapacity; index++) {
+                if ((oldOccupied[index >>> 6] & (1L << index)) != 0) {
+                    for (int i = 0; i < keySize; i++) {
+                        key[i] = oldKeys.get(index * keySize + i);
+                    }
+                    resized.putAt(resized.findIndex(key, hash(key)), key);
+                }
+            }
+            capacity = newCapacity;
+            keys = resized.keys;
+            occupied = resized.occupied;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.storage;
+
+import bisq.common.app.Capabilities;
+
+import java.util.Iterator;
+import java.util.List;
+
+import lombok.Getter;
+
+/**
+ * Holds the position of a GetDataResponse which is delivered in several parts. We only keep the hashes of the
+ * entries the peer is missing (the key objects are shared with our maps), the payloads are looked up when the next
+ * part is built. Entries which got removed in the meantime are skipped.
+ *
+ * If the connection gets lost the peer will re-request and as the already received entries are then part of the
+ * excluded keys the new response continues where the old one stopped.
+ */
+public final class GetDataResponseCursor {
+    @Getter
+    private final int requestNonce;
+    @Getter
+    private final boolean isGetUpdatedDataResponse;
+    @Getter
+    private final Capabilities peerCapabilities;
+    private final Iterator<P2PDataStorage.ByteArray> persistableNetworkPayloadHashes;
+    private final Iterator<P2PDataStorage.ByteArray> protectedStorageEntryHashes;
+    @Getter
+    private final int numEntries;
+    private int nextPartIndex;
+
+    GetDataResponseCursor(int requestNonce,
+                          boolean isGetUpdatedDataResponse,
+                          Capabilities peerCapabilities,
+                          List<P2PDataStorage.ByteArray> persistableNetworkPayloadHashes,
+                          List<P2PDataStorage.ByteArray> protectedStorageEntryHashes) {
+        this.requestNonce = requestNonce;
+        this.isGetUpdatedDataResponse = isGetUpdatedDataResponse;
+        this.peerCapabilities = peerCapabilities;
+        this.persistableNetworkPayloadHashes = persistableNetworkPayloadHashes.iterator();
+        this.protectedStorageEntryHashes = protectedStorageEntryHashes.iterator();
+        this.numEntries = persistableNetworkPayloadHashes.size() + protectedStorageEntryHashes.size();
+    }
+
+    boolean hasMoreEntries() {
+        return persistableNetworkPayloadHashes.hasNext() || protectedStorageEntryHashes.hasNext();
+    }
+
+    Iterator<P2PDataStorage.ByteArray> getPersistableNetworkPayloadHashes() {
+        return persistableNetworkPayloadHashes;
+    }
+
+    Iterator<P2PDataStorage.ByteArray> getProtectedStorageEntryHashes() {
+        return protectedStorageEntryHashes;
+    }
+
+    int getAndIncrementPartIndex() {
+        return nextPartIndex++;
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.storage;
+
+import bisq.common.proto.network.NetworkPayload;
+
+import com.google.protobuf.ByteString;
+
+import java.util.Collection;
+import java.util.Random;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.Nullable;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Bloom filter over payload hashes. Used in GetDataRequests instead of the full list of known hashes of the append
+ * only data, which would be several MB with all the TradeStatistics2 and AccountAgeWitness entries. With the default
+ * false positive rate of 0.1% it needs about 1.8 bytes per entry instead of 20 or 32 bytes.
+ *
+ * A false positive means the peer considers an entry as known and does not deliver it. We use a random tweak per
+ * request so that the next request has different false positives.
+ *
+ * The bit positions are derived with a FNV-1a hash over the key bytes and the Kirsch-Mitzenmacher double hashing
+ * scheme, so the encoding is independent of any library version.
+ */
+@Slf4j
+@EqualsAndHashCode
+public final class HashBloomFilter implements NetworkPayload {
+    // We don't accept more from a peer to protect against requests causing high CPU load.
+    private static final int MAX_NUM_HASH_FUNCTIONS = 50;
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final byte[] bits;
+    @Getter
+    private final int numHashFunctions;
+    private final int tweak;
+    private final long numBits;
+
+    public static HashBloomFilter fromHashes(Collection<byte[]> hashes, double falsePositiveRate) {
+        checkArgument(falsePositiveRate > 0 && falsePositiveRate < 1,
+                "falsePositiveRate must be greater than 0 and less than 1 but is %s", falsePositiveRate);
+        // Standard formulas for the optimal size and number of hash functions
+        int numEntries = Math.max(1, hashes.size());
+        long numBits = (long) Math.ceil(-numEntries * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int numBytes = (int) Math.max(1, Math.min(Integer.MAX_VALUE, (numBits + 7) / 8));
+        int numHashFunctions = (int) Math.round((double) numBytes * 8 / numEntries * Math.log(2));
+        numHashFunctions = Math.max(1, Math.min(MAX_NUM_HASH_FUNCTIONS, numHashFunctions));
+
+        HashBloomFilter filter = new HashBloomFilter(new byte[numBytes], numHashFunctions, new Random().nextInt());
+        hashes.forEach(filter::put);
+        return filter;
+    }
+
+    private HashBloomFilter(byte[] bits, int numHashFunctions, int tweak) {
+        this.bits = bits;
+        this.numHashFunctions = numHashFunctions;
+        this.tweak = tweak;
+        this.numBits = (long) bits.length * 8;
+    }
+
+    public boolean mightContain(byte[] hash) {
+        long fnvHash = fnvHash(hash);
+        int hash1 = (int) fnvHash;
+        int hash2 = (int) (fnvHash >>> 32);
+        for (int i = 0; i < numHashFunctions; i++) {
+            long index = Math.floorMod(hash1 + (long) i * hash2, numBits);
+            if ((bits[(int) (index >>> 3)] & (1 << (index & 7))) == 0)
+                return false;
+        }
+        return true;
+    }
+
+    public int getSizeInBytes() {
+        return bits.length;
+    }
+
+    private void put(byte[] hash) {
+        long fnvHash = fnvHash(hash);
+        int hash1 = (int) fnvHash;
+        int hash2 = (int) (fnvHash >>> 32);
+        for (int i = 0; i < numHashFunctions; i++) {
+            long index = Math.floorMod(hash1 + (long) i * hash2, numBits);
+            bits[(int) (index >>> 3)] |= (1 << (index & 7));
+        }
+    }
+
+    private long fnvHash(byte[] hash) {
+        long result = FNV_OFFSET_BASIS ^ tweak;
+        for (byte b : hash) {
+            result ^= (b & 0xff);
+            result *= FNV_PRIME;
+        }
+        return result;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // PROTO BUFFER
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    @Override
+    public protobuf.HashBloomFilter toProtoMessage() {
+        return protobuf.HashBloomFilter.newBuilder()
+                .setBits(ByteString.copyFrom(bits))
+                .setNumHashFunctions(numHashFunctions)
+                .setTweak(tweak)
+                .build();
+    }
+
+    // Returns null if the filter is missing or invalid. The caller falls back to the excluded keys then.
+    @Nullable
+    public static HashBloomFilter fromProto(protobuf.HashBloomFilter proto) {
+        if (proto.getBits().isEmpty())
+            return null;
+
+        if (proto.getNumHashFunctions() < 1 || proto.getNumHashFunctions() > MAX_NUM_HASH_FUNCTIONS) {
+            log.warn("We received a HashBloomFilter with an invalid number of hash functions: {}",
+                    proto.getNumHashFunctions());
+            return null;
+        }
+
+        return new HashBloomFilter(proto.getBits().toByteArray(), proto.getNumHashFunctions(), proto.getTweak());
+    }
+
+    @Override
+    public String toString() {
+        return "HashBloomFilter{" +
+                "sizeInBytes=" + bits.length +
+                ", numHashFunctions=" + numHashFunctions +
+                ", tweak=" + tweak +
+                '}';
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.storage;
+
+import bisq.network.p2p.storage.payload.ProtectedStorageEntry;
+
+import bisq.common.Timer;
+import bisq.common.UserThread;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+
+/**
+ * Collects the added and removed ProtectedStorageEntries for the HashMapChangedListeners and delivers them in batches.
+ * Listeners like the OfferBookService rebuild their state for each call, so at startup or when many offers get
+ * refreshed we don't want to call them for each single entry.
+ *
+ * Consecutive adds and consecutive removes are delivered as one call each, but the order of adds and removes is kept.
+ * An entry which gets added and removed in the same batch is delivered with both calls, so listeners see the same
+ * sequence of changes as before, only in fewer calls.
+ *
+ * With a batch window of 0 the listeners are called immediately, except inside of runBatched.
+ * Not thread safe, must be called from the user thread like the rest of the P2PDataStorage.
+ */
+class HashMapChangedDispatcher {
+    private final Set<HashMapChangedListener> listeners = new CopyOnWriteArraySet<>();
+    private final long batchWindowMillis;
+    // Segments of adds or removes in the order they happened
+    private final List<Batch> pendingBatches = new ArrayList<>();
+    @Nullable
+    private Timer flushTimer;
+    private int runBatchedDepth;
+
+    HashMapChangedDispatcher(long batchWindowMillis) {
+        this.batchWindowMillis = batchWindowMillis;
+    }
+
+    void addListener(HashMapChangedListener listener) {
+        listeners.add(listener);
+    }
+
+    void removeListener(HashMapChangedListener listener) {
+        listeners.remove(listener);
+    }
+
+    void onAdded(ProtectedStorageEntry protectedStorageEntry) {
+        onChanged(true, Collections.singletonList(protectedStorageEntry));
+    }
+
+    void onRemoved(Collection<ProtectedStorageEntry> protectedStorageEntries) {
+        onChanged(false, protectedStorageEntries);
+    }
+
+    // All changes inside of runnable are delivered as one batch when it has completed. If runnable throws, the changes
+    // made before are still delivered, otherwise they would stay pending until the next change.
+    void runBatched(Runnable runnable) {
+        runBatchedDepth++;
+        try {
+            runnable.run();
+        } finally {
+            if (--runBatchedDepth == 0)
+                flush();
+        }
+    }
+
+    void flush() {
+        if (flushTimer != null) {
+            flushTimer.stop();
+            flushTimer = null;
+        }
+
+        if (pendingBatches.isEmpty())
+            return;
+
+        List<Batch> batches = new ArrayList<>(pendingBatches);
+        pendingBatches.clear();
+        batches.forEach(batch -> listeners.forEach(listener -> {
+            if (batch.isAdd)
+                listener.onAdded(batch.entries);
+            else
+                listener.onRemoved(batch.entries);
+        }));
+    }
+
+    private void onChanged(boolean isAdd, Collection<ProtectedStorageEntry> protectedStorageEntries) {
+        if (protectedStorageEntries.isEmpty())
+            return;
+
+        if (runBatchedDepth == 0 && batchWindowMillis <= 0) {
+            if (isAdd)
+                listeners.forEach(listener -> listener.onAdded(protectedStorageEntries));
+            else
+                listeners.forEach(listener -> listener.onRemoved(protectedStorageEntries));
+            return;
+        }
+
+        Batch lastBatch = pendingBatches.isEmpty() ? null : pendingBatches.get(pendingBatches.size() - 1);
+        if (lastBatch != null && lastBatch.isAdd == isAdd) {
+            lastBatch.entries.addAll(protectedStorageEntries);
+        } else {
+            pendingBatches.add(new Batch(isAdd, protectedStorageEntries));
+        }
+
+        if (runBatchedDepth == 0 && flushTimer == null)
+            flushTimer = UserThread.runAfter(this::flush, batchWindowMillis, TimeUnit.MILLISECONDS);
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Static class
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private static final class Batch {
+        private final boolean isAdd;
+        private final List<ProtectedStorageEntry> entries;
+
+        private Batch(boolean isAdd, Collection<ProtectedStorageEntry> entries) {
+            this.isAdd = isAdd;
+            this.entries = new ArrayList<>(entries);
+        }
+    }
+}
@@ -45,7 +45,6 @@ import bisq.network.p2p.storage.payload.PersistableNetworkPayload;
 import bisq.network.p2p.storage.payload.ProtectedMailboxStorageEntry;
 import bisq.network.p2p.storage.payload.ProtectedStorageEntry;
 import bisq.network.p2p.storage.payload.ProtectedStoragePayload;
-import bisq.network.p2p.storage.payload.RequiresOwnerIsOnlinePayload;
 import bisq.network.p2p.storage.persistence.AppendOnlyDataStoreListener;
 import bisq.network.p2p.storage.persistence.AppendOnlyDataStoreService;
 import bisq.network.p2p.storage.persistence.ProtectedDataStoreService;
@@ -55,6 +54,7 @@ import bisq.network.p2p.storage.persistence.SequenceNumberMap;
 import bisq.common.Timer;
 import bisq.common.UserThread;
 import bisq.common.app.Capabilities;
+import bisq.common.config.Config;
 import bisq.common.crypto.CryptoException;
 import bisq.common.crypto.Hash;
 import bisq.common.crypto.Sig;
@@ -89,6 +89,7 @@ import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -98,6 +99,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import lombok.EqualsAndHashCode;
@@ -127,8 +129,10 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
 
     @Getter
     private final Map<ByteArray, ProtectedStorageEntry> map = new ConcurrentHashMap<>();
+    // Expiry and owner indexes over the map. Must be updated together with the map.
+    private final ProtectedStorageEntryIndex protectedStorageEntryIndex = new ProtectedStorageEntryIndex();
     private final Set<ByteArray> removedAddOncePayloads = new HashSet<>();
-    private final Set<HashMapChangedListener> hashMapChangedListeners = new CopyOnWriteArraySet<>();
+    private final HashMapChangedDispatcher hashMapChangedDispatcher;
     private Timer removeExpiredEntriesTimer;
 
     private final Storage<SequenceNumberMap> sequenceNumberMapStorage;
@@ -143,6 +147,9 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
     /// which removes entries after PURGE_AGE_DAYS.
     private final int maxSequenceNumberMapSizeBeforePurge;
 
+    /// The false positive rate of the HashBloomFilter we send for the known append only data
+    private final double excludedKeysFalsePositiveRate;
+
     ///////////////////////////////////////////////////////////////////////////////////////////
     // Constructor
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -155,13 +162,17 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
                           ResourceDataStoreService resourceDataStoreService,
                           Storage<SequenceNumberMap> sequenceNumberMapStorage,
                           Clock clock,
-                          @Named("MAX_SEQUENCE_NUMBER_MAP_SIZE_BEFORE_PURGE") int maxSequenceNumberBeforePurge) {
+                          @Named("MAX_SEQUENCE_NUMBER_MAP_SIZE_BEFORE_PURGE") int maxSequenceNumberBeforePurge,
+                          @Named(Config.EXCLUDED_KEYS_FALSE_POSITIVE_RATE) double excludedKeysFalsePositiveRate,
+                          @Named(Config.STORAGE_LISTENER_BATCH_MILLIS) int storageListenerBatchMillis) {
         this.broadcaster = broadcaster;
         this.appendOnlyDataStoreService = appendOnlyDataStoreService;
         this.protectedDataStoreService = protectedDataStoreService;
         this.resourceDataStoreService = resourceDataStoreService;
         this.clock = clock;
         this.maxSequenceNumberMapSizeBeforePurge = maxSequenceNumberBeforePurge;
+        this.excludedKeysFalsePositiveRate = excludedKeysFalsePositiveRate;
+        this.hashMapChangedDispatcher = new HashMapChangedDispatcher(storageListenerBatchMillis);
 
 
         networkNode.addMessageListener(this);
@@ -187,6 +198,7 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
         resourceDataStoreService.readFromResources(postFix);
 
         map.putAll(protectedDataStoreService.getMap());
+        protectedDataStoreService.getMap().forEach(protectedStorageEntryIndex::put);
     }
 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -197,14 +209,40 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
      * Returns a PreliminaryGetDataRequest that can be sent to a peer node to request missing Payload data.
      */
     public PreliminaryGetDataRequest buildPreliminaryGetDataRequest(int nonce) {
-        return new PreliminaryGetDataRequest(nonce, this.getKnownPayloadHashes());
+        return buildPreliminaryGetDataRequest(nonce, false);
+    }
+
+    /**
+     * Returns a PreliminaryGetDataRequest that can be sent to a peer node to request missing Payload data. If
+     * useExcludedKeysFilter is true the hashes of the append only data are sent as HashBloomFilter. Only use it if
+     * the peer supports Capability.EXCLUDED_KEYS_FILTER.
+     */
+    public PreliminaryGetDataRequest buildPreliminaryGetDataRequest(int nonce, boolean useExcludedKeysFilter) {
+        if (useExcludedKeysFilter)
+            return new PreliminaryGetDataRequest(nonce, getKnownProtectedStorageEntryHashes(), getKnownAppendOnlyDataFilter());
+        else
+            return new PreliminaryGetDataRequest(nonce, getKnownPayloadHashes());
     }
 
     /**
      * Returns a GetUpdatedDataRequest that can be sent to a peer node to request missing Payload data.
      */
     public GetUpdatedDataRequest buildGetUpdatedDataRequest(NodeAddress senderNodeAddress, int nonce) {
-        return new GetUpdatedDataRequest(senderNodeAddress, nonce, this.getKnownPayloadHashes());
+        return buildGetUpdatedDataRequest(senderNodeAddress, nonce, false);
+    }
+
+    /**
+     * Returns a GetUpdatedDataRequest that can be sent to a peer node to request missing Payload data. See
+     * buildPreliminaryGetDataRequest for useExcludedKeysFilter.
+     */
+    public GetUpdatedDataRequest buildGetUpdatedDataRequest(NodeAddress senderNodeAddress,
+                                                            int nonce,
+                                                            boolean useExcludedKeysFilter) {
+        if (useExcludedKeysFilter)
+            return new GetUpdatedDataRequest(senderNodeAddress, nonce, getKnownProtectedStorageEntryHashes(),
+                    getKnownAppendOnlyDataFilter());
+        else
+            return new GetUpdatedDataRequest(senderNodeAddress, nonce, getKnownPayloadHashes());
     }
 
     /**
@@ -215,18 +253,32 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
         // PersistedStoragePayload items don't get removed, so we don't have an issue with the case that
         // an object gets removed in between PreliminaryGetDataRequest and the GetUpdatedDataRequest and we would
         // miss that event if we do not load the full set or use some delta handling.
-        Set<byte[]> excludedKeys =this.appendOnlyDataStoreService.getMap().keySet().stream()
+        Set<byte[]> excludedKeys = this.appendOnlyDataStoreService.getKeys().stream()
                 .map(e -> e.bytes)
                 .collect(Collectors.toSet());
 
-        Set<byte[]> excludedKeysFromPersistedEntryMap = this.map.keySet()
+        excludedKeys.addAll(getKnownProtectedStorageEntryHashes());
+
+        return excludedKeys;
+    }
+
+    private Set<byte[]> getKnownProtectedStorageEntryHashes() {
+        return this.map.keySet()
                 .stream()
                 .map(e -> e.bytes)
                 .collect(Collectors.toSet());
+    }
 
-        excludedKeys.addAll(excludedKeysFromPersistedEntryMap);
-
-        return excludedKeys;
+    // The append only data is by far the largest part of the known hashes. A false positive only means we don't get
+    // that entry from that request, so we can use a filter here. For the ProtectedStorageEntries we keep the exact keys.
+    private HashBloomFilter getKnownAppendOnlyDataFilter() {
+        List<byte[]> hashes = this.appendOnlyDataStoreService.getKeys().stream()
+                .map(e -> e.bytes)
+                .collect(Collectors.toList());
+        HashBloomFilter filter = HashBloomFilter.fromHashes(hashes, excludedKeysFalsePositiveRate);
+        log.info("Created HashBloomFilter for {} known append only data entries with {} kB",
+                hashes.size(), filter.getSizeInBytes() / 1000d);
+        return filter;
     }
 
     /**
@@ -236,7 +288,7 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
     static private <T extends NetworkPayload> Set<T> filterKnownHashes(
             Map<ByteArray, T> toFilter,
             Function<T, ? extends NetworkPayload> objToPayload,
-            Set<ByteArray> knownHashes,
+            Predicate<ByteArray> isKnownHash,
             Capabilities peerCapabilities,
             int maxEntries,
             AtomicBoolean outTruncated) {
@@ -244,7 +296,7 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
         AtomicInteger limit = new AtomicInteger(maxEntries);
 
         Set<T> filteredResults = toFilter.entrySet().stream()
-                .filter(e -> !knownHashes.contains(e.getKey()))
+                .filter(e -> !isKnownHash.test(e.getKey()))
                 .filter(e -> limit.decrementAndGet() >= 0)
                 .map(Map.Entry::getValue)
                 .filter(networkPayload -> shouldTransmitPayloadToPeer(peerCapabilities,
@@ -267,14 +319,13 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
             AtomicBoolean outProtectedStorageEntryOutputTruncated,
             Capabilities peerCapabilities) {
 
-        Set<P2PDataStorage.ByteArray> excludedKeysAsByteArray =
-                P2PDataStorage.ByteArray.convertBytesSetToByteArraySet(getDataRequest.getExcludedKeys());
+        ByteArrayHashSet excludedKeys = ByteArrayHashSet.of(getDataRequest.getExcludedKeys());
 
         Set<PersistableNetworkPayload> filteredPersistableNetworkPayloads =
                 filterKnownHashes(
                         this.appendOnlyDataStoreService.getMap(),
                         Function.identity(),
-                        excludedKeysAsByteArray,
+                        getIsKnownAppendOnlyDataHash(getDataRequest, excludedKeys),
                         peerCapabilities,
                         maxEntriesPerType,
                         outPersistableNetworkPayloadOutputTruncated);
@@ -283,7 +334,7 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
                 filterKnownHashes(
                         this.map,
                         ProtectedStorageEntry::getProtectedStoragePayload,
-                        excludedKeysAsByteArray,
+                        excludedKeys::contains,
                         peerCapabilities,
                         maxEntriesPerType,
                         outProtectedStorageEntryOutputTruncated);
@@ -295,6 +346,74 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
                 getDataRequest instanceof GetUpdatedDataRequest);
     }
 
+    /**
+     * Returns a cursor over the hashes of the Payloads known locally, but not remotely. The response is then built in
+     * parts with buildNextGetDataResponsePart so we never hold the full response in memory.
+     */
+    public GetDataResponseCursor buildGetDataResponseCursor(GetDataRequest getDataRequest,
+                                                            Capabilities peerCapabilities) {
+        ByteArrayHashSet excludedKeys = ByteArrayHashSet.of(getDataRequest.getExcludedKeys());
+
+        Predicate<ByteArray> isKnownAppendOnlyDataHash = getIsKnownAppendOnlyDataHash(getDataRequest, excludedKeys);
+        List<ByteArray> persistableNetworkPayloadHashes = this.appendOnlyDataStoreService.getKeys().stream()
+                .filter(hash -> !isKnownAppendOnlyDataHash.test(hash))
+                .collect(Collectors.toList());
+
+        List<ByteArray> protectedStorageEntryHashes = this.map.keySet().stream()
+                .filter(hash -> !excludedKeys.contains(hash))
+                .collect(Collectors.toList());
+
+        return new GetDataResponseCursor(getDataRequest.getNonce(),
+                getDataRequest instanceof GetUpdatedDataRequest,
+                peerCapabilities,
+                persistableNetworkPayloadHashes,
+                protectedStorageEntryHashes);
+    }
+
+    /**
+     * Returns the next part of a GetDataResponse with at most maxEntries Payloads and advances the cursor.
+     */
+    public GetDataResponse buildNextGetDataResponsePart(GetDataResponseCursor cursor, int maxEntries) {
+        Set<PersistableNetworkPayload> persistableNetworkPayloads = new HashSet<>();
+        Set<ProtectedStorageEntry> protectedStorageEntries = new HashSet<>();
+        Capabilities peerCapabilities = cursor.getPeerCapabilities();
+
+        Iterator<ByteArray> persistableNetworkPayloadHashes = cursor.getPersistableNetworkPayloadHashes();
+        while (persistableNetworkPayloads.size() < maxEntries && persistableNetworkPayloadHashes.hasNext()) {
+            // Might have been removed since the cursor was created
+            PersistableNetworkPayload payload = appendOnlyDataStoreService.get(persistableNetworkPayloadHashes.next());
+            if (payload != null && shouldTransmitPayloadToPeer(peerCapabilities, payload))
+                persistableNetworkPayloads.add(payload);
+        }
+
+        Iterator<ByteArray> protectedStorageEntryHashes = cursor.getProtectedStorageEntryHashes();
+        while (persistableNetworkPayloads.size() + protectedStorageEntries.size() < maxEntries &&
+                protectedStorageEntryHashes.hasNext()) {
+            ProtectedStorageEntry protectedStorageEntry = map.get(protectedStorageEntryHashes.next());
+            if (protectedStorageEntry != null &&
+                    shouldTransmitPayloadToPeer(peerCapabilities, protectedStorageEntry.getProtectedStoragePayload()))
+                protectedStorageEntries.add(protectedStorageEntry);
+        }
+
+        int partIndex = cursor.getAndIncrementPartIndex();
+        return new GetDataResponse(
+                protectedStorageEntries,
+                persistableNetworkPayloads,
+                cursor.getRequestNonce(),
+                cursor.isGetUpdatedDataResponse(),
+                partIndex,
+                cursor.hasMoreEntries());
+    }
+
+    private static Predicate<ByteArray> getIsKnownAppendOnlyDataHash(GetDataRequest getDataRequest,
+                                                                    ByteArrayHashSet excludedKeys) {
+        HashBloomFilter excludedKeysFilter = getDataRequest.getExcludedKeysFilter();
+        if (excludedKeysFilter == null)
+            return excludedKeys::contains;
+
+        return hash -> excludedKeys.contains(hash) || excludedKeysFilter.mightContain(hash.bytes);
+    }
+
     /**
      * Returns true if a Payload should be transmit to a peer given the peer's supported capabilities.
      */
@@ -328,11 +447,11 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
         Set<PersistableNetworkPayload> persistableNetworkPayloadSet = getDataResponse.getPersistableNetworkPayloadSet();
 
         long ts2 = System.currentTimeMillis();
-        dataSet.forEach(e -> {
+        // The listeners get all added entries of the response in one call
+        hashMapChangedDispatcher.runBatched(() -> dataSet.forEach(e -> {
             // We don't broadcast here (last param) as we are only connected to the seed node and would be pointless
             addProtectedStorageEntry(e, sender, null, false);
-
-        });
+        }));
         log.info("Processing {} protectedStorageEntries took {} ms.", dataSet.size(), this.clock.millis() - ts2);
 
         ts2 = this.clock.millis();
@@ -359,8 +478,9 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
 
         // We only process PersistableNetworkPayloads implementing ProcessOncePersistableNetworkPayload once. It can cause performance
         // issues and since the data is rarely out of sync it is not worth it to apply them from multiple peers during
-        // startup.
-        initialRequestApplied = true;
+        // startup. If the response is delivered in several parts we have to wait for the last part.
+        if (!getDataResponse.isHasMoreParts())
+            initialRequestApplied = true;
     }
 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -370,6 +490,8 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
     public void shutDown() {
         if (removeExpiredEntriesTimer != null)
             removeExpiredEntriesTimer.stop();
+
+        hashMapChangedDispatcher.flush();
     }
 
     @VisibleForTesting
@@ -380,10 +502,13 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
         // object when we get it sent from new peers, we don’t remove the sequence number from the map.
         // That way an ADD message for an already expired data will fail because the sequence number
         // is equal and not larger as expected.
-        ArrayList<Map.Entry<ByteArray, ProtectedStorageEntry>> toRemoveList =
-                map.entrySet().stream()
-                .filter(entry -> entry.getValue().isExpired(this.clock))
-                .collect(Collectors.toCollection(ArrayList::new));
+        // We only look at the entries which are due according to the expiry index instead of scanning the whole map.
+        ArrayList<Map.Entry<ByteArray, ProtectedStorageEntry>> toRemoveList = new ArrayList<>();
+        protectedStorageEntryIndex.getExpiredHashes(this.clock.millis()).forEach(hashOfPayload -> {
+            ProtectedStorageEntry protectedStorageEntry = map.get(hashOfPayload);
+            if (protectedStorageEntry != null && protectedStorageEntry.isExpired(this.clock))
+                toRemoveList.add(Maps.immutableEntry(hashOfPayload, protectedStorageEntry));
+        });
 
         // Batch processing can cause performance issues, so do all of the removes first, then update the listeners
         // to let them know about the removes.
@@ -448,11 +573,14 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
 
         NodeAddress peersNodeAddress = connection.getPeersNodeAddressOptional().get();
 
-        // Backdate all the eligible payloads based on the node that disconnected
-        map.values().stream()
-                .filter(protectedStorageEntry -> protectedStorageEntry.getProtectedStoragePayload() instanceof RequiresOwnerIsOnlinePayload)
-                .filter(protectedStorageEntry -> ((RequiresOwnerIsOnlinePayload) protectedStorageEntry.getProtectedStoragePayload()).getOwnerNodeAddress().equals(peersNodeAddress))
-                .forEach(protectedStorageEntry ->  {
+        // Backdate all the eligible payloads based on the node that disconnected. The owner index only contains
+        // entries with a RequiresOwnerIsOnlinePayload.
+        protectedStorageEntryIndex.getHashesByOwnerNodeAddress(peersNodeAddress)
+                .forEach(hashOfPayload -> {
+                    ProtectedStorageEntry protectedStorageEntry = map.get(hashOfPayload);
+                    if (protectedStorageEntry == null)
+                        return;
+
                     // We only set the data back by half of the TTL and remove the data only if is has
                     // expired after that back dating.
                     // We might get connection drops which are not caused by the node going offline, so
@@ -464,6 +592,8 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
                     // Usually the are: SOCKET_TIMEOUT ,TERMINATED (EOFException)
                     log.debug("Backdating {} due to closeConnectionReason={}", protectedStorageEntry, closeConnectionReason);
                     protectedStorageEntry.backDate();
+                    // The expiration time has changed
+                    protectedStorageEntryIndex.put(hashOfPayload, protectedStorageEntry);
                 });
     }
 
@@ -508,7 +638,7 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
         }
 
         ByteArray hashAsByteArray = new ByteArray(payload.getHash());
-        boolean payloadHashAlreadyInStore = getAppendOnlyDataStoreMap().containsKey(hashAsByteArray);
+        boolean payloadHashAlreadyInStore = appendOnlyDataStoreService.containsKey(hashAsByteArray);
 
         // Store already knows about this payload. Ignore it unless the caller specifically requests a republish.
         if (payloadHashAlreadyInStore && !reBroadcast) {
@@ -606,7 +736,8 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
 
         // This is an updated entry. Record it and signal listeners.
         map.put(hashOfPayload, protectedStorageEntry);
-        hashMapChangedListeners.forEach(e -> e.onAdded(Collections.singletonList(protectedStorageEntry)));
+        protectedStorageEntryIndex.put(hashOfPayload, protectedStorageEntry);
+        hashMapChangedDispatcher.onAdded(protectedStorageEntry);
 
         // Record the updated sequence number and persist it. Higher delay so we can batch more items.
         sequenceNumberMap.put(hashOfPayload, new MapValue(protectedStorageEntry.getSequenceNumber(), this.clock.millis()));
@@ -661,6 +792,7 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
 
         // Update the hash map with the updated entry
         map.put(hashOfPayload, updatedEntry);
+        protectedStorageEntryIndex.put(hashOfPayload, updatedEntry);
 
         // Record the latest sequence number and persist it
         sequenceNumberMap.put(hashOfPayload, new MapValue(updatedEntry.getSequenceNumber(), this.clock.millis()));
@@ -804,11 +936,11 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
     }
 
     public void addHashMapChangedListener(HashMapChangedListener hashMapChangedListener) {
-        hashMapChangedListeners.add(hashMapChangedListener);
+        hashMapChangedDispatcher.addListener(hashMapChangedListener);
     }
 
     public void removeHashMapChangedListener(HashMapChangedListener hashMapChangedListener) {
-        hashMapChangedListeners.remove(hashMapChangedListener);
+        hashMapChangedDispatcher.removeListener(hashMapChangedListener);
     }
 
     public void addAppendOnlyDataStoreListener(AppendOnlyDataStoreListener listener) {
@@ -840,6 +972,7 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
             ProtectedStorageEntry protectedStorageEntry = entryToRemoveWithPayloadHash.getValue();
 
             map.remove(hashOfPayload);
+            protectedStorageEntryIndex.remove(hashOfPayload, protectedStorageEntry);
             entriesForSignal.add(protectedStorageEntry);
 
             ProtectedStoragePayload protectedStoragePayload = protectedStorageEntry.getProtectedStoragePayload();
@@ -850,7 +983,7 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
             }
         });
 
-        hashMapChangedListeners.forEach(e -> e.onRemoved(entriesForSignal));
+        hashMapChangedDispatcher.onRemoved(entriesForSignal);
     }
 
     private boolean hasSequenceNrIncreased(int newSequenceNumber, ByteArray hashOfData) {
@@ -937,6 +1070,13 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
      * @return Hash of data
      */
     public static byte[] get32ByteHash(NetworkPayload data) {
+        // ProtectedStoragePayloads are hashed again and again for the same instance, so we use a cache for those.
+        if (data instanceof ProtectedStoragePayload)
+            return PayloadHashCache.get32ByteHash((ProtectedStoragePayload) data);
+
+        if (data instanceof DataAndSeqNrPair)
+            return ((DataAndSeqNrPair) data).getHash();
+
         return Hash.getSha256Hash(data.toProtoMessage().toByteArray());
     }
 
@@ -954,6 +1094,11 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
         // data are only used for calculating cryptographic hash from both values so they are kept private
         private final ProtectedStoragePayload protectedStoragePayload;
         private final int sequenceNumber;
+        // Lazily calculated, derived from the fields above
+        @EqualsAndHashCode.Exclude
+        @ToString.Exclude
+        @Nullable
+        private byte[] hash;
 
         public DataAndSeqNrPair(ProtectedStoragePayload protectedStoragePayload, int sequenceNumber) {
             this.protectedStoragePayload = protectedStoragePayload;
@@ -963,11 +1108,18 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
         // Used only for calculating hash of byte array from PB object
         @Override
         public com.google.protobuf.Message toProtoMessage() {
+            // We reuse the cached proto message of the payload so only the small wrapper gets built
             return protobuf.DataAndSeqNrPair.newBuilder()
-                    .setPayload((protobuf.StoragePayload) protectedStoragePayload.toProtoMessage())
+                    .setPayload((protobuf.StoragePayload) PayloadHashCache.getProtoMessage(protectedStoragePayload))
                     .setSequenceNumber(sequenceNumber)
                     .build();
         }
+
+        byte[] getHash() {
+            if (hash == null)
+                hash = Hash.getSha256Hash(toProtoMessage().toByteArray());
+            return hash;
+        }
     }
 
 
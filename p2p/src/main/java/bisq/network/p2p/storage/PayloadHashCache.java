@@ -0,0 +1,108 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.storage;
+
+import bisq.network.p2p.storage.payload.ProtectedStoragePayload;
+
+import bisq.common.crypto.Hash;
+
+import com.google.protobuf.Message;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.concurrent.ExecutionException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Caches the proto message and the 32 byte hash of ProtectedStoragePayload instances. The same payload instance is
+ * hashed for every add, refresh, remove and duplicate check and for every signature check of a ProtectedStorageEntry
+ * holding it, so we only want to pay for the serialization and the SHA-256 once.
+ *
+ * Keys are held weakly and compared by identity (see CacheBuilder#weakKeys), so an entry disappears together with its
+ * payload and we never need to call the potentially expensive equals/hashCode of the payload. Equal payloads arriving
+ * as new instances from the network get their own entry.
+ *
+ * Payloads with mutable fields (e.g. OfferPayload.offerFeePaymentTxId) must not be changed after they have been
+ * hashed. That is already required as the hash is the key in the P2P network.
+ */
+@Slf4j
+final class PayloadHashCache {
+    private static final Cache<ProtectedStoragePayload, Entry> CACHE = CacheBuilder.newBuilder()
+            .weakKeys()
+            .concurrencyLevel(4)
+            .build();
+
+    private PayloadHashCache() {
+    }
+
+    static Message getProtoMessage(ProtectedStoragePayload payload) {
+        return getEntry(payload).protoMessage;
+    }
+
+    static byte[] get32ByteHash(ProtectedStoragePayload payload) {
+        return getEntry(payload).getHash();
+    }
+
+    @VisibleForTesting
+    static long size() {
+        CACHE.cleanUp();
+        return CACHE.size();
+    }
+
+    @VisibleForTesting
+    static void invalidateAll() {
+        CACHE.invalidateAll();
+    }
+
+    private static Entry getEntry(ProtectedStoragePayload payload) {
+        try {
+            return CACHE.get(payload, () -> new Entry(payload.toProtoMessage()));
+        } catch (ExecutionException e) {
+            // toProtoMessage does not throw checked exceptions, so we should never get here
+            log.error("Creating proto message for hash cache failed", e);
+            return new Entry(payload.toProtoMessage());
+        }
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Static class
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private static final class Entry {
+        private final Message protoMessage;
+        // Written at most a few times in case of concurrent access, the result is always the same
+        private volatile byte[] hash;
+
+        private Entry(Message protoMessage) {
+            this.protoMessage = protoMessage;
+        }
+
+        private byte[] getHash() {
+            byte[] result = hash;
+            if (result == null) {
+                result = Hash.getSha256Hash(protoMessage.toByteArray());
+                hash = result;
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.storage;
+
+import bisq.network.p2p.NodeAddress;
+import bisq.network.p2p.storage.payload.ExpirablePayload;
+import bisq.network.p2p.storage.payload.ProtectedStorageEntry;
+import bisq.network.p2p.storage.payload.ProtectedStoragePayload;
+import bisq.network.p2p.storage.payload.RequiresOwnerIsOnlinePayload;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Secondary indexes over the ProtectedStorageEntries of the P2PDataStorage map, so the expiry check and the handling
+ * of a disconnected peer only touch the relevant entries instead of scanning the whole map.
+ *
+ * The expiry index is ordered by the expiration time (creation time stamp plus TTL) of the entries with an
+ * ExpirablePayload. The owner index holds the entries with a RequiresOwnerIsOnlinePayload by the owner's NodeAddress.
+ *
+ * The indexes must be updated together with the map. If the creation time stamp of an entry changes (backDate) it
+ * has to be put again.
+ */
+@ThreadSafe
+class ProtectedStorageEntryIndex {
+    private final NavigableMap<Long, Set<P2PDataStorage.ByteArray>> hashesByExpirationTime = new TreeMap<>();
+    private final Map<P2PDataStorage.ByteArray, Long> expirationTimeByHash = new HashMap<>();
+    private final Map<NodeAddress, Set<P2PDataStorage.ByteArray>> hashesByOwnerNodeAddress = new HashMap<>();
+
+    synchronized void put(P2PDataStorage.ByteArray hashOfPayload, ProtectedStorageEntry protectedStorageEntry) {
+        remove(hashOfPayload, protectedStorageEntry);
+
+        ProtectedStoragePayload protectedStoragePayload = protectedStorageEntry.getProtectedStoragePayload();
+        if (protectedStoragePayload instanceof ExpirablePayload) {
+            long expirationTime = getExpirationTime(protectedStorageEntry);
+            expirationTimeByHash.put(hashOfPayload, expirationTime);
+            hashesByExpirationTime.computeIfAbsent(expirationTime, e -> new HashSet<>()).add(hashOfPayload);
+        }
+
+        NodeAddress ownerNodeAddress = getOwnerNodeAddress(protectedStorageEntry);
+        if (ownerNodeAddress != null)
+            hashesByOwnerNodeAddress.computeIfAbsent(ownerNodeAddress, e -> new HashSet<>()).add(hashOfPayload);
+    }
+
+    // The entry is used to find the owner. Entries for the same hash have the same payload, so it does not matter
+    // which of them was put.
+    synchronized void remove(P2PDataStorage.ByteArray hashOfPayload, ProtectedStorageEntry protectedStorageEntry) {
+        Long expirationTime = expirationTimeByHash.remove(hashOfPayload);
+        if (expirationTime != null) {
+            Set<P2PDataStorage.ByteArray> hashes = hashesByExpirationTime.get(expirationTime);
+            hashes.remove(hashOfPayload);
+            if (hashes.isEmpty())
+                hashesByExpirationTime.remove(expirationTime);
+        }
+
+        NodeAddress ownerNodeAddress = getOwnerNodeAddress(protectedStorageEntry);
+        if (ownerNodeAddress != null) {
+            Set<P2PDataStorage.ByteArray> hashes = hashesByOwnerNodeAddress.get(ownerNodeAddress);
+            if (hashes != null) {
+                hashes.remove(hashOfPayload);
+                if (hashes.isEmpty())
+                    hashesByOwnerNodeAddress.remove(ownerNodeAddress);
+            }
+        }
+    }
+
+    // Returns the hashes of all entries which expired before now (see ProtectedStorageEntry.isExpired)
+    synchronized List<P2PDataStorage.ByteArray> getExpiredHashes(long now) {
+        List<P2PDataStorage.ByteArray> result = new ArrayList<>();
+        hashesByExpirationTime.headMap(now, false).values().forEach(result::addAll);
+        return result;
+    }
+
+    synchronized Set<P2PDataStorage.ByteArray> getHashesByOwnerNodeAddress(NodeAddress ownerNodeAddress) {
+        Set<P2PDataStorage.ByteArray> hashes = hashesByOwnerNodeAddress.get(ownerNodeAddress);
+        return hashes != null ? new HashSet<>(hashes) : Collections.emptySet();
+    }
+
+    synchronized int size() {
+        return expirationTimeByHash.size();
+    }
+
+    private static long getExpirationTime(ProtectedStorageEntry protectedStorageEntry) {
+        long ttl = ((ExpirablePayload) protectedStorageEntry.getProtectedStoragePayload()).getTTL();
+        long creationTimeStamp = protectedStorageEntry.getCreationTimeStamp();
+        // Avoid overflow for very large TTLs
+        return ttl > Long.MAX_VALUE - creationTimeStamp ? Long.MAX_VALUE : creationTimeStamp + ttl;
+    }
+
+    @Nullable
+    private static NodeAddress getOwnerNodeAddress(ProtectedStorageEntry protectedStorageEntry) {
+        ProtectedStoragePayload protectedStoragePayload = protectedStorageEntry.getProtectedStoragePayload();
+        if (!(protectedStoragePayload instanceof RequiresOwnerIsOnlinePayload))
+            return null;
+
+        return ((RequiresOwnerIsOnlinePayload) protectedStoragePayload).getOwnerNodeAddress();
+    }
+}
@@ -31,6 +31,8 @@ import java.util.stream.Collectors;
 
 import lombok.extern.slf4j.Slf4j;
 
+import javax.annotation.Nullable;
+
 /**
  * Used for PersistableNetworkPayload data which gets appended to a map storage.
  */
@@ -81,6 +83,28 @@ public class AppendOnlyDataStoreService {
                 .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
     }
 
+    @Nullable
+    public PersistableNetworkPayload get(P2PDataStorage.ByteArray hashAsByteArray) {
+        // Avoids building the merged map of all services if we only need a single entry
+        for (MapStoreService<? extends PersistableEnvelope, PersistableNetworkPayload> service : services) {
+            PersistableNetworkPayload payload = service.getMap().get(hashAsByteArray);
+            if (payload != null)
+                return payload;
+        }
+        return null;
+    }
+
+    public boolean containsKey(P2PDataStorage.ByteArray hashAsByteArray) {
+        return get(hashAsByteArray) != null;
+    }
+
+    // Avoids building the merged map of all services if we only need the keys
+    public List<P2PDataStorage.ByteArray> getKeys() {
+        List<P2PDataStorage.ByteArray> keys = new ArrayList<>();
+        services.forEach(service -> keys.addAll(service.getMap().keySet()));
+        return keys;
+    }
+
     public void put(P2PDataStorage.ByteArray hashAsByteArray, PersistableNetworkPayload payload) {
         services.stream()
                 .filter(service -> service.canHandle(payload))
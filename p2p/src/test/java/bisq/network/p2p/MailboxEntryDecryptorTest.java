@@ -0,0 +1,162 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p;
+
+import bisq.network.crypto.EncryptionService;
+import bisq.network.p2p.storage.payload.MailboxStoragePayload;
+import bisq.network.p2p.storage.payload.ProtectedMailboxStorageEntry;
+
+import bisq.common.crypto.CryptoException;
+import bisq.common.crypto.KeyRing;
+import bisq.common.crypto.KeyStorage;
+import bisq.common.crypto.SealedAndSigned;
+import bisq.common.proto.network.NetworkEnvelope;
+
+import org.apache.commons.lang3.RandomUtils;
+
+import java.time.Clock;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MailboxEntryDecryptorTest {
+    private KeyRing keyRing;
+    private EncryptionService encryptionService;
+
+    @Before
+    public void setUp() throws IOException {
+        File dir = File.createTempFile("temp_tests", "");
+        //noinspection ResultOfMethodCallIgnored
+        dir.delete();
+        //noinspection ResultOfMethodCallIgnored
+        dir.mkdir();
+        keyRing = new KeyRing(new KeyStorage(dir));
+        encryptionService = mock(EncryptionService.class);
+    }
+
+    @Test
+    public void decrypt_withoutThreads() throws Exception {
+        ProtectedMailboxStorageEntry forUs = getEntry();
+        ProtectedMailboxStorageEntry notForUs = getEntry();
+        DecryptedMessageWithPubKey decrypted = getDecryptedMessage();
+        doThrow(new CryptoException("not for us")).when(encryptionService).decryptAndVerify(any());
+        doReturn(decrypted).when(encryptionService).decryptAndVerify(same(getSealedAndSigned(forUs)));
+
+        MailboxEntryDecryptor decryptor = new MailboxEntryDecryptor(encryptionService, 0);
+        List<DecryptedMessageWithPubKey> results = new ArrayList<>();
+        decryptor.decrypt(notForUs, (entry, result) -> results.add(result));
+        decryptor.decrypt(forUs, (entry, result) -> {
+            Assert.assertSame(forUs, entry);
+            results.add(result);
+        });
+
+        Assert.assertEquals(Collections.singletonList(decrypted), results);
+        Assert.assertEquals(2, decryptor.getNumTried());
+        Assert.assertEquals(1, decryptor.getNumDecrypted());
+    }
+
+    @Test
+    public void decrypt_withThreads() throws Exception {
+        DecryptedMessageWithPubKey decrypted = getDecryptedMessage();
+        when(encryptionService.decryptAndVerify(any())).thenReturn(decrypted);
+
+        int numEntries = 50;
+        MailboxEntryDecryptor decryptor = new MailboxEntryDecryptor(encryptionService, 4);
+        CountDownLatch latch = new CountDownLatch(numEntries);
+        for (int i = 0; i < numEntries; i++) {
+            decryptor.decrypt(getEntry(), (entry, result) -> latch.countDown());
+        }
+
+        Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+        Assert.assertEquals(numEntries, decryptor.getNumTried());
+        Assert.assertEquals(numEntries, decryptor.getNumDecrypted());
+        decryptor.shutDown();
+    }
+
+    @Test
+    public void runWhenIdle_calledAfterAllResults() throws Exception {
+        DecryptedMessageWithPubKey decrypted = getDecryptedMessage();
+        when(encryptionService.decryptAndVerify(any())).thenReturn(decrypted);
+
+        int numEntries = 20;
+        MailboxEntryDecryptor decryptor = new MailboxEntryDecryptor(encryptionService, 4);
+        List<DecryptedMessageWithPubKey> results = Collections.synchronizedList(new ArrayList<>());
+        for (int i = 0; i < numEntries; i++) {
+            decryptor.decrypt(getEntry(), (entry, result) -> results.add(result));
+        }
+
+        CountDownLatch latch = new CountDownLatch(1);
+        List<Integer> numResultsAtIdle = new ArrayList<>();
+        decryptor.runWhenIdle(() -> {
+            numResultsAtIdle.add(results.size());
+            latch.countDown();
+        });
+
+        Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+        Assert.assertEquals(Collections.singletonList(numEntries), numResultsAtIdle);
+        Assert.assertEquals(0, decryptor.getNumPending());
+        decryptor.shutDown();
+    }
+
+    @Test
+    public void runWhenIdle_withoutPendingEntries() {
+        MailboxEntryDecryptor decryptor = new MailboxEntryDecryptor(encryptionService, 4);
+        List<Boolean> called = new ArrayList<>();
+        decryptor.runWhenIdle(() -> called.add(true));
+        Assert.assertEquals(Collections.singletonList(true), called);
+        decryptor.shutDown();
+    }
+
+    private ProtectedMailboxStorageEntry getEntry() {
+        SealedAndSigned sealedAndSigned = new SealedAndSigned(RandomUtils.nextBytes(10), RandomUtils.nextBytes(10),
+                RandomUtils.nextBytes(10), keyRing.getPubKeyRing().getSignaturePubKey());
+        PrefixedSealedAndSignedMessage prefixedSealedAndSignedMessage = new PrefixedSealedAndSignedMessage(
+                new NodeAddress("host", 1000), sealedAndSigned, RandomUtils.nextBytes(10),
+                UUID.randomUUID().toString());
+        MailboxStoragePayload mailboxStoragePayload = new MailboxStoragePayload(prefixedSealedAndSignedMessage,
+                keyRing.getPubKeyRing().getSignaturePubKey(), keyRing.getPubKeyRing().getSignaturePubKey());
+        return new ProtectedMailboxStorageEntry(mailboxStoragePayload, keyRing.getSignatureKeyPair().getPublic(), 1,
+                RandomUtils.nextBytes(10), keyRing.getPubKeyRing().getSignaturePubKey(), Clock.systemDefaultZone());
+    }
+
+    private static SealedAndSigned getSealedAndSigned(ProtectedMailboxStorageEntry entry) {
+        return entry.getMailboxStoragePayload().getPrefixedSealedAndSignedMessage().getSealedAndSigned();
+    }
+
+    private DecryptedMessageWithPubKey getDecryptedMessage() {
+        return new DecryptedMessageWithPubKey(mock(NetworkEnvelope.class), keyRing.getSignatureKeyPair().getPublic());
+    }
+}
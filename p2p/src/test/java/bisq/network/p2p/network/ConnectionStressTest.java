@@ -0,0 +1,279 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.network;
+
+import bisq.network.p2p.peers.keepalive.messages.Ping;
+import bisq.network.p2p.peers.keepalive.messages.Pong;
+
+import bisq.common.Payload;
+import bisq.common.config.Config;
+import bisq.common.proto.network.NetworkEnvelope;
+import bisq.common.proto.network.NetworkPayload;
+import bisq.common.proto.network.NetworkProtoResolver;
+import bisq.common.proto.persistable.PersistableEnvelope;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+
+import java.time.Clock;
+
+import java.lang.management.ManagementFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.junit.BeforeClass;
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Stress harness for the threading modes of the network layer. A server node gets numConnections inbound connections
+ * from as many client nodes. Each client sends numPingsPerConnection pings one after the other and the server replies
+ * with a pong. We report the heap usage and platform thread count with all connections open, the ping latency and
+ * the throughput.
+ *
+ * Not run with the build as it takes a while and needs a few thousand free ports and file handles
+ * (ulimit -n). Run a single mode with e.g.
+ * gradle :p2p:test --tests ConnectionStressTest.testVirtualThreads -DnumConnections=5000 after removing the @Ignore.
+ */
+@Ignore
+@Slf4j
+public class ConnectionStressTest {
+    private static final int SERVER_PORT = 9100;
+    private static final int FIRST_CLIENT_PORT = 9101;
+    private static final int NUM_CONNECTIONS = Integer.getInteger("numConnections", 2000);
+    private static final int NUM_PINGS_PER_CONNECTION = Integer.getInteger("numPingsPerConnection", 10);
+
+    @BeforeClass
+    public static void setUpClass() {
+        // Connection gets the throttle settings from the statically injected config
+        Config config = new Config();
+        Guice.createInjector(new AbstractModule() {
+            @Override
+            protected void configure() {
+                bind(Config.class).toInstance(config);
+                requestStaticInjection(Connection.class);
+            }
+        });
+        LocalhostNetworkNode.setSimulateTorDelayTorNode(0);
+        LocalhostNetworkNode.setSimulateTorDelayHiddenService(0);
+    }
+
+    @Test
+    public void testPlatformThreads() throws Exception {
+        NetworkThreads.setUseVirtualThreads(false);
+        run("platform threads", false);
+    }
+
+    @Test
+    public void testVirtualThreads() throws Exception {
+        NetworkThreads.setUseVirtualThreads(true);
+        run(NetworkThreads.isUsingVirtualThreads() ? "virtual threads" : "virtual threads (not supported, platform threads used)",
+                false);
+    }
+
+    @Test
+    public void testNioTransport() throws Exception {
+        NetworkThreads.setUseVirtualThreads(false);
+        run("NIO transport", true);
+    }
+
+    private void run(String mode, boolean useNioTransport) throws Exception {
+        NetworkProtoResolver networkProtoResolver = getNetworkProtoResolver();
+        System.gc();
+        long usedMemoryAtStart = getUsedMemory();
+        int threadCountAtStart = ManagementFactory.getThreadMXBean().getThreadCount();
+
+        LocalhostNetworkNode server = new LocalhostNetworkNode(SERVER_PORT, networkProtoResolver, useNioTransport);
+        server.addMessageListener((networkEnvelope, connection) -> {
+            if (networkEnvelope instanceof Ping)
+                server.sendMessage(connection, new Pong(((Ping) networkEnvelope).getNonce()));
+        });
+        start(Collections.singletonList(server));
+
+        // Pings sent with their nonce as key
+        Map<Integer, Long> pendingPings = new ConcurrentHashMap<>();
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger nonceCounter = new AtomicInteger();
+        CountDownLatch connectedLatch = new CountDownLatch(NUM_CONNECTIONS);
+        CountDownLatch pongLatch = new CountDownLatch(NUM_CONNECTIONS * NUM_PINGS_PER_CONNECTION);
+        List<LocalhostNetworkNode> clients = new ArrayList<>();
+        for (int i = 0; i < NUM_CONNECTIONS; i++) {
+            LocalhostNetworkNode client = new LocalhostNetworkNode(FIRST_CLIENT_PORT + i, networkProtoResolver,
+                    useNioTransport);
+            AtomicInteger numPongs = new AtomicInteger();
+            client.addMessageListener((networkEnvelope, connection) -> {
+                if (networkEnvelope instanceof Pong) {
+                    Long sendTime = pendingPings.remove(((Pong) networkEnvelope).getRequestNonce());
+                    if (sendTime != null)
+                        latencies.add(System.nanoTime() - sendTime);
+                    pongLatch.countDown();
+                    if (numPongs.incrementAndGet() == 1)
+                        connectedLatch.countDown();
+                    if (numPongs.get() < NUM_PINGS_PER_CONNECTION)
+                        sendPing(client, connection, pendingPings, nonceCounter);
+                }
+            });
+            clients.add(client);
+        }
+        start(clients);
+
+        long startTime = System.nanoTime();
+        clients.forEach(client -> {
+            int nonce = nonceCounter.incrementAndGet();
+            pendingPings.put(nonce, System.nanoTime());
+            client.sendMessage(server.getNodeAddress(), new Ping(nonce, 0));
+        });
+
+        if (!connectedLatch.await(5, TimeUnit.MINUTES))
+            log.warn("Only {} of {} connections got established", NUM_CONNECTIONS - connectedLatch.getCount(),
+                    NUM_CONNECTIONS);
+
+        // All connections are open now
+        System.gc();
+        long usedMemory = getUsedMemory() - usedMemoryAtStart;
+        int threadCount = ManagementFactory.getThreadMXBean().getThreadCount() - threadCountAtStart;
+
+        boolean completed = pongLatch.await(5, TimeUnit.MINUTES);
+        long durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        long numPongs = (long) NUM_CONNECTIONS * NUM_PINGS_PER_CONNECTION - pongLatch.getCount();
+
+        List<Long> sortedLatencies;
+        synchronized (latencies) {
+            sortedLatencies = new ArrayList<>(latencies);
+        }
+        Collections.sort(sortedLatencies);
+        log.info("\n\n############################################################\n" +
+                        "Mode: {}\n" +
+                        "Connections: {}, pings per connection: {}, completed: {}\n" +
+                        "Heap used: {} MB ({} KB per connection), additional platform threads: {}\n" +
+                        "Latency median: {} ms, 99th percentile: {} ms, max: {} ms\n" +
+                        "Throughput: {} pongs/sec ({} pongs in {} ms)\n" +
+                        "############################################################\n",
+                mode,
+                NUM_CONNECTIONS, NUM_PINGS_PER_CONNECTION, completed,
+                usedMemory / 1024 / 1024, usedMemory / 1024 / NUM_CONNECTIONS, threadCount,
+                toMillis(getPercentile(sortedLatencies, 0.5)), toMillis(getPercentile(sortedLatencies, 0.99)),
+                toMillis(getPercentile(sortedLatencies, 1)),
+                durationMs > 0 ? numPongs * 1000 / durationMs : numPongs, numPongs, durationMs);
+
+        clients.add(server);
+        CountDownLatch shutDownLatch = new CountDownLatch(clients.size());
+        clients.forEach(node -> node.shutDown(shutDownLatch::countDown));
+        shutDownLatch.await();
+        // Give the ports time to get released before the next mode is run
+        Thread.sleep(2000);
+    }
+
+    private static void sendPing(NetworkNode client,
+                                 Connection connection,
+                                 Map<Integer, Long> pendingPings,
+                                 AtomicInteger nonceCounter) {
+        int nonce = nonceCounter.incrementAndGet();
+        pendingPings.put(nonce, System.nanoTime());
+        client.sendMessage(connection, new Ping(nonce, 0));
+    }
+
+    private static void start(List<LocalhostNetworkNode> nodes) throws InterruptedException {
+        CountDownLatch startupLatch = new CountDownLatch(nodes.size());
+        nodes.forEach(node -> node.start(new SetupListener() {
+            @Override
+            public void onTorNodeReady() {
+            }
+
+            @Override
+            public void onHiddenServicePublished() {
+                startupLatch.countDown();
+            }
+
+            @Override
+            public void onSetupFailed(Throwable throwable) {
+            }
+
+            @Override
+            public void onRequestCustomBridges() {
+            }
+        }));
+        startupLatch.await();
+    }
+
+    private static long getUsedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long getPercentile(List<Long> sortedValues, double percentile) {
+        if (sortedValues.isEmpty())
+            return 0;
+        int index = (int) Math.ceil(percentile * sortedValues.size()) - 1;
+        return sortedValues.get(Math.max(0, Math.min(sortedValues.size() - 1, index)));
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000d;
+    }
+
+    private static NetworkProtoResolver getNetworkProtoResolver() {
+        return new NetworkProtoResolver() {
+            @Override
+            public NetworkEnvelope fromProto(protobuf.NetworkEnvelope proto) {
+                switch (proto.getMessageCase()) {
+                    case PING:
+                        return Ping.fromProto(proto.getPing(), proto.getMessageVersion());
+                    case PONG:
+                        return Pong.fromProto(proto.getPong(), proto.getMessageVersion());
+                    default:
+                        throw new IllegalArgumentException("Unexpected message " + proto.getMessageCase());
+                }
+            }
+
+            @Override
+            public Payload fromProto(protobuf.PaymentAccountPayload proto) {
+                return null;
+            }
+
+            @Override
+            public PersistableEnvelope fromProto(protobuf.PersistableNetworkPayload proto) {
+                return null;
+            }
+
+            @Override
+            public NetworkPayload fromProto(protobuf.StoragePayload proto) {
+                return null;
+            }
+
+            @Override
+            public NetworkPayload fromProto(protobuf.StorageEntryWrapper proto) {
+                return null;
+            }
+
+            @Override
+            public Clock getClock() {
+                return Clock.systemDefaultZone();
+            }
+        };
+    }
+}
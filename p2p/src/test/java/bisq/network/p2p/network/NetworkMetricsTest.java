@@ -0,0 +1,83 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.network;
+
+import bisq.network.p2p.peers.keepalive.messages.Ping;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class NetworkMetricsTest {
+    @Before
+    public void setUp() {
+        NetworkMetrics.clear();
+    }
+
+    @Test
+    public void testGetIsKeyedByTypeAndDirection() {
+        Ping ping = new Ping(1, 2);
+        MessageMetrics sent = NetworkMetrics.get(ping, NetworkMetrics.Direction.SENT);
+
+        assertSame(sent, NetworkMetrics.get(new Ping(3, 4), NetworkMetrics.Direction.SENT));
+        assertSame(sent, NetworkMetrics.get(new SerializedNetworkEnvelope(ping), NetworkMetrics.Direction.SENT));
+        assertTrue(sent != NetworkMetrics.get(ping, NetworkMetrics.Direction.RECEIVED));
+        assertEquals("Ping", sent.getMessageType());
+    }
+
+    @Test
+    public void testHistogramBuckets() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(TimeUnit.MICROSECONDS.toNanos(50));
+        histogram.record(TimeUnit.MICROSECONDS.toNanos(100));
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(2));
+        histogram.record(TimeUnit.SECONDS.toNanos(10));
+
+        assertEquals(2, histogram.getBucketCount(0));
+        assertEquals(0, histogram.getBucketCount(1));
+        assertEquals(2, histogram.getCumulativeBucketCount(2));
+        assertEquals(3, histogram.getCumulativeBucketCount(3));
+        assertEquals(3, histogram.getCumulativeBucketCount(LatencyHistogram.getNumBuckets() - 1));
+        assertEquals(4, histogram.getCount());
+    }
+
+    @Test
+    public void testPrometheusExport() {
+        MessageMetrics metrics = NetworkMetrics.get(new Ping(1, 2), NetworkMetrics.Direction.SENT);
+        metrics.addMessage(10);
+        metrics.addMessage(20);
+        metrics.getProcessingTime().record(TimeUnit.MILLISECONDS.toNanos(1));
+
+        List<MessageMetrics> all = NetworkMetrics.getAll();
+        String result = new PrometheusNetworkMetricsExporter().export(all);
+
+        assertTrue(result.contains("bisq_p2p_messages_total{type=\"Ping\",direction=\"sent\"} 2\n"));
+        assertTrue(result.contains("bisq_p2p_message_bytes_total{type=\"Ping\",direction=\"sent\"} 30\n"));
+        assertTrue(result.contains(
+                "bisq_p2p_message_processing_seconds_bucket{type=\"Ping\",direction=\"sent\",le=\"0.001000\"} 1\n"));
+        assertTrue(result.contains(
+                "bisq_p2p_message_processing_seconds_bucket{type=\"Ping\",direction=\"sent\",le=\"+Inf\"} 1\n"));
+        assertTrue(result.contains("bisq_p2p_message_queue_delay_seconds_count{type=\"Ping\",direction=\"sent\"} 0\n"));
+    }
+}
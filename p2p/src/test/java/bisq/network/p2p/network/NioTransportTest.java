@@ -0,0 +1,214 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.network;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+
+import com.google.common.util.concurrent.ListenableFuture;
+
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+import java.nio.channels.ServerSocketChannel;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class NioTransportTest {
+    private NioTransport nioTransport;
+    private ServerSocketChannel serverSocketChannel;
+    private final List<byte[]> receivedFrames = new CopyOnWriteArrayList<>();
+    private final List<NioChannel> channels = new CopyOnWriteArrayList<>();
+    private CountDownLatch closedLatch;
+
+    @Before
+    public void setUp() throws IOException {
+        nioTransport = new NioTransport("NioTransportTest", 2, TimeUnit.SECONDS.toMillis(60));
+        serverSocketChannel = ServerSocketChannel.open().bind(new InetSocketAddress("localhost", 0));
+        closedLatch = new CountDownLatch(1);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        serverSocketChannel.close();
+        nioTransport.shutDown();
+    }
+
+    @Test
+    public void testReceiveFrames() throws Exception {
+        CountDownLatch frameLatch = new CountDownLatch(3);
+        listen(frameLatch, 1024 * 1024);
+
+        byte[] small = new byte[]{1, 2, 3};
+        // Larger than the read buffer so the frame is received in several reads
+        byte[] large = new byte[200 * 1024];
+        new Random(1).nextBytes(large);
+        byte[] empty = new byte[0];
+
+        try (Socket socket = new Socket("localhost", serverSocketChannel.socket().getLocalPort())) {
+            OutputStream outputStream = socket.getOutputStream();
+            outputStream.write(toFrame(small));
+            outputStream.write(toFrame(large));
+            outputStream.write(toFrame(empty));
+            outputStream.flush();
+
+            assertTrue(frameLatch.await(5, TimeUnit.SECONDS));
+        }
+
+        assertEquals(3, receivedFrames.size());
+        assertArrayEquals(small, receivedFrames.get(0));
+        assertArrayEquals(large, receivedFrames.get(1));
+        assertArrayEquals(empty, receivedFrames.get(2));
+    }
+
+    @Test
+    public void testWriteFrames() throws Exception {
+        listen(new CountDownLatch(1), 1024);
+
+        byte[] data = new byte[100 * 1024];
+        new Random(2).nextBytes(data);
+
+        try (Socket socket = new Socket("localhost", serverSocketChannel.socket().getLocalPort())) {
+            long timeout = System.currentTimeMillis() + 5000;
+            while (channels.isEmpty() && System.currentTimeMillis() < timeout)
+                Thread.sleep(10);
+            channels.get(0).write(toFrame(data));
+
+            CodedInputStream codedInputStream = CodedInputStream.newInstance(socket.getInputStream());
+            codedInputStream.setSizeLimit(Integer.MAX_VALUE);
+            int size = codedInputStream.readRawVarint32();
+            assertArrayEquals(data, codedInputStream.readRawBytes(size));
+        }
+    }
+
+    @Test
+    public void testWriteFutureCompletesAfterFrameIsWritten() throws Exception {
+        listen(new CountDownLatch(1), 1024);
+
+        // Larger than the socket buffers, so it cannot be written before the peer reads
+        byte[] data = new byte[16 * 1024 * 1024];
+        new Random(3).nextBytes(data);
+
+        try (Socket socket = connectWithSmallReceiveBuffer()) {
+            ListenableFuture<Void> writeFuture = getChannel().write(toFrame(data));
+            Thread.sleep(200);
+            assertFalse(writeFuture.isDone());
+
+            CodedInputStream codedInputStream = CodedInputStream.newInstance(socket.getInputStream());
+            codedInputStream.setSizeLimit(Integer.MAX_VALUE);
+            int size = codedInputStream.readRawVarint32();
+            assertArrayEquals(data, codedInputStream.readRawBytes(size));
+            writeFuture.get(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void testWriteFutureFailsAtClose() throws Exception {
+        listen(new CountDownLatch(1), 1024);
+
+        try (Socket ignored = connectWithSmallReceiveBuffer()) {
+            NioChannel nioChannel = getChannel();
+            ListenableFuture<Void> writeFuture = nioChannel.write(toFrame(new byte[16 * 1024 * 1024]));
+            nioChannel.close();
+            try {
+                writeFuture.get(5, TimeUnit.SECONDS);
+                fail("The frame must not be reported as written");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof IOException);
+            }
+        }
+    }
+
+    @Test
+    public void testCloseAtExceededFrameSize() throws Exception {
+        listen(new CountDownLatch(1), 1024);
+
+        try (Socket socket = new Socket("localhost", serverSocketChannel.socket().getLocalPort())) {
+            socket.getOutputStream().write(toFrame(new byte[2048]));
+            socket.getOutputStream().flush();
+
+            assertTrue(closedLatch.await(5, TimeUnit.SECONDS));
+            assertTrue(receivedFrames.isEmpty());
+        }
+    }
+
+    private void listen(CountDownLatch frameLatch, int maxFrameSize) throws IOException {
+        nioTransport.listen(serverSocketChannel, socketChannel -> {
+            try {
+                NioChannel nioChannel = nioTransport.createChannel(socketChannel);
+                nioChannel.start(new NioChannel.Handler() {
+                    @Override
+                    public void onFrame(byte[] frame) {
+                        receivedFrames.add(frame);
+                        frameLatch.countDown();
+                    }
+
+                    @Override
+                    public void onClosed(Throwable cause) {
+                        closedLatch.countDown();
+                    }
+                }, maxFrameSize);
+                channels.add(nioChannel);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+
+    private Socket connectWithSmallReceiveBuffer() throws IOException {
+        Socket socket = new Socket();
+        socket.setReceiveBufferSize(4096);
+        socket.connect(new InetSocketAddress("localhost", serverSocketChannel.socket().getLocalPort()));
+        return socket;
+    }
+
+    private NioChannel getChannel() throws InterruptedException {
+        long timeout = System.currentTimeMillis() + 5000;
+        while (channels.isEmpty() && System.currentTimeMillis() < timeout)
+            Thread.sleep(10);
+        return channels.get(0);
+    }
+
+    private static byte[] toFrame(byte[] data) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        CodedOutputStream codedOutputStream = CodedOutputStream.newInstance(outputStream);
+        codedOutputStream.writeUInt32NoTag(data.length);
+        codedOutputStream.writeRawBytes(data);
+        codedOutputStream.flush();
+        return outputStream.toByteArray();
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.network;
+
+import bisq.network.p2p.peers.keepalive.messages.Ping;
+
+import bisq.common.proto.network.NetworkEnvelope;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class SerializedNetworkEnvelopeTest {
+    private static class CountingPing extends NetworkEnvelope {
+        private final Ping ping = new Ping(1, 2);
+        private int numToProtoCalls;
+
+        CountingPing() {
+            super(1);
+        }
+
+        @Override
+        public protobuf.NetworkEnvelope toProtoNetworkEnvelope() {
+            numToProtoCalls++;
+            return ping.toProtoNetworkEnvelope();
+        }
+    }
+
+    @Test
+    public void testWritesSameBytesAsWrappedEnvelope() throws IOException {
+        Ping ping = new Ping(42, 7);
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        ping.toProtoNetworkEnvelope().writeDelimitedTo(expected);
+
+        SerializedNetworkEnvelope serializedNetworkEnvelope = new SerializedNetworkEnvelope(ping);
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        serializedNetworkEnvelope.writeDelimitedTo(first);
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+        serializedNetworkEnvelope.writeDelimitedTo(second);
+
+        assertArrayEquals(expected.toByteArray(), first.toByteArray());
+        assertArrayEquals(expected.toByteArray(), second.toByteArray());
+        assertEquals(ping.toProtoNetworkEnvelope().getSerializedSize(), serializedNetworkEnvelope.getSerializedSize());
+    }
+
+    @Test
+    public void testSerializesOnlyOnce() throws IOException {
+        CountingPing countingPing = new CountingPing();
+        SerializedNetworkEnvelope serializedNetworkEnvelope = new SerializedNetworkEnvelope(countingPing);
+
+        for (int i = 0; i < 5; i++) {
+            serializedNetworkEnvelope.toProtoNetworkEnvelope();
+            serializedNetworkEnvelope.getSerializedSize();
+            serializedNetworkEnvelope.writeDelimitedTo(new ByteArrayOutputStream());
+        }
+
+        assertEquals(1, countingPing.numToProtoCalls);
+    }
+
+    @Test
+    public void testUnwrap() {
+        Ping ping = new Ping(1, 2);
+        SerializedNetworkEnvelope serializedNetworkEnvelope = new SerializedNetworkEnvelope(ping);
+
+        assertSame(ping, SerializedNetworkEnvelope.unwrap(serializedNetworkEnvelope));
+        assertSame(ping, SerializedNetworkEnvelope.unwrap(ping));
+        // Wrapping twice does not nest
+        assertSame(ping, new SerializedNetworkEnvelope(serializedNetworkEnvelope).getNetworkEnvelope());
+    }
+}
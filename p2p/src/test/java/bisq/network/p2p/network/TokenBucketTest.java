@@ -0,0 +1,72 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.network;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TokenBucketTest {
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    public void testBurstUpToCapacity() {
+        TokenBucket tokenBucket = new TokenBucket(3, 10, 0);
+
+        assertTrue(tokenBucket.tryConsume(0));
+        assertTrue(tokenBucket.tryConsume(0));
+        assertTrue(tokenBucket.tryConsume(0));
+        assertFalse(tokenBucket.tryConsume(0));
+    }
+
+    @Test
+    public void testRefill() {
+        TokenBucket tokenBucket = new TokenBucket(1, 10, 0);
+
+        assertTrue(tokenBucket.tryConsume(0));
+        assertFalse(tokenBucket.tryConsume(50 * MS));
+        long millisUntilNextToken = tokenBucket.getMillisUntilNextToken(50 * MS);
+        assertTrue(millisUntilNextToken >= 50 && millisUntilNextToken <= 51);
+        assertTrue(tokenBucket.tryConsume(101 * MS));
+        assertFalse(tokenBucket.tryConsume(101 * MS));
+    }
+
+    @Test
+    public void testRefillIsLimitedByCapacity() {
+        TokenBucket tokenBucket = new TokenBucket(2, 10, 0);
+        tokenBucket.tryConsume(0);
+        tokenBucket.tryConsume(0);
+
+        // After 10 sec we would have 100 tokens without the limit
+        long now = 10_000 * MS;
+        assertTrue(tokenBucket.tryConsume(now));
+        assertTrue(tokenBucket.tryConsume(now));
+        assertFalse(tokenBucket.tryConsume(now));
+    }
+
+    @Test
+    public void testNoTokenWaitIfAvailable() {
+        TokenBucket tokenBucket = new TokenBucket(1, 1, 0);
+
+        assertEquals(0, tokenBucket.getMillisUntilNextToken(0));
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.storage;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Compares the heap usage of a HashSet<ByteArray> with a ByteArrayHashSet for 1 million 20 byte hashes, which is
+ * about the size of the append only data we will have with a few more years of trade statistics and account age
+ * witnesses.
+ *
+ * Not run with the build as the heap measurement needs a quiet JVM. Run with e.g.
+ * gradle :p2p:test --tests ByteArrayHashSetMemoryBenchmark -DnumKeys=1000000 after removing the @Ignore.
+ */
+@Ignore
+@Slf4j
+public class ByteArrayHashSetMemoryBenchmark {
+    private static final int NUM_KEYS = Integer.getInteger("numKeys", 1_000_000);
+    private static final int KEY_SIZE = 20;
+
+    @Test
+    public void testHashSet() {
+        Random random = new Random(1);
+        long before = getUsedHeap();
+        Set<P2PDataStorage.ByteArray> set = new HashSet<>();
+        for (int i = 0; i < NUM_KEYS; i++) {
+            byte[] key = new byte[KEY_SIZE];
+            random.nextBytes(key);
+            set.add(new P2PDataStorage.ByteArray(key));
+        }
+        long used = getUsedHeap() - before;
+        log.info("HashSet<ByteArray> with {} keys: {} MB, {} bytes per key",
+                set.size(), used / 1_000_000, used / set.size());
+    }
+
+    @Test
+    public void testByteArrayHashSet() {
+        Random random = new Random(1);
+        long before = getUsedHeap();
+        ByteArrayHashSet set = new ByteArrayHashSet();
+        byte[] key = new byte[KEY_SIZE];
+        for (int i = 0; i < NUM_KEYS; i++) {
+            random.nextBytes(key);
+            set.add(key);
+        }
+        long used = getUsedHeap() - before;
+        log.info("ByteArrayHashSet with {} keys: {} MB, {} bytes per key (buffers {} MB)",
+                set.size(), used / 1_000_000, used / set.size(), set.getMemoryFootprint() / 1_000_000);
+    }
+
+    @Test
+    public void testByteArrayHashSetOffHeap() {
+        Random random = new Random(1);
+        long before = getUsedHeap();
+        ByteArrayHashSet set = new ByteArrayHashSet(true);
+        byte[] key = new byte[KEY_SIZE];
+        for (int i = 0; i < NUM_KEYS; i++) {
+            random.nextBytes(key);
+            set.add(key);
+        }
+        long used = getUsedHeap() - before;
+        log.info("Off-heap ByteArrayHashSet with {} keys: {} MB heap, {} MB off-heap",
+                set.size(), used / 1_000_000, set.getMemoryFootprint() / 1_000_000);
+    }
+
+    private static long getUsedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
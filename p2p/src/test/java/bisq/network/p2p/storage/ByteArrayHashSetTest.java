@@ -0,0 +1,96 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.storage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ByteArrayHashSetTest {
+    private static List<byte[]> createKeys(int numKeys, int keySize) {
+        Random random = new Random(1);
+        List<byte[]> keys = new ArrayList<>(numKeys);
+        for (int i = 0; i < numKeys; i++) {
+            byte[] key = new byte[keySize];
+            random.nextBytes(key);
+            keys.add(key);
+        }
+        return keys;
+    }
+
+    @Test
+    public void testAddAndContains() {
+        ByteArrayHashSet set = new ByteArrayHashSet();
+        List<byte[]> keys = createKeys(10_000, 20);
+        keys.forEach(key -> assertTrue(set.add(key)));
+
+        assertEquals(10_000, set.size());
+        // Compared by value, not by identity
+        keys.forEach(key -> assertTrue(set.contains(key.clone())));
+        keys.forEach(key -> assertTrue(set.contains(new P2PDataStorage.ByteArray(key.clone()))));
+        keys.forEach(key -> assertFalse(set.add(key.clone())));
+        assertEquals(10_000, set.size());
+
+        createKeys(10_001, 20).subList(10_000, 10_001).forEach(key -> assertFalse(set.contains(key)));
+        assertFalse(set.contains(new byte[20]));
+    }
+
+    @Test
+    public void testMixedKeySizes() {
+        byte[] key20 = new byte[20];
+        byte[] key32 = new byte[32];
+        ByteArrayHashSet set = ByteArrayHashSet.of(Arrays.asList(key20, key32));
+
+        assertEquals(2, set.size());
+        assertTrue(set.contains(new byte[20]));
+        assertTrue(set.contains(new byte[32]));
+        assertFalse(set.contains(new byte[21]));
+    }
+
+    @Test
+    public void testKeysAreCopied() {
+        byte[] key = new byte[]{1, 2, 3};
+        ByteArrayHashSet set = new ByteArrayHashSet();
+        set.add(key);
+        key[0] = 9;
+
+        assertTrue(set.contains(new byte[]{1, 2, 3}));
+        assertFalse(set.contains(key));
+    }
+
+    @Test
+    public void testOfNull() {
+        assertTrue(ByteArrayHashSet.of(null).isEmpty());
+    }
+
+    @Test
+    public void testDirectMemory() {
+        List<byte[]> keys = createKeys(1000, 32);
+        ByteArrayHashSet set = ByteArrayHashSet.of(keys, true);
+
+        keys.forEach(key -> assertTrue(set.contains(key.clone())));
+        assertEquals(1000, set.size());
+    }
+}
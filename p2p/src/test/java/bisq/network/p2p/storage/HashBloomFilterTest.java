@@ -0,0 +1,105 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.storage;
+
+import bisq.common.crypto.Hash;
+
+import java.nio.ByteBuffer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class HashBloomFilterTest {
+    private static List<byte[]> getHashes(int offset, int numHashes) {
+        List<byte[]> hashes = new ArrayList<>();
+        for (int i = offset; i < offset + numHashes; i++)
+            hashes.add(Hash.getSha256Hash(ByteBuffer.allocate(4).putInt(i).array()));
+        return hashes;
+    }
+
+    @Test
+    public void mightContain_noFalseNegatives() {
+        List<byte[]> hashes = getHashes(0, 10000);
+        HashBloomFilter filter = HashBloomFilter.fromHashes(hashes, 0.001);
+
+        hashes.forEach(hash -> Assert.assertTrue(filter.mightContain(hash)));
+    }
+
+    @Test
+    public void mightContain_falsePositiveRateInRange() {
+        HashBloomFilter filter = HashBloomFilter.fromHashes(getHashes(0, 10000), 0.01);
+
+        long numFalsePositives = getHashes(10000, 10000).stream()
+                .filter(filter::mightContain)
+                .count();
+
+        // Expected are about 100
+        Assert.assertTrue(numFalsePositives < 200);
+    }
+
+    @Test
+    public void fromHashes_muchSmallerThanHashes() {
+        HashBloomFilter filter = HashBloomFilter.fromHashes(getHashes(0, 10000), 0.001);
+
+        // 10000 hashes would be 320 kB
+        Assert.assertTrue(filter.getSizeInBytes() < 20000);
+    }
+
+    @Test
+    public void fromHashes_empty() {
+        HashBloomFilter filter = HashBloomFilter.fromHashes(Collections.emptyList(), 0.001);
+
+        Assert.assertTrue(filter.getSizeInBytes() > 0);
+        Assert.assertFalse(filter.mightContain(getHashes(0, 1).get(0)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fromHashes_zeroFalsePositiveRate() {
+        HashBloomFilter.fromHashes(getHashes(0, 100), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fromHashes_falsePositiveRateOfOne() {
+        HashBloomFilter.fromHashes(getHashes(0, 100), 1);
+    }
+
+    @Test
+    public void protoRoundTrip() {
+        List<byte[]> hashes = getHashes(0, 100);
+        HashBloomFilter filter = HashBloomFilter.fromHashes(hashes, 0.001);
+
+        HashBloomFilter fromProto = HashBloomFilter.fromProto(filter.toProtoMessage());
+
+        Assert.assertEquals(filter, fromProto);
+        hashes.forEach(hash -> Assert.assertTrue(fromProto.mightContain(hash)));
+    }
+
+    @Test
+    public void fromProto_invalidNumHashFunctions() {
+        protobuf.HashBloomFilter proto = HashBloomFilter.fromHashes(getHashes(0, 100), 0.001).toProtoMessage()
+                .toBuilder()
+                .setNumHashFunctions(1000)
+                .build();
+
+        Assert.assertNull(HashBloomFilter.fromProto(proto));
+    }
+}
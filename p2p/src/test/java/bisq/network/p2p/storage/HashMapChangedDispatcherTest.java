@@ -0,0 +1,129 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.storage;
+
+import bisq.network.p2p.storage.payload.ProtectedStorageEntry;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.mockito.InOrder;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class HashMapChangedDispatcherTest {
+    private HashMapChangedListener listener;
+    private ProtectedStorageEntry entry1;
+    private ProtectedStorageEntry entry2;
+    private ProtectedStorageEntry entry3;
+
+    @Before
+    public void setUp() {
+        listener = mock(HashMapChangedListener.class);
+        entry1 = mock(ProtectedStorageEntry.class);
+        entry2 = mock(ProtectedStorageEntry.class);
+        entry3 = mock(ProtectedStorageEntry.class);
+    }
+
+    @Test
+    public void testNoBatchWindowDeliversImmediately() {
+        HashMapChangedDispatcher dispatcher = new HashMapChangedDispatcher(0);
+        dispatcher.addListener(listener);
+
+        dispatcher.onAdded(entry1);
+        verify(listener).onAdded(Collections.singletonList(entry1));
+
+        dispatcher.onRemoved(Collections.singletonList(entry1));
+        verify(listener).onRemoved(Collections.singletonList(entry1));
+    }
+
+    @Test
+    public void testRunBatchedCoalescesAndKeepsOrder() {
+        HashMapChangedDispatcher dispatcher = new HashMapChangedDispatcher(0);
+        dispatcher.addListener(listener);
+
+        dispatcher.runBatched(() -> {
+            dispatcher.onAdded(entry1);
+            dispatcher.onAdded(entry2);
+            dispatcher.onRemoved(Collections.singletonList(entry1));
+            dispatcher.onRemoved(Collections.singletonList(entry2));
+            dispatcher.onAdded(entry3);
+            verify(listener, never()).onAdded(any());
+        });
+
+        InOrder inOrder = inOrder(listener);
+        inOrder.verify(listener).onAdded(Arrays.asList(entry1, entry2));
+        inOrder.verify(listener).onRemoved(Arrays.asList(entry1, entry2));
+        inOrder.verify(listener).onAdded(Collections.singletonList(entry3));
+        inOrder.verifyNoMoreInteractions();
+    }
+
+    @Test
+    public void testNestedRunBatchedFlushesOnce() {
+        HashMapChangedDispatcher dispatcher = new HashMapChangedDispatcher(0);
+        dispatcher.addListener(listener);
+
+        dispatcher.runBatched(() -> {
+            dispatcher.runBatched(() -> dispatcher.onAdded(entry1));
+            dispatcher.onAdded(entry2);
+        });
+
+        verify(listener).onAdded(Arrays.asList(entry1, entry2));
+    }
+
+    @Test
+    public void testRunBatchedDeliversChangesIfRunnableThrows() {
+        HashMapChangedDispatcher dispatcher = new HashMapChangedDispatcher(0);
+        dispatcher.addListener(listener);
+
+        try {
+            dispatcher.runBatched(() -> {
+                dispatcher.onAdded(entry1);
+                throw new IllegalStateException();
+            });
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException ignore) {
+        }
+        verify(listener).onAdded(Collections.singletonList(entry1));
+
+        // The dispatcher is not stuck in batching mode
+        dispatcher.onAdded(entry2);
+        verify(listener).onAdded(Collections.singletonList(entry2));
+    }
+
+    @Test
+    public void testFlushDeliversPendingChanges() {
+        HashMapChangedDispatcher dispatcher = new HashMapChangedDispatcher(60_000);
+        dispatcher.addListener(listener);
+
+        dispatcher.onAdded(entry1);
+        dispatcher.onAdded(entry2);
+        verify(listener, never()).onAdded(any());
+
+        dispatcher.flush();
+        verify(listener).onAdded(Arrays.asList(entry1, entry2));
+    }
+}
@@ -461,6 +461,84 @@ public class P2PDataStorageBuildGetDataResponseTest {
             Assert.assertTrue(getDataResponse.getPersistableNetworkPayloadSet().isEmpty());
             Assert.assertTrue(getDataResponse.getDataSet().contains(onlyLocal));
         }
+
+        // TESTCASE: Given a GetDataRequest w/o known PNP and PSE, the parts contain all of them and only the last
+        // part has no more parts
+        @Test
+        public void buildNextGetDataResponsePart_sendsAllEntriesInParts() throws NoSuchAlgorithmException {
+            PersistableNetworkPayload onlyLocal1 = new PersistableNetworkPayloadStub(new byte[]{1});
+            PersistableNetworkPayload onlyLocal2 = new PersistableNetworkPayloadStub(new byte[]{2});
+            ProtectedStorageEntry onlyLocal3 = getProtectedStorageEntryForAdd();
+
+            this.testState.mockedStorage.addPersistableNetworkPayload(
+                    onlyLocal1, this.localNodeAddress, false);
+            this.testState.mockedStorage.addPersistableNetworkPayload(
+                    onlyLocal2, this.localNodeAddress, false);
+            this.testState.mockedStorage.addProtectedStorageEntry(
+                    onlyLocal3, this.localNodeAddress, null);
+
+            GetDataRequest getDataRequest = this.buildGetDataRequest(1, new HashSet<>());
+
+            GetDataResponseCursor cursor = this.testState.mockedStorage.buildGetDataResponseCursor(
+                    getDataRequest, new Capabilities());
+            Assert.assertEquals(3, cursor.getNumEntries());
+
+            GetDataResponse part0 = this.testState.mockedStorage.buildNextGetDataResponsePart(cursor, 2);
+            GetDataResponse part1 = this.testState.mockedStorage.buildNextGetDataResponsePart(cursor, 2);
+
+            Assert.assertEquals(0, part0.getPartIndex());
+            Assert.assertTrue(part0.isHasMoreParts());
+            Assert.assertEquals(2, part0.getPersistableNetworkPayloadSet().size());
+            Assert.assertTrue(part0.getDataSet().isEmpty());
+
+            Assert.assertEquals(1, part1.getPartIndex());
+            Assert.assertFalse(part1.isHasMoreParts());
+            Assert.assertEquals(1, part1.getRequestNonce());
+            Assert.assertEquals(getDataRequest instanceof GetUpdatedDataRequest, part1.isGetUpdatedDataResponse());
+            Assert.assertTrue(part1.getPersistableNetworkPayloadSet().isEmpty());
+            Assert.assertTrue(part1.getDataSet().contains(onlyLocal3));
+        }
+
+        // TESTCASE: Given a GetDataRequest w/ known PNP, a single empty last part is sent back
+        @Test
+        public void buildNextGetDataResponsePart_knownPNPSendsEmptyPart() {
+            PersistableNetworkPayload fromPeerAndLocal = new PersistableNetworkPayloadStub(new byte[]{1});
+
+            this.testState.mockedStorage.addPersistableNetworkPayload(
+                    fromPeerAndLocal, this.localNodeAddress, false);
+
+            GetDataRequest getDataRequest =
+                    this.buildGetDataRequest(1, new HashSet<>(Collections.singletonList(fromPeerAndLocal.getHash())));
+
+            GetDataResponseCursor cursor = this.testState.mockedStorage.buildGetDataResponseCursor(
+                    getDataRequest, new Capabilities());
+            GetDataResponse part0 = this.testState.mockedStorage.buildNextGetDataResponsePart(cursor, 2);
+
+            Assert.assertEquals(0, cursor.getNumEntries());
+            Assert.assertFalse(part0.isHasMoreParts());
+            Assert.assertTrue(part0.getPersistableNetworkPayloadSet().isEmpty());
+            Assert.assertTrue(part0.getDataSet().isEmpty());
+        }
+
+        // TESTCASE: Entries requiring capabilities the peer does not have are skipped in the parts
+        @Test
+        public void buildNextGetDataResponsePart_capabilitiesMismatchDontSendBack() {
+            PersistableNetworkPayload onlyLocal =
+                    new RequiredCapabilitiesPNPStub(new Capabilities(Collections.singletonList(Capability.MEDIATION)),
+                            new byte[]{1});
+
+            this.testState.mockedStorage.addPersistableNetworkPayload(
+                    onlyLocal, this.localNodeAddress, false);
+
+            GetDataRequest getDataRequest = this.buildGetDataRequest(1, new HashSet<>());
+
+            GetDataResponseCursor cursor = this.testState.mockedStorage.buildGetDataResponseCursor(
+                    getDataRequest, new Capabilities());
+            GetDataResponse part0 = this.testState.mockedStorage.buildNextGetDataResponsePart(cursor, 2);
+
+            Assert.assertFalse(part0.isHasMoreParts());
+            Assert.assertTrue(part0.getPersistableNetworkPayloadSet().isEmpty());
+        }
     }
 
     public static class P2PDataStorageBuildGetDataResponseTestPreliminary extends P2PDataStorageBuildGetDataResponseTestBase {
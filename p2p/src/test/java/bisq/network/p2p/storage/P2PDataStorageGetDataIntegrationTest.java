@@ -21,7 +21,9 @@ import bisq.network.p2p.TestUtils;
 import bisq.network.p2p.peers.getdata.messages.GetDataRequest;
 import bisq.network.p2p.peers.getdata.messages.GetDataResponse;
 import bisq.network.p2p.storage.mocks.PersistableExpirableProtectedStoragePayloadStub;
+import bisq.network.p2p.storage.mocks.PersistableNetworkPayloadStub;
 import bisq.network.p2p.storage.mocks.ProtectedStoragePayloadStub;
+import bisq.network.p2p.storage.payload.PersistableNetworkPayload;
 import bisq.network.p2p.storage.payload.ProtectedStorageEntry;
 import bisq.network.p2p.storage.payload.ProtectedStoragePayload;
 
@@ -155,6 +157,32 @@ public class P2PDataStorageGetDataIntegrationTest {
         Assert.assertTrue(clientNodeTestState.mockedStorage.getMap().containsValue(persistentEntry));
     }
 
+    // TESTCASE: With the excluded keys filter the seed node only sends the append only data the client does not know
+    @Test
+    public void basicSynchronizationWorksWithExcludedKeysFilter() {
+        TestState seedNodeTestState = new TestState();
+        P2PDataStorage seedNode = seedNodeTestState.mockedStorage;
+
+        TestState clientNodeTestState = new TestState();
+        P2PDataStorage clientNode = clientNodeTestState.mockedStorage;
+
+        PersistableNetworkPayload onSeedNodeAndClientNode = new PersistableNetworkPayloadStub(new byte[]{1});
+        PersistableNetworkPayload onSeedNode = new PersistableNetworkPayloadStub(new byte[]{2});
+        seedNode.addPersistableNetworkPayload(onSeedNodeAndClientNode, null, false);
+        seedNode.addPersistableNetworkPayload(onSeedNode, null, false);
+        clientNode.addPersistableNetworkPayload(onSeedNodeAndClientNode, null, false);
+
+        GetDataRequest getDataRequest = clientNode.buildPreliminaryGetDataRequest(1, true);
+        Assert.assertNotNull(getDataRequest.getExcludedKeysFilter());
+        Assert.assertTrue(getDataRequest.getExcludedKeys().isEmpty());
+
+        GetDataResponse getDataResponse = seedNode.buildGetDataResponse(
+                getDataRequest, 10, new AtomicBoolean(), new AtomicBoolean(), new Capabilities());
+
+        Assert.assertEquals(1, getDataResponse.getPersistableNetworkPayloadSet().size());
+        Assert.assertTrue(getDataResponse.getPersistableNetworkPayloadSet().contains(onSeedNode));
+    }
+
     // TESTCASE: Removes seen only by the seednode should be replayed on the client node
     // during startup
     // XXXBUGXXX: #3610 Lost removes are never replayed.
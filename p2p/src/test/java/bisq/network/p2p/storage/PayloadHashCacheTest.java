@@ -0,0 +1,104 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.storage;
+
+import bisq.network.p2p.TestUtils;
+import bisq.network.p2p.storage.mocks.ProtectedStoragePayloadStub;
+
+import bisq.common.crypto.Hash;
+
+import com.google.protobuf.Message;
+
+import java.security.KeyPair;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PayloadHashCacheTest {
+    private KeyPair ownerKeys;
+
+    private static class CountingPayloadStub extends ProtectedStoragePayloadStub {
+        int numToProtoMessageCalls;
+
+        CountingPayloadStub(PublicKey ownerPubKey) {
+            super(ownerPubKey);
+        }
+
+        @Override
+        public Message toProtoMessage() {
+            numToProtoMessageCalls++;
+            return super.toProtoMessage();
+        }
+    }
+
+    @Before
+    public void setUp() throws NoSuchAlgorithmException {
+        PayloadHashCache.invalidateAll();
+        ownerKeys = TestUtils.generateKeyPair();
+    }
+
+    @Test
+    public void get32ByteHash_matchesUncachedHash() {
+        CountingPayloadStub payload = new CountingPayloadStub(ownerKeys.getPublic());
+
+        byte[] expected = Hash.getSha256Hash(payload.toProtoMessage().toByteArray());
+
+        Assert.assertArrayEquals(expected, P2PDataStorage.get32ByteHash(payload));
+    }
+
+    @Test
+    public void get32ByteHash_serializesOnlyOnce() {
+        CountingPayloadStub payload = new CountingPayloadStub(ownerKeys.getPublic());
+
+        byte[] first = P2PDataStorage.get32ByteHash(payload);
+        byte[] second = P2PDataStorage.get32ByteHash(payload);
+        P2PDataStorage.get32ByteHash(new P2PDataStorage.DataAndSeqNrPair(payload, 1));
+        P2PDataStorage.get32ByteHash(new P2PDataStorage.DataAndSeqNrPair(payload, 2));
+
+        Assert.assertArrayEquals(first, second);
+        Assert.assertEquals(1, payload.numToProtoMessageCalls);
+    }
+
+    @Test
+    public void get32ByteHash_identityKeyed() {
+        CountingPayloadStub payload1 = new CountingPayloadStub(ownerKeys.getPublic());
+        CountingPayloadStub payload2 = new CountingPayloadStub(ownerKeys.getPublic());
+
+        P2PDataStorage.get32ByteHash(payload1);
+        P2PDataStorage.get32ByteHash(payload2);
+
+        Assert.assertEquals(1, payload1.numToProtoMessageCalls);
+        Assert.assertEquals(1, payload2.numToProtoMessageCalls);
+        Assert.assertEquals(2, PayloadHashCache.size());
+    }
+
+    @Test
+    public void dataAndSeqNrPair_hashDependsOnSequenceNumber() {
+        CountingPayloadStub payload = new CountingPayloadStub(ownerKeys.getPublic());
+
+        byte[] hash1 = P2PDataStorage.get32ByteHash(new P2PDataStorage.DataAndSeqNrPair(payload, 1));
+        byte[] hash2 = P2PDataStorage.get32ByteHash(new P2PDataStorage.DataAndSeqNrPair(payload, 2));
+
+        Assert.assertFalse(Arrays.equals(hash1, hash2));
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.storage;
+
+import bisq.network.p2p.NodeAddress;
+import bisq.network.p2p.TestUtils;
+import bisq.network.p2p.storage.mocks.ClockFake;
+import bisq.network.p2p.storage.mocks.ExpirableProtectedStoragePayloadStub;
+import bisq.network.p2p.storage.mocks.ProtectedStoragePayloadStub;
+import bisq.network.p2p.storage.payload.ProtectedStorageEntry;
+import bisq.network.p2p.storage.payload.ProtectedStoragePayload;
+
+import java.security.KeyPair;
+import java.security.NoSuchAlgorithmException;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ProtectedStorageEntryIndexTest {
+    private ClockFake clock;
+    private ProtectedStorageEntryIndex index;
+
+    @Before
+    public void setUp() {
+        clock = new ClockFake();
+        index = new ProtectedStorageEntryIndex();
+    }
+
+    private ProtectedStorageEntry createEntry(ProtectedStoragePayload payload) {
+        return new ProtectedStorageEntry(payload, payload.getOwnerPubKey(), 1, new byte[]{0}, clock);
+    }
+
+    @Test
+    public void testGetExpiredHashes() throws NoSuchAlgorithmException {
+        // The hash of the stub payload is derived from the owner key, so we need different keys
+        ProtectedStorageEntry shortTtl = createEntry(new ExpirableProtectedStoragePayloadStub(
+                TestUtils.generateKeyPair().getPublic(), 1000));
+        ProtectedStorageEntry longTtl = createEntry(new ExpirableProtectedStoragePayloadStub(
+                TestUtils.generateKeyPair().getPublic(), TimeUnit.DAYS.toMillis(1)));
+        P2PDataStorage.ByteArray shortTtlHash = P2PDataStorage.get32ByteHashAsByteArray(shortTtl.getProtectedStoragePayload());
+        P2PDataStorage.ByteArray longTtlHash = P2PDataStorage.get32ByteHashAsByteArray(longTtl.getProtectedStoragePayload());
+        index.put(shortTtlHash, shortTtl);
+        index.put(longTtlHash, longTtl);
+
+        // Same semantics as isExpired, the entry is expired only after the TTL has passed
+        clock.increment(1000);
+        Assert.assertFalse(shortTtl.isExpired(clock));
+        Assert.assertTrue(index.getExpiredHashes(clock.millis()).isEmpty());
+
+        clock.increment(1);
+        Assert.assertTrue(shortTtl.isExpired(clock));
+        Assert.assertEquals(Collections.singletonList(shortTtlHash), index.getExpiredHashes(clock.millis()));
+
+        index.remove(shortTtlHash, shortTtl);
+        Assert.assertTrue(index.getExpiredHashes(clock.millis()).isEmpty());
+        Assert.assertEquals(1, index.size());
+    }
+
+    @Test
+    public void testBackDateRequiresPut() throws NoSuchAlgorithmException {
+        KeyPair ownerKeys = TestUtils.generateKeyPair();
+        ProtectedStorageEntry entry = createEntry(new ExpirableProtectedStoragePayloadStub(ownerKeys.getPublic(), 1000));
+        P2PDataStorage.ByteArray hash = P2PDataStorage.get32ByteHashAsByteArray(entry.getProtectedStoragePayload());
+        index.put(hash, entry);
+
+        clock.increment(600);
+        entry.backDate();
+        index.put(hash, entry);
+
+        Assert.assertEquals(Collections.singletonList(hash), index.getExpiredHashes(clock.millis()));
+        Assert.assertEquals(1, index.size());
+    }
+
+    @Test
+    public void testNonExpirableEntriesAreNotIndexed() throws NoSuchAlgorithmException {
+        KeyPair ownerKeys = TestUtils.generateKeyPair();
+        ProtectedStorageEntry entry = createEntry(new ProtectedStoragePayloadStub(ownerKeys.getPublic()));
+        P2PDataStorage.ByteArray hash = P2PDataStorage.get32ByteHashAsByteArray(entry.getProtectedStoragePayload());
+        index.put(hash, entry);
+
+        clock.increment(TimeUnit.DAYS.toMillis(1000));
+        Assert.assertTrue(index.getExpiredHashes(clock.millis()).isEmpty());
+        Assert.assertTrue(index.getHashesByOwnerNodeAddress(TestState.getTestNodeAddress()).isEmpty());
+    }
+
+    @Test
+    public void testGetHashesByOwnerNodeAddress() throws NoSuchAlgorithmException {
+        KeyPair ownerKeys = TestUtils.generateKeyPair();
+        ProtectedStorageEntry entry = createEntry(new ExpirableProtectedStoragePayloadStub(ownerKeys.getPublic()));
+        P2PDataStorage.ByteArray hash = P2PDataStorage.get32ByteHashAsByteArray(entry.getProtectedStoragePayload());
+        index.put(hash, entry);
+
+        Assert.assertEquals(Collections.singleton(hash), index.getHashesByOwnerNodeAddress(TestState.getTestNodeAddress()));
+        Assert.assertTrue(index.getHashesByOwnerNodeAddress(new NodeAddress("other", 8000)).isEmpty());
+
+        index.remove(hash, entry);
+        Assert.assertTrue(index.getHashesByOwnerNodeAddress(TestState.getTestNodeAddress()).isEmpty());
+    }
+}
@@ -64,6 +64,10 @@ import static org.mockito.Mockito.*;
  */
 public class TestState {
     static final int MAX_SEQUENCE_NUMBER_MAP_SIZE_BEFORE_PURGE = 5;
+    // Low enough that tests using the filter with a few entries are deterministic in practice
+    static final double EXCLUDED_KEYS_FALSE_POSITIVE_RATE = 0.000001;
+    // Listeners are called immediately so the tests can verify them right after the operation
+    static final int STORAGE_LISTENER_BATCH_MILLIS = 0;
 
     P2PDataStorage mockedStorage;
     final Broadcaster mockBroadcaster;
@@ -84,7 +88,8 @@ public class TestState {
                 this.mockBroadcaster,
                 new AppendOnlyDataStoreServiceFake(),
                 this.protectedDataStoreService, mock(ResourceDataStoreService.class),
-                this.mockSeqNrStorage, this.clockFake, MAX_SEQUENCE_NUMBER_MAP_SIZE_BEFORE_PURGE);
+                this.mockSeqNrStorage, this.clockFake, MAX_SEQUENCE_NUMBER_MAP_SIZE_BEFORE_PURGE,
+                EXCLUDED_KEYS_FALSE_POSITIVE_RATE, STORAGE_LISTENER_BATCH_MILLIS);
 
         this.appendOnlyDataStoreListener = mock(AppendOnlyDataStoreListener.class);
         this.hashMapChangedListener = mock(HashMapChangedListener.class);
@@ -130,7 +135,8 @@ public class TestState {
                 broadcaster,
                 new AppendOnlyDataStoreServiceFake(),
                 protectedDataStoreService, mock(ResourceDataStoreService.class),
-                sequenceNrMapStorage, clock, MAX_SEQUENCE_NUMBER_MAP_SIZE_BEFORE_PURGE);
+                sequenceNrMapStorage, clock, MAX_SEQUENCE_NUMBER_MAP_SIZE_BEFORE_PURGE,
+                EXCLUDED_KEYS_FALSE_POSITIVE_RATE, STORAGE_LISTENER_BATCH_MILLIS);
 
         // Currently TestState only supports reading ProtectedStorageEntries off disk.
         p2PDataStorage.readFromResources("unused");
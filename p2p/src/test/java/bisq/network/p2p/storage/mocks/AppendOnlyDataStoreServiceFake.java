@@ -21,7 +21,9 @@ import bisq.network.p2p.storage.P2PDataStorage;
 import bisq.network.p2p.storage.payload.PersistableNetworkPayload;
 import bisq.network.p2p.storage.persistence.AppendOnlyDataStoreService;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -42,6 +44,14 @@ public class AppendOnlyDataStoreServiceFake extends AppendOnlyDataStoreService {
         return map;
     }
 
+    public List<P2PDataStorage.ByteArray> getKeys() {
+        return new ArrayList<>(map.keySet());
+    }
+
+    public PersistableNetworkPayload get(P2PDataStorage.ByteArray hashAsByteArray) {
+        return map.get(hashAsByteArray);
+    }
+
     public void put(P2PDataStorage.ByteArray hashAsByteArray, PersistableNetworkPayload payload) {
         map.put(hashAsByteArray, payload);
     }